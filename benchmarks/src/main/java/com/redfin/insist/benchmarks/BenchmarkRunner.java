@@ -0,0 +1,86 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.benchmarks;
+
+import com.redfin.validity.ValidityUtils;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+
+/**
+ * Entry point for the benchmarks jar. It accepts all the regular JMH command line options
+ * but, unless a result file or format is given, also writes the results as JSON to
+ * {@code baselines/insist-<version>.json} in the benchmarks module, wherever it's run from,
+ * so that runs can be diffed between releases.
+ */
+public final class BenchmarkRunner {
+
+    private static final String BASELINE_DIRECTORY = "baselines";
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp()) {
+            commandLineOptions.showHelp();
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLineOptions);
+        if (!commandLineOptions.getResult().hasValue() && !commandLineOptions.getResultFormat().hasValue()) {
+            File directory = getBaselineDirectory();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IllegalStateException("Unable to create the baseline directory: " + directory.getAbsolutePath());
+            }
+            builder.resultFormat(ResultFormatType.JSON)
+                   .result(new File(directory, "insist-" + getVersion() + ".json").getPath());
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static File getBaselineDirectory() {
+        // The benchmarks jar is built into the target directory of the benchmarks module
+        // so resolve the baselines against that module rather than the working directory
+        CodeSource codeSource = BenchmarkRunner.class.getProtectionDomain().getCodeSource();
+        if (null != codeSource && null != codeSource.getLocation()) {
+            try {
+                File targetDirectory = new File(codeSource.getLocation().toURI()).getParentFile();
+                if (null != targetDirectory && null != targetDirectory.getParentFile()) {
+                    return new File(targetDirectory.getParentFile(), BASELINE_DIRECTORY);
+                }
+            } catch (URISyntaxException | IllegalArgumentException ignored) {
+                // Not a file location, fall back to the working directory
+            }
+        }
+        return new File(BASELINE_DIRECTORY);
+    }
+
+    private static String getVersion() {
+        String version = BenchmarkRunner.class.getPackage().getImplementationVersion();
+        return (null == version) ? "unknown" : version;
+    }
+
+    private BenchmarkRunner() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
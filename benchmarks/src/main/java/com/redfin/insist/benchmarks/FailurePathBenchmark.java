@@ -0,0 +1,134 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.benchmarks;
+
+import com.redfin.insist.Insist;
+import com.redfin.insist.impl.InsistVerifiableFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the cost of a failed validation through the stack trimming executors, from
+ * the failed check through building, trimming and throwing the throwable. The stack depth
+ * parameter is the number of extra frames between the benchmark method and the failing
+ * check to simulate test runners and frameworks such as Spring or Cucumber.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FailurePathBenchmark {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Parameters
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The entry point to the library.
+     */
+    public enum EntryPoint {
+        ASSERTS,
+        ASSUMES
+    }
+
+    /**
+     * The shape of the custom message given to the factory.
+     */
+    public enum MessageShape {
+        /** No custom message, the executor default is used. */
+        NONE,
+        /** A constant String message. */
+        CONSTANT,
+        /** A supplier that builds the message when it is requested. */
+        SUPPLIED
+    }
+
+    @Param({"ASSERTS", "ASSUMES"})
+    private EntryPoint entryPoint;
+
+    @Param({"NONE", "CONSTANT", "SUPPLIED"})
+    private MessageShape messageShape;
+
+    @Param({"0", "50", "150", "300"})
+    private int stackDepth;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // State
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private InsistVerifiableFactory<? extends Throwable> factory;
+    private int subject = -1;
+
+    @Setup
+    public void setUp() {
+        InsistVerifiableFactory<? extends Throwable> base = (entryPoint == EntryPoint.ASSERTS) ? Insist.asserts() : Insist.assumes();
+        switch (messageShape) {
+            case NONE:
+                factory = base;
+                break;
+            case CONSTANT:
+                factory = base.withMessage("the subject should have been positive");
+                break;
+            case SUPPLIED:
+                Supplier<String> supplier = () -> "the subject " + subject + " should have been positive";
+                factory = base.withMessage(supplier);
+                break;
+            default:
+                throw new IllegalStateException("Unknown message shape: " + messageShape);
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Benchmarks
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Benchmark
+    public Throwable failedCheck() {
+        return descend(stackDepth);
+    }
+
+    @Benchmark
+    public String failedCheckWithMessage() {
+        return descend(stackDepth).getMessage();
+    }
+
+    private Throwable descend(int remaining) {
+        if (remaining > 0) {
+            return descend(remaining - 1);
+        }
+        try {
+            factory.that(subject).isStrictlyPositive();
+        } catch (Throwable thrown) {
+            return thrown;
+        }
+        throw new IllegalStateException("The validation should have failed");
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.benchmarks;
+
+import com.redfin.insist.InsistFuture;
+import com.redfin.insist.impl.InsistVerifiableFactory;
+import com.redfin.patience.PatientDelaySuppliers;
+import com.redfin.patience.PatientExecutionHandlers;
+import com.redfin.patience.PatientRetry;
+import com.redfin.patience.PatientWait;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opentest4j.AssertionFailedError;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.redfin.insist.Insist.asserts;
+
+/**
+ * Measures the overhead of the patient futures and of {@code thatThrows}. The futures are
+ * configured with zero delays so that the numbers reflect the cost of the library rather
+ * than the time spent sleeping between attempts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FutureBenchmark {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Parameters
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The kind of future being measured.
+     */
+    public enum FutureType {
+        WAIT,
+        RETRY
+    }
+
+    @Param({"WAIT", "RETRY"})
+    private FutureType futureType;
+
+    /**
+     * The attempt on which the condition first becomes true.
+     */
+    @Param({"1", "3", "10"})
+    private int successfulAttempt;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // State
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private InsistFuture<AssertionFailedError> future;
+    private int attempts;
+
+    @Setup
+    public void setUp() {
+        InsistVerifiableFactory<AssertionFailedError> factory = asserts();
+        switch (futureType) {
+            case WAIT:
+                future = factory.withWait(PatientWait.builder()
+                                                     .withInitialDelay(Duration.ZERO)
+                                                     .withExecutionHandler(PatientExecutionHandlers.ignoringAll())
+                                                     .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ZERO))
+                                                     .build())
+                                .within(Duration.ofMinutes(1));
+                break;
+            case RETRY:
+                future = factory.withRetry(PatientRetry.builder()
+                                                       .withInitialDelay(Duration.ZERO)
+                                                       .withExecutionHandler(PatientExecutionHandlers.ignoringAll())
+                                                       .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ZERO))
+                                                       .build())
+                                .within(successfulAttempt);
+                break;
+            default:
+                throw new IllegalStateException("Unknown future type: " + futureType);
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Benchmarks
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Benchmark
+    public int thatEventually() {
+        attempts = 0;
+        future.thatEventually(() -> ++attempts >= successfulAttempt);
+        return attempts;
+    }
+
+    @Benchmark
+    public Throwable thatEventuallyThrows() {
+        attempts = 0;
+        return future.thatEventuallyThrows(IllegalStateException.class,
+                                           () -> {
+                                               if (++attempts >= successfulAttempt) {
+                                                   throw new IllegalStateException();
+                                               }
+                                           });
+    }
+
+    @Benchmark
+    public Object defaultWithinDurationFactory() {
+        return asserts().within(Duration.ZERO);
+    }
+
+    @Benchmark
+    public Object defaultWithinRetriesFactory() {
+        return asserts().within(successfulAttempt);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.redfin.insist.Insist.asserts;
+import static com.redfin.insist.Insist.assumes;
+
+/**
+ * Measures the cost of validations that succeed, which is by far the most common path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PassPathBenchmark {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // State
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Non-final fields so that the JIT can't constant fold the subjects.
+     */
+
+    private int intSubject = 42;
+    private long longSubject = 42L;
+    private double doubleSubject = 42.0;
+    private String stringSubject = "hello, world";
+    private Object objectSubject = new Object();
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Benchmarks
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Benchmark
+    public int assertsIntIsGreaterThan() {
+        return asserts().that(intSubject).isGreaterThan(0);
+    }
+
+    @Benchmark
+    public long assertsLongIsGreaterThan() {
+        return asserts().that(longSubject).isGreaterThan(0L);
+    }
+
+    @Benchmark
+    public double assertsDoubleIsGreaterThan() {
+        return asserts().that(doubleSubject).isGreaterThan(0.0);
+    }
+
+    @Benchmark
+    public String assertsStringStartsWith() {
+        return asserts().that(stringSubject).startsWith("hello");
+    }
+
+    @Benchmark
+    public Object assertsObjectIsNotNull() {
+        return asserts().that(objectSubject).isNotNull();
+    }
+
+    @Benchmark
+    public Object assertsWithMessageIsNotNull() {
+        return asserts().withMessage("the object should not be null").that(objectSubject).isNotNull();
+    }
+
+    @Benchmark
+    public Object assumesObjectIsNotNull() {
+        return assumes().that(objectSubject).isNotNull();
+    }
+}
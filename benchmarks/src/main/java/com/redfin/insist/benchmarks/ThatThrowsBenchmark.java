@@ -0,0 +1,65 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.redfin.insist.Insist.asserts;
+
+/**
+ * Measures the cost of {@code thatThrows} both when the expected throwable is thrown
+ * and when nothing is thrown and the check fails.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ThatThrowsBenchmark {
+
+    /*
+     * A pre-built exception so that only the cost of the library is measured.
+     */
+
+    private final IllegalStateException expected = new IllegalStateException("expected");
+
+    @Benchmark
+    public Throwable thatThrowsExpected() {
+        return asserts().thatThrows(IllegalStateException.class, () -> { throw expected; });
+    }
+
+    @Benchmark
+    public Throwable thatThrowsNothing() {
+        try {
+            asserts().thatThrows(IllegalStateException.class, () -> { });
+        } catch (AssertionError error) {
+            return error;
+        }
+        throw new IllegalStateException("The validation should have failed");
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import com.redfin.insist.impl.EventualConditions;
+import com.redfin.insist.impl.PendingKeys;
+import com.redfin.validity.ValidityUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * The conditions polled by the default methods of {@link InsistFuture}. They let an implementation
+ * only provide {@link InsistFuture#thatEventually(BooleanSupplier)}, at the cost of checking the
+ * state of each event at every attempt instead of waiting for it.
+ */
+final class EventualChecks {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    static <E> BooleanSupplier received(BlockingQueue<E> queue,
+                                        AtomicReference<E> element) {
+        validate().that(queue).isNotNull();
+        return () -> {
+            E polled = queue.poll();
+            if (null == polled) {
+                return false;
+            }
+            element.set(polled);
+            return true;
+        };
+    }
+
+    static BooleanSupplier sizeAtLeast(Path file,
+                                       long minimumSize) {
+        validate().that(file).isNotNull();
+        validate().that(minimumSize).isAtLeast(0L);
+        return () -> {
+            try {
+                return Files.isRegularFile(file) && Files.size(file) >= minimumSize;
+            } catch (IOException exception) {
+                // Removed in the meantime
+                return false;
+            }
+        };
+    }
+
+    static BooleanSupplier entries(Path directory,
+                                   String glob,
+                                   int count) {
+        validate().that(directory).isNotNull();
+        validate().that(glob).isNotNull();
+        validate().that(count).isAtLeast(0);
+        PathMatcher matcher;
+        try {
+            matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Invalid glob: " + glob, exception);
+        }
+        return () -> {
+            if (!Files.isDirectory(directory)) {
+                return 0 == count;
+            }
+            int matched = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    if (matcher.matches(entry.getFileName()) && ++matched >= count) {
+                        return true;
+                    }
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return matched >= count;
+        };
+    }
+
+    static BooleanSupplier hasLine(Path file,
+                                   Pattern pattern,
+                                   AtomicReference<String> line) {
+        validate().that(file).isNotNull();
+        validate().that(pattern).isNotNull();
+        return () -> {
+            if (!Files.isRegularFile(file)) {
+                return false;
+            }
+            // Only complete lines count so a line being written isn't matched early
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                StringBuilder current = new StringBuilder();
+                int read;
+                while ((read = reader.read()) >= 0) {
+                    if ('\n' != read) {
+                        current.append((char) read);
+                        continue;
+                    }
+                    int length = current.length();
+                    if (length > 0 && '\r' == current.charAt(length - 1)) {
+                        current.setLength(length - 1);
+                    }
+                    if (pattern.matcher(current).find()) {
+                        line.set(current.toString());
+                        return true;
+                    }
+                    current.setLength(0);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return false;
+        };
+    }
+
+    static <X extends Throwable> void awaitConditions(InsistFuture<X> future,
+                                                      EventualConditions conditions,
+                                                      boolean all) throws X {
+        awaitPending(future, all ? conditions::allPassed : conditions::anyPassed, conditions::describePending);
+    }
+
+    static <X extends Throwable> void awaitKeys(InsistFuture<X> future,
+                                                PendingKeys<?> keys) throws X {
+        awaitPending(future, keys::resolve, keys::describePending);
+    }
+
+    private static <X extends Throwable> void awaitPending(InsistFuture<X> future,
+                                                           Attempt attempt,
+                                                           Supplier<String> pendingDescriber) throws X {
+        AtomicReference<Throwable> thrownByAttempt = new AtomicReference<>();
+        try {
+            future.thatEventually(() -> {
+                try {
+                    return attempt.passed();
+                } catch (Throwable thrown) {
+                    thrownByAttempt.set(thrown);
+                    if (thrown instanceof RuntimeException) {
+                        throw (RuntimeException) thrown;
+                    } else if (thrown instanceof Error) {
+                        throw (Error) thrown;
+                    } else if (thrown instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new CompletionException(thrown);
+                }
+            });
+        } catch (Throwable thrown) {
+            if (thrown != thrownByAttempt.get()) {
+                thrown.addSuppressed(new Pending(pendingDescriber.get()));
+            }
+            throw thrown;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+
+        boolean passed() throws Throwable;
+    }
+
+    /*
+     * A default method can only fail the way thatEventually does, so what was still pending
+     * is added to that failure as a suppressed throwable rather than to its message.
+     */
+
+    private static final class Pending
+                       extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Pending(String description) {
+            super(description, null, false, false);
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private EventualChecks() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
@@ -18,11 +18,19 @@ package com.redfin.insist;
 
 import com.redfin.insist.executor.AbortedFailedValidationExecutor;
 import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.insist.executor.ExpectationFailedException;
+import com.redfin.insist.executor.ExpectationFailedValidationExecutor;
+import com.redfin.insist.executor.SoftFailureCollector;
 import com.redfin.insist.impl.InsistVerifiableFactory;
 import com.redfin.validity.ValidityUtils;
 import org.opentest4j.AssertionFailedError;
+import org.opentest4j.MultipleFailuresError;
 import org.opentest4j.TestAbortedException;
 
+import java.util.function.Consumer;
+
+import static com.redfin.validity.Validity.validate;
+
 /**
  * A static class used as the entry point in using the Insist library.
  */
@@ -70,6 +78,89 @@ public final class Insist {
         return NULL_MESSAGE_ASSUME_FACTORY;
     }
 
+    /**
+     * @return an {@link InsistVerifiableFactory} instance with the default message prefix that
+     * throws a stackless {@link ExpectationFailedException} on validation failure. The caller frame
+     * is only located for every 1000th failure, or as set by the {@code insist.expects.sampleEvery}
+     * system property, see {@link #expects(int)}.
+     */
+    public static InsistVerifiableFactory<ExpectationFailedException> expects() {
+        return ExpectsHolder.NULL_MESSAGE_EXPECT_FACTORY;
+    }
+
+    /**
+     * @param sampleEvery the caller frame is located and set as the stack trace for every failure
+     *                    whose count is a multiple of this, starting with the first. Zero means never
+     *                    and one means for every failure.
+     *                    May not be negative.
+     *
+     * @return a new {@link InsistVerifiableFactory} instance with the default message prefix that
+     * throws a stackless {@link ExpectationFailedException} on validation failure.
+     *
+     * @throws IllegalArgumentException if sampleEvery is negative.
+     */
+    public static InsistVerifiableFactory<ExpectationFailedException> expects(int sampleEvery) {
+        return new InsistVerifiableFactory<>(() -> null, new ExpectationFailedValidationExecutor(sampleEvery));
+    }
+
+    /**
+     * Like calling {@link #softly(int, Consumer)} with {@link SoftFailureCollector#DEFAULT_MAX_RECORDED_FAILURES}.
+     *
+     * @param scope the {@link Consumer} making the soft assertions with the factory it's given.
+     *              May not be null.
+     *
+     * @throws MultipleFailuresError    if any of the soft assertions failed.
+     * @throws IllegalArgumentException if scope is null.
+     */
+    public static void softly(Consumer<InsistVerifiableFactory<AssertionFailedError>> scope) {
+        softly(SoftFailureCollector.DEFAULT_MAX_RECORDED_FAILURES, scope);
+    }
+
+    /**
+     * Run the scope with an {@link InsistVerifiableFactory} whose assertions don't throw when they
+     * fail but are collected and then thrown together as a single {@link MultipleFailuresError}
+     * once the scope is done. The factory may be used from several threads at once as long as they
+     * are done before the scope returns. If the scope throws then the collected failures are added
+     * to what it threw as a suppressed {@link MultipleFailuresError}.
+     *
+     * @param maxRecordedFailures the maximum number of failures to keep in the error, further
+     *                            failures are only counted.
+     *                            Must be strictly positive.
+     * @param scope               the {@link Consumer} making the soft assertions with the factory it's given.
+     *                            May not be null.
+     *
+     * @throws MultipleFailuresError    if any of the soft assertions failed.
+     * @throws IllegalArgumentException if maxRecordedFailures isn't strictly positive or if scope is null.
+     */
+    public static void softly(int maxRecordedFailures,
+                              Consumer<InsistVerifiableFactory<AssertionFailedError>> scope) {
+        validate().that(scope).isNotNull();
+        SoftFailureCollector collector = new SoftFailureCollector(maxRecordedFailures);
+        try {
+            scope.accept(new InsistVerifiableFactory<>(() -> null, collector));
+        } catch (RuntimeException | Error thrown) {
+            try {
+                collector.throwIfFailed();
+            } catch (MultipleFailuresError failures) {
+                thrown.addSuppressed(failures);
+            }
+            throw thrown;
+        }
+        collector.throwIfFailed();
+    }
+
+    /*
+     * The system property is only read, and validated, the first time expects() is called so
+     * that a negative value only fails expects() rather than the initialization of Insist,
+     * which would break asserts() and assumes() as well.
+     */
+
+    private static final class ExpectsHolder {
+
+        private static final InsistVerifiableFactory<ExpectationFailedException> NULL_MESSAGE_EXPECT_FACTORY =
+                new InsistVerifiableFactory<>(() -> null, new ExpectationFailedValidationExecutor(Integer.getInteger("insist.expects.sampleEvery", 1000)));
+    }
+
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     // Instance Methods
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -0,0 +1,44 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import com.redfin.patience.PatientSleep;
+
+/**
+ * The source of time for the eventual validations of Insist. It is used both to
+ * measure how long a wait has taken and to sleep between attempts, so replacing it
+ * with a {@link VirtualClock} lets tests of timeout logic run without actually
+ * waiting.
+ */
+public interface InsistClock
+         extends PatientSleep {
+
+    /**
+     * @return the clock backed by {@link System#nanoTime()} and {@link Thread#sleep(long, int)}.
+     */
+    static InsistClock system() {
+        return SystemClock.INSTANCE;
+    }
+
+    /**
+     * Like {@link System#nanoTime()}, the returned value is only meaningful when
+     * compared with other values returned by the same clock.
+     *
+     * @return the current value of this clock in nanoseconds.
+     */
+    long nanoTime();
+}
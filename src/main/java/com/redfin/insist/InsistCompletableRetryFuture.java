@@ -31,7 +31,8 @@ public interface InsistCompletableRetryFuture<X extends Throwable>
      *                   A value of zero means to try only once.
      *                   May not be negative.
      *
-     * @return an {@link InsistFuture} with the given timeout characteristics.
+     * @return an {@link InsistFuture} with the given number of retries characteristics. This instance is not changed
+     * and is returned itself if it already has the given number of retries.
      *
      * @throws IllegalArgumentException if numRetries is negative.
      */
@@ -31,9 +31,56 @@ public interface InsistCompletableWaitFuture<X extends Throwable>
     /**
      * @param timeout the maximum {@link Duration} to wait for successful validation.
      *
-     * @return an {@link InsistFuture} with the given timeout characteristics.
+     * @return an {@link InsistFuture} with the given timeout characteristics. This instance is not changed
+     * and is returned itself if it already has the given timeout.
      *
      * @throws IllegalArgumentException if timeout is null or negative.
      */
     InsistFuture<X> within(Duration timeout);
+
+    /**
+     * Opt in to giving up on attempts that hang. Each attempt of {@link #thatEventually(java.util.function.BooleanSupplier)},
+     * and of the validations built on it, and of {@link #thatEventuallyThrows(Class, com.redfin.insist.InsistExecutable)}
+     * is run on a shared, bounded pool of worker threads, virtual threads where available, and is given up on if it doesn't
+     * return within the attempt timeout. An attempt that is given up on is interrupted, abandoned and counted as a failed
+     * attempt. An abandoned attempt that ignores the interrupt keeps its worker, so no further attempt is started until
+     * it returns, or with {@link #withHedging(Duration, int)} until fewer than the maximum in flight are still running,
+     * and a hung condition can't take up every worker. The overall timeout is then strict: nothing is waited for beyond it, even an attempt that is still running.
+     * The failure message includes how many of the attempts timed out. Attempts can only be given up on in real time so
+     * the attempt timeout isn't used with a {@link com.redfin.insist.VirtualClock}. The event validations, like
+     * {@link #thatEventuallyReceives(java.util.concurrent.BlockingQueue)}, already never wait beyond the timeout and
+     * {@link #thatEventuallyAsync(java.util.function.BooleanSupplier)} never blocks, so neither is affected.
+     *
+     * @param attemptTimeout the maximum {@link Duration} to wait for each attempt.
+     *                       May not be null and must be positive.
+     *
+     * @return an {@link InsistCompletableWaitFuture} with the same timeout as this one that times out attempts.
+     * This instance is not changed and is returned itself if it already has the given attempt timeout.
+     *
+     * @throws IllegalArgumentException if attemptTimeout is null or isn't positive.
+     */
+    InsistCompletableWaitFuture<X> withAttemptTimeout(Duration attemptTimeout);
+
+    /**
+     * Opt in to hedging slow attempts. The attempts are run on the same workers as with
+     * {@link #withAttemptTimeout(Duration)}, but if an attempt hasn't returned within the hedge delay another attempt
+     * is started alongside it, and so on after each further hedge delay until the given number of attempts are running
+     * at once. The first of them to succeed is used and the rest are interrupted and abandoned. Only once all of them
+     * have failed is the next delay waited for. Set the hedge delay to a high percentile of how long the condition
+     * usually takes, e.g. its 95th percentile, so that only the slowest attempts are hedged. The condition may then be
+     * called from several threads at once. The overall timeout is strict as with an attempt timeout, and the two may
+     * be combined. Like the attempt timeout, hedging only applies in real time.
+     *
+     * @param hedgeDelay  the {@link Duration} after which another attempt is started if none of those running
+     *                    has returned.
+     *                    May not be null and must be positive.
+     * @param maxInFlight the maximum number of attempts running at once.
+     *                    Must be at least two.
+     *
+     * @return an {@link InsistCompletableWaitFuture} with the same timeout as this one that hedges attempts.
+     * This instance is not changed and is returned itself if it already hedges the same way.
+     *
+     * @throws IllegalArgumentException if hedgeDelay is null or isn't positive or if maxInFlight is less than two.
+     */
+    InsistCompletableWaitFuture<X> withHedging(Duration hedgeDelay, int maxInFlight);
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import com.redfin.patience.PatientDelaySupplierFactory;
+import com.redfin.validity.ValidityUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * Delay profiles for the eventual validations of Insist, in addition to the ones
+ * offered by {@link com.redfin.patience.PatientDelaySuppliers}.
+ */
+public final class InsistDelaySuppliers {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final Duration DEFAULT_INITIAL_DELAY = Duration.ofNanos(500_000);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(500);
+    private static final double DEFAULT_MULTIPLIER = 2.0;
+
+    private static final PatientDelaySupplierFactory DEFAULT_ADAPTIVE = adaptive(DEFAULT_INITIAL_DELAY,
+                                                                                 DEFAULT_MAX_DELAY,
+                                                                                 DEFAULT_MULTIPLIER);
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Like calling {@link #adaptive(Duration, Duration, double)} with an initial delay of
+     * half a millisecond, a maximum delay of 500 milliseconds, and a multiplier of 2.
+     *
+     * @return the default adaptive {@link PatientDelaySupplierFactory}.
+     */
+    public static PatientDelaySupplierFactory adaptive() {
+        return DEFAULT_ADAPTIVE;
+    }
+
+    /**
+     * Create a delay profile that starts short and backs off exponentially up to a cap. Conditions
+     * that become true quickly are noticed quickly, while conditions that take a long time are polled
+     * no more often than the cap allows. Each delay is jittered uniformly between half and all of its
+     * nominal value so that many concurrent waits don't poll in lock step.
+     *
+     * @param initialDelay the nominal {@link Duration} of the first delay.
+     *                     May not be null and must be strictly positive.
+     * @param maxDelay     the nominal {@link Duration} that the delays stop growing at.
+     *                     May not be null and must be at least initialDelay.
+     * @param multiplier   the factor each nominal delay grows by.
+     *                     Must be at least 1.
+     *
+     * @return a {@link PatientDelaySupplierFactory} that creates a new sequence of delays for each wait.
+     *
+     * @throws IllegalArgumentException if any argument is invalid.
+     */
+    public static PatientDelaySupplierFactory adaptive(Duration initialDelay,
+                                                       Duration maxDelay,
+                                                       double multiplier) {
+        validate().that(initialDelay).isGreaterThan(Duration.ZERO);
+        validate().that(maxDelay).isAtLeast(initialDelay);
+        validate().that(multiplier).isAtLeast(1.0);
+        long initialNanos = initialDelay.toNanos();
+        long maxNanos = maxDelay.toNanos();
+        return () -> new AdaptiveDelaySupplier(initialNanos, maxNanos, multiplier);
+    }
+
+    /*
+     * Only used by a single wait at a time so it doesn't need to be thread safe.
+     */
+
+    private static final class AdaptiveDelaySupplier
+                    implements Supplier<Duration> {
+
+        private final long maxNanos;
+        private final double multiplier;
+
+        private long nextNanos;
+
+        private AdaptiveDelaySupplier(long initialNanos,
+                                      long maxNanos,
+                                      double multiplier) {
+            this.nextNanos = initialNanos;
+            this.maxNanos = maxNanos;
+            this.multiplier = multiplier;
+        }
+
+        @Override
+        public Duration get() {
+            long nominal = nextNanos;
+            nextNanos = (long) Math.min(maxNanos, nominal * multiplier);
+            long half = nominal / 2;
+            return Duration.ofNanos(half + ThreadLocalRandom.current().nextLong(nominal - half + 1));
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private InsistDelaySuppliers() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
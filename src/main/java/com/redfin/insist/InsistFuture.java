@@ -16,13 +16,35 @@
 
 package com.redfin.insist;
 
+import com.redfin.insist.impl.EventualConditions;
+import com.redfin.insist.impl.PendingKeys;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static com.redfin.validity.Validity.validate;
 
 /**
  * An InsistFuture represents the final type in patient
  * validation for waiting until a true result is returned.
+ * <p>
+ * Instances are immutable so a configured InsistFuture can be kept, e.g.
+ * in a static field, and used from any number of threads at once.
  *
  * @param <X> the type of Throwable thrown if validation never succeeds.
  */
@@ -43,6 +65,143 @@ public interface InsistFuture<X extends Throwable> {
      */
     void thatEventually(BooleanSupplier supplier) throws X;
 
+    /**
+     * Asynchronous version of {@link #thatEventually(BooleanSupplier)}. The attempts are
+     * timed by a shared scheduler and run on a shared, bounded pool of worker threads, so
+     * no thread is held while waiting between attempts.
+     * The calling thread is never blocked. If the supplier returns true, then the returned
+     * stage completes normally. If true is never received from the supplier within the
+     * set time or number of iterations for this instance, then the returned stage completes
+     * exceptionally with the throwable of type X from the failed validation executor.
+     * Cancelling the returned stage stops any further attempts.
+     * <p>
+     * The default implementation calls {@link #thatEventually(BooleanSupplier)} on the common
+     * {@link java.util.concurrent.ForkJoinPool} instead, so it holds one of its threads while
+     * waiting and cancelling the returned stage doesn't stop the attempts.
+     *
+     * @param supplier the supplier of boolean values for validation attempts.
+     *                 May not be null.
+     *
+     * @return a {@link CompletionStage} that completes once validation is done.
+     *
+     * @throws IllegalArgumentException if supplier is null.
+     */
+    default CompletionStage<Void> thatEventuallyAsync(BooleanSupplier supplier) {
+        validate().that(supplier).isNotNull();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        // Completed here rather than by runAsync, which would wrap the throwable in a CompletionException
+        CompletableFuture.runAsync(() -> {
+            try {
+                thatEventually(supplier);
+                future.complete(null);
+            } catch (Throwable thrown) {
+                future.completeExceptionally(thrown);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Wait for every one of the conditions to have been true, in a single loop of attempts as defined by
+     * the wait or retry implementation of this instance. Each attempt calls, one after the other, only
+     * the conditions that haven't been true yet, so a condition isn't called again once it has been true.
+     * The attempt succeeds once all of them have been true. If some of them are never true within the set
+     * time or number of iterations for this instance, then throw a throwable of type X whose message lists
+     * the indices of those conditions.
+     * <p>
+     * The default implementation fails like {@link #thatEventually(BooleanSupplier)} does, with the
+     * indices of the conditions added to that failure as a suppressed throwable instead of to its message.
+     *
+     * @param conditions the conditions to wait for.
+     *                   May not be null or empty or contain null.
+     *
+     * @throws X                        if any condition is never true in time.
+     * @throws IllegalArgumentException if conditions is null or empty or contains null.
+     */
+    default void thatEventuallyAll(BooleanSupplier... conditions) throws X {
+        EventualChecks.awaitConditions(this, new EventualConditions(conditions, null), true);
+    }
+
+    /**
+     * Like {@link #thatEventuallyAll(BooleanSupplier...)} but the conditions that haven't been true yet
+     * are called all at once on the given executor during each attempt, which waits for all of them to
+     * return. Use this for conditions that are slow, e.g. remote calls, so each attempt takes about as
+     * long as the slowest of them.
+     *
+     * @param executor   the {@link Executor} to call the conditions on.
+     *                   May not be null.
+     * @param conditions the conditions to wait for.
+     *                   May not be null or empty or contain null.
+     *
+     * @throws X                        if any condition is never true in time.
+     * @throws IllegalArgumentException if executor is null or if conditions is null or empty or contains null.
+     */
+    default void thatEventuallyAll(Executor executor, BooleanSupplier... conditions) throws X {
+        validate().that(executor).isNotNull();
+        EventualChecks.awaitConditions(this, new EventualConditions(conditions, executor), true);
+    }
+
+    /**
+     * Wait for any one of the conditions to be true, in a single loop of attempts as defined by the wait
+     * or retry implementation of this instance. Each attempt calls the conditions one after the other
+     * until one of them is true. If none of them is true within the set time or number of iterations for
+     * this instance, then throw a throwable of type X.
+     *
+     * @param conditions the conditions to wait for.
+     *                   May not be null or empty or contain null.
+     *
+     * @throws X                        if no condition is true in time.
+     * @throws IllegalArgumentException if conditions is null or empty or contains null.
+     */
+    default void thatEventuallyAny(BooleanSupplier... conditions) throws X {
+        EventualChecks.awaitConditions(this, new EventualConditions(conditions, null), false);
+    }
+
+    /**
+     * Like {@link #thatEventuallyAny(BooleanSupplier...)} but the conditions are called all at once on
+     * the given executor during each attempt, which waits for all of them to return.
+     *
+     * @param executor   the {@link Executor} to call the conditions on.
+     *                   May not be null.
+     * @param conditions the conditions to wait for.
+     *                   May not be null or empty or contain null.
+     *
+     * @throws X                        if no condition is true in time.
+     * @throws IllegalArgumentException if executor is null or if conditions is null or empty or contains null.
+     */
+    default void thatEventuallyAny(Executor executor, BooleanSupplier... conditions) throws X {
+        validate().that(executor).isNotNull();
+        EventualChecks.awaitConditions(this, new EventualConditions(conditions, executor), false);
+    }
+
+    /**
+     * Wait for every one of the keys to be resolved by the batch lookup, e.g. for a set of ids to show up
+     * in an index. Each attempt, as defined by the wait or retry implementation of this instance, calls
+     * the lookup with only the keys that haven't been resolved yet and removes the keys it returns from
+     * them, so the lookups get smaller as keys are resolved. Only the pending keys are kept, in a set that
+     * shrinks along with them. If some of the keys are never resolved within the set time or number of
+     * iterations for this instance, then throw a throwable of type X whose message gives the number of
+     * pending keys and lists the first few of them.
+     * <p>
+     * The default implementation fails like {@link #thatEventually(BooleanSupplier)} does, with the
+     * pending keys added to that failure as a suppressed throwable instead of to its message.
+     *
+     * @param keys   the keys to wait for. Duplicates are ignored.
+     *               May not be null.
+     * @param lookup the {@link Function} given an unmodifiable set of the pending keys that returns those
+     *               of them that are resolved. Any other elements of the returned collection are ignored
+     *               and returning null is the same as returning an empty collection.
+     *               May not be null.
+     * @param <K>    the type of the keys.
+     *
+     * @throws X                        if any key is never resolved in time.
+     * @throws IllegalArgumentException if keys or lookup are null.
+     */
+    default <K> void thatEventuallyResolves(Collection<? extends K> keys,
+                                            Function<? super Set<K>, ? extends Collection<?>> lookup) throws X {
+        EventualChecks.awaitKeys(this, new PendingKeys<>(keys, lookup));
+    }
+
     /**
      * Repeatedly call the Optional supplier as defined by the wait or retry
      * implementation of this instance. If the supplier returns a non-empty
@@ -76,6 +235,155 @@ public interface InsistFuture<X extends Throwable> {
      */
     void thatEventuallyIsNotNull(Supplier<?> supplier) throws X;
 
+    /**
+     * Wait for an element to be available from the queue and remove it. Rather than polling, this
+     * blocks in {@link BlockingQueue#poll(long, TimeUnit)} so it returns the moment an element
+     * arrives. A wait implementation blocks until its timeout. A retry implementation makes the same
+     * number of attempts as it would for {@link #thatEventually(BooleanSupplier)} but waits on the
+     * queue, instead of sleeping, for each delay between them. If no element arrives in time, then
+     * throw a throwable of type X.
+     * <p>
+     * The default implementation polls the queue with {@link #thatEventually(BooleanSupplier)} instead.
+     *
+     * @param queue the {@link BlockingQueue} to take an element from.
+     *              May not be null.
+     * @param <E>   the type of the elements of the queue.
+     *
+     * @return the element removed from the queue or null if no element arrived and the
+     * failed validation executor didn't throw.
+     *
+     * @throws X                        if no element arrives in time.
+     * @throws IllegalArgumentException if queue is null.
+     */
+    default <E> E thatEventuallyReceives(BlockingQueue<E> queue) throws X {
+        AtomicReference<E> element = new AtomicReference<>();
+        thatEventually(EventualChecks.received(queue, element));
+        return element.get();
+    }
+
+    /**
+     * Wait for the future to be done, blocking in {@link Future#get(long, TimeUnit)} so that this returns
+     * the moment it completes. Like {@link Future#isDone()}, completing exceptionally or being cancelled
+     * counts as being done. The timing is the same as for {@link #thatEventuallyReceives(BlockingQueue)}.
+     * If the future isn't done in time, then throw a throwable of type X.
+     * <p>
+     * The default implementation polls {@link Future#isDone()} with {@link #thatEventually(BooleanSupplier)} instead.
+     *
+     * @param future the {@link Future} to wait for.
+     *               May not be null.
+     *
+     * @throws X                        if the future isn't done in time.
+     * @throws IllegalArgumentException if future is null.
+     */
+    default void thatEventuallyCompletes(Future<?> future) throws X {
+        validate().that(future).isNotNull();
+        thatEventually(future::isDone);
+    }
+
+    /**
+     * Wait for the latch to reach zero, blocking in {@link CountDownLatch#await(long, TimeUnit)} so that
+     * this returns the moment it does. The timing is the same as for {@link #thatEventuallyReceives(BlockingQueue)}.
+     * If the latch doesn't reach zero in time, then throw a throwable of type X.
+     * <p>
+     * The default implementation polls the count with {@link #thatEventually(BooleanSupplier)} instead.
+     *
+     * @param latch the {@link CountDownLatch} to wait for.
+     *              May not be null.
+     *
+     * @throws X                        if the latch doesn't reach zero in time.
+     * @throws IllegalArgumentException if latch is null.
+     */
+    default void thatEventuallyCountsDown(CountDownLatch latch) throws X {
+        validate().that(latch).isNotNull();
+        thatEventually(() -> 0 == latch.getCount());
+    }
+
+    /**
+     * Wait for the file to exist. Rather than repeatedly checking the file, this watches its
+     * directory with a {@link java.nio.file.WatchService} and wakes up when the directory changes.
+     * A directory that doesn't exist yet is waited for by watching its nearest existing ancestor
+     * and the file is checked again if change events are lost. Only if no directory can be watched
+     * does this fall back to checking at a bounded interval. The timing is the same as for {@link #thatEventuallyReceives(BlockingQueue)}.
+     * If the file doesn't exist in time, then throw a throwable of type X.
+     * <p>
+     * The default implementation checks the file with {@link #thatEventually(BooleanSupplier)} instead
+     * of watching its directory, as do the defaults of the other file methods.
+     *
+     * @param file the {@link Path} of the file to wait for.
+     *             May not be null.
+     *
+     * @throws X                        if the file doesn't exist in time.
+     * @throws IllegalArgumentException if file is null.
+     */
+    default void thatEventuallyExists(Path file) throws X {
+        validate().that(file).isNotNull();
+        thatEventually(() -> Files.exists(file));
+    }
+
+    /**
+     * Wait for the file to exist and be at least the given number of bytes in size.
+     * The file is watched as for {@link #thatEventuallyExists(Path)}.
+     * If the file isn't large enough in time, then throw a throwable of type X.
+     *
+     * @param file        the {@link Path} of the file to wait for.
+     *                    May not be null.
+     * @param minimumSize the minimum size of the file in bytes.
+     *                    May not be negative.
+     *
+     * @throws X                        if the file isn't large enough in time.
+     * @throws IllegalArgumentException if file is null or if minimumSize is negative.
+     */
+    default void thatEventuallyHasSizeAtLeast(Path file, long minimumSize) throws X {
+        thatEventually(EventualChecks.sizeAtLeast(file, minimumSize));
+    }
+
+    /**
+     * Wait for the directory to contain at least the given number of entries whose names match the glob.
+     * The directory is listed once and the matching entries are then counted from its change events.
+     * If there aren't enough matching entries in time, then throw a throwable of type X.
+     *
+     * @param directory the {@link Path} of the directory to wait for.
+     *                  May not be null.
+     * @param glob      the glob pattern, as for {@link java.nio.file.FileSystem#getPathMatcher(String)},
+     *                  that the names of the entries must match.
+     *                  May not be null.
+     * @param count     the minimum number of matching entries.
+     *                  May not be negative.
+     *
+     * @throws X                        if there aren't enough matching entries in time.
+     * @throws IllegalArgumentException if directory or glob are null, if glob is invalid,
+     *                                  or if count is negative.
+     */
+    default void thatEventuallyContains(Path directory, String glob, int count) throws X {
+        thatEventually(EventualChecks.entries(directory, glob, count));
+    }
+
+    /**
+     * Follow the UTF-8 text file, such as a log, until it has a complete line containing a match of the pattern.
+     * Only the bytes appended since the last read are read so the cost of following the file grows with its
+     * length rather than with the number of times it's checked. The file is watched as for
+     * {@link #thatEventuallyExists(Path)}. If the file is replaced, e.g. by log rotation, then the rest of the
+     * old file is read before the new one is followed from its start. If the file is truncated then it's
+     * followed from its start. If no line matches in time, then throw a throwable of type X.
+     * <p>
+     * The default implementation reads the whole file at every attempt of {@link #thatEventually(BooleanSupplier)} instead.
+     *
+     * @param file    the {@link Path} of the file to follow.
+     *                May not be null.
+     * @param pattern the {@link Pattern} that the line must contain a match of.
+     *                May not be null.
+     *
+     * @return the first matching line, without its line terminator.
+     *
+     * @throws X                        if no line matches in time.
+     * @throws IllegalArgumentException if file or pattern are null.
+     */
+    default String thatEventuallyHasLine(Path file, Pattern pattern) throws X {
+        AtomicReference<String> line = new AtomicReference<>();
+        thatEventually(EventualChecks.hasLine(file, pattern, line));
+        return line.get();
+    }
+
     /**
      * Repeatedly call the executable as defined by the wait or retry
      * implementation of this instance. If the executable throws a throwable of type T,
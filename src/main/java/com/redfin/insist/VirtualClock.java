@@ -0,0 +1,141 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import java.time.Duration;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * An {@link InsistClock} whose time only moves when told to. It starts at zero and
+ * comes in two modes:
+ * <ul>
+ * <li>An automatic clock advances itself by the requested amount whenever something sleeps
+ * on it, so an eventual validation with a timeout of an hour finishes immediately while
+ * still making the same number of attempts it would have made in real time. This assumes
+ * the condition being checked doesn't depend on real time passing.</li>
+ * <li>A manual clock blocks sleeping threads until another thread calls {@link #advance(Duration)}
+ * far enough for them to wake up. This lets a test step a validation running on another
+ * thread through time.</li>
+ * </ul>
+ * Instances are thread safe.
+ */
+public final class VirtualClock
+        implements InsistClock {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return a new {@link VirtualClock} that advances itself whenever something sleeps on it.
+     */
+    public static VirtualClock automatic() {
+        return new VirtualClock(true);
+    }
+
+    /**
+     * @return a new {@link VirtualClock} that only advances when {@link #advance(Duration)} is called.
+     */
+    public static VirtualClock manual() {
+        return new VirtualClock(false);
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final boolean automatic;
+
+    // Guarded by this
+    private long nanos = 0;
+    private int sleeperCount = 0;
+
+    private VirtualClock(boolean automatic) {
+        this.automatic = automatic;
+    }
+
+    /**
+     * @return true if this clock advances itself when slept on or false if it must be advanced manually.
+     */
+    public boolean isAutomatic() {
+        return automatic;
+    }
+
+    /**
+     * @return the {@link Duration} this clock has advanced since it was created.
+     */
+    public synchronized Duration getElapsed() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * @return the number of threads currently blocked sleeping on this clock. Always
+     * zero for an automatic clock.
+     */
+    public synchronized int getSleeperCount() {
+        return sleeperCount;
+    }
+
+    /**
+     * Move this clock forward, waking any sleeping thread whose sleep is over.
+     *
+     * @param duration the {@link Duration} to advance by.
+     *                 May not be null or negative.
+     *
+     * @throws IllegalArgumentException if duration is null or negative.
+     */
+    public synchronized void advance(Duration duration) {
+        validate().that(duration).isAtLeast(Duration.ZERO);
+        nanos += duration.toNanos();
+        notifyAll();
+    }
+
+    @Override
+    public synchronized long nanoTime() {
+        return nanos;
+    }
+
+    @Override
+    public synchronized void sleepFor(long millis, int nanos) throws InterruptedException {
+        validate().that(millis).isAtLeast(0L);
+        validate().that(nanos).isAtLeast(0);
+        long duration = Math.addExact(Math.multiplyExact(millis, 1_000_000L), nanos);
+        if (automatic) {
+            this.nanos += duration;
+            notifyAll();
+            return;
+        }
+        long wakeUp = this.nanos + duration;
+        sleeperCount++;
+        try {
+            while (this.nanos - wakeUp < 0) {
+                wait();
+            }
+        } finally {
+            sleeperCount--;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock{" +
+               "automatic=" + automatic +
+               ", elapsed=" + getElapsed() +
+               '}';
+    }
+}
@@ -19,13 +19,41 @@ package com.redfin.insist.executor;
 import com.redfin.validity.ValidityUtils;
 import org.opentest4j.TestAbortedException;
 
+import java.util.function.Supplier;
+
 /**
  * Concrete subclass of the {@link AbstractStackTrimmingFailedValidationExecutor} that
- * throws {@link TestAbortedException} exceptions upon failure.
+ * throws {@link TestAbortedException} exceptions upon failure. The message, including
+ * the description of the actual value, is rendered when it's first asked for.
  */
 public final class AbortedFailedValidationExecutor
            extends AbstractStackTrimmingFailedValidationExecutor<TestAbortedException> {
 
+    private final BoundedDescriber describer;
+
+    /**
+     * Create a new {@link AbortedFailedValidationExecutor} that describes actual values with the
+     * {@link BoundedDescriber#getDefault() default} budget.
+     */
+    public AbortedFailedValidationExecutor() {
+        this(BoundedDescriber.getDefault());
+    }
+
+    /**
+     * Create a new {@link AbortedFailedValidationExecutor} with the given arguments.
+     *
+     * @param describer the {@link BoundedDescriber} used to bound the actual values of failures.
+     *                  May not be null.
+     *
+     * @throws NullPointerException if describer is null.
+     */
+    public AbortedFailedValidationExecutor(BoundedDescriber describer) {
+        if (null == describer) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("describer"));
+        }
+        this.describer = describer;
+    }
+
     @Override
     protected String getDefaultMessage() {
         return "Test aborted";
@@ -41,9 +69,58 @@ public final class AbortedFailedValidationExecutor
         if (null == message) {
             throw new NullPointerException(ValidityUtils.nullArgumentMessage("message"));
         }
-        return new TestAbortedException(String.format("%s\n  expected : %s\n    actual : <%s>",
-                                                      message,
-                                                      expected,
-                                                      ValidityUtils.describe(actual)));
+        return new StacklessTestAbortedException(new LazyMessage(() -> describer.renderMessage(message, expected, actual),
+                                                                 getDefaultMessage()));
+    }
+
+    @Override
+    protected <T> TestAbortedException buildLazyThrowable(String expected,
+                                                          T actual,
+                                                          Supplier<String> messageSupplier) {
+        if (null == expected) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("expected"));
+        }
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        // The actual value is described when the message is first asked for, not when this fails
+        return new StacklessTestAbortedException(new LazyMessage(() -> describer.renderMessage(messageSupplier.get(), expected, actual),
+                                                                 getDefaultMessage()));
+    }
+
+    /*
+     * The stack trace is always replaced by the caller frame so there is no
+     * reason to pay for capturing it, and the message is only rendered once
+     * it's asked for. The class name is reported as the super type's so that
+     * failure output is unchanged.
+     */
+
+    private static final class StacklessTestAbortedException
+                       extends TestAbortedException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LazyMessage message;
+
+        private StacklessTestAbortedException(LazyMessage message) {
+            this.message = message;
+        }
+
+        @Override
+        public String getMessage() {
+            return message.get();
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            String message = getLocalizedMessage();
+            String name = TestAbortedException.class.getName();
+            return (null == message) ? name : name + ": " + message;
+        }
     }
 }
@@ -16,12 +16,9 @@
 
 package com.redfin.insist.executor;
 
-import com.redfin.insist.Insist;
 import com.redfin.validity.FailedValidationExecutor;
-import com.redfin.validity.Validity;
 import com.redfin.validity.ValidityUtils;
 
-import java.util.OptionalInt;
 import java.util.function.Supplier;
 
 /**
@@ -33,15 +30,16 @@ import java.util.function.Supplier;
 public abstract class AbstractStackTrimmingFailedValidationExecutor<X extends Throwable>
            implements FailedValidationExecutor<X> {
 
-    private static final String INSIST_PACKAGE_NAME = Insist.class.getPackage().getName() + ".";
-    private static final String VALIDITY_PACKAGE_NAME = Validity.class.getPackage().getName() + ".";
-
     /**
      * @return the default String message for the validation executor concrete type.
      */
     protected abstract String getDefaultMessage();
 
     /**
+     * Build the throwable to be thrown on failure. The stack trace of the returned throwable
+     * is always replaced with the single calling frame so implementations are encouraged
+     * to return a throwable that does not fill in its own stack trace.
+     *
      * @param expected the String description of the expected value.
      *                 May not be null.
      * @param actual   the actual value.
@@ -58,6 +56,33 @@ public abstract class AbstractStackTrimmingFailedValidationExecutor<X extends Th
                                             T actual,
                                             String message);
 
+    /**
+     * Build the throwable to be thrown on failure with a message that only needs to be rendered
+     * once it's asked for, so that failures that are caught and discarded stay cheap. The supplier
+     * of the message supplies the default message rather than null. By default the message is
+     * rendered right away and the throwable is built by {@link #buildThrowable(String, Object, String)}.
+     *
+     * @param expected        the String description of the expected value.
+     *                        May not be null.
+     * @param actual          the actual value.
+     *                        May be null.
+     * @param messageSupplier the {@link Supplier} of the String message for the throwable to be built.
+     *                        May not be null.
+     * @param <T>             the type of the actual value.
+     *
+     * @return a new Throwable of type X.
+     *
+     * @throws NullPointerException if expected or messageSupplier are null.
+     */
+    protected <T> X buildLazyThrowable(String expected,
+                                       T actual,
+                                       Supplier<String> messageSupplier) {
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        return buildThrowable(expected, actual, messageSupplier.get());
+    }
+
     @Override
     public final <T> void fail(String expected,
                                T actual,
@@ -68,42 +93,40 @@ public abstract class AbstractStackTrimmingFailedValidationExecutor<X extends Th
         if (null == messageSupplier) {
             throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
         }
-        String message = messageSupplier.get();
-        if (null == message) {
-            message = getDefaultMessage();
-        }
-        // Create the throwable
-        X throwable = buildThrowable(expected, actual, message);
+        // Locate the caller without relying on the throwable's own stack trace
+        // so that implementations are free to build it with stack capture disabled
+        throw build(expected, actual, messageSupplier, CallerFrameLocator.locate());
+    }
+
+    /**
+     * Build the throwable for a failure with its stack trace set to the given caller frame.
+     *
+     * @param expected        the String description of the expected value.
+     * @param actual          the actual value.
+     * @param messageSupplier the {@link Supplier} of the String message, may supply null for the default message.
+     * @param caller          the frame of the caller or null if there is none.
+     * @param <T>             the type of the actual value.
+     *
+     * @return a new Throwable of type X.
+     *
+     * @throws NullPointerException if the throwable built is null.
+     */
+    final <T> X build(String expected,
+                      T actual,
+                      Supplier<String> messageSupplier,
+                      StackTraceElement caller) {
+        // Create the throwable, leaving the message to be rendered once it's needed
+        X throwable = buildLazyThrowable(expected, actual, () -> {
+            String message = messageSupplier.get();
+            return (null == message) ? getDefaultMessage() : message;
+        });
         if (null == throwable) {
             throw new NullPointerException(ValidityUtils.nullThrowableFromFunction());
         }
-        // Find the index of the last stack frame from the insist library
-        StackTraceElement[] elements = throwable.getStackTrace();
-        StackTraceElement caller = null;
-        OptionalInt lastIndex = OptionalInt.empty();
-        if (null != elements) {
-            for (int i = 0; i < elements.length; i++) {
-                StackTraceElement element = elements[i];
-                // we want to remove any validity or insist stack frames
-                // when locating the caller
-                if (null != element.getClassName()
-                    && (element.getClassName().startsWith(INSIST_PACKAGE_NAME)
-                        || element.getClassName().startsWith(VALIDITY_PACKAGE_NAME))) {
-                    lastIndex = OptionalInt.of(i);
-                }
-            }
-            // Set the caller element, if any found
-            if (lastIndex.isPresent()) {
-                int index = lastIndex.getAsInt() + 1;
-                if (index < elements.length) {
-                    caller = elements[index];
-                }
-            }
-        }
-        // Set the new stack trace and throw
+        // Set the new stack trace
         StackTraceElement[] newStackTrace;
         newStackTrace = (null == caller) ? new StackTraceElement[]{} : new StackTraceElement[]{caller};
         throwable.setStackTrace(newStackTrace);
-        throw throwable;
+        return throwable;
     }
 }
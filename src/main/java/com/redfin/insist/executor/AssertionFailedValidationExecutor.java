@@ -19,6 +19,8 @@ package com.redfin.insist.executor;
 import com.redfin.validity.ValidityUtils;
 import org.opentest4j.AssertionFailedError;
 
+import java.util.function.Supplier;
+
 /**
  * Concrete subclass of the {@link AbstractStackTrimmingFailedValidationExecutor} that
  * throws {@link AssertionFailedError} errors upon failure.
@@ -26,6 +28,31 @@ import org.opentest4j.AssertionFailedError;
 public final class AssertionFailedValidationExecutor
            extends AbstractStackTrimmingFailedValidationExecutor<AssertionFailedError> {
 
+    private final BoundedDescriber describer;
+
+    /**
+     * Create a new {@link AssertionFailedValidationExecutor} that describes actual values with the
+     * {@link BoundedDescriber#getDefault() default} budget.
+     */
+    public AssertionFailedValidationExecutor() {
+        this(BoundedDescriber.getDefault());
+    }
+
+    /**
+     * Create a new {@link AssertionFailedValidationExecutor} with the given arguments.
+     *
+     * @param describer the {@link BoundedDescriber} used to bound the actual values of failures.
+     *                  May not be null.
+     *
+     * @throws NullPointerException if describer is null.
+     */
+    public AssertionFailedValidationExecutor(BoundedDescriber describer) {
+        if (null == describer) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("describer"));
+        }
+        this.describer = describer;
+    }
+
     @Override
     protected String getDefaultMessage() {
         return "Assertion failure";
@@ -41,8 +68,62 @@ public final class AssertionFailedValidationExecutor
         if (null == message) {
             throw new NullPointerException(ValidityUtils.nullArgumentMessage("message"));
         }
-        return new AssertionFailedError(message,
-                                        expected,
-                                        actual);
+        return new StacklessAssertionFailedError(new LazyMessage(() -> message, getDefaultMessage()),
+                                                 expected,
+                                                 describer.bound(actual));
+    }
+
+    @Override
+    protected <T> AssertionFailedError buildLazyThrowable(String expected,
+                                                          T actual,
+                                                          Supplier<String> messageSupplier) {
+        if (null == expected) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("expected"));
+        }
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        return new StacklessAssertionFailedError(new LazyMessage(messageSupplier, getDefaultMessage()),
+                                                 expected,
+                                                 describer.bound(actual));
+    }
+
+    /*
+     * The stack trace is always replaced by the caller frame so there is no
+     * reason to pay for capturing it, and the message is only rendered once
+     * it's asked for. The class name is reported as the super type's so that
+     * failure output is unchanged.
+     */
+
+    private static final class StacklessAssertionFailedError
+                       extends AssertionFailedError {
+
+        private static final long serialVersionUID = 1L;
+
+        private final LazyMessage message;
+
+        private StacklessAssertionFailedError(LazyMessage message,
+                                              Object expected,
+                                              Object actual) {
+            super(null, expected, actual);
+            this.message = message;
+        }
+
+        @Override
+        public String getMessage() {
+            return message.get();
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            String message = getLocalizedMessage();
+            String name = AssertionFailedError.class.getName();
+            return (null == message || message.isEmpty()) ? name : name + ": " + message;
+        }
     }
 }
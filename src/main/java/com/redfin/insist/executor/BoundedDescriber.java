@@ -0,0 +1,282 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import com.redfin.validity.ValidityUtils;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * Describes the actual values of failures without rendering more than a budget of characters
+ * and of elements per collection, map, or array. Huge values, like a list of millions of
+ * elements or a string of tens of megabytes, would otherwise be rendered in full only to be
+ * truncated afterwards.
+ * <p>
+ * Values that fit within the budget are left as they are. Collections, maps, arrays, and
+ * character sequences that don't are streamed into a description that is cut off at the
+ * budget and followed by a summary of their size, e.g. {@code [0, 1, 2, ...] (size 2000000)}.
+ * The summary of character sequences and arrays of primitives also has the hash code of their
+ * content. Collections, maps, and arrays of objects have none: their own hash code would visit
+ * every element, without end for one that contains itself, and their identity hash code would
+ * differ from one run to the next. Other values are left as they are since there is no way to
+ * render only part of their {@link Object#toString()}.
+ * <p>
+ * The default budget is 10000 characters and 1000 elements and can be changed with the
+ * {@code insist.describe.maxCharacters} and {@code insist.describe.maxElements} system properties.
+ * Instances are immutable and thread safe.
+ */
+public final class BoundedDescriber {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String ELLIPSIS = "...";
+    private static final MessageTemplate MESSAGE_TEMPLATE = MessageTemplate.compile("%s\n  expected : %s\n    actual : <%s>");
+
+    private static final BoundedDescriber DEFAULT = new BoundedDescriber(Integer.getInteger("insist.describe.maxCharacters", 10_000),
+                                                                         Integer.getInteger("insist.describe.maxElements", 1_000));
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return the {@link BoundedDescriber} with the default budget.
+     */
+    public static BoundedDescriber getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param maxCharacters the maximum number of characters of a description, not counting the summary.
+     *                      Must be strictly positive.
+     * @param maxElements   the maximum number of elements of each collection, map, or array to describe.
+     *                      Must be strictly positive.
+     *
+     * @return a new {@link BoundedDescriber} with the given budget.
+     *
+     * @throws IllegalArgumentException if either argument isn't strictly positive.
+     */
+    public static BoundedDescriber withLimits(int maxCharacters, int maxElements) {
+        return new BoundedDescriber(maxCharacters, maxElements);
+    }
+
+    private static String summarize(Object value) {
+        if (value instanceof CharSequence) {
+            CharSequence sequence = (CharSequence) value;
+            return " (length " + sequence.length() + ", hash " + Integer.toHexString(hashOf(sequence)) + ")";
+        } else if (value instanceof Collection) {
+            return " (size " + ((Collection<?>) value).size() + ")";
+        } else if (value instanceof Map) {
+            return " (size " + ((Map<?, ?>) value).size() + ")";
+        } else if (value instanceof Object[]) {
+            return " (size " + ((Object[]) value).length + ")";
+        } else {
+            return " (size " + Array.getLength(value) + ", hash " + Integer.toHexString(arrayHashOf(value)) + ")";
+        }
+    }
+
+    private static int hashOf(CharSequence sequence) {
+        if (sequence instanceof String) {
+            return sequence.hashCode();
+        }
+        // The same as String's hash code without copying the sequence into a String
+        int hash = 0;
+        for (int i = 0; i < sequence.length(); i++) {
+            hash = 31 * hash + sequence.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int arrayHashOf(Object array) {
+        if (array instanceof int[]) {
+            return Arrays.hashCode((int[]) array);
+        } else if (array instanceof long[]) {
+            return Arrays.hashCode((long[]) array);
+        } else if (array instanceof double[]) {
+            return Arrays.hashCode((double[]) array);
+        } else if (array instanceof byte[]) {
+            return Arrays.hashCode((byte[]) array);
+        } else if (array instanceof char[]) {
+            return Arrays.hashCode((char[]) array);
+        } else if (array instanceof boolean[]) {
+            return Arrays.hashCode((boolean[]) array);
+        } else if (array instanceof float[]) {
+            return Arrays.hashCode((float[]) array);
+        } else {
+            return Arrays.hashCode((short[]) array);
+        }
+    }
+
+    private static boolean isBoundable(Object value) {
+        return value instanceof CharSequence
+               || value instanceof Collection
+               || value instanceof Map
+               || (null != value && value.getClass().isArray());
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final int maxCharacters;
+    private final int maxElements;
+
+    private BoundedDescriber(int maxCharacters, int maxElements) {
+        this.maxCharacters = validate().that(maxCharacters).isStrictlyPositive();
+        this.maxElements = validate().that(maxElements).isStrictlyPositive();
+    }
+
+    /**
+     * @return the maximum number of characters of a description, not counting the summary.
+     */
+    public int getMaxCharacters() {
+        return maxCharacters;
+    }
+
+    /**
+     * @return the maximum number of elements of each collection, map, or array to describe.
+     */
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * @param actual the value to bound.
+     *               May be null.
+     *
+     * @return the given value if it fits within the budget or can't be bounded, otherwise
+     * a String describing as much of it as fits followed by a summary of its size.
+     */
+    public Object bound(Object actual) {
+        if (!isBoundable(actual)) {
+            return actual;
+        }
+        Description description = new Description();
+        description.append(actual);
+        if (!description.truncated) {
+            return actual;
+        }
+        return description.builder.append(ELLIPSIS)
+                                  .append(summarize(actual))
+                                  .toString();
+    }
+
+    /*
+     * Render the message of a failure whose throwable doesn't hold the actual value
+     * apart from its message, so the description of the actual value is part of it.
+     */
+
+    String renderMessage(String message,
+                         String expected,
+                         Object actual) {
+        Object bounded = bound(actual);
+        // A bounded description already has its summary at the end which must not be cut off
+        return MESSAGE_TEMPLATE.render(message,
+                                       expected,
+                                       (bounded == actual) ? ValidityUtils.describe(actual) : bounded);
+    }
+
+    /*
+     * A description being streamed into a builder until it reaches the budget.
+     */
+
+    private final class Description {
+
+        private final StringBuilder builder = new StringBuilder();
+        private boolean truncated;
+
+        private void append(Object value) {
+            if (truncated) {
+                return;
+            }
+            if (value instanceof CharSequence) {
+                appendCharacters((CharSequence) value);
+            } else if (value instanceof Collection) {
+                appendElements(((Collection<?>) value).iterator(), "[", "]", value);
+            } else if (value instanceof Map) {
+                appendElements(((Map<?, ?>) value).entrySet().iterator(), "{", "}", value);
+            } else if (value instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+                append(entry.getKey());
+                appendCharacters("=");
+                append(entry.getValue());
+            } else if (null != value && value.getClass().isArray()) {
+                appendArray(value);
+            } else {
+                appendCharacters(String.valueOf(value));
+            }
+        }
+
+        private void appendCharacters(CharSequence sequence) {
+            int remaining = maxCharacters - builder.length();
+            if (sequence.length() > remaining) {
+                builder.append(sequence, 0, Math.max(0, remaining));
+                truncated = true;
+            } else {
+                builder.append(sequence);
+            }
+        }
+
+        private void appendElements(Iterator<?> elements, String open, String close, Object container) {
+            appendCharacters(open);
+            int count = 0;
+            while (!truncated && elements.hasNext()) {
+                if (count == maxElements) {
+                    appendCharacters(", ");
+                    truncated = true;
+                    return;
+                }
+                if (count > 0) {
+                    appendCharacters(", ");
+                }
+                Object element = elements.next();
+                if (element == container) {
+                    appendCharacters("(this " + (container instanceof Map ? "Map" : "Collection") + ")");
+                } else {
+                    append(element);
+                }
+                count++;
+            }
+            appendCharacters(close);
+        }
+
+        private void appendArray(Object array) {
+            int length = Array.getLength(array);
+            appendCharacters("[");
+            for (int i = 0; i < length && !truncated; i++) {
+                if (i == maxElements) {
+                    appendCharacters(", ");
+                    truncated = true;
+                    return;
+                }
+                if (i > 0) {
+                    appendCharacters(", ");
+                }
+                append(Array.get(array, i));
+            }
+            appendCharacters("]");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import com.redfin.insist.Insist;
+import com.redfin.validity.Validity;
+import com.redfin.validity.ValidityUtils;
+
+/**
+ * Locates the stack frame of the code that called into the Insist or Validity libraries.
+ * This is the frame that the stack trimming executors leave as the only element of the
+ * stack trace of the throwables they throw.
+ * <p>
+ * This is the Java 8 implementation which captures and scans the full stack trace of the
+ * current thread. When running on Java 9 or later the multi-release jar replaces this class
+ * with one that walks the stack with a {@code StackWalker} instead.
+ */
+public final class CallerFrameLocator {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String INSIST_PACKAGE_NAME = Insist.class.getPackage().getName() + ".";
+    private static final String VALIDITY_PACKAGE_NAME = Validity.class.getPackage().getName() + ".";
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return the first stack frame after the last Insist or Validity library frame
+     * on the current thread's stack or null if there is no such frame (or the JVM
+     * isn't filling in stack traces).
+     */
+    public static StackTraceElement locate() {
+        StackTraceElement[] elements = new Throwable().getStackTrace();
+        if (null == elements) {
+            return null;
+        }
+        return locate(elements, elements.length);
+    }
+
+    /**
+     * Like {@link #locate()} but only considering the frames called by the innermost frame of the
+     * given method, if it's on the current thread's stack. This locates the caller of the code run
+     * by a library method rather than the caller of that library method itself.
+     *
+     * @param className  the name of the class declaring the boundary method.
+     * @param methodName the name of the boundary method.
+     *
+     * @return the first stack frame after the last Insist or Validity library frame called by the
+     * boundary method or null if there is no such frame (or the JVM isn't filling in stack traces).
+     */
+    static StackTraceElement locateWithin(String className,
+                                          String methodName) {
+        StackTraceElement[] elements = new Throwable().getStackTrace();
+        if (null == elements) {
+            return null;
+        }
+        int end = elements.length;
+        for (int i = 0; i < elements.length; i++) {
+            if (className.equals(elements[i].getClassName()) && methodName.equals(elements[i].getMethodName())) {
+                end = i;
+                break;
+            }
+        }
+        return locate(elements, end);
+    }
+
+    private static StackTraceElement locate(StackTraceElement[] elements,
+                                            int end) {
+        // Find the index of the last stack frame from the insist library
+        int lastIndex = -1;
+        for (int i = 0; i < end; i++) {
+            // we want to remove any validity or insist stack frames
+            // when locating the caller
+            if (isLibraryFrame(elements[i].getClassName())) {
+                lastIndex = i;
+            }
+        }
+        // Return the caller element, if any found
+        int index = lastIndex + 1;
+        if (lastIndex < 0 || index >= end) {
+            return null;
+        }
+        return elements[index];
+    }
+
+    private static boolean isLibraryFrame(String className) {
+        return null != className
+               && (className.startsWith(INSIST_PACKAGE_NAME) || className.startsWith(VALIDITY_PACKAGE_NAME));
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private CallerFrameLocator() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
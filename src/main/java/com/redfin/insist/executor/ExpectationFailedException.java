@@ -0,0 +1,54 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+/**
+ * The exception thrown by the {@link ExpectationFailedValidationExecutor} when an expectation
+ * isn't met. Expectations are meant for code, like load test drivers, that expects and counts
+ * failures rather than debugging them, so this never captures a stack trace, only a sampled
+ * failure has its caller frame set as its stack trace, and its message is only rendered if
+ * asked for.
+ */
+public final class ExpectationFailedException
+           extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LazyMessage message;
+
+    /**
+     * @param message the {@link LazyMessage} of the failure.
+     * @param caller  the caller frame to use as the stack trace or null if it wasn't sampled.
+     */
+    ExpectationFailedException(LazyMessage message, StackTraceElement caller) {
+        super(null, null, false, null != caller);
+        this.message = message;
+        if (null != caller) {
+            setStackTrace(new StackTraceElement[]{caller});
+        }
+    }
+
+    @Override
+    public String getMessage() {
+        return message.get();
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A {@link FailedValidationExecutor} that throws {@link ExpectationFailedException}s which don't
+ * capture a stack trace so that failing is cheap enough for code that validates at a high rate
+ * and expects some of the validations to fail. Every Nth failure is sampled and has the frame of
+ * its caller located and set as its stack trace so that where the failures come from can still
+ * be seen. The message, and the description of the actual value, are only rendered if asked for.
+ */
+public final class ExpectationFailedValidationExecutor
+        implements FailedValidationExecutor<ExpectationFailedException> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String DEFAULT_MESSAGE = "Expectation failure";
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final AtomicLong failureCount = new AtomicLong(0);
+    private final int sampleEvery;
+    private final BoundedDescriber describer;
+
+    /**
+     * Create a new {@link ExpectationFailedValidationExecutor} with the given arguments.
+     *
+     * @param sampleEvery the caller frame is located for every failure whose count is a multiple
+     *                    of this, starting with the first. Zero means never to locate it and one
+     *                    means to locate it for every failure.
+     *                    May not be negative.
+     *
+     * @throws IllegalArgumentException if sampleEvery is negative.
+     */
+    public ExpectationFailedValidationExecutor(int sampleEvery) {
+        this.sampleEvery = validate().that(sampleEvery).isAtLeast(0);
+        this.describer = BoundedDescriber.getDefault();
+    }
+
+    /**
+     * @return the number of failures so far.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    @Override
+    public <T> void fail(String expected,
+                         T actual,
+                         Supplier<String> messageSupplier) {
+        if (null == expected) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("expected"));
+        }
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        long count = failureCount.getAndIncrement();
+        StackTraceElement caller = (sampleEvery > 0 && count % sampleEvery == 0) ? CallerFrameLocator.locate() : null;
+        throw new ExpectationFailedException(new LazyMessage(() -> {
+            String message = messageSupplier.get();
+            return describer.renderMessage((null == message) ? DEFAULT_MESSAGE : message, expected, actual);
+        }, DEFAULT_MESSAGE), caller);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+/**
+ * The message of a failure that is only rendered the first time it's asked for and then kept.
+ * Failures that are caught and discarded, like probing assumptions, never pay for rendering it.
+ * The message is rendered before being serialized so that whatever it's rendered from doesn't
+ * need to be serializable.
+ * <p>
+ * Rendering may happen long after the failure, e.g. on the thread of a test reporter calling
+ * {@link Throwable#getMessage()}, so an exception thrown while rendering is never propagated.
+ * The default message, followed by that exception, is kept as the message instead.
+ */
+final class LazyMessage
+ implements Supplier<String>,
+            Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Supplier<String> renderer;
+    private transient String defaultMessage;
+    private String message;
+
+    /**
+     * @param renderer       the {@link Supplier} of the message, called at most once.
+     *                       May not be null.
+     * @param defaultMessage the message to fall back on if the renderer throws.
+     *                       May not be null.
+     */
+    LazyMessage(Supplier<String> renderer,
+                String defaultMessage) {
+        this.renderer = renderer;
+        this.defaultMessage = defaultMessage;
+    }
+
+    @Override
+    public synchronized String get() {
+        if (null != renderer) {
+            try {
+                message = renderer.get();
+            } catch (RuntimeException exception) {
+                message = defaultMessage + " (the message could not be rendered: " + exception + ")";
+            }
+            renderer = null;
+            defaultMessage = null;
+        }
+        return message;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        get();
+        out.defaultWriteObject();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import com.redfin.validity.ValidityUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A failure message format that is parsed once, when compiled, so that rendering it only
+ * appends its literal parts and arguments rather than parsing the format every time as
+ * {@link String#format(String, Object...)} does.
+ * <p>
+ * Only the {@code %s} and {@code %d} conversions, which both render their argument with
+ * {@link String#valueOf(Object)}, and the {@code %%} and {@code %n} escapes are supported.
+ * Instances are immutable and thread safe.
+ */
+public final class MessageTemplate {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @param format the format to compile.
+     *               May not be null.
+     *
+     * @return a new {@link MessageTemplate} for the given format.
+     *
+     * @throws NullPointerException     if format is null.
+     * @throws IllegalArgumentException if format has an unsupported conversion.
+     */
+    public static MessageTemplate compile(String format) {
+        if (null == format) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("format"));
+        }
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (++i == format.length()) {
+                throw new IllegalArgumentException("Format ends with an incomplete conversion: " + format);
+            }
+            char conversion = format.charAt(i);
+            switch (conversion) {
+                case 's':
+                case 'd':
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    break;
+                case '%':
+                    literal.append('%');
+                    break;
+                case 'n':
+                    literal.append(System.lineSeparator());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported conversion '%" + conversion + "' in format: " + format);
+            }
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(literals.toArray(new String[0]));
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    // There is always one more literal than arguments, the ones between them may be empty
+    private final String[] literals;
+    private final int literalsLength;
+
+    private MessageTemplate(String[] literals) {
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    /**
+     * @return the number of arguments the template takes.
+     */
+    public int getArgumentCount() {
+        return literals.length - 1;
+    }
+
+    /**
+     * @param arguments the arguments in the order of the conversions of the format.
+     *                  May not be null.
+     *
+     * @return the rendered message.
+     *
+     * @throws NullPointerException     if arguments is null.
+     * @throws IllegalArgumentException if the number of arguments doesn't match the format.
+     */
+    public String render(Object... arguments) {
+        if (null == arguments) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("arguments"));
+        }
+        if (arguments.length != getArgumentCount()) {
+            throw new IllegalArgumentException("Expected " + getArgumentCount() + " argument(s) but got " + arguments.length);
+        }
+        StringBuilder builder = new StringBuilder(literalsLength + 16 * arguments.length);
+        builder.append(literals[0]);
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append(arguments[i])
+                   .append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+}
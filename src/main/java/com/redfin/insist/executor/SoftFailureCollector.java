@@ -0,0 +1,162 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import com.redfin.insist.Insist;
+import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.MultipleFailuresError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A {@link FailedValidationExecutor} that records failures instead of throwing them so that
+ * they can all be reported at once by {@link #throwIfFailed()}. Recording a failure only locates
+ * its caller frame and keeps the parts of its message; the {@link AssertionFailedError} for it is
+ * only built, exactly like the {@link AssertionFailedValidationExecutor} would have, when reported.
+ * <p>
+ * Only the first failures up to a maximum are kept so that the memory used stays bounded
+ * no matter how many checks fail, but all of them are counted. Failures may be recorded
+ * concurrently from any number of threads.
+ */
+public final class SoftFailureCollector
+        implements FailedValidationExecutor<AssertionFailedError> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The number of failures kept by default.
+     */
+    public static final int DEFAULT_MAX_RECORDED_FAILURES = 100;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final AtomicInteger failureCount = new AtomicInteger(0);
+    private final AssertionFailedValidationExecutor executor;
+    private final AtomicReferenceArray<Failure<?>> failures;
+
+    /**
+     * Create a new {@link SoftFailureCollector} that keeps the
+     * {@link #DEFAULT_MAX_RECORDED_FAILURES default} number of failures.
+     */
+    public SoftFailureCollector() {
+        this(DEFAULT_MAX_RECORDED_FAILURES);
+    }
+
+    /**
+     * Create a new {@link SoftFailureCollector} with the given arguments.
+     *
+     * @param maxRecordedFailures the maximum number of failures to keep.
+     *                            Must be strictly positive.
+     *
+     * @throws IllegalArgumentException if maxRecordedFailures isn't strictly positive.
+     */
+    public SoftFailureCollector(int maxRecordedFailures) {
+        validate().that(maxRecordedFailures).isStrictlyPositive();
+        this.executor = new AssertionFailedValidationExecutor();
+        this.failures = new AtomicReferenceArray<>(maxRecordedFailures);
+    }
+
+    @Override
+    public <T> void fail(String expected,
+                         T actual,
+                         Supplier<String> messageSupplier) {
+        if (null == expected) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("expected"));
+        }
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        int index = failureCount.getAndIncrement();
+        if (index < failures.length()) {
+            // Within Insist.softly the caller of softly itself must not be taken as the caller of each check
+            StackTraceElement caller = CallerFrameLocator.locateWithin(Insist.class.getName(), "softly");
+            failures.set(index, new Failure<>(expected, actual, messageSupplier, caller));
+        }
+    }
+
+    /**
+     * @return the number of failures recorded so far, including the ones that weren't kept.
+     */
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Throw the failures recorded so far, if any, as a single {@link MultipleFailuresError}
+     * whose failures are the kept ones in the order they were recorded. Its stack trace is
+     * set to the frame that called this.
+     *
+     * @throws MultipleFailuresError if any failures were recorded.
+     */
+    public void throwIfFailed() {
+        int count = failureCount.get();
+        if (0 == count) {
+            return;
+        }
+        int kept = Math.min(count, failures.length());
+        List<AssertionFailedError> errors = new ArrayList<>(kept);
+        for (int i = 0; i < kept; i++) {
+            Failure<?> failure = failures.get(i);
+            // A concurrent failure may have claimed its slot without having filled it yet
+            if (null != failure) {
+                errors.add(failure.build(executor));
+            }
+        }
+        String heading = (kept == count)
+                         ? "Soft assertions"
+                         : "Soft assertions, only the first " + kept + " of " + count + " failures are listed";
+        MultipleFailuresError error = new MultipleFailuresError(heading, errors);
+        StackTraceElement caller = CallerFrameLocator.locate();
+        error.setStackTrace((null == caller) ? new StackTraceElement[]{} : new StackTraceElement[]{caller});
+        throw error;
+    }
+
+    /*
+     * The unrendered parts of a failure.
+     */
+
+    private static final class Failure<T> {
+
+        private final String expected;
+        private final T actual;
+        private final Supplier<String> messageSupplier;
+        private final StackTraceElement caller;
+
+        private Failure(String expected, T actual, Supplier<String> messageSupplier, StackTraceElement caller) {
+            this.expected = expected;
+            this.actual = actual;
+            this.messageSupplier = messageSupplier;
+            this.caller = caller;
+        }
+
+        private AssertionFailedError build(AssertionFailedValidationExecutor executor) {
+            return executor.build(expected, actual, messageSupplier, caller);
+        }
+    }
+}
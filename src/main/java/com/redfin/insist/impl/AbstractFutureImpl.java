@@ -18,10 +18,32 @@ package com.redfin.insist.impl;
 
 import com.redfin.insist.InsistExecutable;
 import com.redfin.insist.InsistFuture;
+import com.redfin.insist.executor.AbstractStackTrimmingFailedValidationExecutor;
+import com.redfin.insist.executor.CallerFrameLocator;
 import com.redfin.patience.PatientExecutable;
+import com.redfin.patience.exceptions.AbstractRepeatedAttemptsException;
+import com.redfin.validity.FailedValidationExecutor;
 
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import static com.redfin.validity.Validity.validate;
 
@@ -69,6 +91,243 @@ abstract class AbstractFutureImpl<X extends Throwable>
         };
     }
 
+    /**
+     * Translate the outcome of asynchronous attempts into the outcome of an asynchronous validation.
+     * If the attempts ran out then the failed validation executor is called and whatever it throws
+     * completes the returned stage exceptionally. The stack trimming executors would otherwise
+     * locate a frame of the worker thread so the stack trace is set to the frame that called
+     * into the library on the original thread instead.
+     *
+     * @param attempts                 the {@link CompletableFuture} of the asynchronous attempts.
+     *                                 May not be null.
+     * @param failedValidationExecutor the {@link FailedValidationExecutor} to use if the attempts ran out.
+     *                                 May not be null.
+     * @param expected                 the description of the expected value.
+     *                                 May not be null.
+     * @param actual                   the description of the actual value.
+     *                                 May not be null.
+     * @param messageFunction          the function from the number of failed attempts to the message supplier.
+     *                                 May not be null.
+     *
+     * @return a {@link CompletionStage} that completes once validation is done.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    final CompletionStage<Void> validateAsync(CompletableFuture<?> attempts,
+                                              FailedValidationExecutor<X> failedValidationExecutor,
+                                              String expected,
+                                              String actual,
+                                              IntFunction<Supplier<String>> messageFunction) {
+        validate().that(attempts).isNotNull();
+        validate().that(failedValidationExecutor).isNotNull();
+        validate().that(expected).isNotNull();
+        validate().that(actual).isNotNull();
+        validate().that(messageFunction).isNotNull();
+        StackTraceElement caller = (failedValidationExecutor instanceof AbstractStackTrimmingFailedValidationExecutor)
+                                   ? CallerFrameLocator.locate()
+                                   : null;
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempts.whenComplete((value, thrown) -> {
+            if (null == thrown) {
+                result.complete(null);
+                return;
+            }
+            Throwable cause = (thrown instanceof CompletionException && null != thrown.getCause()) ? thrown.getCause() : thrown;
+            if (!(cause instanceof AbstractRepeatedAttemptsException)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            try {
+                failedValidationExecutor.fail(expected,
+                                              actual,
+                                              messageFunction.apply(((AbstractRepeatedAttemptsException) cause).getFailedAttemptsCount()));
+            } catch (Throwable failure) {
+                if (null != caller) {
+                    failure.setStackTrace(new StackTraceElement[]{caller});
+                }
+                result.completeExceptionally(failure);
+                return;
+            }
+            // The executor chose not to throw
+            result.complete(null);
+        });
+        // Stop any further attempts if the caller gives up
+        result.whenComplete((value, thrown) -> {
+            if (result.isCancelled()) {
+                attempts.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Attempt the executable until it succeeds as configured by the implementation.
+     *
+     * @param executable the {@link PatientExecutable} to attempt.
+     *                   May not be null.
+     * @param <T>        the type of the result of the executable.
+     *
+     * @return the first valid result of the executable.
+     *
+     * @throws AbstractRepeatedAttemptsException if there was no valid result in time.
+     */
+    abstract <T> T attemptUntilValid(PatientExecutable<T> executable);
+
+    /**
+     * Wait for the given event as configured by the implementation.
+     *
+     * @param event the {@link AttemptLoop.TimedAttempt} waiting for the event.
+     *              May not be null.
+     * @param <T>   the type of the result of the event.
+     *
+     * @return the non-null result of the event.
+     *
+     * @throws AbstractRepeatedAttemptsException if the event didn't happen in time.
+     */
+    abstract <T> T awaitEvent(AttemptLoop.TimedAttempt<T> event);
+
+    /**
+     * Report a validation that didn't succeed in time through the failed validation executor.
+     *
+     * @param expected    the description of the expected value.
+     *                    May not be null.
+     * @param actual      the description of the actual value.
+     *                    May not be null.
+     * @param numAttempts the number of unsuccessful attempts.
+     *
+     * @throws X if the failed validation executor throws it.
+     */
+    abstract void failValidation(String expected, String actual, int numAttempts) throws X;
+
+    @Override
+    public <E> E thatEventuallyReceives(BlockingQueue<E> queue) throws X {
+        validate().that(queue).isNotNull();
+        try {
+            return awaitEvent(timeoutNanos -> queue.poll(timeoutNanos, TimeUnit.NANOSECONDS));
+        } catch (AbstractRepeatedAttemptsException exception) {
+            failValidation("Eventually received an element", "nothing received", exception.getFailedAttemptsCount());
+            return null;
+        }
+    }
+
+    @Override
+    public void thatEventuallyCompletes(Future<?> future) throws X {
+        validate().that(future).isNotNull();
+        try {
+            awaitEvent(timeoutNanos -> {
+                try {
+                    future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException exception) {
+                    return null;
+                } catch (ExecutionException | CancellationException exception) {
+                    // Done, just not normally
+                }
+                return future;
+            });
+        } catch (AbstractRepeatedAttemptsException exception) {
+            failValidation("Eventually done", "not done", exception.getFailedAttemptsCount());
+        }
+    }
+
+    @Override
+    public void thatEventuallyCountsDown(CountDownLatch latch) throws X {
+        validate().that(latch).isNotNull();
+        try {
+            awaitEvent(timeoutNanos -> latch.await(timeoutNanos, TimeUnit.NANOSECONDS) ? latch : null);
+        } catch (AbstractRepeatedAttemptsException exception) {
+            failValidation("Eventually counted down to zero", "count of " + latch.getCount(), exception.getFailedAttemptsCount());
+        }
+    }
+
+    @Override
+    public void thatEventuallyExists(Path file) throws X {
+        validate().that(file).isNotNull();
+        awaitFile(FileWatch.exists(file), "Eventually exists");
+    }
+
+    @Override
+    public void thatEventuallyHasSizeAtLeast(Path file, long minimumSize) throws X {
+        validate().that(file).isNotNull();
+        validate().that(minimumSize).isAtLeast(0L);
+        awaitFile(FileWatch.sizeAtLeast(file, minimumSize), "Eventually at least " + minimumSize + " byte(s)");
+    }
+
+    @Override
+    public void thatEventuallyContains(Path directory, String glob, int count) throws X {
+        validate().that(directory).isNotNull();
+        validate().that(glob).isNotNull();
+        validate().that(count).isAtLeast(0);
+        awaitFile(FileWatch.entries(directory, glob, count),
+                  "Eventually at least " + count + " entries matching '" + glob + "'");
+    }
+
+    @Override
+    public String thatEventuallyHasLine(Path file, Pattern pattern) throws X {
+        validate().that(file).isNotNull();
+        validate().that(pattern).isNotNull();
+        try (LogTail tail = new LogTail(file, pattern);
+             FileWatch watch = new FileWatch(file, tail)) {
+            try {
+                awaitEvent(watch);
+                return tail.getMatch();
+            } catch (AbstractRepeatedAttemptsException exception) {
+                failValidation("Eventually a line matching '" + pattern + "'", tail.describe(), exception.getFailedAttemptsCount());
+                return null;
+            }
+        }
+    }
+
+    private void awaitFile(FileWatch watch, String expected) throws X {
+        try (FileWatch closing = watch) {
+            try {
+                awaitEvent(closing);
+            } catch (AbstractRepeatedAttemptsException exception) {
+                failValidation(expected, closing.describe(), exception.getFailedAttemptsCount());
+            }
+        }
+    }
+
+    @Override
+    public void thatEventuallyAll(BooleanSupplier... conditions) throws X {
+        awaitConditions(new EventualConditions(conditions, null), true);
+    }
+
+    @Override
+    public void thatEventuallyAll(Executor executor, BooleanSupplier... conditions) throws X {
+        validate().that(executor).isNotNull();
+        awaitConditions(new EventualConditions(conditions, executor), true);
+    }
+
+    @Override
+    public void thatEventuallyAny(BooleanSupplier... conditions) throws X {
+        awaitConditions(new EventualConditions(conditions, null), false);
+    }
+
+    @Override
+    public void thatEventuallyAny(Executor executor, BooleanSupplier... conditions) throws X {
+        validate().that(executor).isNotNull();
+        awaitConditions(new EventualConditions(conditions, executor), false);
+    }
+
+    private void awaitConditions(EventualConditions conditions, boolean all) throws X {
+        try {
+            attemptUntilValid(all ? conditions::allPassed : conditions::anyPassed);
+        } catch (AbstractRepeatedAttemptsException exception) {
+            failValidation(conditions.describeExpected(all), conditions.describePending(), exception.getFailedAttemptsCount());
+        }
+    }
+
+    @Override
+    public <K> void thatEventuallyResolves(Collection<? extends K> keys,
+                                           Function<? super Set<K>, ? extends Collection<?>> lookup) throws X {
+        PendingKeys<K> pending = new PendingKeys<>(keys, lookup);
+        try {
+            attemptUntilValid(pending::resolve);
+        } catch (AbstractRepeatedAttemptsException exception) {
+            failValidation(pending.describeExpected(), pending.describePending(), exception.getFailedAttemptsCount());
+        }
+    }
+
     @Override
     public void thatEventuallyIsPresent(Supplier<Optional<?>> supplier) throws X {
         validate().that(supplier).isNotNull();
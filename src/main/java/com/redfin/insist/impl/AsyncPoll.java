@@ -0,0 +1,285 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.patience.PatientExecutable;
+import com.redfin.patience.PatientExecutionHandler;
+import com.redfin.patience.PatientExecutionResult;
+import com.redfin.patience.PatientRetry;
+import com.redfin.patience.PatientWait;
+import com.redfin.patience.exceptions.AbstractRepeatedAttemptsException;
+import com.redfin.patience.exceptions.PatientException;
+import com.redfin.patience.exceptions.PatientRetryException;
+import com.redfin.patience.exceptions.PatientTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A non-blocking equivalent of the {@link PatientWait} and {@link PatientRetry} attempt loops.
+ * Instead of sleeping between attempts the next attempt is timed by a
+ * {@link HashedWheelScheduler} so that no thread is held while waiting. The scheduler only
+ * hands each attempt over to an attempt executor, since the attempts may block and the few
+ * threads of the scheduler must not. The {@link com.redfin.patience.PatientSleep} of the wait
+ * or retry is not used.
+ * <p>
+ * The returned future completes with the first successful result or exceptionally with a
+ * {@link PatientTimeoutException} or {@link PatientRetryException}, just like the blocking
+ * versions would throw, if no attempt is successful. Any other throwable from an attempt
+ * completes the future exceptionally with that throwable.
+ *
+ * @param <T> the type of the result of each attempt.
+ */
+final class AsyncPoll<T>
+ implements Runnable {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Start polling with the settings of the given {@link PatientWait} until the timeout is reached.
+     *
+     * @param scheduler  the {@link HashedWheelScheduler} to time the attempts with.
+     *                   May not be null.
+     * @param attempts   the {@link Executor} to run the attempts on.
+     *                   May not be null.
+     * @param wait       the {@link PatientWait} defining the delays and execution handler.
+     *                   May not be null.
+     * @param timeout    the maximum {@link Duration} to keep trying for.
+     *                   May not be null or negative.
+     * @param executable the {@link PatientExecutable} to attempt.
+     *                   May not be null.
+     * @param <T>        the type of the result of each attempt.
+     *
+     * @return a future that completes once polling is done.
+     *
+     * @throws IllegalArgumentException if any argument is null or if the timeout is negative.
+     */
+    static <T> CompletableFuture<T> waiting(HashedWheelScheduler scheduler,
+                                            Executor attempts,
+                                            PatientWait wait,
+                                            Duration timeout,
+                                            PatientExecutable<T> executable) {
+        validate().that(wait).isNotNull();
+        validate().that(timeout).isAtLeast(Duration.ZERO);
+        long deadline = System.nanoTime() + wait.getInitialDelay().plus(timeout).toNanos();
+        AttemptLimit limit = new AttemptLimit() {
+            @Override
+            public boolean allowsAnother(int failedAttempts, Duration nextDelay) {
+                return System.nanoTime() + nextDelay.toNanos() - deadline < 0;
+            }
+
+            @Override
+            public AbstractRepeatedAttemptsException exhausted(List<String> failedAttemptDescriptions) {
+                return new PatientTimeoutException("Timeout reached while waiting asynchronously", failedAttemptDescriptions);
+            }
+        };
+        return start(scheduler,
+                     attempts,
+                     wait.getInitialDelay(),
+                     wait.getExecutionHandler(),
+                     wait.getDelaySupplierFactory().create(),
+                     executable,
+                     PatientWait.getDefaultFilter(),
+                     limit);
+    }
+
+    /**
+     * Start polling with the settings of the given {@link PatientRetry} until the number of retries is used up.
+     *
+     * @param scheduler  the {@link HashedWheelScheduler} to time the attempts with.
+     *                   May not be null.
+     * @param attempts   the {@link Executor} to run the attempts on.
+     *                   May not be null.
+     * @param retry      the {@link PatientRetry} defining the delays and execution handler.
+     *                   May not be null.
+     * @param numRetries the maximum number of retries after the initial attempt.
+     *                   May not be negative.
+     * @param executable the {@link PatientExecutable} to attempt.
+     *                   May not be null.
+     * @param <T>        the type of the result of each attempt.
+     *
+     * @return a future that completes once polling is done.
+     *
+     * @throws IllegalArgumentException if any argument is null or if numRetries is negative.
+     */
+    static <T> CompletableFuture<T> retrying(HashedWheelScheduler scheduler,
+                                             Executor attempts,
+                                             PatientRetry retry,
+                                             int numRetries,
+                                             PatientExecutable<T> executable) {
+        validate().that(retry).isNotNull();
+        validate().that(numRetries).isAtLeast(0);
+        AttemptLimit limit = new AttemptLimit() {
+            @Override
+            public boolean allowsAnother(int failedAttempts, Duration nextDelay) {
+                return failedAttempts <= numRetries;
+            }
+
+            @Override
+            public AbstractRepeatedAttemptsException exhausted(List<String> failedAttemptDescriptions) {
+                return new PatientRetryException("No more retries allowed while retrying asynchronously", failedAttemptDescriptions);
+            }
+        };
+        return start(scheduler,
+                     attempts,
+                     retry.getInitialDelay(),
+                     retry.getExecutionHandler(),
+                     retry.getDelaySupplierFactory().create(),
+                     executable,
+                     PatientRetry.getDefaultFilter(),
+                     limit);
+    }
+
+    private static <T> CompletableFuture<T> start(HashedWheelScheduler scheduler,
+                                                  Executor attempts,
+                                                  Duration initialDelay,
+                                                  PatientExecutionHandler executionHandler,
+                                                  Supplier<Duration> delaySupplier,
+                                                  PatientExecutable<T> executable,
+                                                  Predicate<T> filter,
+                                                  AttemptLimit limit) {
+        validate().that(scheduler).isNotNull();
+        validate().that(attempts).isNotNull();
+        validate().that(executable).isNotNull();
+        if (null == delaySupplier) {
+            throw new PatientException("Received a null duration supplier from the delay supplier factory");
+        }
+        AsyncPoll<T> poll = new AsyncPoll<>(scheduler, attempts, executionHandler, delaySupplier, executable, filter, limit);
+        // Don't leave a cancelled poll in the wheel until its deadline
+        poll.future.whenComplete((result, thrown) -> {
+            HashedWheelScheduler.Timeout timeout = poll.pending;
+            if (poll.future.isCancelled() && null != timeout) {
+                timeout.cancel();
+            }
+        });
+        poll.schedule(initialDelay);
+        return poll.future;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Attempts of a single poll never overlap, each one is scheduled by the previous
+     * one, so the mutable state is only ever touched by one thread at a time. The
+     * scheduler and the executor establish the happens-before ordering between
+     * successive attempts.
+     */
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final List<String> failedAttemptDescriptions = new ArrayList<>();
+
+    private final HashedWheelScheduler scheduler;
+    private final Executor attempts;
+    private final PatientExecutionHandler executionHandler;
+    private final Supplier<Duration> delaySupplier;
+    private final PatientExecutable<T> executable;
+    private final Predicate<T> filter;
+    private final AttemptLimit limit;
+
+    private volatile HashedWheelScheduler.Timeout pending;
+
+    private AsyncPoll(HashedWheelScheduler scheduler,
+                      Executor attempts,
+                      PatientExecutionHandler executionHandler,
+                      Supplier<Duration> delaySupplier,
+                      PatientExecutable<T> executable,
+                      Predicate<T> filter,
+                      AttemptLimit limit) {
+        this.scheduler = scheduler;
+        this.attempts = attempts;
+        this.executionHandler = validate().that(executionHandler).isNotNull();
+        this.delaySupplier = delaySupplier;
+        this.executable = executable;
+        this.filter = filter;
+        this.limit = limit;
+    }
+
+    @Override
+    public void run() {
+        if (future.isDone()) {
+            // Cancelled by the caller
+            return;
+        }
+        try {
+            PatientExecutionResult<T> result = executionHandler.execute(executable, filter);
+            if (null == result) {
+                throw new PatientException("Received a null PatientExecutionResult from the execution handler.");
+            }
+            if (result.isSuccess()) {
+                future.complete(result.getResult());
+                return;
+            }
+            failedAttemptDescriptions.add(result.getFailedAttemptDescription());
+            Duration delay = delaySupplier.get();
+            if (null == delay || delay.isNegative()) {
+                throw new PatientException("Received a null or negative Duration from the delay duration supplier.");
+            }
+            if (limit.allowsAnother(failedAttemptDescriptions.size(), delay)) {
+                schedule(delay);
+            } else {
+                future.completeExceptionally(limit.exhausted(failedAttemptDescriptions));
+            }
+        } catch (Throwable thrown) {
+            future.completeExceptionally(thrown);
+        }
+    }
+
+    private void schedule(Duration delay) {
+        try {
+            pending = scheduler.schedule(this::submit, delay);
+            if (future.isCancelled()) {
+                pending.cancel();
+            }
+        } catch (Throwable thrown) {
+            future.completeExceptionally(thrown);
+        }
+    }
+
+    private void submit() {
+        if (future.isDone()) {
+            // Cancelled by the caller
+            return;
+        }
+        try {
+            attempts.execute(this);
+        } catch (Throwable thrown) {
+            future.completeExceptionally(thrown);
+        }
+    }
+
+    /*
+     * Decides whether polling continues after a failed attempt.
+     */
+
+    private interface AttemptLimit {
+
+        boolean allowsAnother(int failedAttempts, Duration nextDelay);
+
+        AbstractRepeatedAttemptsException exhausted(List<String> failedAttemptDescriptions);
+    }
+}
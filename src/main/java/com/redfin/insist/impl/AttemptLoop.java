@@ -0,0 +1,572 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.InsistClock;
+import com.redfin.patience.PatientDelaySupplierFactory;
+import com.redfin.patience.PatientExecutable;
+import com.redfin.patience.PatientExecutionHandler;
+import com.redfin.patience.PatientExecutionResult;
+import com.redfin.patience.PatientRetry;
+import com.redfin.patience.PatientSleep;
+import com.redfin.patience.PatientWait;
+import com.redfin.patience.exceptions.PatientException;
+import com.redfin.patience.exceptions.PatientInterruptedException;
+import com.redfin.patience.exceptions.PatientRetryException;
+import com.redfin.patience.exceptions.PatientTimeoutException;
+import com.redfin.validity.ValidityUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * The blocking attempt loops of the {@link PatientWait} and {@link PatientRetry} classes
+ * but with the time taken from an {@link InsistClock}. Patience reads the wall clock directly
+ * which would make waiting on a {@link com.redfin.insist.VirtualClock} impossible, so these
+ * mirror its loops attempt for attempt: the same initial delay, delays, number of attempts and
+ * exceptions.
+ * <p>
+ * With the system clock the {@link PatientSleep} configured on the wait or retry is used so
+ * that existing custom sleeps keep working, otherwise the clock itself is slept on.
+ */
+final class AttemptLoop {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The description of a failed attempt that was given up on because it didn't return in time.
+     */
+    static final String ATTEMPT_TIMED_OUT = "The attempt timed out";
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Equivalent to {@code wait.from(executable).get(timeout)} with time measured by the given clock.
+     *
+     * @param clock      the {@link InsistClock} to measure time with.
+     *                   May not be null.
+     * @param wait       the {@link PatientWait} defining the delays and execution handler.
+     *                   May not be null.
+     * @param timeout    the maximum {@link Duration} to keep trying for.
+     *                   May not be null or negative.
+     * @param executable the {@link PatientExecutable} to attempt.
+     *                   May not be null.
+     * @param <T>        the type of the result of each attempt.
+     *
+     * @return the first successful result.
+     *
+     * @throws IllegalArgumentException if any argument is null or if the timeout is negative.
+     * @throws PatientTimeoutException  if no attempt was successful before the timeout.
+     * @throws PatientException         if there is an unexpected problem while attempting.
+     */
+    static <T> T waitFor(InsistClock clock,
+                         PatientWait wait,
+                         Duration timeout,
+                         PatientExecutable<T> executable) {
+        validate().that(clock).isNotNull();
+        validate().that(wait).isNotNull();
+        validate().that(timeout).isAtLeast(Duration.ZERO);
+        validate().that(executable).isNotNull();
+        PatientSleep sleep = getSleep(clock, wait.getSleep());
+        sleep.sleepFor(wait.getInitialDelay());
+        Supplier<Duration> delaySupplier = createDelaySupplier(wait.getDelaySupplierFactory());
+        List<String> failedAttemptDescriptions = new ArrayList<>();
+        Duration delay = Duration.ZERO;
+        long end = clock.nanoTime() + timeout.toNanos();
+        while (true) {
+            sleep.sleepFor(delay);
+            PatientExecutionResult<T> result = attempt(wait.getExecutionHandler(), executable, PatientWait.getDefaultFilter());
+            if (result.isSuccess()) {
+                return result.getResult();
+            }
+            failedAttemptDescriptions.add(result.getFailedAttemptDescription());
+            delay = nextDelay(delaySupplier);
+            if (clock.nanoTime() + delay.toNanos() - end >= 0) {
+                throw new PatientTimeoutException("Timeout reached while waiting", failedAttemptDescriptions);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #waitFor(InsistClock, PatientWait, Duration, PatientExecutable)} with the system clock
+     * but each attempt is run by one of the {@link AttemptWorkers} as defined by the {@link AttemptPolicy}.
+     * With an attempt timeout an attempt is given up on if it doesn't return in time. With hedging, if none
+     * of the running attempts has returned within the hedge delay of the latest one starting then another
+     * is started alongside them, up to the maximum in flight. The first successful result is used and the
+     * delay is only waited for once every running attempt has failed, each counting as a failed attempt.
+     * An attempt that is given up on, by its own timeout or the overall timeout, is interrupted, abandoned,
+     * and counted as a failed attempt described by {@link #ATTEMPT_TIMED_OUT}. The time each attempt that
+     * isn't given up on took to run is passed on to {@link AttemptPolicy#recordAttemptTime(long)}. An abandoned attempt keeps
+     * its worker until it actually returns, so it still counts towards the maximum in flight of this wait
+     * and no further attempt is started while that many are still running. An attempt that ignores the
+     * interrupt therefore can't make a single wait take up every worker. Unlike the other loops the
+     * overall timeout is strict: it is measured from the start, including the initial delay, and nothing is
+     * waited for beyond it.
+     *
+     * @param wait          the {@link PatientWait} defining the delays and execution handler.
+     *                      May not be null.
+     * @param timeout       the maximum {@link Duration} to keep trying for.
+     *                      May not be null or negative.
+     * @param attemptPolicy the {@link AttemptPolicy} defining how attempts are run.
+     *                      May not be null and must be preemptive.
+     * @param executable    the {@link PatientExecutable} to attempt.
+     *                      May not be null.
+     * @param <T>           the type of the result of each attempt.
+     *
+     * @return the first successful result.
+     *
+     * @throws IllegalArgumentException    if any argument is null, if timeout is negative or if
+     *                                     attemptPolicy isn't preemptive.
+     * @throws PatientTimeoutException     if no attempt was successful before the timeout.
+     * @throws PatientInterruptedException if the thread is interrupted while waiting for an attempt.
+     * @throws PatientException            if there is an unexpected problem while attempting.
+     */
+    static <T> T waitForPreemptively(PatientWait wait,
+                                     Duration timeout,
+                                     AttemptPolicy attemptPolicy,
+                                     PatientExecutable<T> executable) {
+        validate().that(wait).isNotNull();
+        validate().that(timeout).isAtLeast(Duration.ZERO);
+        validate().that(attemptPolicy).satisfies(AttemptPolicy::isPreemptive);
+        validate().that(executable).isNotNull();
+        long end = System.nanoTime() + timeout.toNanos();
+        PatientSleep sleep = wait.getSleep();
+        sleep.sleepFor(min(wait.getInitialDelay(), end - System.nanoTime()));
+        Supplier<Duration> delaySupplier = createDelaySupplier(wait.getDelaySupplierFactory());
+        Callable<PatientExecutionResult<T>> task = () -> attempt(wait.getExecutionHandler(),
+                                                                 executable,
+                                                                 PatientWait.getDefaultFilter());
+        // One permit per worker this wait may occupy, only given back once an attempt has actually returned
+        Semaphore workers = new Semaphore(attemptPolicy.getMaxInFlight());
+        List<String> failedAttemptDescriptions = new ArrayList<>();
+        Duration delay = Duration.ZERO;
+        while (true) {
+            sleep.sleepFor(delay);
+            PatientExecutionResult<T> result = attemptPreemptively(task, attemptPolicy, workers, end, failedAttemptDescriptions);
+            if (null != result) {
+                return result.getResult();
+            }
+            delay = nextDelay(delaySupplier);
+            if (System.nanoTime() + delay.toNanos() - end >= 0) {
+                throw new PatientTimeoutException("Timeout reached while waiting", failedAttemptDescriptions);
+            }
+        }
+    }
+
+    private static <T> PatientExecutionResult<T> attemptPreemptively(Callable<PatientExecutionResult<T>> task,
+                                                                     AttemptPolicy attemptPolicy,
+                                                                     Semaphore workers,
+                                                                     long end,
+                                                                     List<String> failedAttemptDescriptions) {
+        Duration attemptTimeout = attemptPolicy.getAttemptTimeout();
+        Duration hedgeDelay = attemptPolicy.getHedgeDelay();
+        CompletionService<PatientExecutionResult<T>> completionService = AttemptWorkers.newCompletionService();
+        // Each running attempt, oldest first
+        Map<Future<PatientExecutionResult<T>>, OccupyingTask<T>> running = new LinkedHashMap<>();
+        try {
+            // Attempts abandoned earlier in this wait may still be running
+            if (!workers.tryAcquire(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return null;
+            }
+            long latestStart = submit(completionService, task, workers, running);
+            while (true) {
+                long now = System.nanoTime();
+                long waitNanos = end - now;
+                if (null != attemptTimeout) {
+                    waitNanos = Math.min(waitNanos, running.values().iterator().next().start + attemptTimeout.toNanos() - now);
+                }
+                if (null != hedgeDelay && workers.availablePermits() > 0) {
+                    waitNanos = Math.min(waitNanos, latestStart + hedgeDelay.toNanos() - now);
+                }
+                Future<PatientExecutionResult<T>> done = completionService.poll(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+                if (null != done) {
+                    // Attempts that were given up on are still queued once they finish
+                    OccupyingTask<T> returned = running.remove(done);
+                    if (null != returned) {
+                        PatientExecutionResult<T> result = getResult(done);
+                        attemptPolicy.recordAttemptTime(returned.elapsedNanos);
+                        if (result.isSuccess()) {
+                            return result;
+                        }
+                        failedAttemptDescriptions.add(result.getFailedAttemptDescription());
+                        if (running.isEmpty()) {
+                            return null;
+                        }
+                    }
+                    continue;
+                }
+                now = System.nanoTime();
+                if (end - now <= 0) {
+                    running.forEach((future, occupyingTask) -> giveUp(future, occupyingTask, failedAttemptDescriptions));
+                    running.clear();
+                    return null;
+                }
+                if (null != attemptTimeout) {
+                    Iterator<Map.Entry<Future<PatientExecutionResult<T>>, OccupyingTask<T>>> iterator = running.entrySet().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<Future<PatientExecutionResult<T>>, OccupyingTask<T>> entry = iterator.next();
+                        if (entry.getValue().start + attemptTimeout.toNanos() - now > 0) {
+                            break;
+                        }
+                        giveUp(entry.getKey(), entry.getValue(), failedAttemptDescriptions);
+                        iterator.remove();
+                    }
+                    if (running.isEmpty()) {
+                        return null;
+                    }
+                }
+                if (null != hedgeDelay
+                        && latestStart + hedgeDelay.toNanos() - now <= 0
+                        && workers.tryAcquire()) {
+                    latestStart = submit(completionService, task, workers, running);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new PatientInterruptedException("Thread waiting for an attempt was interrupted.", exception);
+        } finally {
+            // Stop any attempts that lost the race
+            running.forEach((future, occupyingTask) -> {
+                future.cancel(true);
+                occupyingTask.abandon();
+            });
+        }
+    }
+
+    /*
+     * Submit the task holding a permit of the workers that was just acquired.
+     */
+
+    private static <T> long submit(CompletionService<PatientExecutionResult<T>> completionService,
+                                   Callable<PatientExecutionResult<T>> task,
+                                   Semaphore workers,
+                                   Map<Future<PatientExecutionResult<T>>, OccupyingTask<T>> running) {
+        OccupyingTask<T> occupyingTask = new OccupyingTask<>(task, workers, System.nanoTime());
+        try {
+            running.put(completionService.submit(occupyingTask), occupyingTask);
+        } catch (RuntimeException exception) {
+            workers.release();
+            throw exception;
+        }
+        return occupyingTask.start;
+    }
+
+    private static void giveUp(Future<?> future,
+                               OccupyingTask<?> occupyingTask,
+                               List<String> failedAttemptDescriptions) {
+        future.cancel(true);
+        occupyingTask.abandon();
+        failedAttemptDescriptions.add(ATTEMPT_TIMED_OUT);
+    }
+
+    private static <T> PatientExecutionResult<T> getResult(Future<PatientExecutionResult<T>> done) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof PatientException) {
+                throw (PatientException) exception.getCause();
+            }
+            throw new PatientException("Unexpected throwable caught while getting execution result", exception.getCause());
+        }
+    }
+
+    private static Duration min(Duration duration, long nanos) {
+        return Duration.ofNanos(Math.max(0, Math.min(duration.toNanos(), nanos)));
+    }
+
+    /**
+     * Equivalent to {@code retry.from(executable).get(numRetries)} with sleeps on the given clock.
+     *
+     * @param clock      the {@link InsistClock} to sleep on.
+     *                   May not be null.
+     * @param retry      the {@link PatientRetry} defining the delays and execution handler.
+     *                   May not be null.
+     * @param numRetries the maximum number of retries after the initial attempt.
+     *                   May not be negative.
+     * @param executable the {@link PatientExecutable} to attempt.
+     *                   May not be null.
+     * @param <T>        the type of the result of each attempt.
+     *
+     * @return the first successful result.
+     *
+     * @throws IllegalArgumentException if any argument is null or if numRetries is negative.
+     * @throws PatientRetryException    if no attempt was successful.
+     * @throws PatientException         if there is an unexpected problem while attempting.
+     */
+    static <T> T retry(InsistClock clock,
+                       PatientRetry retry,
+                       int numRetries,
+                       PatientExecutable<T> executable) {
+        validate().that(clock).isNotNull();
+        validate().that(retry).isNotNull();
+        validate().that(numRetries).isAtLeast(0);
+        validate().that(executable).isNotNull();
+        PatientSleep sleep = getSleep(clock, retry.getSleep());
+        sleep.sleepFor(retry.getInitialDelay());
+        Supplier<Duration> delaySupplier = createDelaySupplier(retry.getDelaySupplierFactory());
+        List<String> failedAttemptDescriptions = new ArrayList<>();
+        Duration delay = Duration.ZERO;
+        for (int i = 0; i <= numRetries; i++) {
+            sleep.sleepFor(delay);
+            PatientExecutionResult<T> result = attempt(retry.getExecutionHandler(), executable, PatientRetry.getDefaultFilter());
+            if (result.isSuccess()) {
+                return result.getResult();
+            }
+            failedAttemptDescriptions.add(result.getFailedAttemptDescription());
+            delay = nextDelay(delaySupplier);
+        }
+        throw new PatientRetryException("No more retries allowed", failedAttemptDescriptions);
+    }
+
+    /**
+     * Wait for an event with the settings of the given {@link PatientWait}. With the system clock
+     * this is a single attempt that blocks in the timed wait of the event until the timeout, so it
+     * returns the moment the event happens. Other clocks can't drive a real timed wait so the event
+     * is polled with {@link #waitFor(InsistClock, PatientWait, Duration, PatientExecutable)} instead.
+     *
+     * @param clock   the {@link InsistClock} to measure time with.
+     *                May not be null.
+     * @param wait    the {@link PatientWait} defining the initial delay and, when polling, the delays.
+     *                May not be null.
+     * @param timeout the maximum {@link Duration} to wait for.
+     *                May not be null or negative.
+     * @param event   the {@link TimedAttempt} waiting for the event.
+     *                May not be null.
+     * @param <T>     the type of the result of the event.
+     *
+     * @return the result of the event.
+     *
+     * @throws IllegalArgumentException    if any argument is null or if the timeout is negative.
+     * @throws PatientTimeoutException     if the event didn't happen before the timeout.
+     * @throws PatientInterruptedException if the thread is interrupted while waiting.
+     */
+    static <T> T awaitFor(InsistClock clock,
+                          PatientWait wait,
+                          Duration timeout,
+                          TimedAttempt<T> event) {
+        validate().that(clock).isNotNull();
+        validate().that(wait).isNotNull();
+        validate().that(timeout).isAtLeast(Duration.ZERO);
+        validate().that(event).isNotNull();
+        if (clock != InsistClock.system()) {
+            return waitFor(clock, wait, timeout, () -> attempt(event, 0));
+        }
+        wait.getSleep().sleepFor(wait.getInitialDelay());
+        T result = attempt(event, timeout.toNanos());
+        if (null == result) {
+            throw new PatientTimeoutException("Timeout reached while waiting", Collections.singletonList("The event didn't happen"));
+        }
+        return result;
+    }
+
+    /**
+     * Wait for an event with the settings of the given {@link PatientRetry}. With the system clock
+     * each attempt after the first blocks in the timed wait of the event for as long as the delay
+     * before it would have been, so it returns the moment the event happens while making the same
+     * number of attempts. Other clocks can't drive a real timed wait so the event is polled with
+     * {@link #retry(InsistClock, PatientRetry, int, PatientExecutable)} instead.
+     *
+     * @param clock      the {@link InsistClock} to sleep on.
+     *                   May not be null.
+     * @param retry      the {@link PatientRetry} defining the initial delay and delays.
+     *                   May not be null.
+     * @param numRetries the maximum number of retries after the initial attempt.
+     *                   May not be negative.
+     * @param event      the {@link TimedAttempt} waiting for the event.
+     *                   May not be null.
+     * @param <T>        the type of the result of the event.
+     *
+     * @return the result of the event.
+     *
+     * @throws IllegalArgumentException    if any argument is null or if numRetries is negative.
+     * @throws PatientRetryException       if the event didn't happen within the attempts.
+     * @throws PatientInterruptedException if the thread is interrupted while waiting.
+     */
+    static <T> T awaitRetrying(InsistClock clock,
+                               PatientRetry retry,
+                               int numRetries,
+                               TimedAttempt<T> event) {
+        validate().that(clock).isNotNull();
+        validate().that(retry).isNotNull();
+        validate().that(numRetries).isAtLeast(0);
+        validate().that(event).isNotNull();
+        if (clock != InsistClock.system()) {
+            return retry(clock, retry, numRetries, () -> attempt(event, 0));
+        }
+        retry.getSleep().sleepFor(retry.getInitialDelay());
+        Supplier<Duration> delaySupplier = createDelaySupplier(retry.getDelaySupplierFactory());
+        List<String> failedAttemptDescriptions = new ArrayList<>();
+        Duration delay = Duration.ZERO;
+        for (int i = 0; i <= numRetries; i++) {
+            T result = attempt(event, delay.toNanos());
+            if (null != result) {
+                return result;
+            }
+            failedAttemptDescriptions.add("The event didn't happen");
+            delay = nextDelay(delaySupplier);
+        }
+        throw new PatientRetryException("No more retries allowed", failedAttemptDescriptions);
+    }
+
+    private static <T> T attempt(TimedAttempt<T> event, long timeoutNanos) {
+        try {
+            return event.await(timeoutNanos);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new PatientInterruptedException("Thread waiting for an event was interrupted.", exception);
+        }
+    }
+
+    private static PatientSleep getSleep(InsistClock clock, PatientSleep configuredSleep) {
+        return (clock == InsistClock.system()) ? configuredSleep : clock;
+    }
+
+    private static Supplier<Duration> createDelaySupplier(PatientDelaySupplierFactory delaySupplierFactory) {
+        Supplier<Duration> delaySupplier = delaySupplierFactory.create();
+        if (null == delaySupplier) {
+            throw new PatientException("Received a null duration supplier from the delay supplier factory");
+        }
+        return delaySupplier;
+    }
+
+    private static <T> PatientExecutionResult<T> attempt(PatientExecutionHandler executionHandler,
+                                                         PatientExecutable<T> executable,
+                                                         Predicate<T> filter) {
+        PatientExecutionResult<T> result;
+        try {
+            result = executionHandler.execute(executable, filter);
+        } catch (PatientException exception) {
+            throw exception;
+        } catch (Throwable thrown) {
+            throw new PatientException("Unexpected throwable caught while getting execution result", thrown);
+        }
+        if (null == result) {
+            throw new PatientException("Received a null PatientExecutionResult from the execution handler.");
+        }
+        return result;
+    }
+
+    private static Duration nextDelay(Supplier<Duration> delaySupplier) {
+        Duration delay = delaySupplier.get();
+        if (null == delay || delay.isNegative()) {
+            throw new PatientException("Received a null or negative Duration from the delay duration supplier.");
+        }
+        return delay;
+    }
+
+    /*
+     * An attempt that gives back its permit of the workers of a wait once it has actually returned,
+     * or straight away if it's abandoned before it started, so that abandoned attempts that are
+     * still running keep counting towards the maximum in flight of the wait.
+     */
+    private static final class OccupyingTask<T> implements Callable<PatientExecutionResult<T>> {
+
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int RETURNED = 2;
+
+        private final Callable<PatientExecutionResult<T>> task;
+        private final Semaphore workers;
+        private final long start;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        // Only read once the future of the task is done, which orders it after the write
+        private long elapsedNanos;
+
+        OccupyingTask(Callable<PatientExecutionResult<T>> task,
+                      Semaphore workers,
+                      long start) {
+            this.task = task;
+            this.workers = workers;
+            this.start = start;
+        }
+
+        @Override
+        public PatientExecutionResult<T> call() throws Exception {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                // Abandoned before it started, the permit was already given back
+                return null;
+            }
+            long started = System.nanoTime();
+            try {
+                PatientExecutionResult<T> result = task.call();
+                elapsedNanos = System.nanoTime() - started;
+                return result;
+            } finally {
+                state.set(RETURNED);
+                workers.release();
+            }
+        }
+
+        void abandon() {
+            if (state.compareAndSet(QUEUED, RETURNED)) {
+                workers.release();
+            }
+        }
+    }
+
+    /**
+     * A timed wait for an event, such as {@link java.util.concurrent.BlockingQueue#poll(long, java.util.concurrent.TimeUnit)}.
+     *
+     * @param <T> the type of the result of the event.
+     */
+    @FunctionalInterface
+    interface TimedAttempt<T> {
+
+        /**
+         * @param timeoutNanos the maximum number of nanoseconds to wait for the event.
+         *                     Zero means to check without waiting.
+         *
+         * @return the non-null result of the event or null if it didn't happen in time.
+         *
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        T await(long timeoutNanos) throws InterruptedException;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private AttemptLoop() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
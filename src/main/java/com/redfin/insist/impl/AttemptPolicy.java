@@ -0,0 +1,207 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * How the attempts of a wait are run when they may hang or be slow. By default attempts are run on the
+ * waiting thread. Setting an attempt timeout or hedging runs them on the {@link AttemptWorkers} instead,
+ * see {@link AttemptLoop#waitForPreemptively(com.redfin.patience.PatientWait, Duration, AttemptPolicy, com.redfin.patience.PatientExecutable)}.
+ * The hedge delay is either given explicitly or, with tuned hedging, learned by a {@link CallSiteTuner} from the
+ * times of the earlier attempts at the call site, which the policy then passes on to the tuner as they return.
+ * Instances are immutable.
+ */
+final class AttemptPolicy {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Attempts are run on the waiting thread, one at a time, for as long as they take.
+     */
+    static final AttemptPolicy DIRECT = new AttemptPolicy(null, null, 0, 1, null);
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final Duration attemptTimeout;
+    private final Duration hedgeDelay;
+    private final double hedgePercentile;
+    private final int maxInFlight;
+    private final LongConsumer attemptTimeRecorder;
+
+    private AttemptPolicy(Duration attemptTimeout,
+                          Duration hedgeDelay,
+                          double hedgePercentile,
+                          int maxInFlight,
+                          LongConsumer attemptTimeRecorder) {
+        this.attemptTimeout = attemptTimeout;
+        this.hedgeDelay = hedgeDelay;
+        this.hedgePercentile = hedgePercentile;
+        this.maxInFlight = maxInFlight;
+        this.attemptTimeRecorder = attemptTimeRecorder;
+    }
+
+    /**
+     * @param attemptTimeout the maximum {@link Duration} to wait for each attempt.
+     *                       May not be null and must be positive.
+     *
+     * @return a policy like this one that gives up on attempts after the given timeout.
+     *
+     * @throws IllegalArgumentException if attemptTimeout is null or isn't positive.
+     */
+    AttemptPolicy withAttemptTimeout(Duration attemptTimeout) {
+        validate().that(attemptTimeout).isGreaterThan(Duration.ZERO);
+        return new AttemptPolicy(attemptTimeout, hedgeDelay, hedgePercentile, maxInFlight, attemptTimeRecorder);
+    }
+
+    /**
+     * @param hedgeDelay  the {@link Duration} after which another attempt is started alongside
+     *                    those still running.
+     *                    May not be null and must be positive.
+     * @param maxInFlight the maximum number of attempts running at once.
+     *                    Must be at least two.
+     *
+     * @return a policy like this one that hedges slow attempts after the given delay, which is never tuned.
+     *
+     * @throws IllegalArgumentException if hedgeDelay is null or isn't positive or if maxInFlight is less than two.
+     */
+    AttemptPolicy withHedging(Duration hedgeDelay, int maxInFlight) {
+        validate().that(hedgeDelay).isGreaterThan(Duration.ZERO);
+        validate().that(maxInFlight).isAtLeast(2);
+        return new AttemptPolicy(attemptTimeout, hedgeDelay, 0, maxInFlight, null);
+    }
+
+    /**
+     * @param hedgePercentile the percentile of the times of the attempts at a call site after which
+     *                        another attempt is started alongside those still running.
+     *                        Must be greater than zero and less than one.
+     * @param maxInFlight     the maximum number of attempts running at once.
+     *                        Must be at least two.
+     *
+     * @return a policy like this one that hedges slow attempts once a {@link CallSiteTuner} has learned
+     * the given percentile of the attempt times of the call site, see {@link #tuned(Duration, LongConsumer)}.
+     *
+     * @throws IllegalArgumentException if hedgePercentile isn't between zero and one or if maxInFlight is less than two.
+     */
+    AttemptPolicy withTunedHedging(double hedgePercentile, int maxInFlight) {
+        validate().that(hedgePercentile).satisfies(percentile -> percentile > 0 && percentile < 1);
+        validate().that(maxInFlight).isAtLeast(2);
+        return new AttemptPolicy(attemptTimeout, null, hedgePercentile, maxInFlight, null);
+    }
+
+    /**
+     * @param learnedHedgeDelay   the hedge delay learned for the call site or null if it hasn't been learned yet.
+     * @param attemptTimeRecorder the {@link LongConsumer} to pass the time of each attempt that returns to,
+     *                            in nanoseconds.
+     *                            May not be null.
+     *
+     * @return a policy like this one for a single call site with tuned hedging.
+     *
+     * @throws IllegalArgumentException if learnedHedgeDelay isn't positive or if attemptTimeRecorder is null.
+     */
+    AttemptPolicy tuned(Duration learnedHedgeDelay, LongConsumer attemptTimeRecorder) {
+        if (null != learnedHedgeDelay) {
+            validate().that(learnedHedgeDelay).isGreaterThan(Duration.ZERO);
+        }
+        validate().that(attemptTimeRecorder).isNotNull();
+        return new AttemptPolicy(attemptTimeout, learnedHedgeDelay, hedgePercentile, maxInFlight, attemptTimeRecorder);
+    }
+
+    /**
+     * @return true if attempts are run on the {@link AttemptWorkers} rather than on the waiting thread.
+     * Attempts are run there with tuned hedging even before a hedge delay is learned so that they can be timed.
+     */
+    boolean isPreemptive() {
+        return null != attemptTimeout || null != hedgeDelay || isTunedHedging();
+    }
+
+    /**
+     * @return true if the hedge delay is learned from the attempt times of the call site.
+     */
+    boolean isTunedHedging() {
+        return hedgePercentile > 0;
+    }
+
+    /**
+     * @return the percentile of the attempt times of the call site to hedge after or zero without tuned hedging.
+     */
+    double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    /**
+     * Pass the time an attempt took to return on to the tuner of the call site, if any.
+     *
+     * @param nanos the time the attempt took in nanoseconds.
+     */
+    void recordAttemptTime(long nanos) {
+        if (null != attemptTimeRecorder) {
+            attemptTimeRecorder.accept(nanos);
+        }
+    }
+
+    /**
+     * @return the maximum {@link Duration} to wait for each attempt or null if there is no limit.
+     */
+    Duration getAttemptTimeout() {
+        return attemptTimeout;
+    }
+
+    /**
+     * @return the {@link Duration} after which a slow attempt is hedged or null if attempts aren't hedged,
+     * or with tuned hedging, if the hedge delay hasn't been learned yet.
+     */
+    Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * @return the maximum number of attempts running at once.
+     */
+    int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof AttemptPolicy)) {
+            return false;
+        }
+        AttemptPolicy that = (AttemptPolicy) other;
+        return maxInFlight == that.maxInFlight
+               && Double.compare(hedgePercentile, that.hedgePercentile) == 0
+               && Objects.equals(attemptTimeout, that.attemptTimeout)
+               && Objects.equals(hedgeDelay, that.hedgeDelay)
+               && Objects.equals(attemptTimeRecorder, that.attemptTimeRecorder);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(attemptTimeout, hedgeDelay, hedgePercentile, maxInFlight, attemptTimeRecorder);
+    }
+}
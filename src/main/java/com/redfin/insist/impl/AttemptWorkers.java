@@ -0,0 +1,125 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.ValidityUtils;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The shared, bounded pool of threads that run attempts which have a timeout of their own or are hedged, see
+ * {@link AttemptLoop#waitForPreemptively(com.redfin.patience.PatientWait, java.time.Duration, AttemptPolicy, com.redfin.patience.PatientExecutable)},
+ * and the attempts of asynchronous validations, which the {@link HashedWheelScheduler} only times.
+ * Where the runtime has virtual threads (Java 21+) the workers are virtual threads, otherwise they are daemon
+ * threads. A timed out attempt is interrupted but an attempt that ignores interrupts keeps its worker until it
+ * returns, so the pool is bounded to keep hanging attempts from piling up threads. Once every worker is
+ * busy, further attempts queue and time out waiting for a worker. The bound is 64 workers unless set with the
+ * {@code insist.attempts.maxThreads} system property. Idle workers are stopped after a few seconds and
+ * none are started until an attempt needs one.
+ */
+final class AttemptWorkers {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String THREAD_NAME_PREFIX = "insist-attempt-";
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @param <T> the type of the results of the tasks.
+     *
+     * @return a new {@link CompletionService} that runs its tasks on the workers. Cancelling the
+     * {@link java.util.concurrent.Future} of a task with interruption interrupts its worker.
+     */
+    static <T> CompletionService<T> newCompletionService() {
+        return new ExecutorCompletionService<>(Holder.WORKERS);
+    }
+
+    /**
+     * @return the {@link Executor} that runs its tasks on the workers.
+     */
+    static Executor getExecutor() {
+        return Holder.WORKERS;
+    }
+
+    /*
+     * Lazy initialization holder so that users that never set an attempt
+     * timeout or hedging or validate asynchronously never create the pool.
+     */
+
+    private static final class Holder {
+
+        private static final ThreadPoolExecutor WORKERS = createWorkers(Math.max(1, Integer.getInteger("insist.attempts.maxThreads", 64)));
+
+        private static ThreadPoolExecutor createWorkers(int maxThreads) {
+            ThreadFactory threadFactory = createVirtualThreadFactory();
+            if (null == threadFactory) {
+                AtomicInteger counter = new AtomicInteger(0);
+                threadFactory = runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+            }
+            ThreadPoolExecutor workers = new ThreadPoolExecutor(maxThreads,
+                                                                maxThreads,
+                                                                KEEP_ALIVE_SECONDS,
+                                                                TimeUnit.SECONDS,
+                                                                new LinkedBlockingQueue<>(),
+                                                                threadFactory);
+            workers.allowCoreThreadTimeOut(true);
+            return workers;
+        }
+
+        private static ThreadFactory createVirtualThreadFactory() {
+            // Looked up reflectively as the library is built for Java 8
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 1L);
+                return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException exception) {
+                // No virtual threads, or only as a preview feature that isn't enabled
+                return null;
+            }
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private AttemptWorkers() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.ValidityUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Checks every element of a {@link Spliterator} against a predicate by splitting the work across a
+ * {@link ForkJoinPool}. The index of each element in encounter order is tracked from the sizes of
+ * the split off prefixes so that failures can be reported with their indices. A prefix whose size
+ * isn't known is checked by the task that split it off before it carries on splitting, unless the
+ * elements have no encounter order, like those of a hash set, and so no meaningful indices: those
+ * prefixes are forked like the others and failures are reported without indices. Either every
+ * element is checked and the failures with the lowest indices are kept, or the check short-circuits
+ * and stops all tasks as soon as a failure is found.
+ *
+ * @param <T> the type of the elements.
+ */
+final class BulkVerification<T> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final long MINIMUM_LEAF_SIZE = 1024;
+    private static final int LEAVES_PER_THREAD = 4;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Check every element of the given spliterator, or until the first failure is found.
+     *
+     * @param subjects            the {@link Spliterator} of the elements to check.
+     *                            May not be null.
+     * @param predicate           the {@link Predicate} every element must satisfy.
+     *                            May not be null.
+     * @param maxReportedFailures the maximum number of failures to keep.
+     *                            Must be positive.
+     * @param shortCircuit        true to stop at the first failure found, false to check every element.
+     * @param pool                the {@link ForkJoinPool} to run the tasks in.
+     *                            May not be null.
+     * @param <T>                 the type of the elements.
+     *
+     * @return the finished {@link BulkVerification}.
+     */
+    static <T> BulkVerification<T> run(Spliterator<? extends T> subjects,
+                                       Predicate<? super T> predicate,
+                                       int maxReportedFailures,
+                                       boolean shortCircuit,
+                                       ForkJoinPool pool) {
+        BulkVerification<T> verification = new BulkVerification<>(predicate,
+                                                                   maxReportedFailures,
+                                                                   shortCircuit,
+                                                                   subjects.hasCharacteristics(Spliterator.ORDERED),
+                                                                   getLeafSize(subjects.estimateSize(), pool.getParallelism()));
+        pool.invoke(verification.new Task(subjects, 0));
+        return verification;
+    }
+
+    private static long getLeafSize(long estimatedSize, int parallelism) {
+        if (estimatedSize == Long.MAX_VALUE) {
+            return MINIMUM_LEAF_SIZE;
+        }
+        return Math.max(MINIMUM_LEAF_SIZE, estimatedSize / ((long) parallelism * LEAVES_PER_THREAD));
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final LongAdder checkedCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final ConcurrentLinkedQueue<Failure<T>> failures = new ConcurrentLinkedQueue<>();
+    private final Predicate<? super T> predicate;
+    private final int maxReportedFailures;
+    private final boolean shortCircuit;
+    private final boolean ordered;
+    private final long leafSize;
+
+    private volatile boolean stopped = false;
+
+    private BulkVerification(Predicate<? super T> predicate,
+                             int maxReportedFailures,
+                             boolean shortCircuit,
+                             boolean ordered,
+                             long leafSize) {
+        if (null == predicate) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("predicate"));
+        }
+        this.predicate = predicate;
+        this.maxReportedFailures = maxReportedFailures;
+        this.shortCircuit = shortCircuit;
+        this.ordered = ordered;
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * @return true if any element failed the predicate.
+     */
+    boolean hasFailed() {
+        return failureCount.sum() > 0;
+    }
+
+    /**
+     * @return the description of what every element was expected to satisfy.
+     */
+    String describeExpected() {
+        return "every element satisfies " + ValidityUtils.describe(predicate);
+    }
+
+    /**
+     * @return the description of the failures, with the kept failures in index order if the elements
+     * have an encounter order.
+     */
+    String describeFailures() {
+        List<Failure<T>> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparingLong(failure -> failure.index));
+        StringBuilder sb = new StringBuilder();
+        if (shortCircuit) {
+            sb.append("element ")
+              .append(describe(sorted.get(0)))
+              .append(" failed, stopped at the first failure found");
+            return sb.toString();
+        }
+        long failed = failureCount.sum();
+        sb.append(failed)
+          .append(" of ")
+          .append(checkedCount.sum())
+          .append(" elements failed: ");
+        return FailureListing.append(sb, sorted.iterator(), maxReportedFailures, failed, this::describe)
+                             .toString();
+    }
+
+    private String describe(Failure<?> failure) {
+        if (!ordered) {
+            return "<" + ValidityUtils.describe(failure.element) + ">";
+        }
+        return FailureListing.describe(failure.index, failure.element);
+    }
+
+    private long check(Spliterator<? extends T> spliterator, long offset) {
+        Leaf leaf = new Leaf(offset);
+        while (!stopped && spliterator.tryAdvance(leaf)) {
+            // Keep going until done or stopped
+        }
+        long count = leaf.index - offset;
+        checkedCount.add(count);
+        failures.addAll(leaf.recorded);
+        return count;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Tasks
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final class Failure<T> {
+
+        private final long index;
+        private final T element;
+
+        Failure(long index, T element) {
+            this.index = index;
+            this.element = element;
+        }
+    }
+
+    private final class Leaf
+            implements Consumer<T> {
+
+        private final List<Failure<T>> recorded = new ArrayList<>();
+        private long index;
+
+        Leaf(long offset) {
+            this.index = offset;
+        }
+
+        @Override
+        public void accept(T element) {
+            if (!predicate.test(element)) {
+                failureCount.increment();
+                // A leaf checks its elements in order so the first ones it sees have its lowest indices
+                if (recorded.size() < maxReportedFailures) {
+                    recorded.add(new Failure<>(index, element));
+                }
+                if (shortCircuit) {
+                    stopped = true;
+                }
+            }
+            index++;
+        }
+    }
+
+    private final class Task
+            extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Spliterator<? extends T> spliterator;
+        private final long offset;
+
+        Task(Spliterator<? extends T> spliterator, long offset) {
+            this.spliterator = spliterator;
+            this.offset = offset;
+        }
+
+        @Override
+        protected void compute() {
+            List<Task> forked = new ArrayList<>();
+            try {
+                Spliterator<? extends T> remaining = spliterator;
+                long position = offset;
+                Spliterator<? extends T> prefix;
+                while (!stopped && remaining.estimateSize() > leafSize && null != (prefix = remaining.trySplit())) {
+                    long size = prefix.getExactSizeIfKnown();
+                    if (size < 0 && ordered) {
+                        // The index after an unsized prefix is only known once it has been checked
+                        position += check(prefix, position);
+                    } else {
+                        Task task = new Task(prefix, position);
+                        task.fork();
+                        forked.add(task);
+                        // Without an encounter order indices aren't reported so they needn't be exact
+                        position += Math.max(0, size);
+                    }
+                }
+                check(remaining, position);
+            } catch (RuntimeException | Error thrown) {
+                stopped = true;
+                throw thrown;
+            }
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                forked.get(i).join();
+            }
+        }
+    }
+}
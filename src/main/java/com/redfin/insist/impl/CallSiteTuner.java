@@ -0,0 +1,414 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.InsistDelaySuppliers;
+import com.redfin.patience.PatientDelaySupplierFactory;
+import com.redfin.patience.PatientRetry;
+import com.redfin.patience.PatientWait;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * Learns how long the eventual validations at each call site take to succeed and uses
+ * that to choose the delays of later validations from the same call site. A call site is
+ * the stack frame of the code calling {@link InsistVerifiableFactory#within(Duration)} or
+ * {@link InsistVerifiableFactory#within(int)}, the same frame the stack trimming executors
+ * leave on a failure.
+ * <p>
+ * The time to success of each call site, from its first attempt on, is kept in a histogram
+ * with power of two microsecond buckets. Once a call site has enough samples its first attempt
+ * is delayed until shortly before it has usually succeeded and later attempts back off from a
+ * fraction of its usual time to success. Since the time is taken from the first attempt, a call
+ * site that starts succeeding sooner records times under its current delay, which then shrinks
+ * again. Call sites with tuned hedging, see {@link InsistVerifiableFactory#withTunedHedging(double, int)},
+ * also record how long each of their attempts takes, in a histogram of its own, and hedge an attempt
+ * once it takes longer than the chosen percentile of those times. Call sites without enough samples
+ * use the delays of the factory unchanged and aren't hedged. Only successes are recorded, a timeout
+ * says nothing about when the condition would have become true.
+ * <p>
+ * A tuner created with {@link #persistentAt(Path)} loads its histograms from the given file
+ * and saves them back, merged with whatever has been saved there in the meantime, when
+ * {@link #save()} is called and when the JVM shuts down. Instances are thread safe.
+ */
+public final class CallSiteTuner {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String HEADER = "# insist call site tuner v1";
+    private static final String ATTEMPT_KEY_SUFFIX = ":attempt";
+    private static final int BUCKET_COUNT = 40;
+    private static final int MIN_SAMPLES = 3;
+    private static final int MAX_SAMPLES = 1024;
+    private static final long MIN_INTERVAL_NANOS = Duration.ofNanos(500_000).toNanos();
+    private static final long MAX_INTERVAL_NANOS = Duration.ofMillis(500).toNanos();
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return a new {@link CallSiteTuner} that only learns for the life of this JVM.
+     */
+    public static CallSiteTuner inMemory() {
+        return new CallSiteTuner(null);
+    }
+
+    /**
+     * Create a tuner that learns across runs by keeping its histograms in the given file.
+     * The file doesn't need to exist yet.
+     *
+     * @param file the {@link Path} of the file to load from and save to.
+     *             May not be null.
+     *
+     * @return a new {@link CallSiteTuner} loaded from the given file.
+     *
+     * @throws IllegalArgumentException if file is null.
+     * @throws UncheckedIOException     if the file exists but can't be read.
+     */
+    public static CallSiteTuner persistentAt(Path file) {
+        validate().that(file).isNotNull();
+        CallSiteTuner tuner = new CallSiteTuner(file);
+        tuner.histograms.putAll(read(file));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                tuner.save();
+            } catch (UncheckedIOException ignored) {
+                // Nothing useful can be done about it while shutting down
+            }
+        }, "insist-tuner-save"));
+        return tuner;
+    }
+
+    /**
+     * @param frame the {@link StackTraceElement} of the call site.
+     *
+     * @return the key of the given call site or null if frame is null.
+     */
+    static String keyOf(StackTraceElement frame) {
+        if (null == frame) {
+            return null;
+        }
+        return frame.getClassName() + "#" + frame.getMethodName() + ":" + frame.getLineNumber();
+    }
+
+    private static Map<String, Histogram> read(Path file) {
+        Map<String, Histogram> read = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return read;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                int tab = line.lastIndexOf('\t');
+                if (line.startsWith("#") || tab < 0) {
+                    continue;
+                }
+                Histogram histogram = Histogram.parse(line.substring(tab + 1));
+                if (null != histogram) {
+                    read.put(line.substring(0, tab), histogram);
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return read;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * The histograms hold everything known about a call site, including what was loaded,
+     * while the unsaved histograms only hold what was recorded since the last save so that
+     * saving can merge them into the file without counting anything twice.
+     */
+
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> unsaved = new TreeMap<>();
+    private final Path file;
+
+    private CallSiteTuner(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Record that the validation at the given call site succeeded the given time after its first attempt.
+     *
+     * @param key   the key of the call site.
+     *              May not be null.
+     * @param nanos the time to success from the first attempt in nanoseconds.
+     */
+    void record(String key, long nanos) {
+        validate().that(key).isNotNull();
+        histograms.computeIfAbsent(key, ignored -> new Histogram()).add(nanos);
+        if (null != file) {
+            synchronized (unsaved) {
+                unsaved.computeIfAbsent(key, ignored -> new Histogram()).add(nanos);
+            }
+        }
+    }
+
+    /**
+     * Record that an attempt of the validation at the given call site took the given time to return.
+     *
+     * @param key   the key of the call site.
+     *              May not be null.
+     * @param nanos the time the attempt took in nanoseconds.
+     */
+    void recordAttempt(String key, long nanos) {
+        validate().that(key).isNotNull();
+        record(key + ATTEMPT_KEY_SUFFIX, nanos);
+    }
+
+    /**
+     * @param key  the key of the call site.
+     *             May not be null.
+     * @param wait the {@link PatientWait} to use if the call site hasn't been learned yet.
+     *             May not be null.
+     *
+     * @return a {@link PatientWait} like the given one but with delays chosen for the call site.
+     */
+    PatientWait tune(String key, PatientWait wait) {
+        validate().that(wait).isNotNull();
+        Histogram histogram = learned(key);
+        if (null == histogram) {
+            return wait;
+        }
+        return PatientWait.builder()
+                          .withSleep(wait.getSleep())
+                          .withInitialDelay(Duration.ofNanos(histogram.initialDelayNanos()))
+                          .withDefaultTimeout(wait.getDefaultTimeout())
+                          .withExecutionHandler(wait.getExecutionHandler())
+                          .withDelaySupplier(delays(histogram))
+                          .build();
+    }
+
+    /**
+     * @param key   the key of the call site.
+     *              May not be null.
+     * @param retry the {@link PatientRetry} to use if the call site hasn't been learned yet.
+     *              May not be null.
+     *
+     * @return a {@link PatientRetry} like the given one but with delays chosen for the call site.
+     */
+    PatientRetry tune(String key, PatientRetry retry) {
+        validate().that(retry).isNotNull();
+        Histogram histogram = learned(key);
+        if (null == histogram) {
+            return retry;
+        }
+        return PatientRetry.builder()
+                           .withSleep(retry.getSleep())
+                           .withInitialDelay(Duration.ofNanos(histogram.initialDelayNanos()))
+                           .withDefaultNumberOfRetries(retry.getDefaultNumberOfRetries())
+                           .withExecutionHandler(retry.getExecutionHandler())
+                           .withDelaySupplier(delays(histogram))
+                           .build();
+    }
+
+    /**
+     * @param key        the key of the call site.
+     *                   May not be null.
+     * @param percentile the percentile of the attempt times of the call site to hedge after.
+     *                   Must be greater than zero and less than one.
+     *
+     * @return the hedge delay chosen for the call site or null if its attempt times haven't been learned yet.
+     */
+    Duration tuneHedgeDelay(String key, double percentile) {
+        validate().that(percentile).satisfies(p -> p > 0 && p < 1);
+        Histogram histogram = learned(key + ATTEMPT_KEY_SUFFIX);
+        if (null == histogram) {
+            return null;
+        }
+        return Duration.ofNanos(histogram.hedgeDelayNanos(percentile));
+    }
+
+    /**
+     * Merge what has been recorded since the last save into the file of this tuner.
+     * Does nothing for an in memory tuner.
+     *
+     * @throws UncheckedIOException if the file can't be read or written.
+     */
+    public void save() {
+        if (null == file) {
+            return;
+        }
+        synchronized (unsaved) {
+            if (unsaved.isEmpty()) {
+                return;
+            }
+            Map<String, Histogram> merged = read(file);
+            unsaved.forEach((key, histogram) -> merged.computeIfAbsent(key, ignored -> new Histogram()).addAll(histogram));
+            List<String> lines = new ArrayList<>(merged.size() + 1);
+            lines.add(HEADER);
+            merged.forEach((key, histogram) -> lines.add(key + "\t" + histogram.format()));
+            try {
+                Path parent = file.toAbsolutePath().getParent();
+                if (null != parent) {
+                    Files.createDirectories(parent);
+                }
+                Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+                Files.write(temp, lines, StandardCharsets.UTF_8);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            unsaved.clear();
+        }
+    }
+
+    private Histogram learned(String key) {
+        validate().that(key).isNotNull();
+        Histogram histogram = histograms.get(key);
+        return (null == histogram || histogram.count() < MIN_SAMPLES) ? null : histogram;
+    }
+
+    private static PatientDelaySupplierFactory delays(Histogram histogram) {
+        long interval = Math.max(MIN_INTERVAL_NANOS, Math.min(MAX_INTERVAL_NANOS, histogram.percentileNanos(0.5) / 8));
+        return InsistDelaySuppliers.adaptive(Duration.ofNanos(interval), Duration.ofNanos(MAX_INTERVAL_NANOS), 2.0);
+    }
+
+    /*
+     * Counts of times to success in power of two microsecond buckets. Bucket zero holds
+     * anything under a microsecond and bucket i holds [2^(i-1), 2^i) microseconds.
+     */
+
+    private static final class Histogram {
+
+        private final long[] counts = new long[BUCKET_COUNT];
+
+        private long total = 0;
+
+        private static Histogram parse(String formatted) {
+            Histogram histogram = new Histogram();
+            try {
+                for (String entry : formatted.split(",")) {
+                    int colon = entry.indexOf(':');
+                    int bucket = Integer.parseInt(entry.substring(0, colon));
+                    long count = Long.parseLong(entry.substring(colon + 1));
+                    if (bucket < 0 || bucket >= BUCKET_COUNT || count < 0) {
+                        return null;
+                    }
+                    histogram.counts[bucket] += count;
+                    histogram.total += count;
+                }
+            } catch (RuntimeException exception) {
+                // Ignore a corrupt line rather than fail every validation
+                return null;
+            }
+            histogram.decay();
+            return histogram;
+        }
+
+        private static int bucketOf(long nanos) {
+            long micros = Math.max(0, nanos) / 1_000;
+            return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        }
+
+        private static long lowerBoundNanos(int bucket) {
+            return (0 == bucket) ? 0 : (1L << (bucket - 1)) * 1_000;
+        }
+
+        private synchronized void add(long nanos) {
+            counts[bucketOf(nanos)]++;
+            total++;
+            decay();
+        }
+
+        private synchronized void addAll(Histogram other) {
+            synchronized (other) {
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    counts[i] += other.counts[i];
+                }
+                total += other.total;
+            }
+            decay();
+        }
+
+        private synchronized long count() {
+            return total;
+        }
+
+        private synchronized long percentileNanos(double percentile) {
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return lowerBoundNanos(i);
+                }
+            }
+            return 0;
+        }
+
+        private long initialDelayNanos() {
+            // Start a little before the fastest successes seen at the site
+            return percentileNanos(0.1);
+        }
+
+        private long hedgeDelayNanos(double percentile) {
+            // Only hedge an attempt once it's slower than the given share of the attempts seen at the site,
+            // i.e. after the upper bound of the bucket of the percentile
+            return Math.max(1_000, 2 * percentileNanos(percentile));
+        }
+
+        private synchronized String format() {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (counts[i] > 0) {
+                    if (builder.length() > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(i).append(':').append(counts[i]);
+                }
+            }
+            return builder.toString();
+        }
+
+        /*
+         * Halve the counts once there are too many so the histogram stays small
+         * and recent runs outweigh old ones.
+         */
+
+        private void decay() {
+            while (total > MAX_SAMPLES) {
+                total = 0;
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    counts[i] /= 2;
+                    total += counts[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * The state of one call to {@link com.redfin.insist.InsistFuture#thatEventuallyAll(BooleanSupplier...)}
+ * or {@link com.redfin.insist.InsistFuture#thatEventuallyAny(BooleanSupplier...)}. Each attempt only
+ * evaluates the conditions that haven't been true yet, so a condition that has passed is never called
+ * again. The conditions are evaluated one after the other on the attempting thread or, if given an
+ * executor, all at once on the executor. Attempts may overlap, e.g. when they are hedged, so the state
+ * is thread safe.
+ * <p>
+ * This is public so that the default methods of {@link com.redfin.insist.InsistFuture} share it with
+ * the implementations of this package; it isn't meant to be used otherwise.
+ */
+public final class EventualConditions {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final BooleanSupplier[] conditions;
+    private final Executor executor;
+    private final AtomicIntegerArray passed;
+    private final AtomicInteger pendingCount;
+
+    /**
+     * Create a new {@link EventualConditions} instance with the given arguments.
+     *
+     * @param conditions the conditions to wait for.
+     *                   May not be null or empty or contain null.
+     * @param executor   the {@link Executor} to evaluate the conditions of each attempt on or
+     *                   null to evaluate them on the attempting thread.
+     *
+     * @throws IllegalArgumentException if conditions is null or empty or contains null.
+     */
+    public EventualConditions(BooleanSupplier[] conditions,
+                              Executor executor) {
+        validate().that(conditions).isNotEmpty();
+        for (BooleanSupplier condition : conditions) {
+            validate().that(condition).isNotNull();
+        }
+        this.conditions = conditions.clone();
+        this.executor = executor;
+        this.passed = new AtomicIntegerArray(conditions.length);
+        this.pendingCount = new AtomicInteger(conditions.length);
+    }
+
+    /**
+     * Evaluate the conditions that haven't been true yet.
+     *
+     * @return true if every condition has been true.
+     *
+     * @throws Throwable if a condition throws, to be handled like any failed attempt.
+     */
+    public boolean allPassed() throws Throwable {
+        evaluatePending(false);
+        return pendingCount.get() == 0;
+    }
+
+    /**
+     * Evaluate the conditions until one is true. When evaluated on the attempting thread
+     * the remaining conditions aren't evaluated once one is true, and when evaluated on the
+     * executor this returns as soon as one is true rather than once all have returned.
+     *
+     * @return true if any condition has been true.
+     *
+     * @throws Throwable if a condition throws, to be handled like any failed attempt.
+     */
+    public boolean anyPassed() throws Throwable {
+        evaluatePending(true);
+        return pendingCount.get() < conditions.length;
+    }
+
+    private void evaluatePending(boolean stopAtFirstPass) throws Throwable {
+        if (null == executor) {
+            for (int i = 0; i < conditions.length; i++) {
+                if (passed.get(i) == 0 && conditions[i].getAsBoolean()) {
+                    pass(i);
+                    if (stopAtFirstPass) {
+                        return;
+                    }
+                }
+            }
+            return;
+        }
+        // Completed by the first condition of this attempt that is true
+        CompletableFuture<Void> firstPass = new CompletableFuture<>();
+        CompletableFuture<?>[] evaluations = new CompletableFuture<?>[pendingCount.get()];
+        int count = 0;
+        for (int i = 0; i < conditions.length && count < evaluations.length; i++) {
+            if (passed.get(i) == 0) {
+                int index = i;
+                evaluations[count++] = CompletableFuture.runAsync(() -> {
+                    if (conditions[index].getAsBoolean()) {
+                        pass(index);
+                        firstPass.complete(null);
+                    }
+                }, executor);
+            }
+        }
+        // Other attempts may have passed some of the conditions meanwhile
+        CompletableFuture<Void> evaluated = CompletableFuture.allOf(Arrays.copyOf(evaluations, count));
+        try {
+            if (stopAtFirstPass) {
+                // The slower evaluations are left to finish on their own
+                CompletableFuture.anyOf(firstPass, evaluated).get();
+            } else {
+                evaluated.get();
+            }
+        } catch (ExecutionException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    private void pass(int index) {
+        if (passed.compareAndSet(index, 0, 1)) {
+            pendingCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param all true to describe waiting for every condition, false for any of them.
+     *
+     * @return the description of the expected outcome.
+     */
+    public String describeExpected(boolean all) {
+        return (all ? "Eventually all " : "Eventually any of ") + conditions.length + " conditions true";
+    }
+
+    /**
+     * @return the description of the conditions that have never been true, by their index.
+     */
+    public String describePending() {
+        StringBuilder builder = new StringBuilder("conditions [");
+        boolean first = true;
+        for (int i = 0; i < conditions.length; i++) {
+            if (passed.get(i) == 0) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                builder.append(i);
+                first = false;
+            }
+        }
+        return builder.append("] of ")
+                      .append(conditions.length)
+                      .append(" never became true")
+                      .toString();
+    }
+}
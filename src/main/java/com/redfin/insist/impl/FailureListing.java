@@ -0,0 +1,80 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.ValidityUtils;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Lists the first of a number of offending elements or keys in the actual value of a failure,
+ * e.g. {@code [3] <7>, [8] <-1>, and 12 more}, so that a failure over millions of them stays short.
+ */
+final class FailureListing {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return the given element described along with its position, e.g. {@code [3] <7>}.
+     */
+    static String describe(long position,
+                           Object element) {
+        return "[" + position + "] <" + ValidityUtils.describe(element) + ">";
+    }
+
+    /**
+     * Append up to the given number of the items, separated by commas, followed by
+     * how many of the total weren't listed, if any.
+     *
+     * @return the given builder.
+     */
+    static <E> StringBuilder append(StringBuilder sb,
+                                    Iterator<? extends E> items,
+                                    int maxListed,
+                                    long total,
+                                    Function<? super E, String> describer) {
+        int listed = 0;
+        while (listed < maxListed && items.hasNext()) {
+            if (listed > 0) {
+                sb.append(", ");
+            }
+            sb.append(describer.apply(items.next()));
+            listed++;
+        }
+        if (total > listed) {
+            sb.append(", and ")
+              .append(total - listed)
+              .append(" more");
+        }
+        return sb;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private FailureListing() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
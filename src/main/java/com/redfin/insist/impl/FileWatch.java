@@ -0,0 +1,433 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * Waits for a condition on the file system using a {@link WatchService} so that a waiting
+ * thread wakes up when the watched directory changes instead of repeatedly checking it. The
+ * state of the condition is checked once, after the watch is registered so that no change is
+ * missed, and then kept up to date from the events: only the watched file is checked again when
+ * it changes and the matching entries of a directory are counted incrementally instead of
+ * listing the directory again.
+ * <p>
+ * If the watched directory doesn't exist yet then its nearest existing ancestor is watched instead
+ * and the watch moves down towards the directory as the missing directories are created. If the
+ * events overflow, or the watched directory is removed, then the whole condition is checked again
+ * and waiting goes on from the events. Only if the platform only has the polling {@link WatchService}
+ * implementation, or no directory can be watched at all, does this fall back to checking the whole
+ * condition at a bounded interval.
+ * <p>
+ * Instances are not thread safe and must be closed once done with.
+ */
+final class FileWatch
+ implements AttemptLoop.TimedAttempt<Path>,
+            AutoCloseable {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final String POLLING_WATCH_SERVICE = "sun.nio.fs.PollingWatchService";
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @param file the {@link Path} of the file to wait for.
+     *             May not be null.
+     *
+     * @return a {@link FileWatch} that is satisfied once the given file exists.
+     *
+     * @throws IllegalArgumentException if file is null.
+     */
+    static FileWatch exists(Path file) {
+        validate().that(file).isNotNull();
+        return new FileWatch(file, new SizeCondition(file, 0));
+    }
+
+    /**
+     * @param file        the {@link Path} of the file to wait for.
+     *                    May not be null.
+     * @param minimumSize the minimum size in bytes.
+     *                    May not be negative.
+     *
+     * @return a {@link FileWatch} that is satisfied once the given file exists and is at least the given size.
+     *
+     * @throws IllegalArgumentException if file is null or if minimumSize is negative.
+     */
+    static FileWatch sizeAtLeast(Path file, long minimumSize) {
+        validate().that(file).isNotNull();
+        validate().that(minimumSize).isAtLeast(0L);
+        return new FileWatch(file, new SizeCondition(file, minimumSize));
+    }
+
+    /**
+     * @param directory the {@link Path} of the directory to wait for.
+     *                  May not be null.
+     * @param glob      the glob, as in {@link FileSystems#getDefault()}{@code .getPathMatcher("glob:" + glob)},
+     *                  that the names of the entries must match.
+     *                  May not be null.
+     * @param count     the minimum number of matching entries.
+     *                  May not be negative.
+     *
+     * @return a {@link FileWatch} that is satisfied once the given directory contains at least
+     * the given number of entries matching the glob.
+     *
+     * @throws IllegalArgumentException if directory or glob are null, if glob is invalid,
+     *                                  or if count is negative.
+     */
+    static FileWatch entries(Path directory, String glob, int count) {
+        validate().that(directory).isNotNull();
+        validate().that(glob).isNotNull();
+        validate().that(count).isAtLeast(0);
+        return new FileWatch(directory, new EntriesCondition(directory, glob, count));
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final Path target;
+    private final Condition condition;
+    private final Path directory;
+
+    private WatchService watchService;
+    private WatchKey watchKey;
+    private Path watchedDirectory;
+    private boolean polling;
+
+    /**
+     * @param target    the {@link Path} to return once the condition is satisfied.
+     *                  May not be null.
+     * @param condition the {@link Condition} to wait for.
+     *                  May not be null.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    FileWatch(Path target, Condition condition) {
+        validate().that(target).isNotNull();
+        validate().that(condition).isNotNull();
+        this.target = target;
+        this.condition = condition;
+        Path conditionDirectory = condition.watchedDirectory();
+        this.directory = (null == conditionDirectory) ? null : conditionDirectory.toAbsolutePath();
+        this.polling = !openWatchService() || !register();
+        condition.refresh();
+    }
+
+    private boolean openWatchService() {
+        if (null == directory) {
+            return false;
+        }
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+        } catch (IOException | UnsupportedOperationException exception) {
+            return false;
+        }
+        // Events would arrive no sooner than polling ourselves
+        return !POLLING_WATCH_SERVICE.equals(watchService.getClass().getName());
+    }
+
+    /*
+     * Watch the directory or, if it doesn't exist yet, its nearest existing ancestor. A directory
+     * created on the way to it while registering is picked up by checking again once registered.
+     */
+
+    private boolean register() {
+        while (true) {
+            Path existing = nearestExisting();
+            if (null == existing) {
+                return false;
+            }
+            if (!existing.equals(watchedDirectory)) {
+                if (null != watchKey) {
+                    watchKey.cancel();
+                }
+                try {
+                    watchKey = existing.register(watchService,
+                                                 StandardWatchEventKinds.ENTRY_CREATE,
+                                                 StandardWatchEventKinds.ENTRY_DELETE,
+                                                 StandardWatchEventKinds.ENTRY_MODIFY);
+                } catch (NoSuchFileException exception) {
+                    // Removed in the meantime, look for an ancestor again
+                    watchedDirectory = null;
+                    watchKey = null;
+                    continue;
+                } catch (IOException | UnsupportedOperationException exception) {
+                    return false;
+                }
+                watchedDirectory = existing;
+            }
+            if (existing.equals(nearestExisting())) {
+                return true;
+            }
+        }
+    }
+
+    private Path nearestExisting() {
+        Path existing = directory;
+        while (null != existing && !Files.isDirectory(existing)) {
+            existing = existing.getParent();
+        }
+        return existing;
+    }
+
+    @Override
+    public Path await(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            if (polling) {
+                condition.refresh();
+            } else {
+                WatchKey key;
+                while (null != (key = watchService.poll())) {
+                    process(key);
+                }
+            }
+            if (condition.isSatisfied()) {
+                return target;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            if (polling) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, POLL_INTERVAL_NANOS));
+            } else {
+                WatchKey key = watchService.poll(remaining, TimeUnit.NANOSECONDS);
+                if (null != key) {
+                    process(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if this has fallen back to checking the whole condition at a bounded interval.
+     */
+    boolean isPolling() {
+        return polling;
+    }
+
+    /**
+     * @return a description of the current state of the condition.
+     */
+    String describe() {
+        return condition.describe();
+    }
+
+    @Override
+    public void close() {
+        if (null != watchService) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Nothing more can be done with it
+            }
+        }
+    }
+
+    private void process(WatchKey key) {
+        if (key != watchKey) {
+            // Left over from a directory that is no longer watched
+            key.cancel();
+            return;
+        }
+        boolean watchingDirectory = directory.equals(watchedDirectory);
+        boolean rescan = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost so the incremental state can't be trusted any more
+                rescan = true;
+            } else if (watchingDirectory) {
+                condition.onEvent(event.kind(), (Path) event.context());
+            } else if (isTowardsDirectory((Path) event.context())) {
+                // A missing directory on the way may have been created
+                rescan = true;
+            }
+        }
+        if (!key.reset()) {
+            // The directory is gone or can no longer be watched so watch its nearest existing ancestor
+            watchedDirectory = null;
+            watchKey = null;
+            rescan = true;
+        }
+        if (rescan) {
+            polling = !register();
+            condition.refresh();
+        }
+    }
+
+    private boolean isTowardsDirectory(Path name) {
+        return null != name && name.equals(watchedDirectory.relativize(directory).getName(0));
+    }
+
+    /**
+     * The state of a condition on the file system, updated either completely or from a single event.
+     */
+    interface Condition {
+
+        /**
+         * @return the directory to watch for changes or null if there is none.
+         */
+        Path watchedDirectory();
+
+        /**
+         * Bring the state up to date without relying on events.
+         */
+        void refresh();
+
+        /**
+         * Update the state for an event in the watched directory.
+         *
+         * @param kind the kind of event.
+         * @param name the name of the entry of the watched directory, may be null.
+         */
+        void onEvent(WatchEvent.Kind<?> kind, Path name);
+
+        /**
+         * @return true if the condition is satisfied.
+         */
+        boolean isSatisfied();
+
+        /**
+         * @return a description of the current state.
+         */
+        String describe();
+    }
+
+    private static final class SizeCondition
+                    implements Condition {
+
+        private final Path file;
+        private final long minimumSize;
+
+        private long size = -1;
+
+        private SizeCondition(Path file, long minimumSize) {
+            this.file = file;
+            this.minimumSize = minimumSize;
+        }
+
+        @Override
+        public Path watchedDirectory() {
+            return file.toAbsolutePath().getParent();
+        }
+
+        @Override
+        public void refresh() {
+            try {
+                size = Files.size(file);
+            } catch (IOException exception) {
+                size = -1;
+            }
+        }
+
+        @Override
+        public void onEvent(WatchEvent.Kind<?> kind, Path name) {
+            if (null != name && name.equals(file.getFileName())) {
+                refresh();
+            }
+        }
+
+        @Override
+        public boolean isSatisfied() {
+            return size >= minimumSize;
+        }
+
+        @Override
+        public String describe() {
+            return (size < 0) ? "does not exist" : "size of " + size + " byte(s)";
+        }
+    }
+
+    private static final class EntriesCondition
+                    implements Condition {
+
+        private final Set<Path> matching = new HashSet<>();
+        private final Path directory;
+        private final String glob;
+        private final PathMatcher matcher;
+        private final int count;
+
+        private EntriesCondition(Path directory, String glob, int count) {
+            this.directory = directory;
+            this.glob = glob;
+            this.matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+            this.count = count;
+        }
+
+        @Override
+        public Path watchedDirectory() {
+            return directory;
+        }
+
+        @Override
+        public void refresh() {
+            matching.clear();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+                for (Path entry : stream) {
+                    matching.add(entry.getFileName());
+                }
+            } catch (IOException exception) {
+                // Doesn't exist (yet) so there are no entries
+                matching.clear();
+            }
+        }
+
+        @Override
+        public void onEvent(WatchEvent.Kind<?> kind, Path name) {
+            if (null == name || !matcher.matches(name)) {
+                return;
+            }
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                matching.add(name);
+            } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                matching.remove(name);
+            }
+        }
+
+        @Override
+        public boolean isSatisfied() {
+            return matching.size() >= count;
+        }
+
+        @Override
+        public String describe() {
+            return matching.size() + " entries matching '" + glob + "'";
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A process wide scheduler for the polls of asynchronous eventual validations based on a
+ * hashed timing wheel. Registering or cancelling a poll is O(1) and each tick only visits
+ * the polls that hash to the current bucket, so the cost of scheduling does not grow with
+ * the number of pending polls. A single tick thread drives the wheel and hands expired polls
+ * to a small fixed pool of worker threads. All the threads are daemon threads and are only
+ * started on first use.
+ * <p>
+ * The price of this is precision: a poll runs on the first tick at or after its deadline so it
+ * may run up to one tick duration late. The statistics expose how late the polls actually ran
+ * as well as how many are waiting.
+ */
+public final class HashedWheelScheduler {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    private static final int MAX_REGISTRATIONS_PER_TICK = 100_000;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return the shared scheduler used by the asynchronous eventual validations.
+     */
+    public static HashedWheelScheduler getShared() {
+        return Holder.INSTANCE;
+    }
+
+    /*
+     * Lazy initialization holder so that users that never wait asynchronously
+     * never create the wheel.
+     */
+
+    private static final class Holder {
+
+        private static final HashedWheelScheduler INSTANCE = new HashedWheelScheduler(DEFAULT_TICK_DURATION,
+                                                                                       DEFAULT_WHEEL_SIZE,
+                                                                                       Math.max(2, Runtime.getRuntime().availableProcessors()),
+                                                                                       "insist-scheduler");
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final Queue<Timeout> registrations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final LongAdder pendingCount = new LongAdder();
+    private final LongAdder firedCount = new LongAdder();
+    private final LongAdder totalLatenessNanos = new LongAdder();
+    private final LongAccumulator maxLatenessNanos = new LongAccumulator(Math::max, 0);
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ExecutorService workers;
+    private final ThreadFactory threadFactory;
+
+    private volatile long startNanos;
+    private volatile boolean shutdown = false;
+
+    /**
+     * Create a new {@link HashedWheelScheduler} instance with the given arguments.
+     *
+     * @param tickDuration     the {@link Duration} of a single tick of the wheel.
+     *                         May not be null and must be at least one millisecond.
+     * @param wheelSize        the number of buckets in the wheel. Rounded up to a power of two.
+     *                         Must be strictly positive.
+     * @param workerThreads    the number of threads that run the expired polls.
+     *                         Must be strictly positive.
+     * @param threadNamePrefix the prefix of the names of the threads of this scheduler.
+     *                         May not be null.
+     *
+     * @throws IllegalArgumentException if any argument is invalid.
+     */
+    HashedWheelScheduler(Duration tickDuration,
+                         int wheelSize,
+                         int workerThreads,
+                         String threadNamePrefix) {
+        validate().that(tickDuration).isAtLeast(Duration.ofMillis(1));
+        validate().that(wheelSize).isStrictlyPositive();
+        validate().that(workerThreads).isStrictlyPositive();
+        validate().that(threadNamePrefix).isNotNull();
+        this.tickNanos = tickDuration.toNanos();
+        int size = Integer.highestOneBit(Math.min(wheelSize, 1 << 30));
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        AtomicInteger counter = new AtomicInteger(0);
+        this.threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = new ThreadPoolExecutor(workerThreads,
+                                              workerThreads,
+                                              0L,
+                                              TimeUnit.MILLISECONDS,
+                                              new LinkedBlockingQueue<>(),
+                                              threadFactory);
+    }
+
+    /**
+     * Run the given task once the given delay has passed. A delay of zero, or less
+     * than the tick duration, runs it on the next tick. Tasks are run by the worker
+     * threads so they should avoid blocking as that delays the other tasks that
+     * expire at the same time.
+     *
+     * @param task  the {@link Runnable} to run.
+     *              May not be null.
+     * @param delay the {@link Duration} to wait before running the task.
+     *              May not be null or negative.
+     *
+     * @return a {@link Timeout} handle that can be used to cancel the task.
+     *
+     * @throws IllegalArgumentException   if task is null or if delay is null or negative.
+     * @throws RejectedExecutionException if this scheduler has been shut down.
+     */
+    Timeout schedule(Runnable task, Duration delay) {
+        validate().that(task).isNotNull();
+        validate().that(delay).isAtLeast(Duration.ZERO);
+        if (shutdown) {
+            throw new RejectedExecutionException("The scheduler has been shut down");
+        }
+        start();
+        long deadline = System.nanoTime() - startNanos + delay.toNanos();
+        Timeout timeout = new Timeout(task, deadline);
+        pendingCount.increment();
+        registrations.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return a snapshot of the {@link Statistics} of this scheduler.
+     */
+    public Statistics getStatistics() {
+        long fired = firedCount.sum();
+        long averageLateness = (fired == 0) ? 0 : totalLatenessNanos.sum() / fired;
+        return new Statistics(pendingCount.sum(),
+                              fired,
+                              Duration.ofNanos(averageLateness),
+                              Duration.ofNanos(maxLatenessNanos.get()),
+                              Duration.ofNanos(tickNanos));
+    }
+
+    /**
+     * Stop the tick thread and the worker threads. Pending tasks are never run.
+     */
+    void shutdown() {
+        shutdown = true;
+        workers.shutdownNow();
+    }
+
+    private void start() {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            long now = System.nanoTime();
+            // Zero is reserved for not started yet
+            startNanos = (0 == now) ? 1 : now;
+            threadFactory.newThread(this::tickLoop).start();
+        }
+        // Make sure the start time is visible before it is used
+        while (0 == startNanos) {
+            Thread.yield();
+        }
+    }
+
+    private void tickLoop() {
+        long tick = 0;
+        while (!shutdown) {
+            long now = waitForNextTick(tick);
+            transferRegistrations(tick);
+            wheel[(int) (tick & mask)].expire(now);
+            tick++;
+        }
+    }
+
+    private long waitForNextTick(long tick) {
+        long target = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleep = target - now;
+            if (sleep <= 0 || shutdown) {
+                return now;
+            }
+            LockSupport.parkNanos(this, sleep);
+        }
+    }
+
+    private void transferRegistrations(long tick) {
+        for (int i = 0; i < MAX_REGISTRATIONS_PER_TICK; i++) {
+            Timeout timeout = registrations.poll();
+            if (null == timeout) {
+                return;
+            }
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            long expirationTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (expirationTick - tick) / wheel.length;
+            wheel[(int) (expirationTick & mask)].add(timeout);
+        }
+    }
+
+    private void fire(Timeout timeout, long now) {
+        if (!timeout.state.compareAndSet(PENDING, EXPIRED)) {
+            return;
+        }
+        long lateness = Math.max(0, now - timeout.deadline);
+        pendingCount.decrement();
+        firedCount.increment();
+        totalLatenessNanos.add(lateness);
+        maxLatenessNanos.accumulate(lateness);
+        try {
+            workers.execute(timeout.task);
+        } catch (RejectedExecutionException ignored) {
+            // Only happens once shut down
+        }
+    }
+
+    /**
+     * A handle to a task registered with a {@link HashedWheelScheduler}.
+     */
+    final class Timeout {
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final Runnable task;
+        private final long deadline;
+
+        // Only accessed by the tick thread
+        private long remainingRounds;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task so that it is never run.
+         *
+         * @return true if the task was cancelled or false if it had already run or been cancelled.
+         */
+        boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pendingCount.decrement();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /*
+     * A doubly linked list of the timeouts that hash to the same slot of the
+     * wheel. Only accessed by the tick thread so no synchronization is needed.
+     */
+
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        private void add(Timeout timeout) {
+            if (null == head) {
+                head = timeout;
+                tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        private void expire(long now) {
+            Timeout timeout = head;
+            while (null != timeout) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() != PENDING) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    fire(timeout, now);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(Timeout timeout) {
+            if (null != timeout.previous) {
+                timeout.previous.next = timeout.next;
+            }
+            if (null != timeout.next) {
+                timeout.next.previous = timeout.previous;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the state of a {@link HashedWheelScheduler}.
+     */
+    public static final class Statistics {
+
+        private final long pendingCount;
+        private final long firedCount;
+        private final Duration averageLateness;
+        private final Duration maxLateness;
+        private final Duration tickDuration;
+
+        private Statistics(long pendingCount,
+                           long firedCount,
+                           Duration averageLateness,
+                           Duration maxLateness,
+                           Duration tickDuration) {
+            this.pendingCount = pendingCount;
+            this.firedCount = firedCount;
+            this.averageLateness = averageLateness;
+            this.maxLateness = maxLateness;
+            this.tickDuration = tickDuration;
+        }
+
+        /**
+         * @return the number of scheduled tasks that haven't run or been cancelled yet.
+         */
+        public long getPendingCount() {
+            return pendingCount;
+        }
+
+        /**
+         * @return the total number of tasks that have been handed to the worker threads.
+         */
+        public long getFiredCount() {
+            return firedCount;
+        }
+
+        /**
+         * @return the average {@link Duration} between the deadline of a task and when it fired.
+         */
+        public Duration getAverageLateness() {
+            return averageLateness;
+        }
+
+        /**
+         * @return the maximum {@link Duration} between the deadline of a task and when it fired.
+         */
+        public Duration getMaxLateness() {
+            return maxLateness;
+        }
+
+        /**
+         * @return the {@link Duration} of a single tick of the wheel.
+         */
+        public Duration getTickDuration() {
+            return tickDuration;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                   "pendingCount=" + pendingCount +
+                   ", firedCount=" + firedCount +
+                   ", averageLateness=" + averageLateness +
+                   ", maxLateness=" + maxLateness +
+                   ", tickDuration=" + tickDuration +
+                   '}';
+        }
+    }
+}
@@ -17,12 +17,16 @@
 package com.redfin.insist.impl;
 
 import com.redfin.insist.InsistCompletableRetryFuture;
+import com.redfin.insist.InsistClock;
 import com.redfin.insist.InsistExecutable;
 import com.redfin.insist.InsistFuture;
+import com.redfin.insist.executor.MessageTemplate;
+import com.redfin.patience.PatientExecutable;
 import com.redfin.patience.PatientRetry;
 import com.redfin.patience.exceptions.PatientRetryException;
 import com.redfin.validity.FailedValidationExecutor;
 
+import java.util.concurrent.CompletionStage;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
@@ -43,8 +47,8 @@ final class InsistCompletableRetryFutureImpl<X extends Throwable>
     // Constants
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
-    private static final String CUSTOM_FORMAT = "%s : failure after %d unsuccessful attempt(s)";
-    private static final String DEFAULT_FORMAT = "No more retries allowed after %d unsuccessful attempt(s)";
+    private static final MessageTemplate CUSTOM_FORMAT = MessageTemplate.compile("%s : failure after %d unsuccessful attempt(s)");
+    private static final MessageTemplate DEFAULT_FORMAT = MessageTemplate.compile("No more retries allowed after %d unsuccessful attempt(s)");
 
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     // Instance Fields & Methods
@@ -53,8 +57,9 @@ final class InsistCompletableRetryFutureImpl<X extends Throwable>
     private final Supplier<String> messageSupplier;
     private final FailedValidationExecutor<X> failedValidationExecutor;
     private final PatientRetry retry;
+    private final InsistClock clock;
 
-    private int numRetries;
+    private final int numRetries;
 
     /**
      * Create a new {@link InsistCompletableRetryFutureImpl} instance with the given arguments.
@@ -65,22 +70,37 @@ final class InsistCompletableRetryFutureImpl<X extends Throwable>
      *                                 May not be null.
      * @param retry                    the {@link PatientRetry} to use while waiting for validation to succeed.
      *                                 May not be null.
+     * @param clock                    the {@link InsistClock} used to measure time and sleep between attempts.
+     *                                 May not be null.
      *
      * @throws IllegalArgumentException if any argument is null.
      */
     InsistCompletableRetryFutureImpl(Supplier<String> messageSupplier,
                                      FailedValidationExecutor<X> failedValidationExecutor,
-                                     PatientRetry retry) {
+                                     PatientRetry retry,
+                                     InsistClock clock) {
+        this(messageSupplier, failedValidationExecutor, retry, clock, validate().that(retry).isNotNull().getDefaultNumberOfRetries());
+    }
+
+    private InsistCompletableRetryFutureImpl(Supplier<String> messageSupplier,
+                                             FailedValidationExecutor<X> failedValidationExecutor,
+                                             PatientRetry retry,
+                                             InsistClock clock,
+                                             int numRetries) {
         this.messageSupplier = validate().that(messageSupplier).isNotNull();
         this.failedValidationExecutor = validate().that(failedValidationExecutor).isNotNull();
         this.retry = validate().that(retry).isNotNull();
-        this.numRetries = retry.getDefaultNumberOfRetries();
+        this.clock = validate().that(clock).isNotNull();
+        this.numRetries = numRetries;
     }
 
     @Override
     public InsistFuture<X> within(int numRetries) {
-        this.numRetries = validate().that(numRetries).isAtLeast(0);
-        return this;
+        validate().that(numRetries).isAtLeast(0);
+        if (numRetries == this.numRetries) {
+            return this;
+        }
+        return new InsistCompletableRetryFutureImpl<>(messageSupplier, failedValidationExecutor, retry, clock, numRetries);
     }
 
     @Override
@@ -89,8 +109,7 @@ final class InsistCompletableRetryFutureImpl<X extends Throwable>
         try {
             // The default filter considers false an invalid result so
             // this will always either find true or throw a timeout exception
-            retry.from(supplier::getAsBoolean)
-                 .get(numRetries);
+            AttemptLoop.retry(clock, retry, numRetries, supplier::getAsBoolean);
         } catch (PatientRetryException exception) {
             // Failure
             failedValidationExecutor.fail("Eventually true",
@@ -99,6 +118,16 @@ final class InsistCompletableRetryFutureImpl<X extends Throwable>
         }
     }
 
+    @Override
+    public CompletionStage<Void> thatEventuallyAsync(BooleanSupplier supplier) {
+        validate().that(supplier).isNotNull();
+        return validateAsync(AsyncPoll.retrying(HashedWheelScheduler.getShared(), AttemptWorkers.getExecutor(), retry, numRetries, supplier::getAsBoolean),
+                             failedValidationExecutor,
+                             "Eventually true",
+                             "always false",
+                             numAttempts -> fail(messageSupplier, numAttempts));
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Throwable> T thatEventuallyThrows(Class<T> expectedThrowableClass,
@@ -107,23 +136,59 @@ final class InsistCompletableRetryFutureImpl<X extends Throwable>
         validate().that(executable).isNotNull();
         T caught = null;
         try {
-            caught = retry.from(getEventuallyThrowsExecutable(expectedThrowableClass, executable))
-                          .get(numRetries);
+            caught = AttemptLoop.retry(clock, retry, numRetries, getEventuallyThrowsExecutable(expectedThrowableClass, executable));
         } catch (PatientRetryException exception) {
             // Failure
-            failedValidationExecutor.fail("Expected to catch throwable '" + expectedThrowableClass.getName() + "'",
-                                          "not caught",
-                                          fail(messageSupplier, exception.getFailedAttemptsCount()));
+            failNotCaught(failedValidationExecutor, messageSupplier, expectedThrowableClass, exception.getFailedAttemptsCount());
         }
         return caught;
     }
 
+    @Override
+    <T> T attemptUntilValid(PatientExecutable<T> executable) {
+        return AttemptLoop.retry(clock, retry, numRetries, executable);
+    }
+
+    @Override
+    <T> T awaitEvent(AttemptLoop.TimedAttempt<T> event) {
+        return AttemptLoop.awaitRetrying(clock, retry, numRetries, event);
+    }
+
+    @Override
+    void failValidation(String expected, String actual, int numAttempts) throws X {
+        failedValidationExecutor.fail(expected, actual, fail(messageSupplier, numAttempts));
+    }
+
+    /**
+     * Report that the expected throwable wasn't caught in the given number of attempts in the same
+     * way whether or not the attempts were retried.
+     *
+     * @param failedValidationExecutor the {@link FailedValidationExecutor} to report the failure to.
+     * @param messageSupplier          the {@link Supplier} of the custom message prefix, which may supply null.
+     * @param expectedThrowableClass   the class of throwable that was expected.
+     * @param numAttempts              the number of unsuccessful attempts.
+     * @param <X>                      the type of Throwable thrown by the executor.
+     *
+     * @throws X if the failed validation executor throws it.
+     */
+    static <X extends Throwable> void failNotCaught(FailedValidationExecutor<X> failedValidationExecutor,
+                                                    Supplier<String> messageSupplier,
+                                                    Class<?> expectedThrowableClass,
+                                                    int numAttempts) throws X {
+        failedValidationExecutor.fail("Expected to catch throwable '" + expectedThrowableClass.getName() + "'",
+                                      "not caught",
+                                      fail(messageSupplier, numAttempts));
+    }
+
     private static Supplier<String> fail(Supplier<String> messageSupplier, int numAttempts) {
-        String message = messageSupplier.get();
-        if (null == message) {
-            return () -> String.format(DEFAULT_FORMAT, numAttempts);
-        } else {
-            return () -> String.format(CUSTOM_FORMAT, message, numAttempts);
-        }
+        // Only rendered if the failure's message is asked for
+        return () -> {
+            String message = messageSupplier.get();
+            if (null == message) {
+                return DEFAULT_FORMAT.render(numAttempts);
+            } else {
+                return CUSTOM_FORMAT.render(message, numAttempts);
+            }
+        };
     }
 }
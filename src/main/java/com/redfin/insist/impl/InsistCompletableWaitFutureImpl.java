@@ -17,13 +17,18 @@
 package com.redfin.insist.impl;
 
 import com.redfin.insist.InsistCompletableWaitFuture;
+import com.redfin.insist.InsistClock;
 import com.redfin.insist.InsistExecutable;
 import com.redfin.insist.InsistFuture;
+import com.redfin.insist.executor.MessageTemplate;
+import com.redfin.patience.PatientExecutable;
 import com.redfin.patience.PatientWait;
 import com.redfin.patience.exceptions.PatientTimeoutException;
 import com.redfin.validity.FailedValidationExecutor;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
@@ -43,8 +48,14 @@ final class InsistCompletableWaitFutureImpl<X extends Throwable>
     // Constants
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
-    private static final String CUSTOM_FORMAT = "%s : Timeout reached after %d unsuccessful attempt(s)";
-    private static final String DEFAULT_FORMAT = "Timeout reached after %d unsuccessful attempt(s)";
+    private static final MessageTemplate CUSTOM_FORMAT = MessageTemplate.compile("%s : Timeout reached after %d unsuccessful attempt(s)");
+    private static final MessageTemplate DEFAULT_FORMAT = MessageTemplate.compile("Timeout reached after %d unsuccessful attempt(s)");
+    private static final MessageTemplate CUSTOM_PREEMPTIVE_FORMAT = MessageTemplate.compile("%s : Timeout reached after %d unsuccessful attempt(s), %d of which timed out after %d ms");
+    private static final MessageTemplate DEFAULT_PREEMPTIVE_FORMAT = MessageTemplate.compile("Timeout reached after %d unsuccessful attempt(s), %d of which timed out after %d ms");
+    private static final MessageTemplate CUSTOM_HEDGED_FORMAT = MessageTemplate.compile("%s : Timeout reached after %d unsuccessful attempt(s), %d of which were still running at the timeout");
+    private static final MessageTemplate DEFAULT_HEDGED_FORMAT = MessageTemplate.compile("Timeout reached after %d unsuccessful attempt(s), %d of which were still running at the timeout");
+    private static final MessageTemplate CUSTOM_BUDGET_FORMAT = MessageTemplate.compile("%s : Deadline budget of %d ms exhausted after %d unsuccessful attempt(s)");
+    private static final MessageTemplate DEFAULT_BUDGET_FORMAT = MessageTemplate.compile("Deadline budget of %d ms exhausted after %d unsuccessful attempt(s)");
 
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     // Instance Fields & Methods
@@ -53,8 +64,10 @@ final class InsistCompletableWaitFutureImpl<X extends Throwable>
     private final Supplier<String> messageSupplier;
     private final FailedValidationExecutor<X> failedValidationExecutor;
     private final PatientWait wait;
+    private final InsistClock clock;
 
-    private Duration timeout;
+    private final Duration timeout;
+    private final AttemptPolicy attemptPolicy;
 
     /**
      * Create a new {@link InsistCompletableWaitFutureImpl} instance with the given arguments.
@@ -65,65 +78,265 @@ final class InsistCompletableWaitFutureImpl<X extends Throwable>
      *                                 May not be null.
      * @param wait                     the {@link PatientWait} to use while waiting for validation to succeed.
      *                                 May not be null.
+     * @param clock                    the {@link InsistClock} used to measure time and sleep between attempts.
+     *                                 May not be null.
      *
      * @throws IllegalArgumentException if any argument is null.
      */
     InsistCompletableWaitFutureImpl(Supplier<String> messageSupplier,
                                     FailedValidationExecutor<X> failedValidationExecutor,
-                                    PatientWait wait) {
+                                    PatientWait wait,
+                                    InsistClock clock) {
+        this(messageSupplier, failedValidationExecutor, wait, clock, AttemptPolicy.DIRECT);
+    }
+
+    /**
+     * Create a new {@link InsistCompletableWaitFutureImpl} instance with the given arguments.
+     *
+     * @param messageSupplier          the {@link Supplier} of the String message prefix if validation fails.
+     *                                 May not be null.
+     * @param failedValidationExecutor the {@link FailedValidationExecutor} to be used if the attempt fails.
+     *                                 May not be null.
+     * @param wait                     the {@link PatientWait} to use while waiting for validation to succeed.
+     *                                 May not be null.
+     * @param clock                    the {@link InsistClock} used to measure time and sleep between attempts.
+     *                                 May not be null.
+     * @param attemptPolicy            the {@link AttemptPolicy} defining how attempts are run.
+     *                                 May not be null.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    InsistCompletableWaitFutureImpl(Supplier<String> messageSupplier,
+                                    FailedValidationExecutor<X> failedValidationExecutor,
+                                    PatientWait wait,
+                                    InsistClock clock,
+                                    AttemptPolicy attemptPolicy) {
+        this(messageSupplier, failedValidationExecutor, wait, clock, validate().that(wait).isNotNull().getDefaultTimeout(), attemptPolicy);
+    }
+
+    private InsistCompletableWaitFutureImpl(Supplier<String> messageSupplier,
+                                            FailedValidationExecutor<X> failedValidationExecutor,
+                                            PatientWait wait,
+                                            InsistClock clock,
+                                            Duration timeout,
+                                            AttemptPolicy attemptPolicy) {
         this.messageSupplier = validate().that(messageSupplier).isNotNull();
         this.failedValidationExecutor = validate().that(failedValidationExecutor).isNotNull();
         this.wait = validate().that(wait).isNotNull();
-        this.timeout = wait.getDefaultTimeout();
+        this.clock = validate().that(clock).isNotNull();
+        this.timeout = timeout;
+        this.attemptPolicy = validate().that(attemptPolicy).isNotNull();
     }
 
     @Override
     public InsistFuture<X> within(Duration timeout) {
-        this.timeout = validate().that(timeout).isGreaterThanOrEqualTo(Duration.ZERO);
-        return this;
+        validate().that(timeout).isGreaterThanOrEqualTo(Duration.ZERO);
+        if (timeout.equals(this.timeout)) {
+            return this;
+        }
+        return new InsistCompletableWaitFutureImpl<>(messageSupplier, failedValidationExecutor, wait, clock, timeout, attemptPolicy);
+    }
+
+    @Override
+    public InsistCompletableWaitFuture<X> withAttemptTimeout(Duration attemptTimeout) {
+        return withAttemptPolicy(attemptPolicy.withAttemptTimeout(attemptTimeout));
+    }
+
+    @Override
+    public InsistCompletableWaitFuture<X> withHedging(Duration hedgeDelay, int maxInFlight) {
+        return withAttemptPolicy(attemptPolicy.withHedging(hedgeDelay, maxInFlight));
+    }
+
+    private InsistCompletableWaitFuture<X> withAttemptPolicy(AttemptPolicy attemptPolicy) {
+        if (attemptPolicy.equals(this.attemptPolicy)) {
+            return this;
+        }
+        return new InsistCompletableWaitFutureImpl<>(messageSupplier, failedValidationExecutor, wait, clock, timeout, attemptPolicy);
     }
 
     @Override
     public void thatEventually(BooleanSupplier supplier) throws X {
         validate().that(supplier).isNotNull();
+        InsistDeadline deadline = InsistDeadline.current().orElse(null);
+        Duration budgetedTimeout = budget(deadline);
+        if (isExhausted(budgetedTimeout)) {
+            failedValidationExecutor.fail("Eventually true", "always false", failBudget(deadline, 0));
+            return;
+        }
         try {
             // The default filter considers false an invalid result so
             // this will always either find true or throw a timeout exception
-            wait.from(supplier::getAsBoolean)
-                .get(timeout);
+            attempt(budgetedTimeout, supplier::getAsBoolean);
         } catch (PatientTimeoutException exception) {
             // Failure
             failedValidationExecutor.fail("Eventually true",
                                           "always false",
-                                          fail(messageSupplier, exception.getFailedAttemptsCount()));
+                                          fail(deadline, budgetedTimeout, exception));
         }
     }
 
+    @Override
+    public CompletionStage<Void> thatEventuallyAsync(BooleanSupplier supplier) {
+        validate().that(supplier).isNotNull();
+        InsistDeadline deadline = InsistDeadline.current().orElse(null);
+        Duration budgetedTimeout = budget(deadline);
+        if (isExhausted(budgetedTimeout)) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            try {
+                failedValidationExecutor.fail("Eventually true", "always false", failBudget(deadline, 0));
+                result.complete(null);
+            } catch (Throwable failure) {
+                result.completeExceptionally(failure);
+            }
+            return result;
+        }
+        return validateAsync(AsyncPoll.waiting(HashedWheelScheduler.getShared(),
+                                               AttemptWorkers.getExecutor(),
+                                               wait,
+                                               budgetedTimeout,
+                                               InsistDeadline.propagate(supplier::getAsBoolean)),
+                             failedValidationExecutor,
+                             "Eventually true",
+                             "always false",
+                             numAttempts -> isBudgeted(budgetedTimeout)
+                                            ? failBudget(deadline, numAttempts)
+                                            : fail(messageSupplier, numAttempts));
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T extends Throwable> T thatEventuallyThrows(Class<T> expectedThrowableClass,
                                                         InsistExecutable<T> executable) throws X {
         validate().that(expectedThrowableClass).isNotNull();
         validate().that(executable).isNotNull();
+        InsistDeadline deadline = InsistDeadline.current().orElse(null);
+        Duration budgetedTimeout = budget(deadline);
+        if (isExhausted(budgetedTimeout)) {
+            failedValidationExecutor.fail("Expected to catch throwable '" + expectedThrowableClass.getName() + "'",
+                                          "not caught",
+                                          failBudget(deadline, 0));
+            return null;
+        }
         T caught = null;
         try {
-            caught = wait.from(getEventuallyThrowsExecutable(expectedThrowableClass, executable))
-                         .get(timeout);
+            caught = attempt(budgetedTimeout, getEventuallyThrowsExecutable(expectedThrowableClass, executable));
         } catch (PatientTimeoutException exception) {
             // Failure
             failedValidationExecutor.fail("Expected to catch throwable '" + expectedThrowableClass.getName() + "'",
                                           "not caught",
-                                          fail(messageSupplier, exception.getFailedAttemptsCount()));
+                                          fail(deadline, budgetedTimeout, exception));
         }
         return caught;
     }
 
-    private static Supplier<String> fail(Supplier<String> messageSupplier, int numAttempts) {
-        String message = messageSupplier.get();
-        if (null == message) {
-            return () -> String.format(DEFAULT_FORMAT, numAttempts);
+    private <T> T attempt(Duration budgetedTimeout,
+                          PatientExecutable<T> executable) {
+        if (isPreemptive()) {
+            return AttemptLoop.waitForPreemptively(wait, budgetedTimeout, attemptPolicy, InsistDeadline.propagate(executable));
+        }
+        return AttemptLoop.waitFor(clock, wait, budgetedTimeout, executable);
+    }
+
+    private Duration budget(InsistDeadline deadline) {
+        return (null == deadline) ? timeout : deadline.clamp(timeout);
+    }
+
+    private boolean isBudgeted(Duration budgetedTimeout) {
+        // The wait is cut short by the deadline rather than by its own timeout
+        return budgetedTimeout.compareTo(timeout) < 0;
+    }
+
+    private boolean isExhausted(Duration budgetedTimeout) {
+        return isBudgeted(budgetedTimeout) && budgetedTimeout.isZero();
+    }
+
+    private boolean isPreemptive() {
+        // Attempts can only be preempted in real time
+        return attemptPolicy.isPreemptive() && clock == InsistClock.system();
+    }
+
+    private Supplier<String> fail(InsistDeadline deadline,
+                                  Duration budgetedTimeout,
+                                  PatientTimeoutException exception) {
+        if (isBudgeted(budgetedTimeout)) {
+            return failBudget(deadline, exception.getFailedAttemptsCount());
+        }
+        if (!isPreemptive()) {
+            return fail(messageSupplier, exception.getFailedAttemptsCount());
+        }
+        int numAttempts = exception.getFailedAttemptsCount();
+        long numTimedOut = exception.getFailedAttemptsDescriptions()
+                                    .stream()
+                                    .filter(AttemptLoop.ATTEMPT_TIMED_OUT::equals)
+                                    .count();
+        Duration attemptTimeout = attemptPolicy.getAttemptTimeout();
+        if (null == attemptTimeout) {
+            // Only hedged, so the only attempts given up on are those cut off by the overall timeout
+            return () -> {
+                String message = messageSupplier.get();
+                if (null == message) {
+                    return DEFAULT_HEDGED_FORMAT.render(numAttempts, numTimedOut);
+                } else {
+                    return CUSTOM_HEDGED_FORMAT.render(message, numAttempts, numTimedOut);
+                }
+            };
+        }
+        long attemptTimeoutMillis = attemptTimeout.toMillis();
+        return () -> {
+            String message = messageSupplier.get();
+            if (null == message) {
+                return DEFAULT_PREEMPTIVE_FORMAT.render(numAttempts, numTimedOut, attemptTimeoutMillis);
+            } else {
+                return CUSTOM_PREEMPTIVE_FORMAT.render(message, numAttempts, numTimedOut, attemptTimeoutMillis);
+            }
+        };
+    }
+
+    private Supplier<String> failBudget(InsistDeadline deadline, int numAttempts) {
+        deadline.exhaust();
+        long budgetMillis = deadline.getBudget().toMillis();
+        return () -> {
+            String message = messageSupplier.get();
+            if (null == message) {
+                return DEFAULT_BUDGET_FORMAT.render(budgetMillis, numAttempts);
+            } else {
+                return CUSTOM_BUDGET_FORMAT.render(message, budgetMillis, numAttempts);
+            }
+        };
+    }
+
+    @Override
+    <T> T attemptUntilValid(PatientExecutable<T> executable) {
+        // With the budget exhausted this only attempts once
+        return attempt(budget(InsistDeadline.current().orElse(null)), executable);
+    }
+
+    @Override
+    <T> T awaitEvent(AttemptLoop.TimedAttempt<T> event) {
+        // With the budget exhausted this only checks once, without blocking
+        Duration budgetedTimeout = budget(InsistDeadline.current().orElse(null));
+        return AttemptLoop.awaitFor(clock, wait, budgetedTimeout, event);
+    }
+
+    @Override
+    void failValidation(String expected, String actual, int numAttempts) throws X {
+        InsistDeadline deadline = InsistDeadline.current().orElse(null);
+        if (null != deadline && deadline.isExhausted()) {
+            failedValidationExecutor.fail(expected, actual, failBudget(deadline, numAttempts));
         } else {
-            return () -> String.format(CUSTOM_FORMAT, message, numAttempts);
+            failedValidationExecutor.fail(expected, actual, fail(messageSupplier, numAttempts));
         }
     }
+
+    private static Supplier<String> fail(Supplier<String> messageSupplier, int numAttempts) {
+        // Only rendered if the failure's message is asked for
+        return () -> {
+            String message = messageSupplier.get();
+            if (null == message) {
+                return DEFAULT_FORMAT.render(numAttempts);
+            } else {
+                return CUSTOM_FORMAT.render(message, numAttempts);
+            }
+        };
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.InsistClock;
+import com.redfin.patience.PatientExecutable;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A time budget shared by the eventual validations made within a scope. While a deadline is
+ * open on a thread, every wait future, i.e. from {@link InsistVerifiableFactory#within(Duration)}
+ * or {@link InsistVerifiableFactory#withWait(com.redfin.patience.PatientWait)}, waits for no longer
+ * than what is left of the budget, so that several waits in a row, or one nested in the condition
+ * of another, can't take longer than the budget between them. Once the budget is used up, or a
+ * wait that it cut short has failed, later waits fail straight away without making an attempt.
+ * Either way the failure message says that the budget was exhausted. Retries, from {@link InsistVerifiableFactory#within(int)}, are not affected.
+ * <p>
+ * Deadlines nest: a deadline opened within another ends no later than the enclosing one. The
+ * current deadline is inherited by threads started within the scope and is passed on to the
+ * attempts that are run on other threads, like those of
+ * {@link com.redfin.insist.InsistFuture#thatEventuallyAsync(java.util.function.BooleanSupplier)}.
+ * Closing a deadline ends its scope, after which it is ignored even by threads that inherited it.
+ * <pre>{@code
+ * try (InsistDeadline ignored = InsistDeadline.start(Duration.ofSeconds(30))) {
+ *     asserts().within(Duration.ofSeconds(30)).thatEventually(() -> first.isReady());
+ *     asserts().within(Duration.ofSeconds(30)).thatEventually(() -> second.isReady());
+ * }
+ * }</pre>
+ */
+public final class InsistDeadline
+        implements AutoCloseable {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final InheritableThreadLocal<InsistDeadline> CURRENT = new InheritableThreadLocal<>();
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Like calling {@link #start(InsistClock, Duration)} with the system clock.
+     *
+     * @param budget the {@link Duration} that the waits within the scope may take between them.
+     *               May not be null or negative.
+     *
+     * @return the new, current {@link InsistDeadline}.
+     *
+     * @throws IllegalArgumentException if budget is null or negative.
+     */
+    public static InsistDeadline start(Duration budget) {
+        return start(InsistClock.system(), budget);
+    }
+
+    /**
+     * Open a deadline on the current thread that ends once the budget has passed on the given
+     * clock, or when the enclosing deadline ends if that is sooner. It stays the current deadline
+     * of the thread until it, or a deadline enclosing it, is closed. Use a clock that is the same
+     * as, or advances with, the clock of the factories used within the scope.
+     *
+     * @param clock  the {@link InsistClock} to measure the budget with.
+     *               May not be null.
+     * @param budget the {@link Duration} that the waits within the scope may take between them.
+     *               May not be null or negative.
+     *
+     * @return the new, current {@link InsistDeadline}.
+     *
+     * @throws IllegalArgumentException if clock is null or if budget is null or negative.
+     */
+    public static InsistDeadline start(InsistClock clock,
+                                       Duration budget) {
+        validate().that(clock).isNotNull();
+        validate().that(budget).isAtLeast(Duration.ZERO);
+        InsistDeadline deadline = new InsistDeadline(clock, budget, CURRENT.get());
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * Run the scope with a deadline of the given budget, see {@link #start(Duration)}.
+     *
+     * @param budget the {@link Duration} that the waits within the scope may take between them.
+     *               May not be null or negative.
+     * @param scope  the {@link Supplier} to run within the deadline.
+     *               May not be null.
+     * @param <T>    the type of the result of the scope.
+     *
+     * @return the result of the scope.
+     *
+     * @throws IllegalArgumentException if budget is null or negative or if scope is null.
+     */
+    public static <T> T within(Duration budget,
+                               Supplier<T> scope) {
+        validate().that(scope).isNotNull();
+        try (InsistDeadline ignored = start(budget)) {
+            return scope.get();
+        }
+    }
+
+    /**
+     * @return the innermost {@link InsistDeadline} of the current thread that hasn't been closed
+     * or an empty {@link Optional} if there is none.
+     */
+    public static Optional<InsistDeadline> current() {
+        return Optional.ofNullable(open(CURRENT.get()));
+    }
+
+    /**
+     * @param executable the {@link PatientExecutable} to pass the current deadline on to.
+     *                   May not be null.
+     * @param <T>        the type of the result of the executable.
+     *
+     * @return an executable that runs the given one with the deadline that is current now as the
+     * current deadline of whichever thread it is run on.
+     */
+    static <T> PatientExecutable<T> propagate(PatientExecutable<T> executable) {
+        validate().that(executable).isNotNull();
+        InsistDeadline deadline = CURRENT.get();
+        return () -> {
+            // Also replaces whatever a pooled thread inherited when it was started
+            InsistDeadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                return executable.execute();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    private static InsistDeadline open(InsistDeadline deadline) {
+        while (null != deadline && deadline.closed) {
+            deadline = deadline.enclosing;
+        }
+        return deadline;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final InsistClock clock;
+    private final Duration budget;
+    private final InsistDeadline enclosing;
+    private final long end;
+
+    private volatile boolean closed;
+    private volatile boolean exhausted;
+
+    private InsistDeadline(InsistClock clock,
+                           Duration budget,
+                           InsistDeadline enclosing) {
+        this.clock = clock;
+        this.budget = budget;
+        this.enclosing = enclosing;
+        this.end = clock.nanoTime() + budget.toNanos();
+    }
+
+    /**
+     * @return the {@link Duration} this deadline was started with.
+     */
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return the {@link Duration} left before this deadline, or one enclosing it, ends.
+     * Never negative.
+     */
+    public Duration remaining() {
+        if (exhausted) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.ofNanos(Math.max(0, end - clock.nanoTime()));
+        InsistDeadline outer = open(enclosing);
+        if (null != outer) {
+            Duration outerRemaining = outer.remaining();
+            if (outerRemaining.compareTo(remaining) < 0) {
+                return outerRemaining;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * @return true if nothing is left of the budget of this deadline or of one enclosing it.
+     */
+    public boolean isExhausted() {
+        return remaining().isZero();
+    }
+
+    /**
+     * Use up what is left of the budget. A wait that was cut short by the deadline may give up a
+     * little before it ends, as the waits don't start an attempt they couldn't finish in time, and
+     * once one has failed there is no point in letting later waits try with what little is left.
+     */
+    void exhaust() {
+        exhausted = true;
+    }
+
+    /**
+     * @param timeout the {@link Duration} a wait would take without this deadline.
+     *                May not be null.
+     *
+     * @return the given timeout or what is left of the budget, whichever is shorter.
+     */
+    Duration clamp(Duration timeout) {
+        Duration remaining = remaining();
+        return (remaining.compareTo(timeout) < 0) ? remaining : timeout;
+    }
+
+    /**
+     * End the scope of this deadline. The deadline that was current when this one was started
+     * becomes current again. Closing a deadline more than once has no further effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (CURRENT.get() == this) {
+            CURRENT.set(enclosing);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InsistDeadline[budget " + budget.toMillis() + " ms, remaining " + remaining().toMillis() + " ms]";
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
+
+import java.util.function.DoublePredicate;
+import java.util.function.Supplier;
+
+/**
+ * Validates double values without allocating anything unless the validation fails.
+ * Unlike {@code that(double)}, which creates a verifiable object holding the subject
+ * for every validation, the subject is passed to each method and a single instance is
+ * kept by its {@link InsistVerifiableFactory}. The expected descriptions on failure
+ * are the same as those of the verifiable objects.
+ *
+ * @param <X> the Throwable type to be thrown on unsuccessful validation.
+ */
+public final class InsistDoubleVerifier<X extends Throwable> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final FailedValidationExecutor<X> failedValidationExecutor;
+    private final Supplier<String> messageSupplier;
+
+    InsistDoubleVerifier(FailedValidationExecutor<X> failedValidationExecutor,
+                         Supplier<String> messageSupplier) {
+        if (null == failedValidationExecutor) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("failedValidationExecutor"));
+        }
+        this.failedValidationExecutor = failedValidationExecutor;
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        this.messageSupplier = messageSupplier;
+    }
+
+    /**
+     * Validate that the subject is equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isEqualTo(double subject, double value) throws X {
+        if (!(subject == value)) {
+            fail("t -> t == " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is not equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isNotEqualTo(double subject, double value) throws X {
+        if (!(subject != value)) {
+            fail("t -> t != " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isZero(double subject) throws X {
+        if (!(subject == 0)) {
+            fail("t -> t == 0", subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is not zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isNotZero(double subject) throws X {
+        if (!(subject != 0)) {
+            fail("t -> t != 0", subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is greater than zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isStrictlyPositive(double subject) throws X {
+        return isGreaterThan(subject, 0.0);
+    }
+
+    /**
+     * Validate that the subject is less than zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isStrictlyNegative(double subject) throws X {
+        return isLessThan(subject, 0.0);
+    }
+
+    /**
+     * Validate that the subject is greater than the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isGreaterThan(double subject, double value) throws X {
+        if (!(subject > value)) {
+            fail("t -> t > " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is greater than or equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isGreaterThanOrEqualTo(double subject, double value) throws X {
+        if (!(subject >= value)) {
+            fail("t -> t >= " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Same as {@link #isGreaterThanOrEqualTo(double, double)}.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isAtLeast(double subject, double value) throws X {
+        return isGreaterThanOrEqualTo(subject, value);
+    }
+
+    /**
+     * Validate that the subject is less than the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isLessThan(double subject, double value) throws X {
+        if (!(subject < value)) {
+            fail("t -> t < " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is less than or equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isLessThanOrEqualTo(double subject, double value) throws X {
+        if (!(subject <= value)) {
+            fail("t -> t <= " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Same as {@link #isLessThanOrEqualTo(double, double)}.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public double isAtMost(double subject, double value) throws X {
+        return isLessThanOrEqualTo(subject, value);
+    }
+
+    /**
+     * Validate that the subject satisfies the given predicate. A predicate that
+     * doesn't capture anything is created once by the compiler so that this doesn't
+     * allocate when the validation succeeds either.
+     *
+     * @param subject  the value to validate.
+     * @param expected the {@link DoublePredicate} that the subject must satisfy.
+     *                 May not be null.
+     *
+     * @return the given subject.
+     *
+     * @throws X                    if the validation fails and the failed validation executor throws.
+     * @throws NullPointerException if expected is null.
+     */
+    public double satisfies(double subject, DoublePredicate expected) throws X {
+        if (null == expected) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("expected"));
+        }
+        if (!expected.test(subject)) {
+            fail(ValidityUtils.describe(expected), subject);
+        }
+        return subject;
+    }
+
+    private void fail(String expected, double subject) throws X {
+        failedValidationExecutor.fail(expected, subject, messageSupplier);
+    }
+}
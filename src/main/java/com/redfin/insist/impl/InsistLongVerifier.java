@@ -0,0 +1,270 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
+
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Validates long values without allocating anything unless the validation fails.
+ * Unlike {@code that(long)}, which creates a verifiable object holding the subject
+ * for every validation, the subject is passed to each method and a single instance is
+ * kept by its {@link InsistVerifiableFactory}. The expected descriptions on failure
+ * are the same as those of the verifiable objects.
+ *
+ * @param <X> the Throwable type to be thrown on unsuccessful validation.
+ */
+public final class InsistLongVerifier<X extends Throwable> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final FailedValidationExecutor<X> failedValidationExecutor;
+    private final Supplier<String> messageSupplier;
+
+    InsistLongVerifier(FailedValidationExecutor<X> failedValidationExecutor,
+                       Supplier<String> messageSupplier) {
+        if (null == failedValidationExecutor) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("failedValidationExecutor"));
+        }
+        this.failedValidationExecutor = failedValidationExecutor;
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        this.messageSupplier = messageSupplier;
+    }
+
+    /**
+     * Validate that the subject is equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isEqualTo(long subject, long value) throws X {
+        if (!(subject == value)) {
+            fail("t -> t == " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is not equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isNotEqualTo(long subject, long value) throws X {
+        if (!(subject != value)) {
+            fail("t -> t != " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isZero(long subject) throws X {
+        if (!(subject == 0)) {
+            fail("t -> t == 0", subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is not zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isNotZero(long subject) throws X {
+        if (!(subject != 0)) {
+            fail("t -> t != 0", subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is greater than zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isStrictlyPositive(long subject) throws X {
+        return isGreaterThan(subject, 0L);
+    }
+
+    /**
+     * Validate that the subject is less than zero.
+     *
+     * @param subject the value to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isStrictlyNegative(long subject) throws X {
+        return isLessThan(subject, 0L);
+    }
+
+    /**
+     * Validate that the subject is greater than the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isGreaterThan(long subject, long value) throws X {
+        if (!(subject > value)) {
+            fail("t -> t > " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is greater than or equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isGreaterThanOrEqualTo(long subject, long value) throws X {
+        if (!(subject >= value)) {
+            fail("t -> t >= " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Same as {@link #isGreaterThanOrEqualTo(long, long)}.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isAtLeast(long subject, long value) throws X {
+        return isGreaterThanOrEqualTo(subject, value);
+    }
+
+    /**
+     * Validate that the subject is less than the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isLessThan(long subject, long value) throws X {
+        if (!(subject < value)) {
+            fail("t -> t < " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Validate that the subject is less than or equal to the given value.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isLessThanOrEqualTo(long subject, long value) throws X {
+        if (!(subject <= value)) {
+            fail("t -> t <= " + ValidityUtils.describe(value), subject);
+        }
+        return subject;
+    }
+
+    /**
+     * Same as {@link #isLessThanOrEqualTo(long, long)}.
+     *
+     * @param subject the value to validate.
+     * @param value   the value to compare the subject to.
+     *
+     * @return the given subject.
+     *
+     * @throws X if the validation fails and the failed validation executor throws.
+     */
+    public long isAtMost(long subject, long value) throws X {
+        return isLessThanOrEqualTo(subject, value);
+    }
+
+    /**
+     * Validate that the subject satisfies the given predicate. A predicate that
+     * doesn't capture anything is created once by the compiler so that this doesn't
+     * allocate when the validation succeeds either.
+     *
+     * @param subject  the value to validate.
+     * @param expected the {@link LongPredicate} that the subject must satisfy.
+     *                 May not be null.
+     *
+     * @return the given subject.
+     *
+     * @throws X                    if the validation fails and the failed validation executor throws.
+     * @throws NullPointerException if expected is null.
+     */
+    public long satisfies(long subject, LongPredicate expected) throws X {
+        if (null == expected) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("expected"));
+        }
+        if (!expected.test(subject)) {
+            fail(ValidityUtils.describe(expected), subject);
+        }
+        return subject;
+    }
+
+    private void fail(String expected, long subject) throws X {
+        failedValidationExecutor.fail(expected, subject, messageSupplier);
+    }
+}
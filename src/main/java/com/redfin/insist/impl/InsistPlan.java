@@ -0,0 +1,298 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
+
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A chain of validations that is built once and then applied to any number of subjects,
+ * e.g. to every row of a data-driven test. Each step extracts a value from the subject and
+ * validates it with a predicate. The int, long, and double steps don't box the extracted
+ * value so applying a plan to a subject doesn't allocate anything unless a step fails.
+ * A failed step calls the {@link FailedValidationExecutor} of the factory that created the
+ * plan with the description of the step as the expected value and the extracted value as the
+ * actual value. If the executor doesn't throw then the remaining steps are still applied.
+ * <p>
+ * Plans are immutable. Adding a step returns a new plan so a plan may be kept, e.g. in a
+ * static field, extended, and applied from any number of threads at once.
+ *
+ * @param <T> the type of the subjects the plan is applied to.
+ * @param <X> the Throwable type to be thrown on unsuccessful validation.
+ */
+public final class InsistPlan<T, X extends Throwable> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String NON_NULL_SUBJECT = "t -> null != t";
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final FailedValidationExecutor<X> failedValidationExecutor;
+    private final Supplier<String> messageSupplier;
+    private final Step<T>[] steps;
+
+    @SuppressWarnings("unchecked")
+    InsistPlan(FailedValidationExecutor<X> failedValidationExecutor,
+               Supplier<String> messageSupplier) {
+        this(failedValidationExecutor, messageSupplier, (Step<T>[]) new Step<?>[0]);
+    }
+
+    private InsistPlan(FailedValidationExecutor<X> failedValidationExecutor,
+                       Supplier<String> messageSupplier,
+                       Step<T>[] steps) {
+        if (null == failedValidationExecutor) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("failedValidationExecutor"));
+        }
+        this.failedValidationExecutor = failedValidationExecutor;
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        this.messageSupplier = messageSupplier;
+        this.steps = steps;
+    }
+
+    /**
+     * @return the number of steps of this plan.
+     */
+    public int getStepCount() {
+        return steps.length;
+    }
+
+    /**
+     * Add a step validating an int extracted from the subject.
+     *
+     * @param extractor   the {@link ToIntFunction} extracting the value to validate from the subject.
+     *                    May not be null.
+     * @param predicate   the {@link IntPredicate} the extracted value must satisfy.
+     *                    May not be null.
+     * @param description the description of the step used as the expected value on failure.
+     *                    May not be null.
+     *
+     * @return a new plan with the steps of this one followed by the given step.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public InsistPlan<T, X> thatInt(ToIntFunction<? super T> extractor,
+                                    IntPredicate predicate,
+                                    String description) {
+        validate().that(extractor).isNotNull();
+        validate().that(predicate).isNotNull();
+        validate().that(description).isNotNull();
+        return withStep(new Step<T>(description) {
+            @Override
+            <E extends Throwable> void check(T subject,
+                                             FailedValidationExecutor<E> failedValidationExecutor,
+                                             Supplier<String> messageSupplier) throws E {
+                int value = extractor.applyAsInt(subject);
+                if (!predicate.test(value)) {
+                    failedValidationExecutor.fail(description, value, messageSupplier);
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a step validating a long extracted from the subject.
+     *
+     * @param extractor   the {@link ToLongFunction} extracting the value to validate from the subject.
+     *                    May not be null.
+     * @param predicate   the {@link LongPredicate} the extracted value must satisfy.
+     *                    May not be null.
+     * @param description the description of the step used as the expected value on failure.
+     *                    May not be null.
+     *
+     * @return a new plan with the steps of this one followed by the given step.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public InsistPlan<T, X> thatLong(ToLongFunction<? super T> extractor,
+                                     LongPredicate predicate,
+                                     String description) {
+        validate().that(extractor).isNotNull();
+        validate().that(predicate).isNotNull();
+        validate().that(description).isNotNull();
+        return withStep(new Step<T>(description) {
+            @Override
+            <E extends Throwable> void check(T subject,
+                                             FailedValidationExecutor<E> failedValidationExecutor,
+                                             Supplier<String> messageSupplier) throws E {
+                long value = extractor.applyAsLong(subject);
+                if (!predicate.test(value)) {
+                    failedValidationExecutor.fail(description, value, messageSupplier);
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a step validating a double extracted from the subject.
+     *
+     * @param extractor   the {@link ToDoubleFunction} extracting the value to validate from the subject.
+     *                    May not be null.
+     * @param predicate   the {@link DoublePredicate} the extracted value must satisfy.
+     *                    May not be null.
+     * @param description the description of the step used as the expected value on failure.
+     *                    May not be null.
+     *
+     * @return a new plan with the steps of this one followed by the given step.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public InsistPlan<T, X> thatDouble(ToDoubleFunction<? super T> extractor,
+                                       DoublePredicate predicate,
+                                       String description) {
+        validate().that(extractor).isNotNull();
+        validate().that(predicate).isNotNull();
+        validate().that(description).isNotNull();
+        return withStep(new Step<T>(description) {
+            @Override
+            <E extends Throwable> void check(T subject,
+                                             FailedValidationExecutor<E> failedValidationExecutor,
+                                             Supplier<String> messageSupplier) throws E {
+                double value = extractor.applyAsDouble(subject);
+                if (!predicate.test(value)) {
+                    failedValidationExecutor.fail(description, value, messageSupplier);
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a step validating an object extracted from the subject. The step doesn't allocate
+     * on success as long as the extractor returns an existing object, e.g. from a getter.
+     *
+     * @param extractor   the {@link Function} extracting the value to validate from the subject.
+     *                    May not be null.
+     * @param predicate   the {@link Predicate} the extracted value must satisfy.
+     *                    May not be null.
+     * @param description the description of the step used as the expected value on failure.
+     *                    May not be null.
+     * @param <R>         the type of the extracted value.
+     *
+     * @return a new plan with the steps of this one followed by the given step.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public <R> InsistPlan<T, X> that(Function<? super T, ? extends R> extractor,
+                                     Predicate<? super R> predicate,
+                                     String description) {
+        validate().that(extractor).isNotNull();
+        validate().that(predicate).isNotNull();
+        validate().that(description).isNotNull();
+        return withStep(new Step<T>(description) {
+            @Override
+            <E extends Throwable> void check(T subject,
+                                             FailedValidationExecutor<E> failedValidationExecutor,
+                                             Supplier<String> messageSupplier) throws E {
+                R value = extractor.apply(subject);
+                if (!predicate.test(value)) {
+                    failedValidationExecutor.fail(description, value, messageSupplier);
+                }
+            }
+        });
+    }
+
+    private InsistPlan<T, X> withStep(Step<T> step) {
+        return new InsistPlan<>(failedValidationExecutor, messageSupplier, appended(steps, step));
+    }
+
+    /*
+     * Copy the given array with the given element added at the end, for the immutable chains
+     * of steps or checks.
+     */
+
+    static <E> E[] appended(E[] elements,
+                            E element) {
+        E[] extended = Arrays.copyOf(elements, elements.length + 1);
+        extended[elements.length] = element;
+        return extended;
+    }
+
+    /**
+     * Apply the steps of this plan, in the order they were added, to the given subject.
+     * A null subject fails validation without applying any step.
+     *
+     * @param subject the subject to validate.
+     *
+     * @return the given subject.
+     *
+     * @throws X if a step fails and the failed validation executor throws.
+     */
+    public T check(T subject) throws X {
+        if (null == subject) {
+            failedValidationExecutor.fail(NON_NULL_SUBJECT, null, messageSupplier);
+            return null;
+        }
+        for (Step<T> step : steps) {
+            step.check(subject, failedValidationExecutor, messageSupplier);
+        }
+        return subject;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName()).append('[');
+        for (int i = 0; i < steps.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(steps[i].description);
+        }
+        return sb.append(']').toString();
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Steps
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * A step extracts the value from the subject once and keeps it in a local of its own type,
+     * so an int, long, or double value is only boxed when it's passed to the failed validation
+     * executor on failure.
+     */
+
+    private abstract static class Step<T> {
+
+        private final String description;
+
+        Step(String description) {
+            this.description = description;
+        }
+
+        abstract <E extends Throwable> void check(T subject,
+                                                  FailedValidationExecutor<E> failedValidationExecutor,
+                                                  Supplier<String> messageSupplier) throws E;
+    }
+}
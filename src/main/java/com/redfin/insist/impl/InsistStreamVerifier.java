@@ -0,0 +1,627 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * Validates a source of elements that is consumed once, such as a data set that doesn't fit in memory,
+ * in constant memory. Checks of each element and of aggregates over all of them, like the count,
+ * sortedness, distinctness and the range of the elements, are added to the verifier which is then used
+ * to check any number of sources. Once a source is used up, any failures are reported through the
+ * {@link FailedValidationExecutor} of the factory that created the verifier in a single failure that
+ * lists the positions of the first offending elements.
+ * Like an {@link InsistPlan}, a verifier is immutable and adding a check returns a new one.
+ *
+ * @param <T> the type of the elements.
+ * @param <X> the Throwable type to be thrown on unsuccessful validation.
+ */
+public final class InsistStreamVerifier<T, X extends Throwable> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The number of offending elements listed in a failure unless set otherwise
+     * with {@link #withMaxReportedFailures(int)}.
+     */
+    public static final int DEFAULT_MAX_REPORTED_FAILURES = 10;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final FailedValidationExecutor<X> failedValidationExecutor;
+    private final Supplier<String> messageSupplier;
+    private final Check<T>[] checks;
+    private final int maxReportedFailures;
+
+    @SuppressWarnings("unchecked")
+    InsistStreamVerifier(FailedValidationExecutor<X> failedValidationExecutor,
+                         Supplier<String> messageSupplier) {
+        this(failedValidationExecutor, messageSupplier, (Check<T>[]) new Check<?>[0], DEFAULT_MAX_REPORTED_FAILURES);
+    }
+
+    private InsistStreamVerifier(FailedValidationExecutor<X> failedValidationExecutor,
+                                 Supplier<String> messageSupplier,
+                                 Check<T>[] checks,
+                                 int maxReportedFailures) {
+        if (null == failedValidationExecutor) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("failedValidationExecutor"));
+        }
+        this.failedValidationExecutor = failedValidationExecutor;
+        if (null == messageSupplier) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("messageSupplier"));
+        }
+        this.messageSupplier = messageSupplier;
+        this.checks = checks;
+        this.maxReportedFailures = maxReportedFailures;
+    }
+
+    /**
+     * @param maxReportedFailures the maximum number of offending elements to list in a failure.
+     *                            All of them are counted.
+     *                            Must be positive.
+     *
+     * @return a new verifier with the checks of this one that lists up to the given number of
+     * offending elements.
+     *
+     * @throws IllegalArgumentException if maxReportedFailures isn't positive.
+     */
+    public InsistStreamVerifier<T, X> withMaxReportedFailures(int maxReportedFailures) {
+        validate().that(maxReportedFailures).isStrictlyPositive();
+        return new InsistStreamVerifier<>(failedValidationExecutor, messageSupplier, checks, maxReportedFailures);
+    }
+
+    /**
+     * Check that each element satisfies the predicate.
+     *
+     * @param predicate   the {@link Predicate} each element must satisfy.
+     *                    May not be null.
+     * @param description the description of the predicate used in the failure.
+     *                    May not be null.
+     *
+     * @return a new verifier with the checks of this one followed by the given check.
+     *
+     * @throws IllegalArgumentException if predicate or description are null.
+     */
+    public InsistStreamVerifier<T, X> each(Predicate<? super T> predicate,
+                                           String description) {
+        validate().that(predicate).isNotNull();
+        validate().that(description).isNotNull();
+        return withCheck(new EachCheck<>(predicate, description));
+    }
+
+    /**
+     * Check that there are exactly the given number of elements.
+     *
+     * @param count the expected number of elements.
+     *              May not be negative.
+     *
+     * @return a new verifier with the checks of this one followed by the given check.
+     *
+     * @throws IllegalArgumentException if count is negative.
+     */
+    public InsistStreamVerifier<T, X> hasCount(long count) {
+        validate().that(count).isAtLeast(0L);
+        return withCheck(new CountCheck<>(count, count));
+    }
+
+    /**
+     * Check that the number of elements is between the given bounds, inclusive.
+     *
+     * @param minimum the minimum number of elements.
+     *                May not be negative.
+     * @param maximum the maximum number of elements.
+     *                May not be less than minimum.
+     *
+     * @return a new verifier with the checks of this one followed by the given check.
+     *
+     * @throws IllegalArgumentException if minimum is negative or if maximum is less than minimum.
+     */
+    public InsistStreamVerifier<T, X> hasCountBetween(long minimum, long maximum) {
+        validate().that(minimum).isAtLeast(0L);
+        validate().that(maximum).isAtLeast(minimum);
+        return withCheck(new CountCheck<>(minimum, maximum));
+    }
+
+    /**
+     * Check that each element is no less than the one before it. Only the previous element is kept.
+     *
+     * @param order the {@link Comparator} defining the order.
+     *              May not be null.
+     *
+     * @return a new verifier with the checks of this one followed by the given check.
+     *
+     * @throws IllegalArgumentException if order is null.
+     */
+    public InsistStreamVerifier<T, X> isSorted(Comparator<? super T> order) {
+        validate().that(order).isNotNull();
+        return withCheck(new SortedCheck<>(order));
+    }
+
+    /**
+     * Check that each element is between the given bounds, inclusive. The smallest and
+     * largest elements seen are kept and listed in the failure.
+     *
+     * @param order   the {@link Comparator} defining the order.
+     *                May not be null.
+     * @param minimum the smallest allowed element.
+     *                May not be null.
+     * @param maximum the largest allowed element.
+     *                May not be null or less than minimum.
+     *
+     * @return a new verifier with the checks of this one followed by the given check.
+     *
+     * @throws IllegalArgumentException if any argument is null or if maximum is less than minimum.
+     */
+    public InsistStreamVerifier<T, X> isBetween(Comparator<? super T> order,
+                                                T minimum,
+                                                T maximum) {
+        validate().that(order).isNotNull();
+        validate().that(minimum).isNotNull();
+        validate().that(maximum).isNotNull();
+        validate().that(order.compare(minimum, maximum)).isAtMost(0);
+        return withCheck(new BetweenCheck<>(order, minimum, maximum));
+    }
+
+    /**
+     * Check that no two elements have the same key. Rather than keeping the keys, they are added to a
+     * Bloom filter sized for the expected number of elements, taking 8 bytes per expected element and at
+     * most 256 MiB, enough for about 33 million elements, however many elements there turn out to be.
+     * Each key is looked up at 10 bits of the filter, and an element whose key may have been seen before
+     * is reported as a possible duplicate. Up to the expected number of elements the chance of that being
+     * wrong is under one in 250 million per element, about 4e-9. Past that the filter stops taking keys
+     * so that it stays that precise: later elements are only checked against the keys it holds, and
+     * those that may be duplicates are reported as a count rather than one by one. Keys are 64-bit to
+     * keep the chance of a false duplicate low for large sources; a 32-bit key like
+     * {@link Object#hashCode()} would collide too often.
+     *
+     * @param key           the {@link ToLongFunction} from an element to its key.
+     *                      May not be null.
+     * @param expectedCount the expected number of elements.
+     *                      Must be positive.
+     *
+     * @return a new verifier with the checks of this one followed by the given check.
+     *
+     * @throws IllegalArgumentException if key is null or if expectedCount isn't positive.
+     */
+    public InsistStreamVerifier<T, X> isDistinct(ToLongFunction<? super T> key,
+                                                 long expectedCount) {
+        validate().that(key).isNotNull();
+        validate().that(expectedCount).isStrictlyPositive();
+        return withCheck(new DistinctCheck<>(key, expectedCount));
+    }
+
+    private InsistStreamVerifier<T, X> withCheck(Check<T> check) {
+        return new InsistStreamVerifier<>(failedValidationExecutor, messageSupplier, InsistPlan.appended(checks, check), maxReportedFailures);
+    }
+
+    /**
+     * @return the number of checks of this verifier.
+     */
+    public int getCheckCount() {
+        return checks.length;
+    }
+
+    /**
+     * Consume the iterator and check its elements.
+     *
+     * @param source the {@link Iterator} of the elements.
+     *               May not be null.
+     *
+     * @return the number of elements.
+     *
+     * @throws X                        if any check fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if source is null.
+     */
+    public long check(Iterator<? extends T> source) throws X {
+        validate().that(source).isNotNull();
+        Verification verification = new Verification();
+        source.forEachRemaining(verification);
+        return verification.finish();
+    }
+
+    /**
+     * Consume the spliterator and check its elements.
+     *
+     * @param source the {@link Spliterator} of the elements.
+     *               May not be null.
+     *
+     * @return the number of elements.
+     *
+     * @throws X                        if any check fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if source is null.
+     */
+    public long check(Spliterator<? extends T> source) throws X {
+        validate().that(source).isNotNull();
+        Verification verification = new Verification();
+        source.forEachRemaining(verification);
+        return verification.finish();
+    }
+
+    /**
+     * Consume the stream and check its elements in encounter order. The stream isn't closed.
+     *
+     * @param source the {@link Stream} of the elements.
+     *               May not be null.
+     *
+     * @return the number of elements.
+     *
+     * @throws X                        if any check fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if source is null.
+     */
+    public long check(Stream<? extends T> source) throws X {
+        validate().that(source).isNotNull();
+        return check(source.spliterator());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + describeChecks() + "]";
+    }
+
+    private String describeChecks() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < checks.length; i++) {
+            if (i > 0) {
+                sb.append(" and ");
+            }
+            sb.append(checks[i].describe());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The state of checking a single source.
+     */
+    private final class Verification
+            implements Consumer<T> {
+
+        private final List<String> reported = new ArrayList<>();
+        private final Run<T>[] runs;
+        private long position = 0;
+        private long failureCount = 0;
+
+        @SuppressWarnings("unchecked")
+        Verification() {
+            runs = (Run<T>[]) new Run<?>[checks.length];
+            for (int i = 0; i < checks.length; i++) {
+                runs[i] = checks[i].start();
+            }
+        }
+
+        @Override
+        public void accept(T element) {
+            for (Run<T> run : runs) {
+                String reason = run.accept(element);
+                if (null != reason) {
+                    failureCount++;
+                    if (reported.size() < maxReportedFailures) {
+                        reported.add(FailureListing.describe(position, element) + " " + reason);
+                    }
+                }
+            }
+            position++;
+        }
+
+        long finish() throws X {
+            List<String> aggregates = new ArrayList<>();
+            for (Run<T> run : runs) {
+                String reason = run.finish(position);
+                if (null != reason) {
+                    aggregates.add(reason);
+                }
+            }
+            if (failureCount > 0 || !aggregates.isEmpty()) {
+                failedValidationExecutor.fail(describeChecks(), describe(aggregates), messageSupplier);
+            }
+            return position;
+        }
+
+        private String describe(List<String> aggregates) {
+            StringBuilder sb = new StringBuilder().append(position).append(" elements");
+            if (failureCount > 0) {
+                sb.append(", ")
+                  .append(failureCount)
+                  .append(" failed: ");
+                FailureListing.append(sb, reported.iterator(), reported.size(), failureCount, Function.identity());
+            }
+            for (String aggregate : aggregates) {
+                sb.append("; ").append(aggregate);
+            }
+            return sb.toString();
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Checks
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private interface Check<T> {
+
+        String describe();
+
+        Run<T> start();
+    }
+
+    /**
+     * The state of a check for a single source.
+     */
+    private abstract static class Run<T> {
+
+        /**
+         * @return null if the element passes or why it doesn't.
+         */
+        String accept(T element) {
+            return null;
+        }
+
+        /**
+         * @return null if the aggregate passes or why it doesn't.
+         */
+        String finish(long count) {
+            return null;
+        }
+    }
+
+    private static final class EachCheck<T>
+            implements Check<T> {
+
+        private final Predicate<? super T> predicate;
+        private final String description;
+
+        EachCheck(Predicate<? super T> predicate, String description) {
+            this.predicate = predicate;
+            this.description = description;
+        }
+
+        @Override
+        public String describe() {
+            return description;
+        }
+
+        @Override
+        public Run<T> start() {
+            return new Run<T>() {
+                @Override
+                String accept(T element) {
+                    return predicate.test(element) ? null : "fails " + description;
+                }
+            };
+        }
+    }
+
+    private static final class CountCheck<T>
+            implements Check<T> {
+
+        private final long minimum;
+        private final long maximum;
+
+        CountCheck(long minimum, long maximum) {
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        @Override
+        public String describe() {
+            return (minimum == maximum) ? "count == " + minimum : minimum + " <= count <= " + maximum;
+        }
+
+        @Override
+        public Run<T> start() {
+            return new Run<T>() {
+                @Override
+                String finish(long count) {
+                    if (count >= minimum && count <= maximum) {
+                        return null;
+                    }
+                    return "count of " + count + " is not " + ((minimum == maximum) ? minimum : "between " + minimum + " and " + maximum);
+                }
+            };
+        }
+    }
+
+    private static final class SortedCheck<T>
+            implements Check<T> {
+
+        private final Comparator<? super T> order;
+
+        SortedCheck(Comparator<? super T> order) {
+            this.order = order;
+        }
+
+        @Override
+        public String describe() {
+            return "sorted";
+        }
+
+        @Override
+        public Run<T> start() {
+            return new Run<T>() {
+
+                private boolean hasPrevious = false;
+                private T previous;
+
+                @Override
+                String accept(T element) {
+                    boolean ordered = !hasPrevious || order.compare(previous, element) <= 0;
+                    hasPrevious = true;
+                    previous = element;
+                    return ordered ? null : "is out of order";
+                }
+            };
+        }
+    }
+
+    private static final class BetweenCheck<T>
+            implements Check<T> {
+
+        private final Comparator<? super T> order;
+        private final T minimum;
+        private final T maximum;
+
+        BetweenCheck(Comparator<? super T> order, T minimum, T maximum) {
+            this.order = order;
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        @Override
+        public String describe() {
+            return "between <" + ValidityUtils.describe(minimum) + "> and <" + ValidityUtils.describe(maximum) + ">";
+        }
+
+        @Override
+        public Run<T> start() {
+            return new Run<T>() {
+
+                private boolean failed = false;
+                private T smallest;
+                private T largest;
+
+                @Override
+                String accept(T element) {
+                    if (null == smallest || order.compare(element, smallest) < 0) {
+                        smallest = element;
+                    }
+                    if (null == largest || order.compare(element, largest) > 0) {
+                        largest = element;
+                    }
+                    if (order.compare(element, minimum) < 0 || order.compare(element, maximum) > 0) {
+                        failed = true;
+                        return "is not " + describe();
+                    }
+                    return null;
+                }
+
+                @Override
+                String finish(long count) {
+                    return failed ? "min <" + ValidityUtils.describe(smallest) + ">, max <" + ValidityUtils.describe(largest) + ">" : null;
+                }
+            };
+        }
+    }
+
+    private static final class DistinctCheck<T>
+            implements Check<T> {
+
+        // With k hashes and b bits per element a Bloom filter is wrong with a probability of
+        // (1 - e^(-k / b))^k, about 4e-9 for 10 hashes and one 64-bit word per element. The optimal
+        // 30 hashes of 43 bits would be wrong one in a billion times but take three times the probes,
+        // each a likely cache miss, for a third less memory.
+        private static final int HASHES = 10;
+        // 256 MiB
+        private static final int MAXIMUM_WORDS = 1 << 25;
+
+        private final ToLongFunction<? super T> key;
+        private final int words;
+        private final long bits;
+        private final long capacity;
+
+        DistinctCheck(ToLongFunction<? super T> key, long expectedCount) {
+            this.key = key;
+            this.words = (int) Math.min(MAXIMUM_WORDS, expectedCount);
+            this.bits = words * 64L;
+            // One word per key it holds
+            this.capacity = words;
+        }
+
+        @Override
+        public String describe() {
+            return "distinct";
+        }
+
+        @Override
+        public Run<T> start() {
+            long[] filter = new long[words];
+            return new Run<T>() {
+
+                private long added = 0;
+                private long laterDuplicates = 0;
+
+                @Override
+                String accept(T element) {
+                    long hash = mix(key.applyAsLong(element));
+                    // A full filter is only looked up, more keys would make it imprecise
+                    boolean full = added >= capacity;
+                    boolean seen = true;
+                    for (int i = 0; i < HASHES && (seen || !full); i++) {
+                        // Each probe is mixed on its own, as by SplitMix64, since probes derived from two
+                        // hashes, like first + i * second, line up for too many pairs of keys
+                        hash += 0x9e3779b97f4a7c15L;
+                        long bit = Math.floorMod(mix(hash), bits);
+                        int word = (int) (bit >>> 6);
+                        long mask = 1L << bit;
+                        if (0 == (filter[word] & mask)) {
+                            seen = false;
+                            if (!full) {
+                                filter[word] |= mask;
+                            }
+                        }
+                    }
+                    if (!seen) {
+                        if (!full) {
+                            added++;
+                        }
+                        return null;
+                    }
+                    if (full) {
+                        laterDuplicates++;
+                        return null;
+                    }
+                    return "may be a duplicate";
+                }
+
+                @Override
+                String finish(long count) {
+                    if (0 == laterDuplicates) {
+                        return null;
+                    }
+                    return laterDuplicates + " later elements may be duplicates of the first " + capacity + " distinct ones";
+                }
+            };
+        }
+
+        private static long mix(long value) {
+            // The finalizer of MurmurHash3, so that similar keys set unrelated bits
+            long h = value;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
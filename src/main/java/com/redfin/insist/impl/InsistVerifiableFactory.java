@@ -17,18 +17,25 @@
 package com.redfin.insist.impl;
 
 import com.redfin.insist.InsistCompletableRetryFuture;
+import com.redfin.insist.InsistClock;
 import com.redfin.insist.InsistCompletableWaitFuture;
+import com.redfin.insist.InsistDelaySuppliers;
 import com.redfin.insist.InsistExecutable;
 import com.redfin.insist.InsistFuture;
-import com.redfin.patience.PatientDelaySuppliers;
+import com.redfin.insist.executor.CallerFrameLocator;
+import com.redfin.patience.PatientDelaySupplierFactory;
 import com.redfin.patience.PatientExecutionHandlers;
 import com.redfin.patience.PatientRetry;
 import com.redfin.patience.PatientWait;
 import com.redfin.validity.AbstractVerifiableFactory;
 import com.redfin.validity.FailedValidationExecutor;
+import com.redfin.validity.ValidityUtils;
 
 import java.time.Duration;
-import java.util.Objects;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static com.redfin.validity.Validity.validate;
@@ -47,25 +54,46 @@ public final class InsistVerifiableFactory<X extends Throwable>
     // Constants
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
-    private static final PatientWait DEFAULT_WAIT = PatientWait.builder()
-                                                               .withInitialDelay(Duration.ZERO)
-                                                               .withDefaultTimeout(Duration.ZERO)
-                                                               .withExecutionHandler(PatientExecutionHandlers.ignoringAll())
-                                                               .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ofMillis(500)))
-                                                               .build();
+    private static final PatientWait DEFAULT_WAIT = buildDefaultWait(InsistDelaySuppliers.adaptive());
+    private static final PatientRetry DEFAULT_RETRY = buildDefaultRetry(InsistDelaySuppliers.adaptive());
 
-    private static final PatientRetry DEFAULT_RETRY = PatientRetry.builder()
-                                                                  .withInitialDelay(Duration.ZERO)
-                                                                  .withDefaultNumberOfRetries(0)
-                                                                  .withExecutionHandler(PatientExecutionHandlers.ignoringAll())
-                                                                  .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ofMillis(500)))
-                                                                  .build();
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static PatientWait buildDefaultWait(PatientDelaySupplierFactory delaySupplierFactory) {
+        return PatientWait.builder()
+                          .withInitialDelay(Duration.ZERO)
+                          .withDefaultTimeout(Duration.ZERO)
+                          .withExecutionHandler(PatientExecutionHandlers.ignoringAll())
+                          .withDelaySupplier(delaySupplierFactory)
+                          .build();
+    }
+
+    private static PatientRetry buildDefaultRetry(PatientDelaySupplierFactory delaySupplierFactory) {
+        return PatientRetry.builder()
+                           .withInitialDelay(Duration.ZERO)
+                           .withDefaultNumberOfRetries(0)
+                           .withExecutionHandler(PatientExecutionHandlers.ignoringAll())
+                           .withDelaySupplier(delaySupplierFactory)
+                           .build();
+    }
 
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     // Instance Fields & Methods
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
     private final FailedValidationExecutor<X> failedValidationExecutor;
+    private final InsistClock clock;
+    private final PatientWait defaultWait;
+    private final PatientRetry defaultRetry;
+    private final CallSiteTuner tuner;
+    private final AttemptPolicy attemptPolicy;
+
+    // Created on first use. They only have final fields so a racy initialization at worst creates a spare one
+    private InsistIntVerifier<X> intVerifier;
+    private InsistLongVerifier<X> longVerifier;
+    private InsistDoubleVerifier<X> doubleVerifier;
 
     /**
      * Create a new InsistVerifiableFactory instance with the given arguments.
@@ -80,15 +108,427 @@ public final class InsistVerifiableFactory<X extends Throwable>
      */
     public InsistVerifiableFactory(Supplier<String> messageSupplier,
                                    FailedValidationExecutor<X> failedValidationExecutor) {
+        this(messageSupplier, failedValidationExecutor, InsistClock.system());
+    }
+
+    /**
+     * Create a new InsistVerifiableFactory instance with the given arguments.
+     *
+     * @param messageSupplier          the {@link Supplier} of the String message prefix for use upon validation failure.
+     *                                 May not be null.
+     * @param failedValidationExecutor the failed validation executor to use upon validation
+     *                                 failure.
+     *                                 May not be null.
+     * @param clock                    the {@link InsistClock} used by the eventual validations to measure
+     *                                 time and to sleep between attempts.
+     *                                 May not be null.
+     *
+     * @throws NullPointerException if throwableFunction, failedValidationExecutor, or clock are null.
+     */
+    public InsistVerifiableFactory(Supplier<String> messageSupplier,
+                                   FailedValidationExecutor<X> failedValidationExecutor,
+                                   InsistClock clock) {
+        this(messageSupplier, failedValidationExecutor, clock, DEFAULT_WAIT, DEFAULT_RETRY, null, AttemptPolicy.DIRECT);
+    }
+
+    private InsistVerifiableFactory(Supplier<String> messageSupplier,
+                                    FailedValidationExecutor<X> failedValidationExecutor,
+                                    InsistClock clock,
+                                    PatientWait defaultWait,
+                                    PatientRetry defaultRetry,
+                                    CallSiteTuner tuner,
+                                    AttemptPolicy attemptPolicy) {
         super(messageSupplier, failedValidationExecutor);
-        this.failedValidationExecutor = Objects.requireNonNull(failedValidationExecutor);
+        if (null == failedValidationExecutor) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("failedValidationExecutor"));
+        }
+        this.failedValidationExecutor = failedValidationExecutor;
+        if (null == clock) {
+            throw new NullPointerException(ValidityUtils.nullArgumentMessage("clock"));
+        }
+        this.clock = clock;
+        this.defaultWait = defaultWait;
+        this.defaultRetry = defaultRetry;
+        this.tuner = tuner;
+        this.attemptPolicy = attemptPolicy;
     }
 
     @Override
     protected InsistVerifiableFactory<X> getFactory(Supplier<String> messageSupplier,
                                                     FailedValidationExecutor<X> failedValidationExecutor) {
         return new InsistVerifiableFactory<>(messageSupplier,
-                                             failedValidationExecutor);
+                                             failedValidationExecutor,
+                                             clock,
+                                             defaultWait,
+                                             defaultRetry,
+                                             tuner,
+                                             attemptPolicy);
+    }
+
+    /**
+     * Validate int values without allocating anything on success, e.g.
+     * {@code asserts().ints().isGreaterThan(count, 0)}. Prefer this to {@code that(int)}
+     * in loops that validate many values.
+     *
+     * @return the {@link InsistIntVerifier} of this factory. It's created on first use and kept, although
+     * threads racing on that first use may each get an instance of their own.
+     */
+    public InsistIntVerifier<X> ints() {
+        InsistIntVerifier<X> verifier = intVerifier;
+        if (null == verifier) {
+            verifier = new InsistIntVerifier<>(failedValidationExecutor, getMessageSupplier());
+            intVerifier = verifier;
+        }
+        return verifier;
+    }
+
+    /**
+     * Validate long values without allocating anything on success, see {@link #ints()}.
+     *
+     * @return the {@link InsistLongVerifier} of this factory. It's created on first use and kept, although
+     * threads racing on that first use may each get an instance of their own.
+     */
+    public InsistLongVerifier<X> longs() {
+        InsistLongVerifier<X> verifier = longVerifier;
+        if (null == verifier) {
+            verifier = new InsistLongVerifier<>(failedValidationExecutor, getMessageSupplier());
+            longVerifier = verifier;
+        }
+        return verifier;
+    }
+
+    /**
+     * Validate double values without allocating anything on success, see {@link #ints()}.
+     *
+     * @return the {@link InsistDoubleVerifier} of this factory. It's created on first use and kept, although
+     * threads racing on that first use may each get an instance of their own.
+     */
+    public InsistDoubleVerifier<X> doubles() {
+        InsistDoubleVerifier<X> verifier = doubleVerifier;
+        if (null == verifier) {
+            verifier = new InsistDoubleVerifier<>(failedValidationExecutor, getMessageSupplier());
+            doubleVerifier = verifier;
+        }
+        return verifier;
+    }
+
+    /**
+     * Start a plan of validations that is built once and then applied to many subjects, e.g.
+     * <pre>{@code
+     * InsistPlan<Row, AssertionFailedError> plan = asserts().plan(Row.class)
+     *                                                       .thatInt(Row::getPrice, p -> p > 0, "price > 0")
+     *                                                       .that(Row::getName, n -> !n.isEmpty(), "non-empty name");
+     * rows.forEach(plan::check);
+     * }</pre>
+     * Failed steps go through the failed validation executor of this factory with its message.
+     *
+     * @param subjectClass the class of the subjects the plan will be applied to.
+     *                     May not be null.
+     * @param <T>          the type of the subjects.
+     *
+     * @return a new {@link InsistPlan} without any steps.
+     *
+     * @throws IllegalArgumentException if subjectClass is null.
+     */
+    public <T> InsistPlan<T, X> plan(Class<T> subjectClass) {
+        validate().that(subjectClass).isNotNull();
+        return new InsistPlan<>(failedValidationExecutor, getMessageSupplier());
+    }
+
+    /**
+     * Start a verifier for sources of elements that are consumed once, like an {@link java.util.Iterator}
+     * or a {@link java.util.stream.Stream} over a data set that doesn't fit in memory, e.g.
+     * <pre>{@code
+     * asserts().streaming(Row.class)
+     *          .each(row -> row.getPrice() > 0, "price > 0")
+     *          .isSorted(Comparator.comparing(Row::getTimestamp))
+     *          .isDistinct(Row::getId, 10_000_000)
+     *          .check(rows);
+     * }</pre>
+     * Failures go through the failed validation executor of this factory with its message.
+     *
+     * @param elementClass the class of the elements that will be checked.
+     *                     May not be null.
+     * @param <T>          the type of the elements.
+     *
+     * @return a new {@link InsistStreamVerifier} without any checks.
+     *
+     * @throws IllegalArgumentException if elementClass is null.
+     */
+    public <T> InsistStreamVerifier<T, X> streaming(Class<T> elementClass) {
+        validate().that(elementClass).isNotNull();
+        return new InsistStreamVerifier<>(failedValidationExecutor, getMessageSupplier());
+    }
+
+    /**
+     * Validate that every element of the collection satisfies the predicate, splitting the work
+     * across the common {@link ForkJoinPool}. Checking stops as soon as an element fails and that
+     * failure is reported with its index, or without one for a collection without an encounter order
+     * like a {@link java.util.HashSet}, see {@link #thatAll(Spliterator, Predicate)}.
+     *
+     * @param subjects  the {@link Collection} of elements to validate.
+     *                  May not be null.
+     * @param predicate the {@link Predicate} every element must satisfy. It may be called from several
+     *                  threads at once.
+     *                  May not be null.
+     * @param <T>       the type of the elements.
+     *
+     * @throws X                        if an element fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if subjects or predicate are null.
+     */
+    public <T> void thatAll(Collection<? extends T> subjects,
+                            Predicate<? super T> predicate) throws X {
+        validate().that(subjects).isNotNull();
+        thatAll(subjects.spliterator(), predicate);
+    }
+
+    /**
+     * Validate that every element of the collection satisfies the predicate, splitting the work
+     * across the common {@link ForkJoinPool}. Every element is checked and the number of failures
+     * is reported along with the failures with the lowest indices, or any of them without indices for
+     * a collection without an encounter order like a {@link java.util.HashSet}, see
+     * {@link #thatAll(Spliterator, Predicate, int)}.
+     *
+     * @param subjects            the {@link Collection} of elements to validate.
+     *                            May not be null.
+     * @param predicate           the {@link Predicate} every element must satisfy. It may be called
+     *                            from several threads at once.
+     *                            May not be null.
+     * @param maxReportedFailures the maximum number of failures to list.
+     *                            Must be positive.
+     * @param <T>                 the type of the elements.
+     *
+     * @throws X                        if any element fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if subjects or predicate are null or if maxReportedFailures
+     *                                  isn't positive.
+     */
+    public <T> void thatAll(Collection<? extends T> subjects,
+                            Predicate<? super T> predicate,
+                            int maxReportedFailures) throws X {
+        validate().that(subjects).isNotNull();
+        thatAll(subjects.spliterator(), predicate, maxReportedFailures);
+    }
+
+    /**
+     * Validate that every element of the spliterator satisfies the predicate, splitting the work
+     * across the common {@link ForkJoinPool}. As soon as any element fails all of the work is stopped
+     * and the failure with the lowest index found so far is reported once through the failed validation
+     * executor. Indices are in encounter order. Spliterators that split into parts of a known size, e.g.
+     * those of lists and arrays, or that have no encounter order, e.g. those of hash sets and maps, are
+     * checked fully in parallel, others are checked in parallel as far as their parts' sizes allow.
+     * Failures of elements without an encounter order are reported without indices.
+     *
+     * @param subjects  the {@link Spliterator} of elements to validate, e.g. from
+     *                  {@link java.util.stream.Stream#spliterator()}.
+     *                  May not be null.
+     * @param predicate the {@link Predicate} every element must satisfy. It may be called from several
+     *                  threads at once.
+     *                  May not be null.
+     * @param <T>       the type of the elements.
+     *
+     * @throws X                        if an element fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if subjects or predicate are null.
+     */
+    public <T> void thatAll(Spliterator<? extends T> subjects,
+                            Predicate<? super T> predicate) throws X {
+        validate().that(subjects).isNotNull();
+        validate().that(predicate).isNotNull();
+        reportBulk(BulkVerification.run(subjects, predicate, 1, true, ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Validate that every element of the spliterator satisfies the predicate, splitting the work
+     * across the common {@link ForkJoinPool}. Every element is checked and, if any fail, a single
+     * failure is reported through the failed validation executor with the number of failed elements
+     * and the indices and values of up to maxReportedFailures of them with the lowest indices.
+     *
+     * @param subjects            the {@link Spliterator} of elements to validate, e.g. from
+     *                            {@link java.util.stream.Stream#spliterator()}.
+     *                            May not be null.
+     * @param predicate           the {@link Predicate} every element must satisfy. It may be called
+     *                            from several threads at once.
+     *                            May not be null.
+     * @param maxReportedFailures the maximum number of failures to list.
+     *                            Must be positive.
+     * @param <T>                 the type of the elements.
+     *
+     * @throws X                        if any element fails and the failed validation executor throws.
+     * @throws IllegalArgumentException if subjects or predicate are null or if maxReportedFailures
+     *                                  isn't positive.
+     */
+    public <T> void thatAll(Spliterator<? extends T> subjects,
+                            Predicate<? super T> predicate,
+                            int maxReportedFailures) throws X {
+        validate().that(subjects).isNotNull();
+        validate().that(predicate).isNotNull();
+        validate().that(maxReportedFailures).isStrictlyPositive();
+        reportBulk(BulkVerification.run(subjects, predicate, maxReportedFailures, false, ForkJoinPool.commonPool()));
+    }
+
+    private void reportBulk(BulkVerification<?> verification) throws X {
+        if (verification.hasFailed()) {
+            failedValidationExecutor.fail(verification.describeExpected(),
+                                          verification.describeFailures(),
+                                          getMessageSupplier());
+        }
+    }
+
+    /**
+     * @return the {@link InsistClock} used by the eventual validations of this factory.
+     */
+    public InsistClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Use the given clock for the eventual validations of the returned factory. Passing
+     * a {@link com.redfin.insist.VirtualClock} lets tests of timeout logic run without
+     * actually waiting while making the same attempts as they would in real time.
+     * Note that {@link InsistFuture#thatEventuallyAsync(java.util.function.BooleanSupplier)}
+     * is always scheduled in real time.
+     *
+     * @param clock the {@link InsistClock} to use.
+     *              May not be null.
+     *
+     * @return a new {@link InsistVerifiableFactory} with the same message and executor as this one
+     * but using the given clock.
+     *
+     * @throws IllegalArgumentException if clock is null.
+     */
+    public InsistVerifiableFactory<X> withClock(InsistClock clock) {
+        validate().that(clock).isNotNull();
+        return new InsistVerifiableFactory<>(getMessageSupplier(), failedValidationExecutor, clock, defaultWait, defaultRetry, tuner, attemptPolicy);
+    }
+
+    /**
+     * Use the given delays between the attempts of {@link #within(Duration)} and {@link #within(int)}
+     * of the returned factory. By default the delays are {@link InsistDelaySuppliers#adaptive()}, which
+     * start at under a millisecond and back off up to half a second. Use
+     * {@link com.redfin.patience.PatientDelaySuppliers#fixed(Duration)} to poll at a constant rate instead.
+     *
+     * @param delaySupplierFactory the {@link PatientDelaySupplierFactory} of the delays between attempts.
+     *                             May not be null.
+     *
+     * @return a new {@link InsistVerifiableFactory} with the same message, executor, and clock as
+     * this one but using the given delays.
+     *
+     * @throws IllegalArgumentException if delaySupplierFactory is null.
+     */
+    public InsistVerifiableFactory<X> withDelays(PatientDelaySupplierFactory delaySupplierFactory) {
+        validate().that(delaySupplierFactory).isNotNull();
+        return new InsistVerifiableFactory<>(getMessageSupplier(),
+                                             failedValidationExecutor,
+                                             clock,
+                                             buildDefaultWait(delaySupplierFactory),
+                                             buildDefaultRetry(delaySupplierFactory),
+                                             tuner,
+                                             attemptPolicy);
+    }
+
+    /**
+     * Learn the delays of {@link #within(Duration)} and {@link #within(int)} of the returned
+     * factory per call site with the given tuner. Call sites the tuner hasn't learned yet use
+     * the delays set by {@link #withDelays(PatientDelaySupplierFactory)}. Futures created with
+     * {@link #withWait(PatientWait)} or {@link #withRetry(PatientRetry)} are never tuned.
+     *
+     * @param tuner the {@link CallSiteTuner} to learn with.
+     *              May not be null.
+     *
+     * @return a new {@link InsistVerifiableFactory} with the same settings as this one
+     * but tuned by the given tuner.
+     *
+     * @throws IllegalArgumentException if tuner is null.
+     */
+    public InsistVerifiableFactory<X> withTuner(CallSiteTuner tuner) {
+        validate().that(tuner).isNotNull();
+        return new InsistVerifiableFactory<>(getMessageSupplier(),
+                                             failedValidationExecutor,
+                                             clock,
+                                             defaultWait,
+                                             defaultRetry,
+                                             tuner,
+                                             attemptPolicy);
+    }
+
+    /**
+     * Give up on attempts of the wait futures of the returned factory, i.e. from {@link #within(Duration)}
+     * and {@link #withWait(PatientWait)}, that don't return within the given timeout and enforce their
+     * overall timeout strictly, see {@link InsistCompletableWaitFuture#withAttemptTimeout(Duration)}.
+     * Retries, from {@link #within(int)}, have no overall timeout to enforce and are not affected.
+     *
+     * @param attemptTimeout the maximum {@link Duration} to wait for each attempt.
+     *                       May not be null and must be positive.
+     *
+     * @return a new {@link InsistVerifiableFactory} with the same settings as this one
+     * but giving up on attempts after the given timeout.
+     *
+     * @throws IllegalArgumentException if attemptTimeout is null or isn't positive.
+     */
+    public InsistVerifiableFactory<X> withAttemptTimeout(Duration attemptTimeout) {
+        return new InsistVerifiableFactory<>(getMessageSupplier(),
+                                             failedValidationExecutor,
+                                             clock,
+                                             defaultWait,
+                                             defaultRetry,
+                                             tuner,
+                                             attemptPolicy.withAttemptTimeout(attemptTimeout));
+    }
+
+    /**
+     * Hedge slow attempts of the wait futures of the returned factory, i.e. from {@link #within(Duration)}
+     * and {@link #withWait(PatientWait)}, by starting another attempt whenever none of those running has
+     * returned within the hedge delay, see {@link InsistCompletableWaitFuture#withHedging(Duration, int)}.
+     * Retries, from {@link #within(int)}, are not affected. The given hedge delay is always used, even with a
+     * {@link #withTuner(CallSiteTuner) tuner}, and replaces any {@link #withTunedHedging(double, int) tuned hedging}.
+     *
+     * @param hedgeDelay  the {@link Duration} after which another attempt is started if none of those
+     *                    running has returned.
+     *                    May not be null and must be positive.
+     * @param maxInFlight the maximum number of attempts running at once.
+     *                    Must be at least two.
+     *
+     * @return a new {@link InsistVerifiableFactory} with the same settings as this one
+     * but hedging slow attempts.
+     *
+     * @throws IllegalArgumentException if hedgeDelay is null or isn't positive or if maxInFlight is less than two.
+     */
+    public InsistVerifiableFactory<X> withHedging(Duration hedgeDelay, int maxInFlight) {
+        return new InsistVerifiableFactory<>(getMessageSupplier(),
+                                             failedValidationExecutor,
+                                             clock,
+                                             defaultWait,
+                                             defaultRetry,
+                                             tuner,
+                                             attemptPolicy.withHedging(hedgeDelay, maxInFlight));
+    }
+
+    /**
+     * Hedge slow attempts of the call sites of {@link #within(Duration)} on the returned factory after the given
+     * percentile of how long their attempts take, as learned by its {@link #withTuner(CallSiteTuner) tuner}.
+     * The attempts are run on the same workers as with {@link #withHedging(Duration, int)} and each one that
+     * returns is timed. Once the tuner has timed enough attempts at a call site, another attempt is started
+     * whenever none of those running has returned within that percentile of the attempt times. Until then, and
+     * without a tuner, attempts aren't hedged. Replaces any hedge delay given to {@link #withHedging(Duration, int)}.
+     *
+     * @param hedgePercentile the percentile of the attempt times to hedge after, e.g. 0.95 to only hedge the
+     *                        slowest 5% of the attempts.
+     *                        Must be greater than zero and less than one.
+     * @param maxInFlight     the maximum number of attempts running at once.
+     *                        Must be at least two.
+     *
+     * @return a new {@link InsistVerifiableFactory} with the same settings as this one
+     * but hedging attempts after a learned delay.
+     *
+     * @throws IllegalArgumentException if hedgePercentile isn't between zero and one or if maxInFlight is less than two.
+     */
+    public InsistVerifiableFactory<X> withTunedHedging(double hedgePercentile, int maxInFlight) {
+        return new InsistVerifiableFactory<>(getMessageSupplier(),
+                                             failedValidationExecutor,
+                                             clock,
+                                             defaultWait,
+                                             defaultRetry,
+                                             tuner,
+                                             attemptPolicy.withTunedHedging(hedgePercentile, maxInFlight));
     }
 
     /**
@@ -100,13 +540,13 @@ public final class InsistVerifiableFactory<X extends Throwable>
      */
     public InsistCompletableWaitFuture<X> withWait(PatientWait wait) {
         validate().that(wait).isNotNull();
-        return new InsistCompletableWaitFutureImpl<>(getMessageSupplier(), failedValidationExecutor, wait);
+        return new InsistCompletableWaitFutureImpl<>(getMessageSupplier(), failedValidationExecutor, wait, clock, attemptPolicy);
     }
 
     /**
      * Like calling {@link #withWait(PatientWait)} with a wait object that retries
-     * repeatedly up to the set tryingFor maximum with a short delay between
-     * attempts. Any throwable thrown during the execution will be ignored. Note that this
+     * repeatedly up to the set tryingFor maximum with the delays set by
+     * {@link #withDelays(PatientDelaySupplierFactory)} between attempts. Any throwable thrown during the execution will be ignored. Note that this
      * does NOT interrupt the attempt to get a valid result but checks the timeout between
      * successive attempts to get a true value.
      *
@@ -121,7 +561,18 @@ public final class InsistVerifiableFactory<X extends Throwable>
      */
     public InsistFuture<X> within(Duration tryingFor) {
         validate().that(tryingFor).isAtLeast(Duration.ZERO);
-        return withWait(DEFAULT_WAIT).within(tryingFor);
+        String key = locateCallSite();
+        if (null == key) {
+            return withWait(defaultWait).within(tryingFor);
+        }
+        PatientWait wait = tuner.tune(key, defaultWait);
+        AttemptPolicy policy = tune(key, attemptPolicy);
+        return new TunedFuture<>(executor -> new InsistCompletableWaitFutureImpl<>(getMessageSupplier(), executor, wait, clock, policy).within(tryingFor),
+                                 failedValidationExecutor,
+                                 tuner,
+                                 key,
+                                 wait.getInitialDelay(),
+                                 clock);
     }
 
     /**
@@ -133,13 +584,14 @@ public final class InsistVerifiableFactory<X extends Throwable>
      */
     public InsistCompletableRetryFuture<X> withRetry(PatientRetry retry) {
         validate().that(retry).isNotNull();
-        return new InsistCompletableRetryFutureImpl<>(getMessageSupplier(), failedValidationExecutor, retry);
+        return new InsistCompletableRetryFutureImpl<>(getMessageSupplier(), failedValidationExecutor, retry, clock);
     }
 
     /**
      * Like calling {@link #withRetry(PatientRetry)} with a retry object that retries
-     * repeatedly up to the set number of attempts. Any throwable thrown during the
-     * execution will be ignored.
+     * repeatedly up to the set number of attempts with the delays set by
+     * {@link #withDelays(PatientDelaySupplierFactory)} between attempts. Any throwable
+     * thrown during the execution will be ignored.
      *
      * @param numRetries the maximum number of attempts to keep trying to get a successful result.
      *                   A value of zero means to try only once.
@@ -152,7 +604,30 @@ public final class InsistVerifiableFactory<X extends Throwable>
      */
     public InsistFuture<X> within(int numRetries) {
         validate().that(numRetries).isAtLeast(0);
-        return withRetry(DEFAULT_RETRY).within(numRetries);
+        String key = locateCallSite();
+        if (null == key) {
+            return withRetry(defaultRetry).within(numRetries);
+        }
+        PatientRetry retry = tuner.tune(key, defaultRetry);
+        return new TunedFuture<>(executor -> new InsistCompletableRetryFutureImpl<>(getMessageSupplier(), executor, retry, clock).within(numRetries),
+                                 failedValidationExecutor,
+                                 tuner,
+                                 key,
+                                 retry.getInitialDelay(),
+                                 clock);
+    }
+
+    private String locateCallSite() {
+        return (null == tuner) ? null : CallSiteTuner.keyOf(CallerFrameLocator.locate());
+    }
+
+    private AttemptPolicy tune(String key, AttemptPolicy policy) {
+        if (!policy.isTunedHedging()) {
+            // An explicit hedge delay is never replaced
+            return policy;
+        }
+        return policy.tuned(tuner.tuneHedgeDelay(key, policy.getHedgePercentile()),
+                            nanos -> tuner.recordAttempt(key, nanos));
     }
 
     /**
@@ -175,6 +650,15 @@ public final class InsistVerifiableFactory<X extends Throwable>
                                               InsistExecutable<T> executable) throws X {
         validate().that(expectedThrowableClass).isNotNull();
         validate().that(executable).isNotNull();
-        return within(0).thatEventuallyThrows(expectedThrowableClass, executable);
+        // A single attempt without any delay, so call it directly rather than through a retry
+        try {
+            executable.execute();
+        } catch (Throwable thrown) {
+            if (expectedThrowableClass.isAssignableFrom(thrown.getClass())) {
+                return expectedThrowableClass.cast(thrown);
+            }
+        }
+        InsistCompletableRetryFutureImpl.failNotCaught(failedValidationExecutor, getMessageSupplier(), expectedThrowableClass, 1);
+        return null;
     }
 }
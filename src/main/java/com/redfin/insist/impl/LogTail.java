@@ -0,0 +1,219 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Pattern;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * A {@link FileWatch.Condition} that follows a growing UTF-8 text file, such as a log, until a line
+ * matches a pattern. It remembers how far it has read so that only the bytes appended since the
+ * last read are ever decoded. A line, or a character, split between two reads is carried over to
+ * the next one. Only complete lines are matched so a partially written line can't match early.
+ * <p>
+ * If the file is replaced by a new one, e.g. by log rotation, then the rest of the old file is read
+ * before following the new one from its start. If it's truncated then it is followed from its start.
+ * <p>
+ * Instances are not thread safe and must be closed once done with.
+ */
+final class LogTail
+ implements FileWatch.Condition,
+            AutoCloseable {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final Path file;
+    private final Pattern pattern;
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+    private long linesRead;
+    private String match;
+
+    /**
+     * @param file    the {@link Path} of the file to follow.
+     *                May not be null.
+     * @param pattern the {@link Pattern} that a line must contain a match of.
+     *                May not be null.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    LogTail(Path file, Pattern pattern) {
+        this.file = validate().that(file).isNotNull();
+        this.pattern = validate().that(pattern).isNotNull();
+    }
+
+    /**
+     * @return the first line that matched or null if none has yet.
+     */
+    String getMatch() {
+        return match;
+    }
+
+    @Override
+    public Path watchedDirectory() {
+        return file.toAbsolutePath().getParent();
+    }
+
+    @Override
+    public void refresh() {
+        if (null != match) {
+            return;
+        }
+        try {
+            if (null != channel && channel.size() < position) {
+                // Truncated in place
+                reset();
+            }
+            if (null == channel && !open()) {
+                return;
+            }
+            read();
+            Object currentKey = currentFileKey();
+            if (null != currentKey && !currentKey.equals(fileKey)) {
+                // Replaced, the rest of the old file has just been read
+                reset();
+                if (open()) {
+                    read();
+                }
+            }
+        } catch (IOException exception) {
+            // Start over with whatever is at the path the next time
+            reset();
+        }
+    }
+
+    @Override
+    public void onEvent(WatchEvent.Kind<?> kind, Path name) {
+        if (null != name && name.equals(file.getFileName())) {
+            refresh();
+        }
+    }
+
+    @Override
+    public boolean isSatisfied() {
+        return null != match;
+    }
+
+    @Override
+    public String describe() {
+        return (null == channel && 0 == linesRead)
+               ? "does not exist"
+               : "no matching line in " + linesRead + " line(s)";
+    }
+
+    @Override
+    public void close() {
+        if (null != channel) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing more can be done with it
+            }
+            channel = null;
+        }
+    }
+
+    private boolean open() throws IOException {
+        Object key = currentFileKey();
+        if (null == key && !Files.exists(file)) {
+            return false;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        fileKey = key;
+        position = 0;
+        return true;
+    }
+
+    private Object currentFileKey() {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private void reset() {
+        close();
+        fileKey = null;
+        position = 0;
+        line.setLength(0);
+        bytes.clear();
+        decoder.reset();
+    }
+
+    private void read() throws IOException {
+        int count;
+        while (null == match && (count = channel.read(bytes, position)) > 0) {
+            position += count;
+            bytes.flip();
+            decoder.decode(bytes, chars, false);
+            // Keep the start of a character split between reads for the next one
+            bytes.compact();
+            chars.flip();
+            scan();
+            chars.clear();
+        }
+    }
+
+    private void scan() {
+        while (chars.hasRemaining() && null == match) {
+            char c = chars.get();
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                linesRead++;
+                if (pattern.matcher(line).find()) {
+                    match = line.toString();
+                }
+                line.setLength(0);
+            } else {
+                line.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.validity.ValidityUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * The state of one call to {@link com.redfin.insist.InsistFuture#thatEventuallyResolves(Collection, Function)}.
+ * It keeps the keys that haven't been resolved yet and each attempt looks up only those, removing the
+ * keys the lookup resolves. A hash set never shrinks its table as elements are removed, so the pending
+ * keys are copied into a new set whenever they have dropped to a quarter of the size they had when last
+ * copied. That keeps the memory used proportional to the number of pending keys rather than to the
+ * number of keys waited for. Attempts may overlap, e.g. when they are hedged, so each attempt looks up
+ * a snapshot of the pending keys and the set itself is only touched while holding its lock.
+ * <p>
+ * This is public so that the default methods of {@link com.redfin.insist.InsistFuture} share it with
+ * the implementations of this package; it isn't meant to be used otherwise.
+ *
+ * @param <K> the type of the keys.
+ */
+public final class PendingKeys<K> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The maximum number of pending keys listed when the keys aren't all resolved in time.
+     */
+    static final int MAX_REPORTED_KEYS = 10;
+
+    private static final int SHRINK_FACTOR = 4;
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final Function<? super Set<K>, ? extends Collection<?>> lookup;
+    private final int keyCount;
+
+    private Set<K> pending;
+    private int sizeWhenCopied;
+
+    /**
+     * Create a new {@link PendingKeys} instance with the given arguments.
+     *
+     * @param keys   the keys to wait for. They are copied, ignoring duplicates.
+     *               May not be null.
+     * @param lookup the {@link Function} from a set of pending keys to those of them that are resolved.
+     *               May not be null.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    public PendingKeys(Collection<? extends K> keys,
+                       Function<? super Set<K>, ? extends Collection<?>> lookup) {
+        validate().that(keys).isNotNull();
+        this.lookup = validate().that(lookup).isNotNull();
+        this.pending = new LinkedHashSet<>(keys);
+        this.keyCount = pending.size();
+        this.sizeWhenCopied = keyCount;
+    }
+
+    /**
+     * Look up the pending keys and remove those that the lookup resolves.
+     *
+     * @return true if every key has been resolved.
+     */
+    public boolean resolve() {
+        Set<K> snapshot;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return true;
+            }
+            snapshot = Collections.unmodifiableSet(new LinkedHashSet<>(pending));
+        }
+        Collection<?> resolved = lookup.apply(snapshot);
+        if (null == resolved || resolved.isEmpty()) {
+            return false;
+        }
+        synchronized (this) {
+            for (Object key : resolved) {
+                pending.remove(key);
+            }
+            if (pending.size() * SHRINK_FACTOR <= sizeWhenCopied) {
+                pending = new LinkedHashSet<>(pending);
+                sizeWhenCopied = pending.size();
+            }
+            return pending.isEmpty();
+        }
+    }
+
+    /**
+     * @return the description of the expected outcome.
+     */
+    public String describeExpected() {
+        return "Eventually all " + keyCount + " keys resolved";
+    }
+
+    /**
+     * @return the description of the pending keys with at most {@link #MAX_REPORTED_KEYS} of them listed.
+     */
+    public synchronized String describePending() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(pending.size())
+          .append(" of ")
+          .append(keyCount)
+          .append(" keys never resolved: ");
+        return FailureListing.append(sb, pending.iterator(), MAX_REPORTED_KEYS, pending.size(), key -> "<" + ValidityUtils.describe(key) + ">")
+                             .toString();
+    }
+}
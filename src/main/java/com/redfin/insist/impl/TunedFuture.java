@@ -0,0 +1,305 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.InsistClock;
+import com.redfin.insist.InsistExecutable;
+import com.redfin.insist.InsistFuture;
+import com.redfin.insist.executor.AbstractStackTrimmingFailedValidationExecutor;
+import com.redfin.insist.executor.CallerFrameLocator;
+import com.redfin.validity.FailedValidationExecutor;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static com.redfin.validity.Validity.validate;
+
+/**
+ * An {@link InsistFuture} that records with a {@link CallSiteTuner} how long each validation
+ * took to succeed, from its first attempt on. The first attempt only starts after the initial
+ * delay chosen by the tuner, so timing from the call would make every sample at least that
+ * delay and the learned delays could then only grow. A validation only counts as successful
+ * if the failed validation executor wasn't called, since an executor may choose not to throw.
+ *
+ * @param <X> the type of Throwable to be thrown if validation fails.
+ */
+final class TunedFuture<X extends Throwable>
+ implements InsistFuture<X> {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Fields & Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private final Function<FailedValidationExecutor<X>, InsistFuture<X>> futureFactory;
+    private final FailedValidationExecutor<X> failedValidationExecutor;
+    private final CallSiteTuner tuner;
+    private final String key;
+    private final long initialDelayNanos;
+    private final InsistClock clock;
+
+    /**
+     * Create a new {@link TunedFuture} instance with the given arguments.
+     *
+     * @param futureFactory            the {@link Function} creating the future to wrap with the given
+     *                                 failed validation executor.
+     *                                 May not be null.
+     * @param failedValidationExecutor the {@link FailedValidationExecutor} of the wrapped future.
+     *                                 May not be null.
+     * @param tuner                    the {@link CallSiteTuner} to record with.
+     *                                 May not be null.
+     * @param key                      the key of the call site.
+     *                                 May not be null.
+     * @param initialDelay             the {@link Duration} before the first attempt of the wrapped future.
+     *                                 May not be null.
+     * @param clock                    the {@link InsistClock} to time the validations with.
+     *                                 May not be null.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    TunedFuture(Function<FailedValidationExecutor<X>, InsistFuture<X>> futureFactory,
+                FailedValidationExecutor<X> failedValidationExecutor,
+                CallSiteTuner tuner,
+                String key,
+                Duration initialDelay,
+                InsistClock clock) {
+        this.futureFactory = validate().that(futureFactory).isNotNull();
+        this.failedValidationExecutor = validate().that(failedValidationExecutor).isNotNull();
+        this.tuner = validate().that(tuner).isNotNull();
+        this.key = validate().that(key).isNotNull();
+        this.initialDelayNanos = validate().that(initialDelay).isNotNull().toNanos();
+        this.clock = validate().that(clock).isNotNull();
+    }
+
+    @Override
+    public void thatEventually(BooleanSupplier supplier) throws X {
+        timed(future -> {
+            future.thatEventually(supplier);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> thatEventuallyAsync(BooleanSupplier supplier) {
+        // The wrapped future can't tell that the tracker passes failures on to a stack trimming
+        // executor, which would locate a frame of the worker thread, so the tracker sets the frame
+        StackTraceElement caller = (failedValidationExecutor instanceof AbstractStackTrimmingFailedValidationExecutor)
+                                   ? CallerFrameLocator.locate()
+                                   : null;
+        FailureTracker<X> tracker = new FailureTracker<>(failedValidationExecutor, caller);
+        long start = clock.nanoTime();
+        // Return the original stage so that cancelling it still cancels the attempts
+        CompletionStage<Void> stage = futureFactory.apply(tracker).thatEventuallyAsync(supplier);
+        stage.whenComplete((ignored, thrown) -> {
+            if (null == thrown && !tracker.hasFailed()) {
+                record(start);
+            }
+        });
+        return stage;
+    }
+
+    @Override
+    public void thatEventuallyAll(BooleanSupplier... conditions) throws X {
+        timed(future -> {
+            future.thatEventuallyAll(conditions);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyAll(Executor executor, BooleanSupplier... conditions) throws X {
+        timed(future -> {
+            future.thatEventuallyAll(executor, conditions);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyAny(BooleanSupplier... conditions) throws X {
+        timed(future -> {
+            future.thatEventuallyAny(conditions);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyAny(Executor executor, BooleanSupplier... conditions) throws X {
+        timed(future -> {
+            future.thatEventuallyAny(executor, conditions);
+            return null;
+        });
+    }
+
+    @Override
+    public <K> void thatEventuallyResolves(Collection<? extends K> keys,
+                                           Function<? super Set<K>, ? extends Collection<?>> lookup) throws X {
+        timed(future -> {
+            future.thatEventuallyResolves(keys, lookup);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyIsPresent(Supplier<Optional<?>> supplier) throws X {
+        timed(future -> {
+            future.thatEventuallyIsPresent(supplier);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyIsNotNull(Supplier<?> supplier) throws X {
+        timed(future -> {
+            future.thatEventuallyIsNotNull(supplier);
+            return null;
+        });
+    }
+
+    @Override
+    public <E> E thatEventuallyReceives(BlockingQueue<E> queue) throws X {
+        return timed(future -> future.thatEventuallyReceives(queue));
+    }
+
+    @Override
+    public void thatEventuallyCompletes(Future<?> future) throws X {
+        timed(tunedFuture -> {
+            tunedFuture.thatEventuallyCompletes(future);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyCountsDown(CountDownLatch latch) throws X {
+        timed(future -> {
+            future.thatEventuallyCountsDown(latch);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyExists(Path file) throws X {
+        timed(future -> {
+            future.thatEventuallyExists(file);
+            return null;
+        });
+    }
+
+    @Override
+    public void thatEventuallyHasSizeAtLeast(Path file, long minimumSize) throws X {
+        timed(future -> {
+            future.thatEventuallyHasSizeAtLeast(file, minimumSize);
+            return null;
+        });
+    }
+
+    @Override
+    public String thatEventuallyHasLine(Path file, Pattern pattern) throws X {
+        return timed(future -> future.thatEventuallyHasLine(file, pattern));
+    }
+
+    @Override
+    public void thatEventuallyContains(Path directory, String glob, int count) throws X {
+        timed(future -> {
+            future.thatEventuallyContains(directory, glob, count);
+            return null;
+        });
+    }
+
+    @Override
+    public <T extends Throwable> T thatEventuallyThrows(Class<T> expectedThrowableClass,
+                                                        InsistExecutable<T> executable) throws X {
+        return timed(future -> future.thatEventuallyThrows(expectedThrowableClass, executable));
+    }
+
+    /*
+     * Every blocking validation is timed the same way, so each one only says
+     * which method of the wrapped future to call.
+     */
+
+    private <R> R timed(Validation<X, R> validation) throws X {
+        FailureTracker<X> tracker = new FailureTracker<>(failedValidationExecutor, null);
+        InsistFuture<X> future = futureFactory.apply(tracker);
+        long start = clock.nanoTime();
+        R result = validation.validate(future);
+        if (!tracker.hasFailed()) {
+            record(start);
+        }
+        return result;
+    }
+
+    private void record(long start) {
+        tuner.record(key, Math.max(0, clock.nanoTime() - start - initialDelayNanos));
+    }
+
+    @FunctionalInterface
+    private interface Validation<X extends Throwable, R> {
+
+        R validate(InsistFuture<X> future) throws X;
+    }
+
+    /**
+     * A {@link FailedValidationExecutor} that notes whether it was called before
+     * passing the failure on to the executor it wraps. If given a caller frame, it's
+     * set as the stack trace of whatever the wrapped executor throws.
+     *
+     * @param <X> the type of Throwable to be thrown if validation fails.
+     */
+    private static final class FailureTracker<X extends Throwable>
+                       implements FailedValidationExecutor<X> {
+
+        private final FailedValidationExecutor<X> delegate;
+        private final StackTraceElement caller;
+
+        private volatile boolean failed = false;
+
+        private FailureTracker(FailedValidationExecutor<X> delegate,
+                               StackTraceElement caller) {
+            this.delegate = delegate;
+            this.caller = caller;
+        }
+
+        private boolean hasFailed() {
+            return failed;
+        }
+
+        @Override
+        public <T> void fail(String expected,
+                             T actual,
+                             Supplier<String> messageSupplier) throws X {
+            failed = true;
+            try {
+                delegate.fail(expected, actual, messageSupplier);
+            } catch (Throwable thrown) {
+                if (null != caller) {
+                    thrown.setStackTrace(new StackTraceElement[]{caller});
+                }
+                throw thrown;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import com.redfin.insist.Insist;
+import com.redfin.validity.Validity;
+import com.redfin.validity.ValidityUtils;
+
+import java.util.Iterator;
+
+/**
+ * Locates the stack frame of the code that called into the Insist or Validity libraries.
+ * This is the frame that the stack trimming executors leave as the only element of the
+ * stack trace of the throwables they throw.
+ * <p>
+ * This is the Java 9+ implementation which uses a {@link StackWalker} so that only
+ * the caller frame is ever turned into a {@link StackTraceElement}. The walk can't stop at
+ * the first frame after a library frame since a library frame further out, e.g. of an
+ * eventual validation whose supplier validates too, would make an outer frame the caller. So every frame of the
+ * stack is still walked, or up to the boundary method for {@link #locateWithin(String, String)},
+ * and locating takes time proportional to the depth of the stack, although far less per frame
+ * than filling in and copying a whole stack trace.
+ */
+public final class CallerFrameLocator {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Constants
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String INSIST_PACKAGE_NAME = Insist.class.getPackage().getName() + ".";
+    private static final String VALIDITY_PACKAGE_NAME = Validity.class.getPackage().getName() + ".";
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Static Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * @return the first stack frame after the last Insist or Validity library frame
+     * on the current thread's stack or null if there is no such frame.
+     */
+    public static StackTraceElement locate() {
+        return locateWithin(null, null);
+    }
+
+    /**
+     * Like {@link #locate()} but only considering the frames called by the innermost frame of the
+     * given method, if it's on the current thread's stack. This locates the caller of the code run
+     * by a library method rather than the caller of that library method itself.
+     *
+     * @param className  the name of the class declaring the boundary method.
+     * @param methodName the name of the boundary method.
+     *
+     * @return the first stack frame after the last Insist or Validity library frame called by the
+     * boundary method or null if there is no such frame.
+     */
+    static StackTraceElement locateWithin(String className,
+                                          String methodName) {
+        StackWalker.StackFrame caller = WALKER.walk(frames -> {
+            StackWalker.StackFrame candidate = null;
+            boolean afterLibraryFrame = false;
+            Iterator<StackWalker.StackFrame> iterator = frames.iterator();
+            while (iterator.hasNext()) {
+                StackWalker.StackFrame frame = iterator.next();
+                if (null != className && className.equals(frame.getClassName()) && methodName.equals(frame.getMethodName())) {
+                    // The frames of the boundary method and its callers aren't considered
+                    break;
+                }
+                // Any later library frame discards the candidate found so far
+                // so that the same frame is found as by the Java 8 implementation
+                if (isLibraryFrame(frame.getClassName())) {
+                    candidate = null;
+                    afterLibraryFrame = true;
+                } else if (afterLibraryFrame) {
+                    candidate = frame;
+                    afterLibraryFrame = false;
+                }
+            }
+            return candidate;
+        });
+        return (null == caller) ? null : caller.toStackTraceElement();
+    }
+
+    private static boolean isLibraryFrame(String className) {
+        return null != className
+               && (className.startsWith(INSIST_PACKAGE_NAME) || className.startsWith(VALIDITY_PACKAGE_NAME));
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Instance Methods
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * Ensure this class is not instantiable, even through reflection.
+     */
+
+    private CallerFrameLocator() {
+        throw new AssertionError(ValidityUtils.nonInstantiableMessage());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.external_package;
+
+import com.redfin.insist.Insist;
+import com.redfin.insist.executor.CallerFrameLocator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.MultipleFailuresError;
+
+import java.net.URL;
+
+/*
+ * This integration test is run against the packaged jar rather than the compiled
+ * classes so that, on Java 9+, the versioned classes of the multi-release jar are
+ * the ones being tested. A separate package is used since the stack trimming
+ * executors trim out lines from inside the Insist & Validity packages.
+ */
+
+@DisplayName("The packaged Insist library")
+final class CallerFrameLocatorIT {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * NOTE - IMPORTANT:
+     *
+     * The formatting of this file MATTERS. The tests are relying on relative line placement
+     * to verify the first line in the returned stack trace is that of the original
+     * caller to the failed validation executors. Be careful when editing.
+     */
+
+    @Test
+    @DisplayName("loads the versioned caller frame locator on Java 9+")
+    void testLoadsVersionedCallerFrameLocator() {
+        Assumptions.assumeFalse(System.getProperty("java.specification.version").startsWith("1."),
+                                "This test can only work on Java 9 or later.");
+        URL resource = CallerFrameLocator.class.getResource("CallerFrameLocator.class");
+        Assertions.assertAll(() -> Assertions.assertEquals("jar", resource.getProtocol(), "Should be run against the packaged jar."),
+                             () -> Assertions.assertTrue(resource.getPath().contains("META-INF/versions/9/"),
+                                                         "Should load the Java 9 class from the multi-release jar."));
+    }
+
+    @Test
+    @DisplayName("leaves the frame after the last library frame when library code calls back into caller code")
+    void testLeavesFrameAfterLastLibraryFrame() {
+        Exception exception = new NullPointerException();
+        Assumptions.assumeTrue(null != exception.getStackTrace() && exception.getStackTrace().length > 0,
+                               "This test can only work if the JVM is filling in stack traces.");
+        AssertionFailedError thrown = Insist.asserts().thatThrows(AssertionFailedError.class, () ->
+                Insist.asserts().that(true).isFalse());
+        int firstLineNumber = exception.getStackTrace()[0].getLineNumber();
+        Assertions.assertTrue(null != thrown.getStackTrace() && thrown.getStackTrace().length == 1,
+                              "Stack trimming stack trace should have only a single line.");
+        Assertions.assertEquals(firstLineNumber + 3,
+                                thrown.getStackTrace()[0].getLineNumber(),
+                                "Stack trimming stack trace should have the frame after the last library frame.");
+        Assertions.assertEquals(exception.getStackTrace()[0].getMethodName(),
+                                thrown.getStackTrace()[0].getMethodName(),
+                                "Stack trimming stack trace should not have the frame of the callback.");
+    }
+
+    @Test
+    @DisplayName("leaves the frame of each check for the soft failures of a scope")
+    void testLeavesFrameOfEachSoftFailure() {
+        Exception exception = new NullPointerException();
+        Assumptions.assumeTrue(null != exception.getStackTrace() && exception.getStackTrace().length > 0,
+                               "This test can only work if the JVM is filling in stack traces.");
+        MultipleFailuresError thrown = Insist.asserts().thatThrows(MultipleFailuresError.class, () ->
+                Insist.softly(insist -> {
+                    insist.that(true).isFalse();
+                    insist.that(1).isStrictlyNegative();
+                }));
+        int firstLineNumber = exception.getStackTrace()[0].getLineNumber();
+        Assertions.assertEquals(2, thrown.getFailures().size(), "Both soft failures should have been reported.");
+        for (int i = 0; i < thrown.getFailures().size(); i++) {
+            StackTraceElement[] stackTrace = thrown.getFailures().get(i).getStackTrace();
+            Assertions.assertTrue(null != stackTrace && stackTrace.length == 1,
+                                  "Stack trimming stack trace should have only a single line.");
+            Assertions.assertEquals(firstLineNumber + 5 + i,
+                                    stackTrace[0].getLineNumber(),
+                                    "Each soft failure should have the line of its own check as the first line number.");
+        }
+    }
+}
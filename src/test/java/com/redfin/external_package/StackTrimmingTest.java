@@ -17,11 +17,17 @@
 package com.redfin.external_package;
 
 import com.redfin.insist.Insist;
+import com.redfin.insist.impl.CallSiteTuner;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
+import org.opentest4j.MultipleFailuresError;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /*
  * A separate package is used for this test since the default behavior
@@ -64,4 +70,75 @@ final class StackTrimmingTest {
         Assertions.assertTrue(thrown.getStackTrace().length == 1,
                               "Stack trimming stack trace should have only a single line.");
     }
+
+    @Test
+    @DisplayName("trims out all stack trace elements except the frame that started an asynchronous validation")
+    void testAsynchronousFailureOnlyLeavesStartingStackFrame() {
+        Exception exception = new NullPointerException();
+        Assumptions.assumeTrue(null != exception.getStackTrace() && exception.getStackTrace().length > 0,
+                               "This test can only work if the JVM is filling in stack traces.");
+        CompletableFuture<Void> future = Insist.asserts().within(0).thatEventuallyAsync(() -> false).toCompletableFuture();
+        int firstLineNumber = exception.getStackTrace()[0].getLineNumber();
+        CompletionException thrown = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertTrue(thrown.getCause() instanceof AssertionFailedError,
+                              "The asynchronous validation should have failed with an assertion failure.");
+        StackTraceElement[] stackTrace = thrown.getCause().getStackTrace();
+        Assertions.assertTrue(null != stackTrace && stackTrace.length == 1,
+                              "Stack trimming stack trace should have only a single line.");
+        Assertions.assertEquals(firstLineNumber + 3,
+                                stackTrace[0].getLineNumber(),
+                                "Stack trimming stack trace should have the starting frame as the first line number.");
+        Assertions.assertEquals(exception.getStackTrace()[0].getClassName(),
+                                stackTrace[0].getClassName(),
+                                "Stack trimming stack trace should have the starting frame as the first line");
+    }
+
+    @Test
+    @DisplayName("trims out all stack trace elements except the frame that started a tuned asynchronous validation")
+    void testTunedAsynchronousFailureOnlyLeavesStartingStackFrame() {
+        Exception exception = new NullPointerException();
+        Assumptions.assumeTrue(null != exception.getStackTrace() && exception.getStackTrace().length > 0,
+                               "This test can only work if the JVM is filling in stack traces.");
+        CompletableFuture<Void> future = Insist.asserts().withTuner(CallSiteTuner.inMemory()).within(0).thatEventuallyAsync(() -> false).toCompletableFuture();
+        int firstLineNumber = exception.getStackTrace()[0].getLineNumber();
+        CompletionException thrown = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertTrue(thrown.getCause() instanceof AssertionFailedError,
+                              "The asynchronous validation should have failed with an assertion failure.");
+        StackTraceElement[] stackTrace = thrown.getCause().getStackTrace();
+        Assertions.assertTrue(null != stackTrace && stackTrace.length == 1,
+                              "Stack trimming stack trace should have only a single line.");
+        Assertions.assertEquals(firstLineNumber + 3,
+                                stackTrace[0].getLineNumber(),
+                                "Stack trimming stack trace should have the starting frame as the first line number.");
+    }
+
+    @Test
+    @DisplayName("trims the stack trace of each soft failure to the line of its own check")
+    void testSoftFailuresEachLeaveTheirOwnCheckingStackFrame() {
+        Exception exception = new NullPointerException();
+        Assumptions.assumeTrue(null != exception.getStackTrace() && exception.getStackTrace().length > 0,
+                               "This test can only work if the JVM is filling in stack traces.");
+        MultipleFailuresError thrown = Assertions.assertThrows(MultipleFailuresError.class,
+                                                               () -> Insist.softly(insist -> {
+                                                                   insist.that(true).isFalse();
+                                                                   insist.that(1).isStrictlyNegative();
+                                                               }));
+        int firstLineNumber = exception.getStackTrace()[0].getLineNumber();
+        List<Throwable> failures = thrown.getFailures();
+        Assertions.assertEquals(2, failures.size(), "Both soft failures should have been reported.");
+        for (int i = 0; i < failures.size(); i++) {
+            StackTraceElement[] stackTrace = failures.get(i).getStackTrace();
+            Assertions.assertTrue(null != stackTrace && stackTrace.length == 1,
+                                  "Stack trimming stack trace should have only a single line.");
+            Assertions.assertEquals(firstLineNumber + 5 + i,
+                                    stackTrace[0].getLineNumber(),
+                                    "Each soft failure should have the line of its own check as the first line number.");
+            Assertions.assertEquals(exception.getStackTrace()[0].getClassName(),
+                                    stackTrace[0].getClassName(),
+                                    "Each soft failure should have its own check as the first line.");
+        }
+        Assertions.assertEquals(firstLineNumber + 4,
+                                thrown.getStackTrace()[0].getLineNumber(),
+                                "The reported failures should have the call to softly as the first line number.");
+    }
 }
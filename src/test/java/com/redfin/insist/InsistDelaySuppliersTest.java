@@ -0,0 +1,96 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import com.redfin.patience.PatientDelaySupplierFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+@DisplayName("The InsistDelaySuppliers")
+final class InsistDelaySuppliersTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("throws an error if the constructor is called via reflection")
+    void testConstructorThrowsAssertionError() throws NoSuchMethodException {
+        Constructor<InsistDelaySuppliers> constructor = InsistDelaySuppliers.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        InvocationTargetException thrown = Assertions.assertThrows(InvocationTargetException.class,
+                                                                   constructor::newInstance,
+                                                                   "Should not be instantiable.");
+        Assertions.assertTrue(thrown.getCause() instanceof AssertionError,
+                              "Should throw an AssertionError from the private constructor.");
+    }
+
+    @Test
+    @DisplayName("returns adaptive delays that start under a millisecond and are capped at half a second")
+    void testDefaultAdaptiveDelays() {
+        Supplier<Duration> delays = InsistDelaySuppliers.adaptive().create();
+        Duration first = delays.get();
+        Assertions.assertTrue(first.compareTo(Duration.ofMillis(1)) < 0,
+                              "Should start under a millisecond.");
+        for (int i = 0; i < 50; i++) {
+            Duration delay = delays.get();
+            Assertions.assertTrue(!delay.isNegative() && delay.compareTo(Duration.ofMillis(500)) <= 0,
+                                  "Should never delay longer than the cap.");
+        }
+        Assertions.assertTrue(delays.get().compareTo(Duration.ofMillis(250)) >= 0,
+                              "Should stay at between half and all of the cap once reached.");
+    }
+
+    @Test
+    @DisplayName("returns adaptive delays jittered between half and all of the nominal delay")
+    void testAdaptiveDelaysAreJittered() {
+        PatientDelaySupplierFactory factory = InsistDelaySuppliers.adaptive(Duration.ofMillis(10), Duration.ofMillis(80), 2.0);
+        for (int run = 0; run < 20; run++) {
+            Supplier<Duration> delays = factory.create();
+            long nominal = 10;
+            for (int i = 0; i < 6; i++) {
+                Duration delay = delays.get();
+                Assertions.assertTrue(delay.compareTo(Duration.ofMillis(nominal / 2)) >= 0 && delay.compareTo(Duration.ofMillis(nominal)) <= 0,
+                                      "Should return a delay between half and all of the nominal delay.");
+                nominal = Math.min(80, nominal * 2);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("throws an exception for invalid adaptive arguments")
+    void testThrowsForInvalidAdaptiveArguments() {
+        Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> InsistDelaySuppliers.adaptive(null, Duration.ofMillis(1), 2.0),
+                                                           "Should throw for a null initial delay."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> InsistDelaySuppliers.adaptive(Duration.ZERO, Duration.ofMillis(1), 2.0),
+                                                           "Should throw for a zero initial delay."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> InsistDelaySuppliers.adaptive(Duration.ofMillis(2), Duration.ofMillis(1), 2.0),
+                                                           "Should throw for a max delay less than the initial delay."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> InsistDelaySuppliers.adaptive(Duration.ofMillis(1), Duration.ofMillis(2), 0.5),
+                                                           "Should throw for a multiplier less than one."));
+    }
+}
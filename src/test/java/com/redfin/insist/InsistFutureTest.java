@@ -0,0 +1,186 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+@DisplayName("The default methods of an InsistFuture")
+final class InsistFutureTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /*
+     * An external implementation that only provides the methods the interface
+     * had before the default methods were added. It tries a fixed number of times.
+     */
+
+    private static final class AttemptingFuture
+                implements InsistFuture<AssertionError> {
+
+        private final int attempts;
+
+        private AttemptingFuture(int attempts) {
+            this.attempts = attempts;
+        }
+
+        @Override
+        public void thatEventually(BooleanSupplier supplier) {
+            for (int i = 0; i < attempts; i++) {
+                if (supplier.getAsBoolean()) {
+                    return;
+                }
+            }
+            throw new AssertionError("never true");
+        }
+
+        @Override
+        public void thatEventuallyIsPresent(Supplier<Optional<?>> supplier) {
+            thatEventually(() -> supplier.get().isPresent());
+        }
+
+        @Override
+        public void thatEventuallyIsNotNull(Supplier<?> supplier) {
+            thatEventually(() -> null != supplier.get());
+        }
+
+        @Override
+        public <T extends Throwable> T thatEventuallyThrows(Class<T> expectedThrowableClass,
+                                                            InsistExecutable<T> executable) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("wait for events by polling with thatEventually")
+    void testEventDefaults() {
+        InsistFuture<AssertionError> future = new AttemptingFuture(3);
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(1);
+        queue.add("foo");
+        CountDownLatch latch = new CountDownLatch(0);
+        Assertions.assertAll(() -> Assertions.assertEquals("foo", future.thatEventuallyReceives(queue)),
+                             () -> future.thatEventuallyCompletes(CompletableFuture.completedFuture(null)),
+                             () -> future.thatEventuallyCountsDown(latch),
+                             () -> Assertions.assertThrows(AssertionError.class, () -> future.thatEventuallyCountsDown(new CountDownLatch(1))),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class, () -> future.thatEventuallyReceives(null)));
+    }
+
+    @Test
+    @DisplayName("validate asynchronously by calling thatEventually on another thread")
+    void testAsyncDefault() {
+        InsistFuture<AssertionError> future = new AttemptingFuture(3);
+        CompletableFuture<Void> failing = future.thatEventuallyAsync(() -> false).toCompletableFuture();
+        CompletionException thrown = Assertions.assertThrows(CompletionException.class, failing::join);
+        Assertions.assertAll(() -> future.thatEventuallyAsync(() -> true).toCompletableFuture().join(),
+                             () -> Assertions.assertTrue(thrown.getCause() instanceof AssertionError),
+                             () -> Assertions.assertTrue(failing.handle((result, failure) -> failure).join() instanceof AssertionError,
+                                                         "Should complete with the throwable itself rather than wrapped."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class, () -> future.thatEventuallyAsync(null)));
+    }
+
+    @Test
+    @DisplayName("wait for conditions and keys by polling with thatEventually")
+    void testConditionDefaults() throws InterruptedException {
+        InsistFuture<AssertionError> future = new AttemptingFuture(3);
+        int[] calls = new int[1];
+        BooleanSupplier secondTime = () -> ++calls[0] >= 2;
+        CountDownLatch release = new CountDownLatch(1);
+        BooleanSupplier slow = () -> {
+            try {
+                return release.await(1, TimeUnit.MINUTES);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Assertions.assertAll(() -> future.thatEventuallyAll(() -> true, secondTime),
+                                 () -> future.thatEventuallyAny(() -> false, () -> true),
+                                 () -> future.thatEventuallyAll(executor, () -> true, () -> true),
+                                 () -> Assertions.assertThrows(AssertionError.class, () -> future.thatEventuallyAny(executor, () -> false)),
+                                 () -> Assertions.assertEquals("conditions [0, 2] of 3 never became true",
+                                                               Assertions.assertThrows(AssertionError.class,
+                                                                                       () -> future.thatEventuallyAll(() -> false, () -> true, () -> false))
+                                                                         .getSuppressed()[0]
+                                                                         .getMessage(),
+                                                               "Should add the conditions that never became true to the failure."),
+                                 () -> Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> future.thatEventuallyAny(executor, slow, () -> true)),
+                                 () -> future.thatEventuallyResolves(Arrays.asList(1, 2), pending -> new HashSet<>(pending)),
+                                 () -> Assertions.assertThrows(AssertionError.class, () -> future.thatEventuallyResolves(Collections.singleton(1), pending -> null)),
+                                 () -> Assertions.assertEquals("1 of 2 keys never resolved: <2>",
+                                                               Assertions.assertThrows(AssertionError.class,
+                                                                                       () -> future.thatEventuallyResolves(Arrays.asList(1, 2), pending -> Collections.singleton(1)))
+                                                                         .getSuppressed()[0]
+                                                                         .getMessage(),
+                                                               "Should add the pending keys to the failure."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class, future::thatEventuallyAll));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("wait for files by polling with thatEventually")
+    void testFileDefaults() throws IOException {
+        InsistFuture<AssertionError> future = new AttemptingFuture(3);
+        Path directory = Files.createTempDirectory("insist-future-test");
+        Path file = directory.resolve("foo.log");
+        Files.write(file, "first\nsecond match\nthird match".getBytes(StandardCharsets.UTF_8));
+        try {
+            Assertions.assertAll(() -> future.thatEventuallyExists(file),
+                                 () -> future.thatEventuallyHasSizeAtLeast(file, 5),
+                                 () -> Assertions.assertThrows(AssertionError.class, () -> future.thatEventuallyHasSizeAtLeast(file, 1_000)),
+                                 () -> future.thatEventuallyContains(directory, "*.log", 1),
+                                 () -> Assertions.assertThrows(AssertionError.class, () -> future.thatEventuallyContains(directory, "*.txt", 1)),
+                                 () -> Assertions.assertEquals("second match", future.thatEventuallyHasLine(file, Pattern.compile("match"))),
+                                 () -> Assertions.assertThrows(AssertionError.class, () -> future.thatEventuallyHasLine(file, Pattern.compile("third"))));
+        } finally {
+            Files.delete(file);
+            Files.delete(directory);
+        }
+    }
+}
@@ -16,10 +16,13 @@
 
 package com.redfin.insist;
 
+import com.redfin.insist.executor.ExpectationFailedException;
+import com.redfin.insist.impl.InsistVerifiableFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.opentest4j.MultipleFailuresError;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -29,6 +32,8 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 @DisplayName("The Insist class")
 final class InsistTest {
@@ -77,6 +82,120 @@ final class InsistTest {
         }
     }
 
+    @Nested
+    @DisplayName("when expects() is called")
+    final class ExpectsTests {
+
+        @Test
+        @DisplayName("returns the same instance each time")
+        void testReturnsSameInstance() {
+            Assertions.assertSame(Insist.expects(),
+                                  Insist.expects(),
+                                  "Each call to expects() should return the same instance.");
+        }
+
+        @Test
+        @DisplayName("throws stackless exceptions except for the sampled failures")
+        void testSamplesCallerFrame() {
+            InsistVerifiableFactory<ExpectationFailedException> expects = Insist.expects(3);
+            List<ExpectationFailedException> thrown = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                thrown.add(Assertions.assertThrows(ExpectationFailedException.class,
+                                                   () -> expects.that("hello").isNull()));
+            }
+            Assertions.assertAll(() -> Assertions.assertEquals(1, thrown.get(0).getStackTrace().length, "Should sample the first failure."),
+                                 () -> Assertions.assertEquals(0, thrown.get(1).getStackTrace().length, "Should not capture a stack trace."),
+                                 () -> Assertions.assertEquals(0, thrown.get(2).getStackTrace().length, "Should not capture a stack trace."),
+                                 () -> Assertions.assertEquals(1, thrown.get(3).getStackTrace().length, "Should sample every third failure."),
+                                 () -> Assertions.assertEquals(1,
+                                                               thrown.get(3).fillInStackTrace().getStackTrace().length,
+                                                               "Should not capture a stack trace for a sampled failure."),
+                                 () -> Assertions.assertTrue(thrown.get(1).getMessage().startsWith("Expectation failure"),
+                                                             "Should render the default message."));
+        }
+
+        @Test
+        @DisplayName("throws an exception for a negative sampling rate")
+        void testThrowsForNegativeSampleEvery() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> Insist.expects(-1),
+                                    "Should throw for a negative sampling rate.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when softly(Consumer) is called")
+    final class SoftlyTests {
+
+        @Test
+        @DisplayName("returns normally if no soft assertion failed")
+        void testReturnsWithoutFailures() {
+            Assertions.assertAll(() -> Insist.softly(factory -> factory.that("hello").isNotNull()));
+        }
+
+        @Test
+        @DisplayName("throws every failure once the scope is done")
+        void testThrowsAllFailures() {
+            AtomicInteger checks = new AtomicInteger(0);
+            MultipleFailuresError error = Assertions.assertThrows(MultipleFailuresError.class,
+                                                                  () -> Insist.softly(factory -> {
+                                                                      factory.that("hello").isNull();
+                                                                      factory.withMessage("second").that(1).isStrictlyNegative();
+                                                                      checks.incrementAndGet();
+                                                                  }),
+                                                                  "Should throw the collected failures.");
+            Assertions.assertAll(() -> Assertions.assertEquals(1, checks.get(), "Should run the whole scope."),
+                                 () -> Assertions.assertEquals(2, error.getFailures().size(), "Should throw both failures."),
+                                 () -> Assertions.assertTrue(error.getFailures().get(1).getMessage().startsWith("second"),
+                                                             "Should keep the message of each failure."));
+        }
+
+        @Test
+        @DisplayName("keeps only the maximum number of failures but counts all of them")
+        void testBoundsFailures() {
+            MultipleFailuresError error = Assertions.assertThrows(MultipleFailuresError.class,
+                                                                  () -> Insist.softly(10, factory -> {
+                                                                      for (int i = 0; i < 10_000; i++) {
+                                                                          factory.that(i).isStrictlyNegative();
+                                                                      }
+                                                                  }));
+            Assertions.assertAll(() -> Assertions.assertEquals(10, error.getFailures().size(), "Should keep only the first failures."),
+                                 () -> Assertions.assertTrue(error.getMessage().contains("10 of 10000"), "Should count all of the failures."));
+        }
+
+        @Test
+        @DisplayName("collects failures from several threads at once")
+        void testCollectsConcurrently() {
+            MultipleFailuresError error = Assertions.assertThrows(MultipleFailuresError.class,
+                                                                  () -> Insist.softly(1_000, factory -> IntStream.range(0, 1_000)
+                                                                                                                 .parallel()
+                                                                                                                 .forEach(i -> factory.that(i).isStrictlyNegative())));
+            Assertions.assertEquals(1_000,
+                                    error.getFailures().size(),
+                                    "Should collect every failure.");
+        }
+
+        @Test
+        @DisplayName("adds the failures to what the scope throws")
+        void testAddsFailuresToThrown() {
+            IllegalStateException thrown = Assertions.assertThrows(IllegalStateException.class,
+                                                                   () -> Insist.softly(factory -> {
+                                                                       factory.that("hello").isNull();
+                                                                       throw new IllegalStateException("whoops");
+                                                                   }));
+            Assertions.assertAll(() -> Assertions.assertEquals(1, thrown.getSuppressed().length, "Should add the failures."),
+                                 () -> Assertions.assertTrue(thrown.getSuppressed()[0] instanceof MultipleFailuresError));
+        }
+
+        @Test
+        @DisplayName("throws an exception for a null scope")
+        void testThrowsForNullScope() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> Insist.softly(null),
+                                    "Should throw for a null scope.");
+        }
+    }
+
     @Nested
     @DisplayName("is not instantiable and")
     final class NonInstantiableTests {
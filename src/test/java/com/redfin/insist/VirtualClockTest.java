@@ -0,0 +1,101 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("A VirtualClock")
+final class VirtualClockTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("starts at zero")
+    void testStartsAtZero() {
+        VirtualClock clock = VirtualClock.manual();
+        Assertions.assertAll(() -> Assertions.assertEquals(0, clock.nanoTime(), "Should start at zero."),
+                             () -> Assertions.assertEquals(Duration.ZERO, clock.getElapsed(), "Should start with nothing elapsed."));
+    }
+
+    @Test
+    @DisplayName("advances when told to")
+    void testAdvances() {
+        VirtualClock clock = VirtualClock.manual();
+        clock.advance(Duration.ofMinutes(5));
+        Assertions.assertEquals(Duration.ofMinutes(5).toNanos(),
+                                clock.nanoTime(),
+                                "Should advance by the given duration.");
+    }
+
+    @Test
+    @DisplayName("throws an exception for an invalid advance")
+    void testThrowsForInvalidAdvance() {
+        VirtualClock clock = VirtualClock.manual();
+        Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> clock.advance(null),
+                                                           "Should throw for a null duration."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> clock.advance(Duration.ofMillis(-1)),
+                                                           "Should throw for a negative duration."));
+    }
+
+    @Nested
+    @DisplayName("in automatic mode")
+    final class AutomaticTests {
+
+        @Test
+        @DisplayName("advances itself when slept on")
+        void testAdvancesWhenSleptOn() throws InterruptedException {
+            VirtualClock clock = VirtualClock.automatic();
+            clock.sleepFor(Duration.ofHours(1));
+            clock.sleepFor(0, 5);
+            Assertions.assertAll(() -> Assertions.assertTrue(clock.isAutomatic(), "Should be automatic."),
+                                 () -> Assertions.assertEquals(Duration.ofHours(1).plusNanos(5), clock.getElapsed(), "Should advance by the slept durations."));
+        }
+    }
+
+    @Nested
+    @DisplayName("in manual mode")
+    final class ManualTests {
+
+        @Test
+        @DisplayName("blocks sleeping threads until it is advanced far enough")
+        void testBlocksUntilAdvanced() throws Exception {
+            VirtualClock clock = VirtualClock.manual();
+            CompletableFuture<Void> sleeper = CompletableFuture.runAsync(() -> clock.sleepFor(Duration.ofSeconds(10)));
+            while (clock.getSleeperCount() == 0) {
+                Thread.sleep(1);
+            }
+            clock.advance(Duration.ofSeconds(9));
+            Assertions.assertFalse(sleeper.isDone(),
+                                   "Should not wake a sleeper before its sleep is over.");
+            clock.advance(Duration.ofSeconds(1));
+            sleeper.get(10, TimeUnit.SECONDS);
+            Assertions.assertAll(() -> Assertions.assertFalse(clock.isAutomatic(), "Should not be automatic."),
+                                 () -> Assertions.assertEquals(0, clock.getSleeperCount(), "Should have no sleepers left."));
+        }
+    }
+}
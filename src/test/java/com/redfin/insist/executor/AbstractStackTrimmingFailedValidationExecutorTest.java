@@ -29,12 +29,20 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.ArgumentsProvider;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
-import static org.mockito.Mockito.when;
 
 abstract class AbstractStackTrimmingFailedValidationExecutorTest<X extends Throwable,
                                                                  T extends AbstractStackTrimmingFailedValidationExecutor<X>> {
@@ -170,6 +178,22 @@ abstract class AbstractStackTrimmingFailedValidationExecutorTest<X extends Throw
                                      "Should return a non-null throwable.");
         }
 
+        @Test
+        @DisplayName("without capturing a stack trace")
+        void testBuiltThrowableHasNoStackTrace() {
+            Assertions.assertEquals(0,
+                                    getInstance().buildThrowable("foo", "bar", "message").getStackTrace().length,
+                                    "Should build a throwable that doesn't fill in its own stack trace.");
+        }
+
+        @Test
+        @DisplayName("that describes itself as the expected throwable type")
+        void testBuiltThrowableDescribesExpectedType() {
+            Assertions.assertEquals(getExpectedThrowableClass().getName() + ": message",
+                                    getInstance().buildThrowable("foo", "bar", "message").toString().split("\n")[0],
+                                    "Should build a throwable that describes itself as the expected throwable type.");
+        }
+
         @ParameterizedTest
         @DisplayName("but throws a NullPointerException for invalid arguments.")
         @ArgumentsSource(InvalidBuildThrowableArgumentsProvider.class)
@@ -208,11 +232,68 @@ abstract class AbstractStackTrimmingFailedValidationExecutorTest<X extends Throw
                                     "Should throw a NullPointerException for invalid arguments to fail.");
         }
 
+        @Test
+        @DisplayName("doesn't get the message until it's asked for")
+        void testRendersMessageLazily() {
+            AtomicInteger calls = new AtomicInteger(0);
+            X thrown = Assertions.assertThrows(getExpectedThrowableClass(),
+                                               () -> getInstance().fail("foo", "bar", () -> {
+                                                   calls.incrementAndGet();
+                                                   return "message";
+                                               }));
+            Assertions.assertEquals(0, calls.get(), "Should not get the message when failing.");
+            Assertions.assertAll(() -> Assertions.assertTrue(thrown.getMessage().startsWith("message"), "Should render the message."),
+                                 () -> Assertions.assertEquals(thrown.getMessage(), thrown.getMessage(), "Should render the same message again."),
+                                 () -> Assertions.assertEquals(1, calls.get(), "Should get the message only once."));
+        }
+
+        @Test
+        @DisplayName("renders the default message for a null message")
+        void testRendersDefaultMessage() {
+            X thrown = Assertions.assertThrows(getExpectedThrowableClass(),
+                                               () -> getInstance().fail("foo", "bar", () -> null));
+            Assertions.assertTrue(thrown.getMessage().startsWith(getInstance().getDefaultMessage()),
+                                  "Should render the default message.");
+        }
+
+        @Test
+        @DisplayName("falls back to the default message if getting the message throws")
+        void testRendersDefaultMessageWhenSupplierThrows() {
+            AtomicInteger calls = new AtomicInteger(0);
+            X thrown = Assertions.assertThrows(getExpectedThrowableClass(),
+                                               () -> getInstance().fail("foo", "bar", () -> {
+                                                   calls.incrementAndGet();
+                                                   throw new IllegalStateException("whoops");
+                                               }));
+            String message = thrown.getMessage();
+            Assertions.assertAll(() -> Assertions.assertTrue(message.startsWith(getInstance().getDefaultMessage()), "Should render the default message."),
+                                 () -> Assertions.assertTrue(message.contains("whoops"), "Should render the exception of the message supplier."),
+                                 () -> Assertions.assertTrue(thrown.toString().contains(message), "Should not throw from toString."),
+                                 () -> Assertions.assertEquals(message, thrown.getMessage(), "Should render the same message again."),
+                                 () -> Assertions.assertEquals(1, calls.get(), "Should get the message only once."));
+        }
+
+        @Test
+        @DisplayName("renders the message before the throwable is serialized")
+        void testSerializesRenderedMessage() throws IOException, ClassNotFoundException {
+            X thrown = Assertions.assertThrows(getExpectedThrowableClass(),
+                                               () -> getInstance().fail("foo", new Object(), () -> "message"));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(thrown);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                Assertions.assertEquals(thrown.getMessage(),
+                                        ((Throwable) in.readObject()).getMessage(),
+                                        "Should keep the rendered message when serialized.");
+            }
+        }
+
         @Test
         @DisplayName("throws NullPointerException if the build throwable method returns null")
         void testThrowsExceptionForNullBuildThrowable() {
             T instance = spy(getInstanceClass());
-            when(instance.buildThrowable("foo", "bar", "message")).thenReturn(null);
+            doReturn(null).when(instance).buildLazyThrowable(eq("foo"), eq("bar"), any());
             Assertions.assertEquals(ValidityUtils.nullThrowableFromFunction(),
                                     Assertions.assertThrows(NullPointerException.class,
                                                             () -> instance.fail("foo", "bar", () -> "message"),
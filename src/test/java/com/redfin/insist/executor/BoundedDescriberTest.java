@@ -0,0 +1,173 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.TestAbortedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@DisplayName("A BoundedDescriber")
+final class BoundedDescriberTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final BoundedDescriber DESCRIBER = BoundedDescriber.withLimits(20, 3);
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("throws an exception for a budget that isn't strictly positive")
+    void testThrowsForInvalidLimits() {
+        Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class, () -> BoundedDescriber.withLimits(0, 1)),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class, () -> BoundedDescriber.withLimits(1, 0)));
+    }
+
+    @Test
+    @DisplayName("leaves values that fit within the budget or can't be bounded as they are")
+    void testLeavesSmallValues() {
+        List<Integer> list = range(3);
+        Object object = new Object() {
+            @Override
+            public String toString() {
+                return "a description well over twenty characters long";
+            }
+        };
+        Assertions.assertAll(() -> Assertions.assertSame(list, DESCRIBER.bound(list)),
+                             () -> Assertions.assertSame(object, DESCRIBER.bound(object)),
+                             () -> Assertions.assertNull(DESCRIBER.bound(null)),
+                             () -> Assertions.assertEquals("hello", DESCRIBER.bound("hello")));
+    }
+
+    @Nested
+    @DisplayName("bounds values over the budget")
+    final class BoundTests {
+
+        @Test
+        @DisplayName("by element count for a collection")
+        void testBoundsCollection() {
+            List<Integer> list = range(2_000_000);
+            Assertions.assertEquals("[0, 1, 2, ... (size 2000000)",
+                                    DESCRIBER.bound(list),
+                                    "Should describe the first elements and summarize the rest.");
+        }
+
+        @Test
+        @DisplayName("by character count for a character sequence")
+        void testBoundsCharSequence() {
+            char[] chars = new char[50_000];
+            Arrays.fill(chars, 'x');
+            String string = new String(chars);
+            String expected = "xxxxxxxxxxxxxxxxxxxx... (length 50000, hash " + Integer.toHexString(string.hashCode()) + ")";
+            Assertions.assertAll(() -> Assertions.assertEquals(expected, DESCRIBER.bound(string)),
+                                 () -> Assertions.assertEquals(expected, DESCRIBER.bound(new StringBuilder(string))));
+        }
+
+        @Test
+        @DisplayName("by element count for a map and an array")
+        void testBoundsMapAndArray() {
+            Map<String, Integer> map = new LinkedHashMap<>();
+            for (int i = 0; i < 5; i++) {
+                map.put("k" + i, i);
+            }
+            int[] array = {1, 2, 3, 4};
+            Assertions.assertAll(() -> Assertions.assertEquals("{k0=0, k1=1, k2=2, ... (size 5)",
+                                                               DESCRIBER.bound(map)),
+                                 () -> Assertions.assertEquals("[1, 2, 3, ... (size 4, hash " + Integer.toHexString(Arrays.hashCode(array)) + ")",
+                                                               DESCRIBER.bound(array)));
+        }
+
+        @Test
+        @DisplayName("by character count for nested values")
+        void testBoundsNestedValues() {
+            List<Object> list = new ArrayList<>();
+            list.add(Collections.singletonList("a long nested string"));
+            Assertions.assertEquals("[[a long nested stri... (size 1)",
+                                    DESCRIBER.bound(list),
+                                    "Should stop at the character budget within nested values.");
+        }
+
+        @Test
+        @DisplayName("for a collection, map, or array that contains itself")
+        void testBoundsSelfContainingValues() {
+            List<Object> list = new ArrayList<>(range(2_000));
+            list.add(list);
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < 5; i++) {
+                map.put(i, map);
+            }
+            Object[] array = new Object[2_000];
+            Arrays.fill(array, array);
+            BoundedDescriber describer = BoundedDescriber.withLimits(100, 1_000);
+            Assertions.assertAll(() -> Assertions.assertTrue(((String) describer.bound(list)).endsWith("(size 2001)")),
+                                 () -> Assertions.assertTrue(((String) DESCRIBER.bound(map)).endsWith("(size 5)")),
+                                 () -> Assertions.assertTrue(((String) describer.bound(array)).endsWith("(size 2000)")));
+        }
+    }
+
+    @Nested
+    @DisplayName("when used by an executor")
+    final class ExecutorTests {
+
+        @Test
+        @DisplayName("keeps the bounded form as the actual value of an assertion")
+        void testAssertionHoldsBoundedActual() {
+            List<Integer> actual = range(100);
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> new AssertionFailedValidationExecutor(DESCRIBER).fail("foo", actual, () -> "message"));
+            Assertions.assertEquals(DESCRIBER.bound(actual),
+                                    error.getActual().getValue(),
+                                    "Should hold the bounded form of the actual value.");
+        }
+
+        @Test
+        @DisplayName("includes the whole summary in the message of an assumption")
+        void testAssumptionDescribesBoundedActual() {
+            List<Integer> actual = range(100);
+            TestAbortedException exception = Assertions.assertThrows(TestAbortedException.class,
+                                                                     () -> new AbortedFailedValidationExecutor(DESCRIBER).fail("foo", actual, () -> "message"));
+            Assertions.assertTrue(exception.getMessage().endsWith("<" + DESCRIBER.bound(actual) + ">"),
+                                  "Should describe the bounded form of the actual value.");
+        }
+
+        @Test
+        @DisplayName("throws an exception for a null describer")
+        void testThrowsForNullDescriber() {
+            Assertions.assertAll(() -> Assertions.assertThrows(NullPointerException.class, () -> new AssertionFailedValidationExecutor(null)),
+                                 () -> Assertions.assertThrows(NullPointerException.class, () -> new AbortedFailedValidationExecutor(null)));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("A MessageTemplate")
+final class MessageTemplateTest {
+
+    @Nested
+    @DisplayName("when compiled")
+    final class CompileTests {
+
+        @Test
+        @DisplayName("throws an exception for a null format")
+        void testThrowsForNullFormat() {
+            Assertions.assertThrows(NullPointerException.class,
+                                    () -> MessageTemplate.compile(null),
+                                    "Should throw for a null format.");
+        }
+
+        @ParameterizedTest
+        @DisplayName("throws an exception for an unsupported conversion")
+        @ValueSource(strings = {"%x", "%5d", "trailing %"})
+        void testThrowsForUnsupportedConversion(String format) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> MessageTemplate.compile(format),
+                                    "Should throw for an unsupported conversion.");
+        }
+
+        @Test
+        @DisplayName("counts the arguments of the format")
+        void testCountsArguments() {
+            Assertions.assertEquals(2,
+                                    MessageTemplate.compile("%s : 100%% after %d").getArgumentCount(),
+                                    "Should count the conversions but not the escapes.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when rendered")
+    final class RenderTests {
+
+        @ParameterizedTest
+        @DisplayName("renders the same as String.format")
+        @ValueSource(strings = {"%s : Timeout reached after %d unsuccessful attempt(s)",
+                                "%s%d",
+                                "%s\n  expected : %d\n    actual : <%%>",
+                                "prefix %s%n%d suffix"})
+        void testRendersLikeStringFormat(String format) {
+            Assertions.assertEquals(String.format(format, "hello", 42),
+                                    MessageTemplate.compile(format).render("hello", 42),
+                                    "Should render the same as String.format.");
+        }
+
+        @Test
+        @DisplayName("renders null arguments as null")
+        void testRendersNullArgument() {
+            Assertions.assertEquals("<null>",
+                                    MessageTemplate.compile("<%s>").render((Object) null),
+                                    "Should render a null argument as null.");
+        }
+
+        @Test
+        @DisplayName("throws an exception for the wrong number of arguments")
+        void testThrowsForWrongArgumentCount() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> MessageTemplate.compile("%s %s").render("one")),
+                                 () -> Assertions.assertThrows(NullPointerException.class,
+                                                               () -> MessageTemplate.compile("%s").render((Object[]) null)));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.executor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.MultipleFailuresError;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("A SoftFailureCollector")
+final class SoftFailureCollectorTest {
+
+    @Test
+    @DisplayName("throws an exception for invalid arguments")
+    void testThrowsForInvalidArguments() {
+        Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class, () -> new SoftFailureCollector(0)),
+                             () -> Assertions.assertThrows(NullPointerException.class, () -> new SoftFailureCollector().fail(null, "bar", () -> null)),
+                             () -> Assertions.assertThrows(NullPointerException.class, () -> new SoftFailureCollector().fail("foo", "bar", null)));
+    }
+
+    @Test
+    @DisplayName("doesn't throw when nothing failed")
+    void testDoesNotThrowWithoutFailures() {
+        SoftFailureCollector collector = new SoftFailureCollector();
+        Assertions.assertAll(collector::throwIfFailed);
+    }
+
+    @Test
+    @DisplayName("records failures without rendering their messages")
+    void testRecordsWithoutRendering() {
+        AtomicInteger calls = new AtomicInteger(0);
+        SoftFailureCollector collector = new SoftFailureCollector();
+        collector.fail("foo", "bar", () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        Assertions.assertAll(() -> Assertions.assertEquals(1, collector.getFailureCount(), "Should count the failure."),
+                             () -> Assertions.assertEquals(0, calls.get(), "Should not get the message while recording."));
+    }
+
+    @Test
+    @DisplayName("reports failures like the assertion executor would have thrown them")
+    void testReportsLikeAssertions() {
+        SoftFailureCollector collector = new SoftFailureCollector();
+        collector.fail("foo", "bar", () -> "message");
+        AssertionFailedError expected = Assertions.assertThrows(AssertionFailedError.class,
+                                                                () -> new AssertionFailedValidationExecutor().fail("foo", "bar", () -> "message"));
+        MultipleFailuresError error = Assertions.assertThrows(MultipleFailuresError.class, collector::throwIfFailed);
+        AssertionFailedError failure = (AssertionFailedError) error.getFailures().get(0);
+        Assertions.assertAll(() -> Assertions.assertEquals(expected.getMessage(), failure.getMessage()),
+                             () -> Assertions.assertEquals(expected.getActual().getValue(), failure.getActual().getValue()),
+                             () -> Assertions.assertEquals(1, failure.getStackTrace().length, "Should trim the stack trace to the caller."));
+    }
+}
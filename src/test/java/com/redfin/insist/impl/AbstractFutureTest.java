@@ -20,10 +20,37 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.opentest4j.AssertionFailedError;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 abstract class AbstractFutureTest<T extends AbstractFutureImpl<AssertionFailedError>> {
 
@@ -101,6 +128,262 @@ abstract class AbstractFutureTest<T extends AbstractFutureImpl<AssertionFailedEr
         }
     }
 
+    @Nested
+    @DisplayName("when thatEventuallyAll(BooleanSupplier...) is called")
+    final class ThatEventuallyAllTests {
+
+        @Test
+        @DisplayName("throws an exception for invalid conditions")
+        void testThrowsForInvalidConditions() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAll((BooleanSupplier[]) null),
+                                                               "Should throw for null conditions."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAll(),
+                                                               "Should throw for no conditions."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAll(() -> true, null),
+                                                               "Should throw for a null condition."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAll((Executor) null, () -> true),
+                                                               "Should throw for a null executor."));
+        }
+
+        @Test
+        @DisplayName("stops calling each condition once it has been true")
+        void testStopsCallingPassedConditions() {
+            AtomicInteger first = new AtomicInteger(0);
+            AtomicInteger second = new AtomicInteger(0);
+            getInstance().thatEventuallyAll(() -> first.incrementAndGet() > 0,
+                                            () -> second.incrementAndGet() == 3);
+            Assertions.assertAll(() -> Assertions.assertEquals(1, first.get(), "Should not call a condition again once it has been true."),
+                                 () -> Assertions.assertEquals(3, second.get(), "Should keep calling a condition until it is true."));
+        }
+
+        @Test
+        @DisplayName("lists the conditions that never became true")
+        void testListsPendingConditions() {
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getInstance().thatEventuallyAll(() -> true, () -> false, () -> true, () -> false),
+                                                                   "Should throw if a condition is never true.");
+            Assertions.assertAll(() -> Assertions.assertEquals("Eventually all 4 conditions true",
+                                                               failure.getExpected().getValue(),
+                                                               "Should describe the expected conditions."),
+                                 () -> Assertions.assertEquals("conditions [1, 3] of 4 never became true",
+                                                               failure.getActual().getValue(),
+                                                               "Should list exactly the conditions that were never true."));
+        }
+
+        @Test
+        @DisplayName("calls the conditions on the given executor")
+        void testCallsConditionsOnExecutor() {
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            AtomicInteger second = new AtomicInteger(0);
+            getInstance().thatEventuallyAll(ForkJoinPool.commonPool(),
+                                            () -> threads.add(Thread.currentThread().getName()) || true,
+                                            () -> second.incrementAndGet() == 2);
+            Assertions.assertAll(() -> Assertions.assertFalse(threads.contains(Thread.currentThread().getName()),
+                                                              "Should not call the conditions on the attempting thread."),
+                                 () -> Assertions.assertEquals(2, second.get(), "Should keep calling a condition until it is true."));
+        }
+    }
+
+    @Nested
+    @DisplayName("when thatEventuallyAny(BooleanSupplier...) is called")
+    final class ThatEventuallyAnyTests {
+
+        @Test
+        @DisplayName("throws an exception for invalid conditions")
+        void testThrowsForInvalidConditions() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAny((BooleanSupplier[]) null),
+                                                               "Should throw for null conditions."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAny(),
+                                                               "Should throw for no conditions."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyAny((Executor) null, () -> true),
+                                                               "Should throw for a null executor."));
+        }
+
+        @Test
+        @DisplayName("returns once any condition is true without calling the rest")
+        void testReturnsOnceAnyIsTrue() {
+            AtomicInteger first = new AtomicInteger(0);
+            AtomicInteger last = new AtomicInteger(0);
+            getInstance().thatEventuallyAny(() -> first.incrementAndGet() == 2,
+                                            () -> last.incrementAndGet() < 0);
+            Assertions.assertAll(() -> Assertions.assertEquals(2, first.get(), "Should keep calling the conditions until one is true."),
+                                 () -> Assertions.assertEquals(1, last.get(), "Should not call later conditions once one is true."));
+        }
+
+        @Test
+        @DisplayName("returns once any condition on the executor is true without waiting for the rest")
+        void testReturnsOnceAnyIsTrueOnExecutor() {
+            CountDownLatch release = new CountDownLatch(1);
+            BooleanSupplier slow = () -> {
+                try {
+                    return release.await(1, TimeUnit.MINUTES);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            };
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5),
+                                                     () -> getInstance().thatEventuallyAny(executor, () -> true, slow),
+                                                     "Should not wait for the slower conditions once one is true.");
+            } finally {
+                release.countDown();
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("lists every condition if none became true")
+        void testListsEveryCondition() {
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getInstance().thatEventuallyAny(ForkJoinPool.commonPool(), () -> false, () -> false),
+                                                                   "Should throw if no condition is ever true.");
+            Assertions.assertAll(() -> Assertions.assertEquals("Eventually any of 2 conditions true",
+                                                               failure.getExpected().getValue(),
+                                                               "Should describe the expected conditions."),
+                                 () -> Assertions.assertEquals("conditions [0, 1] of 2 never became true",
+                                                               failure.getActual().getValue(),
+                                                               "Should list every condition."));
+        }
+    }
+
+    @Nested
+    @DisplayName("when thatEventuallyResolves(Collection, Function) is called")
+    final class ThatEventuallyResolvesTests {
+
+        @Test
+        @DisplayName("throws an exception for invalid arguments")
+        void testThrowsForInvalidArguments() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyResolves(null, pending -> pending),
+                                                               "Should throw for null keys."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyResolves(Arrays.asList(1, 2), null),
+                                                               "Should throw for a null lookup."));
+        }
+
+        @Test
+        @DisplayName("only looks up the keys that haven't been resolved yet")
+        void testLooksUpOnlyPendingKeys() {
+            List<Set<Integer>> lookups = new ArrayList<>();
+            getInstance().thatEventuallyResolves(Arrays.asList(1, 2, 3), pending -> {
+                lookups.add(new HashSet<>(pending));
+                // Resolve the smallest pending key on each attempt, plus one that isn't pending
+                return Arrays.asList(Collections.min(pending), 42);
+            });
+            Assertions.assertEquals(Arrays.asList(new HashSet<>(Arrays.asList(1, 2, 3)),
+                                                  new HashSet<>(Arrays.asList(2, 3)),
+                                                  new HashSet<>(Collections.singletonList(3))),
+                                    lookups,
+                                    "Should narrow the lookups to the pending keys.");
+        }
+
+        @Test
+        @DisplayName("reports the pending count and a bounded sample of the pending keys")
+        void testReportsPendingKeys() {
+            List<Integer> keys = IntStream.range(0, 5000).boxed().collect(Collectors.toList());
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getInstance().thatEventuallyResolves(keys, pending -> pending.stream()
+                                                                                                                                      .filter(key -> key >= 12)
+                                                                                                                                      .collect(Collectors.toList())),
+                                                                   "Should throw if some keys are never resolved.");
+            Assertions.assertAll(() -> Assertions.assertEquals("Eventually all 5000 keys resolved",
+                                                               failure.getExpected().getValue(),
+                                                               "Should describe the expected keys."),
+                                 () -> Assertions.assertEquals("12 of 5000 keys never resolved: <0>, <1>, <2>, <3>, <4>, <5>, <6>, <7>, <8>, <9>, and 2 more",
+                                                               failure.getActual().getValue(),
+                                                               "Should give the pending count and list only the first few pending keys."));
+        }
+
+        @Test
+        @DisplayName("succeeds without a lookup for no keys")
+        void testSucceedsForNoKeys() {
+            AtomicInteger lookups = new AtomicInteger(0);
+            getInstance().thatEventuallyResolves(Collections.<Integer>emptyList(), pending -> {
+                lookups.incrementAndGet();
+                return pending;
+            });
+            Assertions.assertEquals(0, lookups.get(), "Should not look up an empty set of keys.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when thatEventuallyAsync(BooleanSupplier) is called")
+    final class ThatEventuallyAsyncTests {
+
+        @Test
+        @DisplayName("throws an exception for a null supplier")
+        void testThrowsForNullSupplier() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> getInstance().thatEventuallyAsync(null),
+                                    "Should throw an exception for a null boolean supplier.");
+        }
+
+        @Test
+        @DisplayName("completes normally once true is returned")
+        void testCompletesOnceTrueIsReturned() {
+            AtomicInteger counter = new AtomicInteger(0);
+            getInstance().thatEventuallyAsync(() -> counter.incrementAndGet() == 2)
+                         .toCompletableFuture()
+                         .join();
+            Assertions.assertEquals(2,
+                                    counter.get(),
+                                    "Should keep retrying the supplier until true is found.");
+        }
+
+        @Test
+        @DisplayName("does not block the calling thread")
+        void testDoesNotBlockCallingThread() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            CompletableFuture<Void> future = getInstance().thatEventuallyAsync(() -> {
+                try {
+                    return latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }).toCompletableFuture();
+            Assertions.assertFalse(future.isDone(),
+                                   "Should return before the supplier has returned.");
+            latch.countDown();
+            future.join();
+        }
+
+        @Test
+        @DisplayName("runs the attempts on the attempt workers rather than on the scheduler threads")
+        void testRunsAttemptsOnAttemptWorkers() {
+            AtomicReference<String> threadName = new AtomicReference<>();
+            getInstance().thatEventuallyAsync(() -> {
+                threadName.set(Thread.currentThread().getName());
+                return true;
+            }).toCompletableFuture().join();
+            Assertions.assertTrue(threadName.get().startsWith("insist-attempt-"),
+                                  "Should run the supplier on an attempt worker but ran on " + threadName.get() + ".");
+        }
+
+        @Test
+        @DisplayName("completes exceptionally with the expected exception if true is never returned")
+        void testCompletesExceptionallyForNoTrueResult() {
+            String message = "customMessage";
+            CompletionException exception = Assertions.assertThrows(CompletionException.class,
+                                                                    () -> getInstance(message).thatEventuallyAsync(() -> false)
+                                                                                              .toCompletableFuture()
+                                                                                              .join(),
+                                                                    "Should complete exceptionally for a supplier that never returns true.");
+            Assertions.assertTrue(exception.getCause() instanceof AssertionFailedError,
+                                  "Should complete exceptionally with the throwable from the failed validation executor.");
+            Assertions.assertTrue(exception.getCause().getMessage().contains(message),
+                                  "The failure should contain the given custom message.");
+        }
+    }
+
     @Nested
     @DisplayName("when thatEventuallyIsPresent(Supplier) is called")
     final class ThatEventuallyIsPresentTests {
@@ -185,6 +468,204 @@ abstract class AbstractFutureTest<T extends AbstractFutureImpl<AssertionFailedEr
         }
     }
 
+    @Nested
+    @DisplayName("when thatEventuallyReceives(BlockingQueue) is called")
+    final class ThatEventuallyReceivesTests {
+
+        @Test
+        @DisplayName("throws an exception for a null queue")
+        void testThrowsForNullQueue() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> getInstance().thatEventuallyReceives(null),
+                                    "Should throw an exception for a null queue.");
+        }
+
+        @Test
+        @DisplayName("removes and returns an available element")
+        void testReturnsAvailableElement() {
+            BlockingQueue<String> queue = new LinkedBlockingQueue<>(Arrays.asList("foo", "bar"));
+            Assertions.assertAll(() -> Assertions.assertEquals("foo", getInstance().thatEventuallyReceives(queue), "Should return the head of the queue."),
+                                 () -> Assertions.assertEquals(1, queue.size(), "Should remove the returned element."));
+        }
+
+        @Test
+        @DisplayName("throws expected exception if no element arrives")
+        void testThrowsIfNothingArrives() {
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> getInstance().thatEventuallyReceives(new LinkedBlockingQueue<>()),
+                                                                 "Should throw if nothing arrives.");
+            Assertions.assertTrue(error.getMessage().startsWith("hello : "),
+                                  "Should use the custom message.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when thatEventuallyCompletes(Future) is called")
+    final class ThatEventuallyCompletesTests {
+
+        @Test
+        @DisplayName("throws an exception for a null future")
+        void testThrowsForNullFuture() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> getInstance().thatEventuallyCompletes(null),
+                                    "Should throw an exception for a null future.");
+        }
+
+        @Test
+        @DisplayName("returns for a future that is done, even exceptionally")
+        void testReturnsForDoneFuture() {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new RuntimeException("whoops"));
+            CompletableFuture<String> cancelled = new CompletableFuture<>();
+            cancelled.cancel(false);
+            Assertions.assertAll(() -> getInstance().thatEventuallyCompletes(CompletableFuture.completedFuture("foo")),
+                                 () -> getInstance().thatEventuallyCompletes(failed),
+                                 () -> getInstance().thatEventuallyCompletes(cancelled));
+        }
+
+        @Test
+        @DisplayName("throws expected exception if the future is never done")
+        void testThrowsIfNeverDone() {
+            Assertions.assertThrows(AssertionFailedError.class,
+                                    () -> getInstance().thatEventuallyCompletes(new CompletableFuture<>()),
+                                    "Should throw if the future is never done.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when thatEventuallyCountsDown(CountDownLatch) is called")
+    final class ThatEventuallyCountsDownTests {
+
+        @Test
+        @DisplayName("throws an exception for a null latch")
+        void testThrowsForNullLatch() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> getInstance().thatEventuallyCountsDown(null),
+                                    "Should throw an exception for a null latch.");
+        }
+
+        @Test
+        @DisplayName("returns for a latch at zero")
+        void testReturnsForLatchAtZero() {
+            Assertions.assertAll(() -> getInstance().thatEventuallyCountsDown(new CountDownLatch(0)));
+        }
+
+        @Test
+        @DisplayName("throws expected exception with the remaining count if the latch never reaches zero")
+        void testThrowsIfNeverCountedDown() {
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> getInstance().thatEventuallyCountsDown(new CountDownLatch(2)),
+                                                                 "Should throw if the latch never reaches zero.");
+            Assertions.assertEquals("count of 2",
+                                    error.getActual().getValue(),
+                                    "Should describe the remaining count.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when a file system method is called")
+    final class FileSystemTests {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        @DisplayName("throws an exception for invalid arguments")
+        void testThrowsForInvalidArguments() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyExists(null)),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyHasSizeAtLeast(null, 0)),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyHasSizeAtLeast(directory, -1)),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyContains(null, "*", 0)),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyContains(directory, null, 0)),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyContains(directory, "*", -1)));
+        }
+
+        @Test
+        @DisplayName("returns once the file exists and is large enough")
+        void testReturnsForExistingFile() throws IOException {
+            Path file = Files.write(directory.resolve("foo.txt"), new byte[]{1, 2, 3});
+            Assertions.assertAll(() -> getInstance().thatEventuallyExists(file),
+                                 () -> getInstance().thatEventuallyHasSizeAtLeast(file, 3));
+        }
+
+        @Test
+        @DisplayName("throws expected exception if the file never exists")
+        void testThrowsForMissingFile() {
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> getInstance().thatEventuallyExists(directory.resolve("foo.txt")),
+                                                                 "Should throw if the file never exists.");
+            Assertions.assertEquals("does not exist",
+                                    error.getActual().getValue(),
+                                    "Should describe the missing file.");
+        }
+
+        @Test
+        @DisplayName("throws expected exception with the size if the file is never large enough")
+        void testThrowsForSmallFile() throws IOException {
+            Path file = Files.write(directory.resolve("foo.txt"), new byte[]{1, 2, 3});
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> getInstance().thatEventuallyHasSizeAtLeast(file, 4),
+                                                                 "Should throw if the file is never large enough.");
+            Assertions.assertEquals("size of 3 byte(s)",
+                                    error.getActual().getValue(),
+                                    "Should describe the size of the file.");
+        }
+
+        @Test
+        @DisplayName("counts only the entries matching the glob")
+        void testCountsMatchingEntries() throws IOException {
+            Files.createFile(directory.resolve("a.txt"));
+            Files.createFile(directory.resolve("b.txt"));
+            Files.createFile(directory.resolve("c.log"));
+            Assertions.assertAll(() -> getInstance().thatEventuallyContains(directory, "*.txt", 2));
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> getInstance().thatEventuallyContains(directory, "*.log", 2),
+                                                                 "Should throw if there are never enough matching entries.");
+            Assertions.assertEquals("1 entries matching '*.log'",
+                                    error.getActual().getValue(),
+                                    "Should describe the number of matching entries.");
+        }
+
+        @Test
+        @DisplayName("returns the first line matching the pattern")
+        void testReturnsMatchingLine() throws IOException {
+            Path file = Files.write(directory.resolve("service.log"), Arrays.asList("booting", "started", "ready"));
+            Assertions.assertEquals("started",
+                                    getInstance().thatEventuallyHasLine(file, Pattern.compile("^start")),
+                                    "Should return the first matching line.");
+        }
+
+        @Test
+        @DisplayName("throws expected exception with the number of lines read if no line ever matches")
+        void testThrowsForNoMatchingLine() throws IOException {
+            Path file = Files.write(directory.resolve("service.log"), Arrays.asList("booting", "failed"));
+            AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                 () -> getInstance().thatEventuallyHasLine(file, Pattern.compile("started")),
+                                                                 "Should throw if no line ever matches.");
+            Assertions.assertAll(() -> Assertions.assertEquals("no matching line in 2 line(s)",
+                                                               error.getActual().getValue(),
+                                                               "Should describe the number of lines read."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyHasLine(null, Pattern.compile("started"))),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance().thatEventuallyHasLine(file, null)));
+        }
+
+        @Test
+        @DisplayName("throws expected exception if the directory never exists")
+        void testThrowsForMissingDirectory() {
+            Assertions.assertThrows(AssertionFailedError.class,
+                                    () -> getInstance().thatEventuallyContains(directory.resolve("missing"), "*", 1),
+                                    "Should throw if the directory never exists.");
+        }
+    }
+
     @Nested
     @DisplayName("when thatEventuallyThrows(Class, InsistExecutable) is called")
     final class ThatEventuallyThrowsTests {
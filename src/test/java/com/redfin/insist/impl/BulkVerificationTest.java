@@ -0,0 +1,172 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.insist.executor.SoftFailureCollector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@DisplayName("The bulk validations of an InsistVerifiableFactory")
+final class BulkVerificationTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final int SIZE = 100_000;
+
+    private static InsistVerifiableFactory<AssertionFailedError> getFactory() {
+        return new InsistVerifiableFactory<>(() -> "hello", new AssertionFailedValidationExecutor());
+    }
+
+    private static List<Integer> getSubjects() {
+        return IntStream.range(0, SIZE)
+                        .boxed()
+                        .collect(Collectors.toList());
+    }
+
+    private static Spliterator<Integer> getUnsizedSubjects() {
+        return Spliterators.spliteratorUnknownSize(getSubjects().iterator(), Spliterator.ORDERED);
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Nested
+    @DisplayName("when called")
+    final class ArgumentTests {
+
+        @Test
+        @DisplayName("throw an exception for invalid arguments")
+        void testThrowsForInvalidArguments() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> factory.thatAll((List<Integer>) null, i -> true),
+                                                               "Should throw for a null collection."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> factory.thatAll((Spliterator<Integer>) null, i -> true, 5),
+                                                               "Should throw for a null spliterator."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> factory.thatAll(getSubjects(), null),
+                                                               "Should throw for a null predicate."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> factory.thatAll(getSubjects(), i -> true, 0),
+                                                               "Should throw for a non-positive number of reported failures."));
+        }
+    }
+
+    @Nested
+    @DisplayName("once called")
+    final class BehaviorTests {
+
+        @Test
+        @DisplayName("succeed when every element satisfies the predicate")
+        void testSucceedsForValidElements() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            AtomicLong calls = new AtomicLong();
+            Assertions.assertAll(() -> factory.thatAll(getSubjects(), i -> calls.incrementAndGet() > 0, 10),
+                                 () -> factory.thatAll(getUnsizedSubjects(), i -> i >= 0),
+                                 () -> factory.thatAll(getSubjects(), i -> i >= 0));
+            Assertions.assertEquals(SIZE, calls.get(), "Should check every element exactly once.");
+        }
+
+        @Test
+        @DisplayName("report the number of failures and the ones with the lowest indices")
+        void testReportsLowestFailures() {
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getFactory().thatAll(getSubjects(), i -> i % 10_000 != 7, 3),
+                                                                   "Should throw if any element fails.");
+            Assertions.assertEquals("10 of 100000 elements failed: [7] <7>, [10007] <10007>, [20007] <20007>, and 7 more",
+                                    failure.getActual().getValue(),
+                                    "Should report the failure count and the lowest failed indices.");
+        }
+
+        @Test
+        @DisplayName("track the indices of spliterators of unknown size")
+        void testTracksIndicesOfUnsizedSpliterators() {
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getFactory().thatAll(getUnsizedSubjects(), i -> i % 30_000 != 29_999, 5),
+                                                                   "Should throw if any element fails.");
+            Assertions.assertEquals("3 of 100000 elements failed: [29999] <29999>, [59999] <59999>, [89999] <89999>",
+                                    failure.getActual().getValue(),
+                                    "Should report the encounter order indices.");
+        }
+
+        @Test
+        @DisplayName("report failures without indices for collections without an encounter order")
+        void testReportsUnorderedFailuresWithoutIndices() {
+            Set<Integer> subjects = new HashSet<>(getSubjects());
+            AtomicLong calls = new AtomicLong();
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getFactory().thatAll(subjects, i -> calls.incrementAndGet() > 0 && i != 7, 5),
+                                                                   "Should throw if any element fails.");
+            Assertions.assertAll(() -> Assertions.assertEquals("1 of 100000 elements failed: <7>",
+                                                               failure.getActual().getValue(),
+                                                               "Should report the failed element without an index."),
+                                 () -> Assertions.assertEquals(SIZE, calls.get(), "Should check every element exactly once."));
+        }
+
+        @Test
+        @DisplayName("short-circuit at the first failure found")
+        void testShortCircuits() {
+            AtomicLong calls = new AtomicLong();
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getFactory().thatAll(getSubjects(), i -> calls.incrementAndGet() > 0 && i != 0),
+                                                                   "Should throw if any element fails.");
+            Assertions.assertAll(() -> Assertions.assertEquals("element [0] <0> failed, stopped at the first failure found",
+                                                               failure.getActual().getValue(),
+                                                               "Should report the failed element with its index."),
+                                 () -> Assertions.assertTrue(calls.get() < SIZE,
+                                                             "Should stop checking once an element fails."));
+        }
+
+        @Test
+        @DisplayName("report the failures once through the executor")
+        void testReportsOnce() {
+            SoftFailureCollector collector = new SoftFailureCollector();
+            new InsistVerifiableFactory<>(() -> "hello", collector).thatAll(getSubjects(), i -> i % 2 == 0, 5);
+            Assertions.assertEquals(1, collector.getFailureCount(), "Should report all of the failures as one.");
+        }
+
+        @Test
+        @DisplayName("propagate an exception thrown by the predicate")
+        void testPropagatesPredicateExceptions() {
+            Assertions.assertThrows(IllegalStateException.class,
+                                    () -> getFactory().thatAll(getSubjects(), i -> {
+                                        if (i == SIZE / 2) {
+                                            throw new IllegalStateException("foo");
+                                        }
+                                        return true;
+                                    }, 5),
+                                    "Should propagate the exception from the predicate.");
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.VirtualClock;
+import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.insist.executor.CallerFrameLocator;
+import com.redfin.insist.executor.SoftFailureCollector;
+import com.redfin.patience.PatientDelaySuppliers;
+import com.redfin.patience.PatientRetry;
+import com.redfin.patience.PatientWait;
+import com.redfin.validity.FailedValidationExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("A CallSiteTuner")
+final class CallSiteTunerTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final String KEY = "com.example.FooTest#testBar:42";
+    private static final long ONE_HUNDRED_MILLIS = Duration.ofMillis(100).toNanos();
+    // The lower bound of the power of two microsecond bucket holding 100 milliseconds
+    private static final Duration LEARNED_INITIAL_DELAY = Duration.ofNanos(65_536_000);
+
+    private static PatientWait getWait() {
+        return PatientWait.builder()
+                          .withDefaultTimeout(Duration.ofSeconds(7))
+                          .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ofMillis(10)))
+                          .build();
+    }
+
+    private static PatientRetry getRetry() {
+        return PatientRetry.builder()
+                           .withDefaultNumberOfRetries(7)
+                           .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ofMillis(10)))
+                           .build();
+    }
+
+    private static void recordTimes(CallSiteTuner tuner, int times) {
+        for (int i = 0; i < times; i++) {
+            tuner.record(KEY, ONE_HUNDRED_MILLIS);
+        }
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("returns a null key for a null frame")
+    void testReturnsNullKeyForNullFrame() {
+        Assertions.assertNull(CallSiteTuner.keyOf(null),
+                              "Should return a null key for a null frame.");
+    }
+
+    @Test
+    @DisplayName("returns a key made of the class, method, and line of a frame")
+    void testReturnsKeyOfFrame() {
+        Assertions.assertEquals(KEY,
+                                CallSiteTuner.keyOf(new StackTraceElement("com.example.FooTest", "testBar", "FooTest.java", 42)),
+                                "Should return a key made of the class, method, and line.");
+    }
+
+    @Nested
+    @DisplayName("in memory")
+    final class InMemoryTests {
+
+        @Test
+        @DisplayName("doesn't tune a call site without enough samples")
+        void testDoesNotTuneWithoutEnoughSamples() {
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            PatientWait wait = getWait();
+            PatientRetry retry = getRetry();
+            recordTimes(tuner, 2);
+            Assertions.assertAll(() -> Assertions.assertSame(wait, tuner.tune(KEY, wait), "Should return the given wait."),
+                                 () -> Assertions.assertSame(retry, tuner.tune(KEY, retry), "Should return the given retry."));
+        }
+
+        @Test
+        @DisplayName("delays the first attempt of a learned call site")
+        void testTunesLearnedCallSite() {
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            recordTimes(tuner, 3);
+            PatientWait wait = tuner.tune(KEY, getWait());
+            PatientRetry retry = tuner.tune(KEY, getRetry());
+            Assertions.assertAll(() -> Assertions.assertEquals(LEARNED_INITIAL_DELAY, wait.getInitialDelay(), "Should delay the first wait attempt."),
+                                 () -> Assertions.assertEquals(Duration.ofSeconds(7), wait.getDefaultTimeout(), "Should keep the default timeout."),
+                                 () -> Assertions.assertEquals(LEARNED_INITIAL_DELAY, retry.getInitialDelay(), "Should delay the first retry attempt."),
+                                 () -> Assertions.assertEquals(7, retry.getDefaultNumberOfRetries(), "Should keep the default number of retries."));
+        }
+
+        @Test
+        @DisplayName("hedges a learned call site after the chosen percentile of its attempt times")
+        void testTunesHedgeDelay() {
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            recordTimes(tuner, 3);
+            for (int i = 0; i < 2; i++) {
+                tuner.recordAttempt(KEY, ONE_HUNDRED_MILLIS);
+            }
+            Duration unlearned = tuner.tuneHedgeDelay(KEY, 0.95);
+            for (int i = 0; i < 8; i++) {
+                tuner.recordAttempt(KEY, ONE_HUNDRED_MILLIS / 100);
+            }
+            Assertions.assertAll(() -> Assertions.assertNull(unlearned, "Should not hedge until the attempt times are learned."),
+                                 () -> Assertions.assertEquals(LEARNED_INITIAL_DELAY.multipliedBy(2),
+                                                               tuner.tuneHedgeDelay(KEY, 0.95),
+                                                               "Should hedge after the bucket of the 95th percentile."),
+                                 () -> Assertions.assertEquals(Duration.ofNanos(1_024_000),
+                                                               tuner.tuneHedgeDelay(KEY, 0.5),
+                                                               "Should hedge after the bucket of the median."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> tuner.tuneHedgeDelay(KEY, 1.0),
+                                                               "Should throw for a percentile that isn't below one."));
+        }
+
+        @Test
+        @DisplayName("polls a learned call site at a fraction of its usual time to success")
+        void testPollsLearnedCallSiteMoreOften() {
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            recordTimes(tuner, 3);
+            Duration firstDelay = tuner.tune(KEY, getWait()).getDelaySupplierFactory().create().get();
+            Assertions.assertTrue(firstDelay.compareTo(LEARNED_INITIAL_DELAY.dividedBy(16)) >= 0
+                                  && firstDelay.compareTo(LEARNED_INITIAL_DELAY.dividedBy(8)) <= 0,
+                                  "Should start polling at an eighth of the median, with jitter.");
+        }
+
+        @Test
+        @DisplayName("doesn't write anything when saved")
+        void testSaveDoesNothing() {
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            recordTimes(tuner, 3);
+            Assertions.assertDoesNotThrow(tuner::save,
+                                          "Should be able to save an in memory tuner.");
+        }
+    }
+
+    @Nested
+    @DisplayName("persisted to a file")
+    final class PersistentTests {
+
+        @Test
+        @DisplayName("learns from what an earlier tuner saved")
+        void testLoadsSavedHistograms(@TempDir Path directory) {
+            Path file = directory.resolve("tuner.txt");
+            CallSiteTuner first = CallSiteTuner.persistentAt(file);
+            recordTimes(first, 3);
+            first.save();
+            Assertions.assertEquals(LEARNED_INITIAL_DELAY,
+                                    CallSiteTuner.persistentAt(file).tune(KEY, getWait()).getInitialDelay(),
+                                    "Should tune with the saved histograms.");
+        }
+
+        @Test
+        @DisplayName("merges with what other tuners saved in the meantime")
+        void testMergesWithFile(@TempDir Path directory) {
+            Path file = directory.resolve("nested").resolve("tuner.txt");
+            CallSiteTuner first = CallSiteTuner.persistentAt(file);
+            CallSiteTuner second = CallSiteTuner.persistentAt(file);
+            recordTimes(first, 2);
+            recordTimes(second, 1);
+            first.save();
+            second.save();
+            first.save();
+            Assertions.assertEquals(LEARNED_INITIAL_DELAY,
+                                    CallSiteTuner.persistentAt(file).tune(KEY, getWait()).getInitialDelay(),
+                                    "Should count the samples of both tuners exactly once.");
+        }
+
+        @Test
+        @DisplayName("ignores corrupt lines")
+        void testIgnoresCorruptLines(@TempDir Path directory) throws IOException {
+            Path file = directory.resolve("tuner.txt");
+            Files.write(file,
+                        Arrays.asList("# comment", "no tab here", KEY + "\tnot:numbers", "other\t99:1", KEY + "\t17:3"),
+                        StandardCharsets.UTF_8);
+            Assertions.assertEquals(LEARNED_INITIAL_DELAY,
+                                    CallSiteTuner.persistentAt(file).tune(KEY, getWait()).getInitialDelay(),
+                                    "Should tune with the valid lines only.");
+        }
+
+        @Test
+        @DisplayName("throws an exception for a null file")
+        void testThrowsForNullFile() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> CallSiteTuner.persistentAt(null),
+                                    "Should throw for a null file.");
+        }
+    }
+
+    @Nested
+    @DisplayName("when tuning futures")
+    final class FutureTests {
+
+        /*
+         * This test class is in a library package so the call site located for the
+         * futures is the same frame that is located when calling from the test itself.
+         */
+
+        private InsistVerifiableFactory<AssertionFailedError> getFactory(CallSiteTuner tuner,
+                                                                        FailedValidationExecutor<AssertionFailedError> executor) {
+            return new InsistVerifiableFactory<>(() -> null, executor, VirtualClock.automatic()).withTuner(tuner);
+        }
+
+        @Test
+        @DisplayName("learns a shorter delay once a call site succeeds sooner")
+        void testLearnedDelayShrinks() {
+            String key = CallSiteTuner.keyOf(CallerFrameLocator.locate());
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            for (int i = 0; i < 3; i++) {
+                tuner.record(key, ONE_HUNDRED_MILLIS);
+            }
+            getFactory(tuner, new AssertionFailedValidationExecutor()).within(Duration.ofSeconds(1)).thatEventually(() -> true);
+            Assertions.assertEquals(Duration.ZERO,
+                                    tuner.tune(key, getWait()).getInitialDelay(),
+                                    "Should time from the first attempt rather than from before the learned initial delay.");
+        }
+
+        @Test
+        @DisplayName("times the attempts of a call site with tuned hedging")
+        void testTunedHedgingRecordsAttemptTimes() {
+            String key = CallSiteTuner.keyOf(CallerFrameLocator.locate());
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            InsistVerifiableFactory<AssertionFailedError> factory = new InsistVerifiableFactory<>(() -> null, new AssertionFailedValidationExecutor())
+                    .withTuner(tuner)
+                    .withTunedHedging(0.95, 2);
+            for (int i = 0; i < 3; i++) {
+                factory.within(Duration.ofSeconds(5)).thatEventually(() -> true);
+            }
+            Assertions.assertNotNull(tuner.tuneHedgeDelay(key, 0.95),
+                                     "Should have learned the attempt times.");
+        }
+
+        @Test
+        @DisplayName("never replaces an explicit hedge delay")
+        void testKeepsExplicitHedgeDelay() {
+            String key = CallSiteTuner.keyOf(CallerFrameLocator.locate());
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            for (int i = 0; i < 3; i++) {
+                tuner.recordAttempt(key, Duration.ofMinutes(1).toNanos());
+            }
+            AtomicInteger calls = new AtomicInteger(0);
+            long start = System.nanoTime();
+            new InsistVerifiableFactory<>(() -> null, new AssertionFailedValidationExecutor())
+                    .withTuner(tuner)
+                    .withTunedHedging(0.95, 2)
+                    .withHedging(Duration.ofMillis(50), 2)
+                    .within(Duration.ofMinutes(1))
+                    .thatEventually(() -> {
+                        if (calls.incrementAndGet() == 1) {
+                            try {
+                                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                            } catch (InterruptedException ignored) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return false;
+                        }
+                        return true;
+                    });
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                  "Should hedge after the given delay rather than the learned one.");
+        }
+
+        @Test
+        @DisplayName("doesn't learn from a failed validation whose executor didn't throw")
+        void testDoesNotRecordFailures() {
+            String key = CallSiteTuner.keyOf(CallerFrameLocator.locate());
+            CallSiteTuner tuner = CallSiteTuner.inMemory();
+            SoftFailureCollector collector = new SoftFailureCollector();
+            for (int i = 0; i < 3; i++) {
+                getFactory(tuner, collector).within(Duration.ofMillis(100)).thatEventually(() -> false);
+                getFactory(tuner, collector).within(2).thatEventually(() -> false);
+            }
+            PatientWait wait = getWait();
+            Assertions.assertAll(() -> Assertions.assertEquals(6, collector.getFailureCount(), "Should have failed every validation."),
+                                 () -> Assertions.assertSame(wait, tuner.tune(key, wait), "Should not have recorded the failures."));
+        }
+    }
+}
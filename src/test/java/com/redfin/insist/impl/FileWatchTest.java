@@ -0,0 +1,92 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("A FileWatch")
+final class FileWatchTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static void assumeWatchable(FileWatch watch) {
+        Assumptions.assumeFalse(watch.isPolling(),
+                                "This test can only work on a platform with a native WatchService.");
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("watches a directory that doesn't exist yet through its nearest existing ancestor")
+    void testWatchesMissingDirectory(@TempDir Path directory) throws IOException, InterruptedException {
+        Path file = directory.resolve("a").resolve("b").resolve("foo.txt");
+        try (FileWatch watch = FileWatch.exists(file)) {
+            assumeWatchable(watch);
+            Assertions.assertNull(watch.await(0), "Should not be satisfied before the file exists.");
+            Files.createDirectories(file.getParent());
+            Files.createFile(file);
+            Assertions.assertEquals(file, watch.await(TIMEOUT_NANOS), "Should be satisfied once the file is created.");
+            Assertions.assertFalse(watch.isPolling(), "Should have kept waiting for events.");
+        }
+    }
+
+    @Test
+    @DisplayName("counts the entries of a directory created after the watch started")
+    void testCountsEntriesOfCreatedDirectory(@TempDir Path directory) throws IOException, InterruptedException {
+        Path logs = directory.resolve("logs");
+        try (FileWatch watch = FileWatch.entries(logs, "*.log", 2)) {
+            assumeWatchable(watch);
+            Files.createDirectory(logs);
+            Files.createFile(logs.resolve("a.log"));
+            Assertions.assertNull(watch.await(0), "Should not be satisfied with one entry.");
+            Files.createFile(logs.resolve("b.log"));
+            Assertions.assertEquals(logs, watch.await(TIMEOUT_NANOS), "Should be satisfied once there are enough entries.");
+            Assertions.assertFalse(watch.isPolling(), "Should have kept waiting for events.");
+        }
+    }
+
+    @Test
+    @DisplayName("goes on waiting for events once the watched directory is removed and created again")
+    void testWatchesRecreatedDirectory(@TempDir Path directory) throws IOException, InterruptedException {
+        Path parent = Files.createDirectory(directory.resolve("a"));
+        Path file = parent.resolve("foo.txt");
+        try (FileWatch watch = FileWatch.exists(file)) {
+            assumeWatchable(watch);
+            Files.delete(parent);
+            Assertions.assertNull(watch.await(0), "Should not be satisfied once the directory is removed.");
+            Files.createDirectory(parent);
+            Files.createFile(file);
+            Assertions.assertEquals(file, watch.await(TIMEOUT_NANOS), "Should be satisfied once the file is created.");
+            Assertions.assertFalse(watch.isPolling(), "Should have kept waiting for events.");
+        }
+    }
+}
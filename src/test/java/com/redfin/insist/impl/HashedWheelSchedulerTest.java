@@ -0,0 +1,189 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@DisplayName("A HashedWheelScheduler")
+final class HashedWheelSchedulerTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private HashedWheelScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        // A small wheel so that the tests also cover tasks that need more than one round
+        scheduler = new HashedWheelScheduler(Duration.ofMillis(1), 8, 2, "test-scheduler");
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("returns a shared instance")
+    void testReturnsSharedInstance() {
+        Assertions.assertSame(HashedWheelScheduler.getShared(),
+                              HashedWheelScheduler.getShared(),
+                              "Should return the same shared scheduler every time.");
+    }
+
+    @Test
+    @DisplayName("throws an exception for invalid constructor arguments")
+    void testThrowsForInvalidConstructorArguments() {
+        Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> new HashedWheelScheduler(null, 8, 1, "foo"),
+                                                           "Should throw for a null tick duration."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> new HashedWheelScheduler(Duration.ZERO, 8, 1, "foo"),
+                                                           "Should throw for a tick duration under a millisecond."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> new HashedWheelScheduler(Duration.ofMillis(1), 0, 1, "foo"),
+                                                           "Should throw for a non-positive wheel size."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> new HashedWheelScheduler(Duration.ofMillis(1), 8, 0, "foo"),
+                                                           "Should throw for a non-positive number of worker threads."),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                           () -> new HashedWheelScheduler(Duration.ofMillis(1), 8, 1, null),
+                                                           "Should throw for a null thread name prefix."));
+    }
+
+    @Nested
+    @DisplayName("when scheduling a task")
+    final class ScheduleTests {
+
+        @Test
+        @DisplayName("throws an exception for a null task or an invalid delay")
+        void testThrowsForInvalidArguments() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> scheduler.schedule(null, Duration.ZERO),
+                                                               "Should throw for a null task."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> scheduler.schedule(() -> { }, null),
+                                                               "Should throw for a null delay."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> scheduler.schedule(() -> { }, Duration.ofMillis(-1)),
+                                                               "Should throw for a negative delay."));
+        }
+
+        @Test
+        @DisplayName("runs it once the delay has passed")
+        void testRunsTaskAfterDelay() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            long start = System.nanoTime();
+            scheduler.schedule(latch::countDown, Duration.ofMillis(20));
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS),
+                                  "Should run the scheduled task.");
+            Assertions.assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos(),
+                                  "Should not run the scheduled task before its delay has passed.");
+        }
+
+        @Test
+        @DisplayName("runs every task when many are scheduled")
+        void testRunsManyTasks() throws InterruptedException {
+            int count = 10_000;
+            CountDownLatch latch = new CountDownLatch(count);
+            for (int i = 0; i < count; i++) {
+                scheduler.schedule(latch::countDown, Duration.ofMillis(i % 50));
+            }
+            Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS),
+                                  "Should run all of the scheduled tasks.");
+        }
+
+        @Test
+        @DisplayName("doesn't run it if it is cancelled")
+        void testDoesNotRunCancelledTask() throws InterruptedException {
+            AtomicBoolean ran = new AtomicBoolean(false);
+            HashedWheelScheduler.Timeout timeout = scheduler.schedule(() -> ran.set(true), Duration.ofMillis(20));
+            Assertions.assertTrue(timeout.cancel(),
+                                  "Should be able to cancel a pending task.");
+            Assertions.assertFalse(timeout.cancel(),
+                                   "Should not be able to cancel a task twice.");
+            CountDownLatch latch = new CountDownLatch(1);
+            scheduler.schedule(latch::countDown, Duration.ofMillis(40));
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS),
+                                  "Should run the task that wasn't cancelled.");
+            Assertions.assertFalse(ran.get(),
+                                   "Should not run a cancelled task.");
+        }
+
+        @Test
+        @DisplayName("throws an exception once shut down")
+        void testThrowsOnceShutDown() {
+            scheduler.shutdown();
+            Assertions.assertThrows(RejectedExecutionException.class,
+                                    () -> scheduler.schedule(() -> { }, Duration.ZERO),
+                                    "Should reject tasks once shut down.");
+        }
+    }
+
+    @Nested
+    @DisplayName("returns statistics")
+    final class StatisticsTests {
+
+        @Test
+        @DisplayName("that count pending and fired tasks")
+        void testCountsPendingAndFiredTasks() throws InterruptedException {
+            scheduler.schedule(() -> { }, Duration.ofHours(1));
+            HashedWheelScheduler.Timeout cancelled = scheduler.schedule(() -> { }, Duration.ofHours(1));
+            Assertions.assertEquals(2,
+                                    scheduler.getStatistics().getPendingCount(),
+                                    "Should count the scheduled tasks as pending.");
+            cancelled.cancel();
+            CountDownLatch latch = new CountDownLatch(1);
+            scheduler.schedule(latch::countDown, Duration.ZERO);
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS),
+                                  "Should run the scheduled task.");
+            HashedWheelScheduler.Statistics statistics = scheduler.getStatistics();
+            Assertions.assertAll(() -> Assertions.assertEquals(1, statistics.getPendingCount(), "Should not count fired or cancelled tasks as pending."),
+                                 () -> Assertions.assertEquals(1, statistics.getFiredCount(), "Should count the fired task."),
+                                 () -> Assertions.assertEquals(Duration.ofMillis(1), statistics.getTickDuration(), "Should return the tick duration."));
+        }
+
+        @Test
+        @DisplayName("that track how late tasks fired")
+        void testTracksLateness() throws InterruptedException {
+            CountDownLatch latch = new CountDownLatch(1);
+            scheduler.schedule(latch::countDown, Duration.ofMillis(5));
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS),
+                                  "Should run the scheduled task.");
+            HashedWheelScheduler.Statistics statistics = scheduler.getStatistics();
+            Assertions.assertAll(() -> Assertions.assertFalse(statistics.getAverageLateness().isNegative(), "Should not have a negative average lateness."),
+                                 () -> Assertions.assertTrue(statistics.getMaxLateness().compareTo(statistics.getAverageLateness()) >= 0,
+                                                             "Should have a max lateness at least as large as the average."));
+        }
+    }
+}
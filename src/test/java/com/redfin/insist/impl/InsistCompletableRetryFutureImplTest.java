@@ -16,12 +16,15 @@
 
 package com.redfin.insist.impl;
 
+import com.redfin.insist.InsistClock;
 import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.patience.PatientDelaySuppliers;
 import com.redfin.patience.PatientRetry;
 import com.redfin.validity.FailedValidationExecutor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -30,6 +33,10 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.opentest4j.AssertionFailedError;
 
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -52,7 +59,7 @@ final class InsistCompletableRetryFutureImplTest
     private InsistCompletableRetryFutureImpl<AssertionFailedError> getInstance(Supplier<String> messageSupplier,
                                                                                FailedValidationExecutor<AssertionFailedError> failedValidationExecutor,
                                                                                PatientRetry retry) {
-        return new InsistCompletableRetryFutureImpl<>(messageSupplier, failedValidationExecutor, retry);
+        return new InsistCompletableRetryFutureImpl<>(messageSupplier, failedValidationExecutor, retry, InsistClock.system());
     }
 
     private static Supplier<String> getMessageSupplier(String message) {
@@ -149,5 +156,47 @@ final class InsistCompletableRetryFutureImplTest
                                     numRetries + 1,
                                     "Setting the within(int) value should set how many attempts are made.");
         }
+
+        @Test
+        @DisplayName("returns a new instance from within(int) and leaves itself unchanged")
+        void testWithinDoesNotChangeInstance() {
+            InsistCompletableRetryFutureImpl<AssertionFailedError> future = getInstance("hello");
+            AtomicInteger counter = new AtomicInteger(0);
+            Assertions.assertAll(() -> Assertions.assertNotSame(future, future.within(5), "Should return a new instance for a different number of retries."),
+                                 () -> Assertions.assertSame(future, future.within(2), "Should return itself for the same number of retries."));
+            Assertions.assertThrows(AssertionFailedError.class,
+                                    () -> future.thatEventually(() -> counter.incrementAndGet() < 0),
+                                    "Should throw an exception for a supplier that never returns true.");
+            Assertions.assertEquals(3,
+                                    counter.get(),
+                                    "Should still make the default number of attempts.");
+        }
+
+        @Test
+        @DisplayName("wakes up as soon as an event happens while blocking for the delay between attempts")
+        void testWakesUpOnEvent() throws InterruptedException {
+            BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+            Thread producer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                    queue.add("foo");
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            long start = System.nanoTime();
+            Assertions.assertEquals("foo",
+                                    getInstance(getMessageSupplier("hello"),
+                                              getFailedValidationExecutor(),
+                                              PatientRetry.builder()
+                                                          .withDefaultNumberOfRetries(2)
+                                                          .withDelaySupplier(PatientDelaySuppliers.fixed(Duration.ofSeconds(30)))
+                                                          .build()).thatEventuallyReceives(queue),
+                                    "Should receive the element once it arrives.");
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                  "Should not wait for the whole timeout or delay once the element arrives.");
+            producer.join();
+        }
     }
 }
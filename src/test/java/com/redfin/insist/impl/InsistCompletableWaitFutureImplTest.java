@@ -16,14 +16,18 @@
 
 package com.redfin.insist.impl;
 
+import com.redfin.insist.InsistClock;
+import com.redfin.insist.InsistCompletableWaitFuture;
 import com.redfin.insist.executor.AssertionFailedValidationExecutor;
 import com.redfin.patience.PatientWait;
 import com.redfin.validity.FailedValidationExecutor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.converter.ArgumentConversionException;
 import org.junit.jupiter.params.converter.ArgumentConverter;
@@ -34,8 +38,17 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.opentest4j.AssertionFailedError;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -73,7 +86,7 @@ final class InsistCompletableWaitFutureImplTest
     private InsistCompletableWaitFutureImpl<AssertionFailedError> getInstance(Supplier<String> messageSupplier,
                                                                               FailedValidationExecutor<AssertionFailedError> failedValidationExecutor,
                                                                               PatientWait wait) {
-        return new InsistCompletableWaitFutureImpl<>(messageSupplier, failedValidationExecutor, wait);
+        return new InsistCompletableWaitFutureImpl<>(messageSupplier, failedValidationExecutor, wait, InsistClock.system());
     }
 
     private static final class ValidArgumentsProvider
@@ -166,5 +179,290 @@ final class InsistCompletableWaitFutureImplTest
             Assertions.assertTrue(timeout.minus(time).isZero() || timeout.minus(time).isNegative(),
                                   "Setting the within(Duration) value have made the time it took to execute be equal to or greater than the timeout.");
         }
+
+        @Test
+        @DisplayName("returns a new instance from within(Duration) and leaves itself unchanged")
+        void testWithinDoesNotChangeInstance() {
+            InsistCompletableWaitFutureImpl<AssertionFailedError> future = getInstance("hello");
+            Assertions.assertAll(() -> Assertions.assertNotSame(future, future.within(Duration.ofMinutes(5)), "Should return a new instance for a different timeout."),
+                                 () -> Assertions.assertSame(future, future.within(Duration.ofMillis(100)), "Should return itself for the same timeout."));
+            long start = System.nanoTime();
+            Assertions.assertThrows(AssertionFailedError.class,
+                                    () -> future.thatEventually(() -> false),
+                                    "Should throw an exception for a supplier that never returns true.");
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MINUTES.toNanos(1),
+                                  "Should still use the default timeout.");
+        }
+
+        @Test
+        @DisplayName("wakes up as soon as an event happens while blocking until the timeout")
+        void testWakesUpOnEvent() throws InterruptedException {
+            BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+            Thread producer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                    queue.add("foo");
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            long start = System.nanoTime();
+            Assertions.assertEquals("foo",
+                                    getInstance(getMessageSupplier("hello"),
+                                              getFailedValidationExecutor(),
+                                              getWait(Duration.ofSeconds(30))).thatEventuallyReceives(queue),
+                                    "Should receive the element once it arrives.");
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                  "Should not wait for the whole timeout or delay once the element arrives.");
+            producer.join();
+        }
+
+        @Test
+        @DisplayName("wakes up as soon as a watched file is created")
+        void testWakesUpOnFileCreation(@TempDir Path directory) throws InterruptedException {
+            Path file = directory.resolve("foo.txt");
+            Thread producer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                    Files.write(file, new byte[]{1, 2, 3});
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+            producer.start();
+            long start = System.nanoTime();
+            Assertions.assertAll(() -> getInstance(getMessageSupplier("hello"),
+                                                   getFailedValidationExecutor(),
+                                                   getWait(Duration.ofSeconds(30))).thatEventuallyHasSizeAtLeast(file, 3));
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                  "Should not wait for the whole timeout once the file is written.");
+            producer.join();
+        }
+    }
+
+    @Nested
+    @DisplayName("with an attempt timeout")
+    final class AttemptTimeoutTests {
+
+        private InsistCompletableWaitFuture<AssertionFailedError> getTimingOutInstance(Duration timeout) {
+            return getInstance(getMessageSupplier("hello"),
+                               getFailedValidationExecutor(),
+                               getWait(timeout)).withAttemptTimeout(Duration.ofMillis(50));
+        }
+
+        @Test
+        @DisplayName("throws an exception for an invalid attempt timeout")
+        void testThrowsForInvalidAttemptTimeout() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance("hello").withAttemptTimeout(null),
+                                                               "Should throw for a null attempt timeout."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance("hello").withAttemptTimeout(Duration.ZERO),
+                                                               "Should throw for a zero attempt timeout."));
+        }
+
+        @Test
+        @DisplayName("returns a new instance from withAttemptTimeout(Duration) and leaves itself unchanged")
+        void testWithAttemptTimeoutDoesNotChangeInstance() {
+            InsistCompletableWaitFuture<AssertionFailedError> future = getTimingOutInstance(Duration.ofMillis(100));
+            Assertions.assertAll(() -> Assertions.assertSame(future, future.withAttemptTimeout(Duration.ofMillis(50)), "Should return itself for the same attempt timeout."),
+                                 () -> Assertions.assertNotSame(future, future.withAttemptTimeout(Duration.ofMillis(60)), "Should return a new instance for a different attempt timeout."));
+        }
+
+        @Test
+        @DisplayName("succeeds for attempts that return in time")
+        void testSucceedsForQuickAttempts() {
+            AtomicInteger calls = new AtomicInteger(0);
+            Assertions.assertAll(() -> getTimingOutInstance(Duration.ofSeconds(5)).thatEventually(() -> calls.incrementAndGet() > 2),
+                                 () -> getTimingOutInstance(Duration.ofSeconds(5)).thatEventuallyIsNotNull(() -> "foo"));
+        }
+
+        @Test
+        @DisplayName("interrupts hanging attempts and reports them in the message")
+        void testInterruptsHangingAttempts() {
+            AtomicInteger interrupted = new AtomicInteger(0);
+            long start = System.nanoTime();
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getTimingOutInstance(Duration.ofMillis(300)).thatEventually(() -> {
+                                                                       try {
+                                                                           Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                                                                       } catch (InterruptedException exception) {
+                                                                           interrupted.incrementAndGet();
+                                                                       }
+                                                                       return true;
+                                                                   }),
+                                                                   "Should throw if every attempt times out.");
+            Assertions.assertAll(() -> Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10),
+                                                             "Should not wait for a hanging attempt."),
+                                 () -> Assertions.assertTrue(failure.getMessage().matches("(?s)hello : Timeout reached after (\\d+) unsuccessful attempt\\(s\\), \\1 of which timed out after 50 ms.*"),
+                                                             "Should count the timed out attempts in the message: " + failure.getMessage()));
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (interrupted.get() == 0) {
+                    Thread.sleep(10);
+                }
+            }, "Should interrupt the hanging attempts.");
+        }
+
+        @Test
+        @DisplayName("enforces the overall timeout even if attempts ignore interrupts")
+        void testEnforcesTimeoutForUninterruptibleAttempts() {
+            CountDownLatch release = new CountDownLatch(1);
+            InsistCompletableWaitFuture<AssertionFailedError> future = getInstance(getMessageSupplier(null),
+                                                                                   getFailedValidationExecutor(),
+                                                                                   getWait(Duration.ofMillis(200))).withAttemptTimeout(Duration.ofSeconds(30));
+            long start = System.nanoTime();
+            try {
+                AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                       () -> future.thatEventually(() -> {
+                                                                           while (release.getCount() > 0) {
+                                                                               try {
+                                                                                   release.await();
+                                                                               } catch (InterruptedException ignored) {
+                                                                                   // Keep hanging
+                                                                               }
+                                                                           }
+                                                                           return true;
+                                                                       }),
+                                                                       "Should throw once the overall timeout is reached.");
+                Assertions.assertAll(() -> Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10),
+                                                                 "Should not wait beyond the overall timeout."),
+                                     () -> Assertions.assertEquals("Timeout reached after 1 unsuccessful attempt(s), 1 of which timed out after 30000 ms",
+                                                                   failure.getMessage().split("\n")[0],
+                                                                   "Should report the abandoned attempt."));
+            } finally {
+                release.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("doesn't start another attempt while an abandoned one is still running")
+        void testDoesNotPileUpUninterruptibleAttempts() {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger calls = new AtomicInteger(0);
+            try {
+                AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                       () -> getTimingOutInstance(Duration.ofMillis(500)).thatEventually(() -> {
+                                                                           calls.incrementAndGet();
+                                                                           while (release.getCount() > 0) {
+                                                                               try {
+                                                                                   release.await();
+                                                                               } catch (InterruptedException ignored) {
+                                                                                   // Keep hanging
+                                                                               }
+                                                                           }
+                                                                           return true;
+                                                                       }),
+                                                                       "Should throw once the overall timeout is reached.");
+                Assertions.assertAll(() -> Assertions.assertEquals(1, calls.get(), "Should only have occupied one worker."),
+                                     () -> Assertions.assertEquals("hello : Timeout reached after 1 unsuccessful attempt(s), 1 of which timed out after 50 ms",
+                                                                   failure.getMessage().split("\n")[0],
+                                                                   "Should report the abandoned attempt."));
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+    @Nested
+    @DisplayName("with hedging")
+    final class HedgingTests {
+
+        private InsistCompletableWaitFuture<AssertionFailedError> getHedgingInstance(Duration timeout, int maxInFlight) {
+            return getInstance(getMessageSupplier("hello"),
+                               getFailedValidationExecutor(),
+                               getWait(timeout)).withHedging(Duration.ofMillis(20), maxInFlight);
+        }
+
+        @Test
+        @DisplayName("throws an exception for invalid hedging arguments")
+        void testThrowsForInvalidHedging() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance("hello").withHedging(null, 2),
+                                                               "Should throw for a null hedge delay."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance("hello").withHedging(Duration.ofMillis(-1), 2),
+                                                               "Should throw for a negative hedge delay."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> getInstance("hello").withHedging(Duration.ofMillis(10), 1),
+                                                               "Should throw for fewer than two attempts in flight."));
+        }
+
+        @Test
+        @DisplayName("returns a new instance from withHedging(Duration, int) and leaves itself unchanged")
+        void testWithHedgingDoesNotChangeInstance() {
+            InsistCompletableWaitFuture<AssertionFailedError> future = getHedgingInstance(Duration.ofMillis(100), 2);
+            Assertions.assertAll(() -> Assertions.assertSame(future, future.withHedging(Duration.ofMillis(20), 2), "Should return itself for the same hedging."),
+                                 () -> Assertions.assertNotSame(future, future.withHedging(Duration.ofMillis(20), 3), "Should return a new instance for a different maximum in flight."),
+                                 () -> Assertions.assertNotSame(future, future.withAttemptTimeout(Duration.ofMillis(50)), "Should return a new instance when adding an attempt timeout."));
+        }
+
+        @Test
+        @DisplayName("takes the first successful attempt and interrupts the slow one")
+        void testTakesFirstSuccessfulAttempt() {
+            AtomicInteger calls = new AtomicInteger(0);
+            CountDownLatch interrupted = new CountDownLatch(1);
+            long start = System.nanoTime();
+            Assertions.assertAll(() -> getHedgingInstance(Duration.ofMinutes(1), 2).thatEventually(() -> {
+                if (calls.incrementAndGet() == 1) {
+                    try {
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException exception) {
+                        interrupted.countDown();
+                    }
+                    return false;
+                }
+                return true;
+            }));
+            Assertions.assertAll(() -> Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                                             "Should not wait for the slow attempt."),
+                                 () -> Assertions.assertTrue(interrupted.await(10, TimeUnit.SECONDS),
+                                                             "Should interrupt the slow attempt once the hedge succeeds."));
+        }
+
+        @Test
+        @DisplayName("never runs more than the maximum attempts at once and reports those still running")
+        void testCapsAttemptsInFlight() {
+            AtomicInteger running = new AtomicInteger(0);
+            AtomicInteger maxRunning = new AtomicInteger(0);
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getHedgingInstance(Duration.ofMillis(300), 3).thatEventually(() -> {
+                                                                       maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                                                       try {
+                                                                           Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                                                                       } catch (InterruptedException ignored) {
+                                                                           // Given up on
+                                                                       } finally {
+                                                                           running.decrementAndGet();
+                                                                       }
+                                                                       return true;
+                                                                   }),
+                                                                   "Should throw if no attempt returns in time.");
+            Assertions.assertAll(() -> Assertions.assertEquals(3, maxRunning.get(),
+                                                               "Should hedge up to the maximum in flight and no further."),
+                                 () -> Assertions.assertEquals("hello : Timeout reached after 3 unsuccessful attempt(s), 3 of which were still running at the timeout",
+                                                               failure.getMessage().split("\n")[0],
+                                                               "Should report the attempts given up on at the timeout."));
+        }
+
+        @Test
+        @DisplayName("keeps waiting for the running attempts when a hedge fails")
+        void testWaitsForRemainingAttempts() {
+            AtomicInteger calls = new AtomicInteger(0);
+            Assertions.assertAll(() -> getHedgingInstance(Duration.ofSeconds(30), 2).thatEventually(() -> {
+                int call = calls.incrementAndGet();
+                if (call == 1) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException exception) {
+                        return false;
+                    }
+                    return true;
+                }
+                // The hedges fail quickly while the first attempt is still running
+                return false;
+            }), () -> Assertions.assertTrue(calls.get() > 1, "Should have hedged the slow attempt."));
+        }
     }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.InsistClock;
+import com.redfin.insist.VirtualClock;
+import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@DisplayName("An InsistDeadline")
+final class InsistDeadlineTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static InsistVerifiableFactory<AssertionFailedError> getFactory(InsistClock clock) {
+        return new InsistVerifiableFactory<>(() -> "hello", new AssertionFailedValidationExecutor(), clock);
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Nested
+    @DisplayName("as a scope")
+    final class ScopeTests {
+
+        @Test
+        @DisplayName("throws an exception for invalid arguments")
+        void testThrowsForInvalidArguments() {
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> InsistDeadline.start(null),
+                                                               "Should throw for a null budget."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> InsistDeadline.start(Duration.ofMillis(-1)),
+                                                               "Should throw for a negative budget."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> InsistDeadline.start(null, Duration.ZERO),
+                                                               "Should throw for a null clock."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> InsistDeadline.within(Duration.ZERO, null),
+                                                               "Should throw for a null scope."));
+        }
+
+        @Test
+        @DisplayName("is current until it is closed")
+        void testIsCurrentUntilClosed() {
+            Assertions.assertFalse(InsistDeadline.current().isPresent(), "Should have no deadline outside of a scope.");
+            InsistDeadline outer = InsistDeadline.start(Duration.ofMinutes(1));
+            try {
+                try (InsistDeadline inner = InsistDeadline.start(Duration.ofMinutes(2))) {
+                    Assertions.assertAll(() -> Assertions.assertEquals(Optional.of(inner), InsistDeadline.current(), "Should make the inner deadline current."),
+                                         () -> Assertions.assertTrue(inner.remaining().compareTo(Duration.ofMinutes(1)) <= 0,
+                                                                     "Should not end after the enclosing deadline."));
+                }
+                Assertions.assertEquals(Optional.of(outer), InsistDeadline.current(), "Should restore the enclosing deadline.");
+            } finally {
+                outer.close();
+            }
+            Assertions.assertFalse(InsistDeadline.current().isPresent(), "Should have no deadline once the scope is closed.");
+        }
+
+        @Test
+        @DisplayName("is inherited by threads started within the scope until it is closed")
+        void testIsInheritedUntilClosed() throws InterruptedException {
+            LinkedBlockingQueue<Boolean> requests = new LinkedBlockingQueue<>();
+            LinkedBlockingQueue<Boolean> answers = new LinkedBlockingQueue<>();
+            Thread thread;
+            try (InsistDeadline ignored = InsistDeadline.start(Duration.ofMinutes(1))) {
+                thread = new Thread(() -> {
+                    try {
+                        while (requests.take()) {
+                            answers.add(InsistDeadline.current().isPresent());
+                        }
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+                requests.add(true);
+                Assertions.assertEquals(Boolean.TRUE, answers.poll(10, TimeUnit.SECONDS), "Should be inherited by the thread.");
+            }
+            requests.add(true);
+            requests.add(false);
+            Assertions.assertEquals(Boolean.FALSE, answers.poll(10, TimeUnit.SECONDS), "Should be ignored once closed.");
+            thread.join();
+        }
+    }
+
+    @Nested
+    @DisplayName("when waiting")
+    final class WaitTests {
+
+        @Test
+        @DisplayName("clamps waits to the remaining budget and then fails later waits immediately")
+        void testClampsWaitsAndFailsOnceExhausted() {
+            VirtualClock clock = VirtualClock.automatic();
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory(clock);
+            AtomicInteger calls = new AtomicInteger(0);
+            try (InsistDeadline ignored = InsistDeadline.start(clock, Duration.ofMinutes(1))) {
+                AssertionFailedError first = Assertions.assertThrows(AssertionFailedError.class,
+                                                                     () -> factory.within(Duration.ofMinutes(10)).thatEventually(() -> false),
+                                                                     "Should fail once the budget is used up.");
+                Assertions.assertAll(() -> Assertions.assertTrue(clock.getElapsed().compareTo(Duration.ofMinutes(2)) < 0,
+                                                                 "Should not wait for the whole timeout of the wait: " + clock.getElapsed()),
+                                     () -> Assertions.assertTrue(first.getMessage().startsWith("hello : Deadline budget of 60000 ms exhausted after "),
+                                                                 "Should say that the budget was exhausted: " + first.getMessage()));
+                Duration elapsed = clock.getElapsed();
+                AssertionFailedError second = Assertions.assertThrows(AssertionFailedError.class,
+                                                                      () -> factory.within(Duration.ofMinutes(10)).thatEventually(() -> calls.incrementAndGet() > 0),
+                                                                      "Should fail later waits once the budget is used up.");
+                Assertions.assertAll(() -> Assertions.assertEquals(0, calls.get(), "Should not make an attempt."),
+                                     () -> Assertions.assertEquals(elapsed, clock.getElapsed(), "Should not wait."),
+                                     () -> Assertions.assertEquals("hello : Deadline budget of 60000 ms exhausted after 0 unsuccessful attempt(s)",
+                                                                   second.getMessage().split("\n")[0],
+                                                                   "Should say that the budget was exhausted."));
+            }
+        }
+
+        @Test
+        @DisplayName("leaves waits that fit in the budget unchanged")
+        void testLeavesWaitsWithinBudget() {
+            VirtualClock clock = VirtualClock.automatic();
+            try (InsistDeadline ignored = InsistDeadline.start(clock, Duration.ofHours(1))) {
+                AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                       () -> getFactory(clock).within(Duration.ofSeconds(10)).thatEventually(() -> false),
+                                                                       "Should fail once the wait's own timeout is reached.");
+                Assertions.assertTrue(failure.getMessage().startsWith("hello : Timeout reached after "),
+                                      "Should fail as usual: " + failure.getMessage());
+            }
+        }
+
+        @Test
+        @DisplayName("clamps waits for events to the remaining budget")
+        void testClampsEventWaits() {
+            try (InsistDeadline ignored = InsistDeadline.start(Duration.ofMillis(100))) {
+                long start = System.nanoTime();
+                AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                       () -> getFactory(InsistClock.system()).within(Duration.ofMinutes(1))
+                                                                                                           .thatEventuallyReceives(new LinkedBlockingQueue<>()),
+                                                                       "Should fail once the budget is used up.");
+                Assertions.assertAll(() -> Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                                                 "Should not wait for the whole timeout of the wait."),
+                                     () -> Assertions.assertTrue(failure.getMessage().startsWith("hello : Deadline budget of 100 ms exhausted"),
+                                                                 "Should say that the budget was exhausted: " + failure.getMessage()));
+            }
+        }
+
+        @Test
+        @DisplayName("is passed on to asynchronous attempts and clamps them")
+        void testPassedOnToAsyncAttempts() {
+            AtomicReference<Optional<InsistDeadline>> seen = new AtomicReference<>(Optional.empty());
+            AtomicBoolean failed = new AtomicBoolean(false);
+            try (InsistDeadline deadline = InsistDeadline.start(Duration.ofMillis(200))) {
+                CompletableFuture<Void> future = getFactory(InsistClock.system()).within(Duration.ofMinutes(1))
+                                                                                 .thatEventuallyAsync(() -> {
+                                                                                     seen.set(InsistDeadline.current());
+                                                                                     return false;
+                                                                                 })
+                                                                                 .toCompletableFuture();
+                Assertions.assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+                    try {
+                        future.join();
+                    } catch (RuntimeException exception) {
+                        failed.set(exception.getCause() instanceof AssertionFailedError
+                                   && exception.getCause().getMessage().startsWith("hello : Deadline budget of 200 ms exhausted"));
+                    }
+                }, "Should not wait for the whole timeout of the wait.");
+                Assertions.assertAll(() -> Assertions.assertEquals(Optional.of(deadline), seen.get(), "Should see the deadline in the attempts."),
+                                     () -> Assertions.assertTrue(failed.get(), "Should fail saying that the budget was exhausted."));
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.insist.executor.SoftFailureCollector;
+import com.redfin.validity.FailedValidationExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.opentest4j.MultipleFailuresError;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("An InsistPlan")
+final class InsistPlanTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final int ROWS = 1000;
+    private static final int PASSES = 200;
+    // Reading the counter may allocate a few bytes itself, a verifiable per step would be megabytes
+    private static final long ALLOCATION_TOLERANCE = 4096;
+
+    private static final class Row {
+
+        private final int quantity;
+        private final long id;
+        private final double price;
+        private final String name;
+
+        Row(int quantity, long id, double price, String name) {
+            this.quantity = quantity;
+            this.id = id;
+            this.price = price;
+            this.name = name;
+        }
+
+        int getQuantity() {
+            return quantity;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        double getPrice() {
+            return price;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+
+    private static <X extends Throwable> InsistPlan<Row, X> getPlan(FailedValidationExecutor<X> failedValidationExecutor) {
+        return new InsistVerifiableFactory<>(() -> "hello", failedValidationExecutor)
+                   .plan(Row.class)
+                   .thatInt(Row::getQuantity, q -> q >= 0, "quantity >= 0")
+                   .thatLong(Row::getId, id -> id > 0, "id > 0")
+                   .thatDouble(Row::getPrice, p -> p > 0, "price > 0")
+                   .that(Row::getName, n -> !n.isEmpty(), "non-empty name");
+    }
+
+    private static InsistPlan<Row, AssertionFailedError> getPlan() {
+        return getPlan(new AssertionFailedValidationExecutor());
+    }
+
+    private static Row getValidRow() {
+        return new Row(5, 1L, 9.99, "foo");
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Nested
+    @DisplayName("when built")
+    final class ConstructorTests {
+
+        @Test
+        @DisplayName("throws an exception for a null subject class")
+        void testThrowsForNullSubjectClass() {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                                    () -> new InsistVerifiableFactory<>(() -> "hello", new AssertionFailedValidationExecutor()).plan(null),
+                                    "Should throw for a null subject class.");
+        }
+
+        @Test
+        @DisplayName("throws an exception for null step arguments")
+        void testThrowsForNullStepArguments() {
+            InsistPlan<Row, AssertionFailedError> plan = getPlan();
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> plan.thatInt(null, q -> true, "foo"),
+                                                               "Should throw for a null extractor."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> plan.thatLong(Row::getId, null, "foo"),
+                                                               "Should throw for a null predicate."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> plan.thatDouble(Row::getPrice, p -> true, null),
+                                                               "Should throw for a null description."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> plan.that(null, n -> true, "foo"),
+                                                               "Should throw for a null extractor."));
+        }
+
+        @Test
+        @DisplayName("returns a new plan for each step and leaves itself unchanged")
+        void testStepsReturnNewPlans() {
+            InsistPlan<Row, AssertionFailedError> plan = getPlan();
+            InsistPlan<Row, AssertionFailedError> extended = plan.thatInt(Row::getQuantity, q -> q < 3, "quantity < 3");
+            Assertions.assertAll(() -> Assertions.assertEquals(4, plan.getStepCount(), "Should not change the original plan."),
+                                 () -> Assertions.assertEquals(5, extended.getStepCount(), "Should add the step to the new plan."),
+                                 () -> Assertions.assertDoesNotThrow(() -> plan.check(getValidRow()), "Should not apply the new step to the original plan."),
+                                 () -> Assertions.assertThrows(AssertionFailedError.class, () -> extended.check(getValidRow()), "Should apply the new step."),
+                                 () -> Assertions.assertEquals("InsistPlan[quantity >= 0, id > 0, price > 0, non-empty name, quantity < 3]",
+                                                               extended.toString(),
+                                                               "Should describe its steps."));
+        }
+    }
+
+    @Nested
+    @DisplayName("once built")
+    final class BehaviorTests {
+
+        @Test
+        @DisplayName("returns the subject when every step succeeds")
+        void testReturnsSubject() {
+            Row row = getValidRow();
+            Assertions.assertSame(row, getPlan().check(row), "Should return the given subject.");
+        }
+
+        @Test
+        @DisplayName("fails with the description of the step and the extracted value")
+        void testFailsWithStepDescription() {
+            AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                   () -> getPlan().check(new Row(5, 1L, -1.5, "foo")),
+                                                                   "Should throw for a failed step.");
+            Assertions.assertAll(() -> Assertions.assertTrue(failure.getMessage().startsWith("hello"),
+                                                             "Should use the message of the factory."),
+                                 () -> Assertions.assertEquals("price > 0",
+                                                               failure.getExpected().getValue(),
+                                                               "Should use the description of the failed step as the expected value."),
+                                 () -> Assertions.assertEquals(-1.5,
+                                                               failure.getActual().getValue(),
+                                                               "Should use the extracted value as the actual value."));
+        }
+
+        @Test
+        @DisplayName("extracts the value of a failing step only once")
+        void testExtractsOnceOnFailure() {
+            AtomicInteger extractions = new AtomicInteger(0);
+            InsistPlan<Row, AssertionFailedError> plan = new InsistVerifiableFactory<>(() -> null, new AssertionFailedValidationExecutor())
+                    .plan(Row.class)
+                    .thatInt(row -> {
+                        extractions.incrementAndGet();
+                        return row.getQuantity();
+                    }, q -> q >= 0, "quantity >= 0");
+            Assertions.assertThrows(AssertionFailedError.class,
+                                    () -> plan.check(new Row(-1, 1L, 9.99, "foo")),
+                                    "Should throw for a failed step.");
+            Assertions.assertEquals(1, extractions.get(), "Should extract the value only once.");
+        }
+
+        @Test
+        @DisplayName("fails for a null subject")
+        void testFailsForNullSubject() {
+            Assertions.assertThrows(AssertionFailedError.class,
+                                    () -> getPlan().check(null),
+                                    "Should throw for a null subject.");
+        }
+
+        @Test
+        @DisplayName("applies the remaining steps if the executor doesn't throw")
+        void testAppliesRemainingSteps() {
+            SoftFailureCollector collector = new SoftFailureCollector();
+            getPlan(collector).check(new Row(-1, 0L, 9.99, ""));
+            Assertions.assertEquals(3, collector.getFailureCount(), "Should record a failure for every failed step.");
+            Assertions.assertThrows(MultipleFailuresError.class, collector::throwIfFailed, "Should throw the recorded failures.");
+        }
+
+        @Test
+        @DisplayName("doesn't allocate when every step succeeds")
+        void testPassPathDoesNotAllocate() {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean,
+                                   "Counting allocated bytes requires com.sun.management.ThreadMXBean.");
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+            Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported(),
+                                   "Counting allocated bytes isn't supported by this JVM.");
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+            InsistPlan<Row, AssertionFailedError> plan = getPlan();
+            Row[] rows = new Row[ROWS];
+            for (int i = 0; i < ROWS; i++) {
+                rows[i] = new Row(i, i + 1L, i + 0.5, "row");
+            }
+            // Warm up so that class loading, linking, and compilation aren't counted
+            for (Row row : rows) {
+                plan.check(row);
+            }
+            long threadId = Thread.currentThread().getId();
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (Row row : rows) {
+                    plan.check(row);
+                }
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+            Assertions.assertTrue(allocated < ALLOCATION_TOLERANCE,
+                                  "Should not allocate on the pass path but allocated " + allocated + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.validity.verifiers.primitives.VerifiablePrimitiveDouble;
+import com.redfin.validity.verifiers.primitives.VerifiablePrimitiveInt;
+import com.redfin.validity.verifiers.primitives.VerifiablePrimitiveLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.opentest4j.AssertionFailedError;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleFunction;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+@DisplayName("The primitive verifiers of an InsistVerifiableFactory")
+final class InsistPrimitiveVerifierTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final int ITERATIONS = 200_000;
+    // Reading the counter may allocate a few bytes itself, one verifiable per iteration would be megabytes
+    private static final long ALLOCATION_TOLERANCE = 4096;
+
+    private static InsistVerifiableFactory<AssertionFailedError> getFactory() {
+        return new InsistVerifiableFactory<>(() -> "hello", new AssertionFailedValidationExecutor());
+    }
+
+    private static AssertionFailedError getFailure(Executable executable) {
+        return Assertions.assertThrows(AssertionFailedError.class, executable, "Should throw for a failed validation.");
+    }
+
+    private static void assertSameFailure(Executable expected, Executable actual) {
+        AssertionFailedError expectedFailure = getFailure(expected);
+        AssertionFailedError actualFailure = getFailure(actual);
+        Assertions.assertAll(() -> Assertions.assertEquals(expectedFailure.getMessage(),
+                                                           actualFailure.getMessage(),
+                                                           "Should fail with the same message as the verifiable object."),
+                             () -> Assertions.assertEquals(expectedFailure.getActual().getValue(),
+                                                           actualFailure.getActual().getValue(),
+                                                           "Should fail with the same actual value as the verifiable object."));
+    }
+
+    private static long getAllocatedBytes(Runnable runnable) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean,
+                               "Counting allocated bytes requires com.sun.management.ThreadMXBean.");
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported(),
+                               "Counting allocated bytes isn't supported by this JVM.");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        // Warm up so that class loading, linking, and compilation aren't counted
+        runnable.run();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        runnable.run();
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Nested
+    @DisplayName("once created")
+    final class BehaviorTests {
+
+        @Test
+        @DisplayName("are the same instances every time")
+        void testVerifiersAreCached() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            Assertions.assertAll(() -> Assertions.assertSame(factory.ints(), factory.ints(), "Should return the same int verifier."),
+                                 () -> Assertions.assertSame(factory.longs(), factory.longs(), "Should return the same long verifier."),
+                                 () -> Assertions.assertSame(factory.doubles(), factory.doubles(), "Should return the same double verifier."));
+        }
+
+        @Test
+        @DisplayName("return the subject when the validation succeeds")
+        void testReturnsSubject() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            Assertions.assertAll(() -> Assertions.assertEquals(5, factory.ints().isGreaterThan(5, 4), "Should return the int subject."),
+                                 () -> Assertions.assertEquals(5L, factory.longs().isAtMost(5L, 5L), "Should return the long subject."),
+                                 () -> Assertions.assertEquals(0.5, factory.doubles().isStrictlyPositive(0.5), "Should return the double subject."),
+                                 () -> Assertions.assertEquals(-1, factory.ints().satisfies(-1, t -> t < 0), "Should return the subject for a satisfied predicate."));
+        }
+
+        @Test
+        @DisplayName("fail the same way as the int verifiable object")
+        void testIntFailuresMatchVerifiable() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            InsistIntVerifier<AssertionFailedError> ints = factory.ints();
+            IntFunction<VerifiablePrimitiveInt<AssertionFailedError>> that = factory::that;
+            Assertions.assertAll(() -> assertSameFailure(() -> that.apply(1).isEqualTo(2), () -> ints.isEqualTo(1, 2)),
+                                 () -> assertSameFailure(() -> that.apply(1).isNotEqualTo(1), () -> ints.isNotEqualTo(1, 1)),
+                                 () -> assertSameFailure(() -> that.apply(1).isZero(), () -> ints.isZero(1)),
+                                 () -> assertSameFailure(() -> that.apply(0).isNotZero(), () -> ints.isNotZero(0)),
+                                 () -> assertSameFailure(() -> that.apply(0).isStrictlyPositive(), () -> ints.isStrictlyPositive(0)),
+                                 () -> assertSameFailure(() -> that.apply(0).isStrictlyNegative(), () -> ints.isStrictlyNegative(0)),
+                                 () -> assertSameFailure(() -> that.apply(1).isGreaterThan(1), () -> ints.isGreaterThan(1, 1)),
+                                 () -> assertSameFailure(() -> that.apply(1).isAtLeast(2), () -> ints.isAtLeast(1, 2)),
+                                 () -> assertSameFailure(() -> that.apply(1).isLessThan(1), () -> ints.isLessThan(1, 1)),
+                                 () -> assertSameFailure(() -> that.apply(2).isAtMost(1), () -> ints.isAtMost(2, 1)));
+        }
+
+        @Test
+        @DisplayName("fail the same way as the long verifiable object")
+        void testLongFailuresMatchVerifiable() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            InsistLongVerifier<AssertionFailedError> longs = factory.longs();
+            LongFunction<VerifiablePrimitiveLong<AssertionFailedError>> that = factory::that;
+            Assertions.assertAll(() -> assertSameFailure(() -> that.apply(1L).isEqualTo(2L), () -> longs.isEqualTo(1L, 2L)),
+                                 () -> assertSameFailure(() -> that.apply(1L).isZero(), () -> longs.isZero(1L)),
+                                 () -> assertSameFailure(() -> that.apply(1L).isGreaterThanOrEqualTo(2L), () -> longs.isGreaterThanOrEqualTo(1L, 2L)),
+                                 () -> assertSameFailure(() -> that.apply(2L).isLessThanOrEqualTo(1L), () -> longs.isLessThanOrEqualTo(2L, 1L)));
+        }
+
+        @Test
+        @DisplayName("fail the same way as the double verifiable object")
+        void testDoubleFailuresMatchVerifiable() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            InsistDoubleVerifier<AssertionFailedError> doubles = factory.doubles();
+            DoubleFunction<VerifiablePrimitiveDouble<AssertionFailedError>> that = factory::that;
+            Assertions.assertAll(() -> assertSameFailure(() -> that.apply(Double.NaN).isEqualTo(Double.NaN), () -> doubles.isEqualTo(Double.NaN, Double.NaN)),
+                                 () -> assertSameFailure(() -> that.apply(0.0).isNotZero(), () -> doubles.isNotZero(0.0)),
+                                 () -> assertSameFailure(() -> that.apply(1.5).isGreaterThan(2.5), () -> doubles.isGreaterThan(1.5, 2.5)),
+                                 () -> assertSameFailure(() -> that.apply(1.5).isStrictlyNegative(), () -> doubles.isStrictlyNegative(1.5)));
+        }
+
+        @Test
+        @DisplayName("fail for an unsatisfied predicate and throw for a null one")
+        void testSatisfies() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            Assertions.assertAll(() -> getFailure(() -> factory.ints().satisfies(1, t -> t < 0)),
+                                 () -> getFailure(() -> factory.longs().satisfies(1L, t -> t < 0)),
+                                 () -> getFailure(() -> factory.doubles().satisfies(1.0, t -> t < 0)),
+                                 () -> Assertions.assertThrows(NullPointerException.class,
+                                                               () -> factory.ints().satisfies(1, null),
+                                                               "Should throw for a null predicate."));
+        }
+
+        @Test
+        @DisplayName("don't allocate when validations succeed")
+        void testPassPathDoesNotAllocate() {
+            InsistVerifiableFactory<AssertionFailedError> factory = getFactory();
+            ToIntFunction<InsistVerifiableFactory<AssertionFailedError>> intLoop = f -> {
+                int sum = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    sum += f.ints().isAtLeast(i, 0);
+                    sum += f.ints().isNotEqualTo(i, -1);
+                    sum += f.ints().satisfies(i, t -> t >= 0);
+                }
+                return sum;
+            };
+            ToLongFunction<InsistVerifiableFactory<AssertionFailedError>> longLoop = f -> {
+                long sum = 0;
+                for (long i = 0; i < ITERATIONS; i++) {
+                    sum += f.longs().isLessThan(i, Long.MAX_VALUE);
+                    sum += f.longs().isStrictlyPositive(i + 1);
+                }
+                return sum;
+            };
+            ToDoubleFunction<InsistVerifiableFactory<AssertionFailedError>> doubleLoop = f -> {
+                double sum = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    sum += f.doubles().isGreaterThanOrEqualTo(i * 0.5, 0.0);
+                    sum += f.doubles().isEqualTo(0.25, 0.25);
+                }
+                return sum;
+            };
+            long allocated = getAllocatedBytes(() -> {
+                intLoop.applyAsInt(factory);
+                longLoop.applyAsLong(factory);
+                doubleLoop.applyAsDouble(factory);
+            });
+            Assertions.assertTrue(allocated < ALLOCATION_TOLERANCE,
+                                  "Should not allocate on the pass path but allocated " + allocated + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.insist.executor.SoftFailureCollector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+@DisplayName("An InsistStreamVerifier")
+final class InsistStreamVerifierTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final long SIZE = 1_000_000;
+
+    private static InsistStreamVerifier<Long, AssertionFailedError> getVerifier() {
+        return new InsistVerifiableFactory<>(() -> "hello", new AssertionFailedValidationExecutor()).streaming(Long.class);
+    }
+
+    private static Iterator<Long> getElements() {
+        // Generated as they are consumed so the elements are never all in memory
+        return LongStream.range(0, SIZE).boxed().iterator();
+    }
+
+    private static String getActual(InsistStreamVerifier<Long, AssertionFailedError> verifier, Long... elements) {
+        AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                               () -> verifier.check(Arrays.asList(elements).iterator()),
+                                                               "Should throw for a failed check.");
+        return (String) failure.getActual().getValue();
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Nested
+    @DisplayName("when built")
+    final class ConstructorTests {
+
+        @Test
+        @DisplayName("throws an exception for invalid arguments")
+        void testThrowsForInvalidArguments() {
+            InsistStreamVerifier<Long, AssertionFailedError> verifier = getVerifier();
+            Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> new InsistVerifiableFactory<>(() -> "hello", new AssertionFailedValidationExecutor()).streaming(null),
+                                                               "Should throw for a null element class."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> verifier.each(null, "foo"),
+                                                               "Should throw for a null predicate."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> verifier.hasCountBetween(5, 4),
+                                                               "Should throw for a maximum count less than the minimum."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> verifier.isBetween(Comparator.naturalOrder(), 5L, 4L),
+                                                               "Should throw for a maximum less than the minimum."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> verifier.isDistinct(Long::longValue, 0),
+                                                               "Should throw for a non-positive expected count."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> verifier.withMaxReportedFailures(0),
+                                                               "Should throw for a non-positive number of reported failures."),
+                                 () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                               () -> verifier.check((Iterator<Long>) null),
+                                                               "Should throw for a null source."));
+        }
+
+        @Test
+        @DisplayName("returns a new verifier for each check and leaves itself unchanged")
+        void testChecksReturnNewVerifiers() {
+            InsistStreamVerifier<Long, AssertionFailedError> verifier = getVerifier().hasCount(3);
+            InsistStreamVerifier<Long, AssertionFailedError> extended = verifier.isSorted(Comparator.naturalOrder());
+            Assertions.assertAll(() -> Assertions.assertEquals(1, verifier.getCheckCount(), "Should not change the original verifier."),
+                                 () -> Assertions.assertEquals(2, extended.getCheckCount(), "Should add the check to the new verifier."),
+                                 () -> Assertions.assertEquals("InsistStreamVerifier[count == 3 and sorted]",
+                                                               extended.toString(),
+                                                               "Should describe its checks."));
+        }
+    }
+
+    @Nested
+    @DisplayName("once built")
+    final class BehaviorTests {
+
+        @Test
+        @DisplayName("checks a large source once and returns the number of elements")
+        void testChecksLargeSource() {
+            InsistStreamVerifier<Long, AssertionFailedError> verifier = getVerifier().each(l -> l >= 0, "non-negative")
+                                                                                     .hasCount(SIZE)
+                                                                                     .isSorted(Comparator.naturalOrder())
+                                                                                     .isBetween(Comparator.naturalOrder(), 0L, SIZE)
+                                                                                     .isDistinct(Long::longValue, SIZE);
+            Assertions.assertEquals(SIZE, verifier.check(getElements()), "Should check every element of the iterator.");
+        }
+
+        @Test
+        @DisplayName("accepts iterators, spliterators, and streams")
+        void testAcceptsSources() {
+            InsistStreamVerifier<Long, AssertionFailedError> verifier = getVerifier().hasCount(3);
+            Assertions.assertAll(() -> Assertions.assertEquals(3, verifier.check(Arrays.asList(1L, 2L, 3L).iterator())),
+                                 () -> Assertions.assertEquals(3, verifier.check(Arrays.asList(1L, 2L, 3L).spliterator())),
+                                 () -> Assertions.assertEquals(3, verifier.check(Stream.of(1L, 2L, 3L))));
+        }
+
+        @Test
+        @DisplayName("reports the positions of elements that fail a predicate")
+        void testReportsPredicateFailures() {
+            Assertions.assertEquals("5 elements, 2 failed: [1] <-1> fails non-negative, [3] <-3> fails non-negative",
+                                    getActual(getVerifier().each(l -> l >= 0, "non-negative"), 0L, -1L, 2L, -3L, 4L),
+                                    "Should list the offending positions.");
+        }
+
+        @Test
+        @DisplayName("reports elements that are out of order")
+        void testReportsUnsorted() {
+            Assertions.assertEquals("4 elements, 1 failed: [2] <1> is out of order",
+                                    getActual(getVerifier().isSorted(Comparator.naturalOrder()), 1L, 2L, 1L, 3L),
+                                    "Should list the element that is smaller than the one before it.");
+        }
+
+        @Test
+        @DisplayName("reports duplicate elements")
+        void testReportsDuplicates() {
+            Assertions.assertEquals("4 elements, 1 failed: [3] <7> may be a duplicate",
+                                    getActual(getVerifier().isDistinct(Long::longValue, 100), 7L, 8L, 9L, 7L),
+                                    "Should list the repeated element.");
+        }
+
+        @Test
+        @DisplayName("stays precise past the expected number of distinct elements")
+        void testDistinctPastExpectedCount() {
+            InsistStreamVerifier<Long, AssertionFailedError> verifier = getVerifier().isDistinct(Long::longValue, 4);
+            Assertions.assertAll(() -> Assertions.assertEquals(SIZE, verifier.check(getElements()), "Should not report distinct elements as duplicates."),
+                                 () -> Assertions.assertEquals("7 elements; 2 later elements may be duplicates of the first 4 distinct ones",
+                                                               getActual(verifier, 1L, 2L, 3L, 4L, 5L, 1L, 4L),
+                                                               "Should count the later duplicates."));
+        }
+
+        @Test
+        @DisplayName("reports the count and the range of the elements")
+        void testReportsAggregates() {
+            Assertions.assertAll(() -> Assertions.assertEquals("2 elements; count of 2 is not between 3 and 5",
+                                                               getActual(getVerifier().hasCountBetween(3, 5), 1L, 2L)),
+                                 () -> Assertions.assertEquals("3 elements, 1 failed: [2] <12> is not between <0> and <10>; min <1>, max <12>",
+                                                               getActual(getVerifier().isBetween(Comparator.naturalOrder(), 0L, 10L), 5L, 1L, 12L)));
+        }
+
+        @Test
+        @DisplayName("counts every failure but only lists the first ones")
+        void testLimitsReportedFailures() {
+            Assertions.assertEquals("4 elements, 4 failed: [0] <1> fails negative, [1] <2> fails negative, and 2 more",
+                                    getActual(getVerifier().withMaxReportedFailures(2).each(l -> l < 0, "negative"), 1L, 2L, 3L, 4L),
+                                    "Should count every failure.");
+        }
+
+        @Test
+        @DisplayName("reports the failures once through the executor")
+        void testReportsOnce() {
+            SoftFailureCollector collector = new SoftFailureCollector();
+            long count = new InsistVerifiableFactory<>(() -> "hello", collector).streaming(Long.class)
+                                                                                .each(l -> l < 0, "negative")
+                                                                                .hasCount(5)
+                                                                                .check(getElements());
+            Assertions.assertAll(() -> Assertions.assertEquals(SIZE, count, "Should return the number of elements."),
+                                 () -> Assertions.assertEquals(1, collector.getFailureCount(), "Should report all of the failures as one."));
+        }
+    }
+}
@@ -16,7 +16,10 @@
 
 package com.redfin.insist.impl;
 
+import com.redfin.insist.InsistClock;
+import com.redfin.insist.VirtualClock;
 import com.redfin.insist.executor.AssertionFailedValidationExecutor;
+import com.redfin.patience.PatientDelaySuppliers;
 import com.redfin.patience.PatientRetry;
 import com.redfin.patience.PatientWait;
 import com.redfin.validity.FailedValidationExecutor;
@@ -34,6 +37,9 @@ import org.opentest4j.AssertionFailedError;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -241,6 +247,268 @@ final class InsistVerifiableFactoryTest {
             }
         }
 
+        @Nested
+        @DisplayName("for clocks")
+        final class ClockTests {
+
+            @Test
+            @DisplayName("uses the system clock by default")
+            void testUsesSystemClockByDefault() {
+                Assertions.assertSame(InsistClock.system(),
+                                      getInstance().getClock(),
+                                      "Should use the system clock by default.");
+            }
+
+            @Test
+            @DisplayName("when withClock(InsistClock) is called it throws exception for null")
+            void testWithClockThrowsForNull() {
+                Assertions.assertThrows(IllegalArgumentException.class,
+                                        () -> getInstance().withClock(null),
+                                        "Should throw an exception for withClock(InsistClock) with a null clock.");
+            }
+
+            @Test
+            @DisplayName("when withClock(InsistClock) is called it returns a factory that keeps the clock")
+            void testWithClockKeepsClock() {
+                VirtualClock clock = VirtualClock.automatic();
+                Assertions.assertSame(clock,
+                                      getInstance().withClock(clock).withMessage("foo").getClock(),
+                                      "Should keep the given clock when setting a message.");
+            }
+
+            @Test
+            @DisplayName("waits on an automatic virtual clock without waiting in real time")
+            void testWaitsOnAutomaticVirtualClock() {
+                VirtualClock clock = VirtualClock.automatic();
+                AtomicInteger attempts = new AtomicInteger(0);
+                long start = System.nanoTime();
+                AssertionFailedError error = Assertions.assertThrows(AssertionFailedError.class,
+                                                                     () -> getInstance().withClock(clock)
+                                                                                        .withDelays(PatientDelaySuppliers.fixed(Duration.ofMillis(500)))
+                                                                                        .within(Duration.ofMinutes(1))
+                                                                                        .thatEventually(() -> attempts.incrementAndGet() < 0),
+                                                                     "Should fail once the virtual timeout is reached.");
+                Assertions.assertAll(() -> Assertions.assertEquals(120, attempts.get(), "Should attempt every 500 milliseconds for a minute."),
+                                     () -> Assertions.assertEquals(Duration.ofMillis(59_500), clock.getElapsed(), "Should advance the clock by the delays."),
+                                     () -> Assertions.assertTrue(error.getMessage().startsWith("hello : Timeout reached after 120 unsuccessful attempt(s)"),
+                                                                 "Should report the attempts made."),
+                                     () -> Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30),
+                                                                 "Should not wait in real time."));
+            }
+
+            @Test
+            @DisplayName("retries on an automatic virtual clock without waiting in real time")
+            void testRetriesOnAutomaticVirtualClock() {
+                VirtualClock clock = VirtualClock.automatic();
+                AtomicInteger attempts = new AtomicInteger(0);
+                Assertions.assertThrows(AssertionFailedError.class,
+                                        () -> getInstance().withClock(clock)
+                                                           .withDelays(PatientDelaySuppliers.fixed(Duration.ofMillis(500)))
+                                                           .within(3)
+                                                           .thatEventually(() -> attempts.incrementAndGet() < 0),
+                                        "Should fail once the retries are used up.");
+                Assertions.assertAll(() -> Assertions.assertEquals(4, attempts.get(), "Should attempt once plus the number of retries."),
+                                     () -> Assertions.assertEquals(Duration.ofMillis(1_500), clock.getElapsed(), "Should advance the clock by the delays."));
+            }
+
+            @Test
+            @DisplayName("waits on a manual virtual clock until it is advanced")
+            void testWaitsOnManualVirtualClock() throws Exception {
+                VirtualClock clock = VirtualClock.manual();
+                AtomicInteger attempts = new AtomicInteger(0);
+                CompletableFuture<Void> result = CompletableFuture.runAsync(() -> getInstance().withClock(clock)
+                                                                                               .withDelays(PatientDelaySuppliers.fixed(Duration.ofMillis(500)))
+                                                                                               .within(Duration.ofHours(1))
+                                                                                               .thatEventually(() -> attempts.incrementAndGet() >= 3));
+                for (int i = 1; i < 3; i++) {
+                    // Wait for the sleep that follows attempt i
+                    while (attempts.get() < i || clock.getSleeperCount() == 0) {
+                        Thread.sleep(1);
+                    }
+                    Assertions.assertFalse(result.isDone(),
+                                           "Should not finish before the clock is advanced.");
+                    clock.advance(Duration.ofMillis(500));
+                }
+                result.get(10, TimeUnit.SECONDS);
+                Assertions.assertEquals(3,
+                                        attempts.get(),
+                                        "Should attempt once per advance of the clock.");
+            }
+        }
+
+        @Nested
+        @DisplayName("for delays")
+        final class DelayTests {
+
+            @Test
+            @DisplayName("when withDelays(PatientDelaySupplierFactory) is called it throws exception for null")
+            void testWithDelaysThrowsForNull() {
+                Assertions.assertThrows(IllegalArgumentException.class,
+                                        () -> getInstance().withDelays(null),
+                                        "Should throw an exception for withDelays(PatientDelaySupplierFactory) with a null factory.");
+            }
+
+            @Test
+            @DisplayName("backs off adaptively by default")
+            void testBacksOffAdaptivelyByDefault() {
+                VirtualClock clock = VirtualClock.automatic();
+                AtomicInteger attempts = new AtomicInteger(0);
+                Assertions.assertThrows(AssertionFailedError.class,
+                                        () -> getInstance().withClock(clock)
+                                                           .within(10)
+                                                           .thatEventually(() -> attempts.incrementAndGet() < 0),
+                                        "Should fail once the retries are used up.");
+                // Ten nominal delays of 0.5ms doubling each time sum to 511.5ms before jitter
+                Assertions.assertAll(() -> Assertions.assertEquals(11, attempts.get(), "Should attempt once plus the number of retries."),
+                                     () -> Assertions.assertTrue(clock.getElapsed().compareTo(Duration.ofMillis(255)) >= 0,
+                                                                 "Should wait at least half of the nominal delays."),
+                                     () -> Assertions.assertTrue(clock.getElapsed().compareTo(Duration.ofMillis(512)) < 0,
+                                                                 "Should wait less than ten fixed 500ms delays would."));
+            }
+
+            @Test
+            @DisplayName("keeps the delays when a message is set")
+            void testKeepsDelaysWithMessage() {
+                VirtualClock clock = VirtualClock.automatic();
+                Assertions.assertThrows(AssertionFailedError.class,
+                                        () -> getInstance().withClock(clock)
+                                                           .withDelays(PatientDelaySuppliers.fixed(Duration.ofSeconds(1)))
+                                                           .withMessage("foo")
+                                                           .within(2)
+                                                           .thatEventually(() -> false),
+                                        "Should fail once the retries are used up.");
+                Assertions.assertEquals(Duration.ofSeconds(2),
+                                        clock.getElapsed(),
+                                        "Should use the delays of the factory the message was set on.");
+            }
+        }
+
+        @Nested
+        @DisplayName("for tuners")
+        final class TunerTests {
+
+            @Test
+            @DisplayName("when withTuner(CallSiteTuner) is called it throws exception for null")
+            void testWithTunerThrowsForNull() {
+                Assertions.assertThrows(IllegalArgumentException.class,
+                                        () -> getInstance().withTuner(null),
+                                        "Should throw an exception for withTuner(CallSiteTuner) with a null tuner.");
+            }
+
+            @Test
+            @DisplayName("makes fewer attempts once a call site has been learned")
+            void testLearnsCallSite() {
+                VirtualClock clock = VirtualClock.automatic();
+                InsistVerifiableFactory<AssertionFailedError> factory = getInstance().withClock(clock)
+                                                                                     .withDelays(PatientDelaySuppliers.fixed(Duration.ofMillis(10)))
+                                                                                     .withTuner(CallSiteTuner.inMemory());
+                int[] attempts = new int[4];
+                for (int i = 0; i < attempts.length; i++) {
+                    int run = i;
+                    long readyAt = clock.nanoTime() + Duration.ofMillis(100).toNanos();
+                    factory.within(Duration.ofSeconds(10))
+                           .thatEventually(() -> ++attempts[run] > 0 && clock.nanoTime() >= readyAt);
+                }
+                Assertions.assertAll(() -> Assertions.assertEquals(11, attempts[0], "Should poll every 10ms before learning."),
+                                     () -> Assertions.assertTrue(attempts[3] < attempts[0], "Should make fewer attempts once learned."));
+            }
+        }
+
+        @Nested
+        @DisplayName("for attempt timeouts")
+        final class AttemptTimeoutTests {
+
+            @Test
+            @DisplayName("when withAttemptTimeout(Duration) is called it throws exception for invalid timeouts")
+            void testWithAttemptTimeoutThrowsForInvalid() {
+                Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withAttemptTimeout(null),
+                                                                   "Should throw an exception for a null attempt timeout."),
+                                     () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withAttemptTimeout(Duration.ofMillis(-1)),
+                                                                   "Should throw an exception for a negative attempt timeout."));
+            }
+
+            @Test
+            @DisplayName("gives up on hanging attempts of within(Duration)")
+            void testWithinGivesUpOnHangingAttempts() {
+                InsistVerifiableFactory<AssertionFailedError> factory = getInstance().withMessage("foo")
+                                                                                     .withAttemptTimeout(Duration.ofMillis(50));
+                long start = System.nanoTime();
+                AssertionFailedError failure = Assertions.assertThrows(AssertionFailedError.class,
+                                                                       () -> factory.within(Duration.ofMillis(200)).thatEventually(() -> {
+                                                                           try {
+                                                                               Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                                                                           } catch (InterruptedException ignored) {
+                                                                               Thread.currentThread().interrupt();
+                                                                           }
+                                                                           return true;
+                                                                       }),
+                                                                       "Should throw if every attempt hangs.");
+                Assertions.assertAll(() -> Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10),
+                                                                 "Should not wait for a hanging attempt."),
+                                     () -> Assertions.assertTrue(failure.getMessage().startsWith("foo : Timeout reached after"),
+                                                                 "Should keep the message of the factory."),
+                                     () -> Assertions.assertTrue(failure.getMessage().contains("of which timed out after 50 ms"),
+                                                                 "Should count the timed out attempts."));
+            }
+        }
+
+        @Nested
+        @DisplayName("with hedging")
+        final class HedgingTests {
+
+            @Test
+            @DisplayName("when withHedging(Duration, int) is called it throws exception for invalid arguments")
+            void testWithHedgingThrowsForInvalid() {
+                Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withHedging(null, 2),
+                                                                   "Should throw an exception for a null hedge delay."),
+                                     () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withHedging(Duration.ZERO, 2),
+                                                                   "Should throw an exception for a zero hedge delay."),
+                                     () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withHedging(Duration.ofMillis(10), 1),
+                                                                   "Should throw an exception for fewer than two attempts in flight."));
+            }
+
+            @Test
+            @DisplayName("when withTunedHedging(double, int) is called it throws exception for invalid arguments")
+            void testWithTunedHedgingThrowsForInvalid() {
+                Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withTunedHedging(0, 2),
+                                                                   "Should throw an exception for a zero percentile."),
+                                     () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withTunedHedging(1, 2),
+                                                                   "Should throw an exception for a percentile of one."),
+                                     () -> Assertions.assertThrows(IllegalArgumentException.class,
+                                                                   () -> getInstance().withTunedHedging(0.95, 1),
+                                                                   "Should throw an exception for fewer than two attempts in flight."));
+            }
+
+            @Test
+            @DisplayName("hedges slow attempts of within(Duration)")
+            void testWithinHedgesSlowAttempts() {
+                AtomicInteger calls = new AtomicInteger(0);
+                long start = System.nanoTime();
+                Assertions.assertAll(() -> getInstance().withHedging(Duration.ofMillis(50), 2)
+                                                        .within(Duration.ofMinutes(1))
+                                                        .thatEventually(() -> {
+                                                            if (calls.incrementAndGet() == 1) {
+                                                                try {
+                                                                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                                                                } catch (InterruptedException ignored) {
+                                                                    Thread.currentThread().interrupt();
+                                                                }
+                                                                return false;
+                                                            }
+                                                            return true;
+                                                        }));
+                Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(20),
+                                      "Should not wait for the slow attempt once a hedged attempt succeeds.");
+            }
+        }
+
         @Nested
         @DisplayName("for thatThrows")
         final class ThatThrowsTests {
@@ -278,6 +546,23 @@ final class InsistVerifiableFactoryTest {
                                                                        () -> { throw new RuntimeException(); }),
                                         "Should throw expected exception for no throwable of expected type.");
             }
+
+            @ParameterizedTest
+            @DisplayName("fails with the same message and stack trace as a retry with no retries")
+            @ValueSource(strings = {"", "hello"})
+            void testFailsLikeRetry(String message) {
+                InsistVerifiableFactory<AssertionFailedError> factory = getInstance(getMessageSupplier(message.isEmpty() ? null : message),
+                                                                                    getFailedValidationExecutor());
+                AssertionFailedError direct = Assertions.assertThrows(AssertionFailedError.class,
+                                                                      () -> factory.thatThrows(RuntimeException.class, () -> {}));
+                AssertionFailedError retried = Assertions.assertThrows(AssertionFailedError.class,
+                                                                       () -> factory.within(0).thatEventuallyThrows(RuntimeException.class, () -> {}));
+                Assertions.assertAll(() -> Assertions.assertEquals(retried.getMessage(), direct.getMessage(), "Should have the same message."),
+                                     () -> Assertions.assertEquals(1, direct.getStackTrace().length, "Should trim the stack trace to the caller."),
+                                     () -> Assertions.assertEquals(retried.getStackTrace()[0].getClassName(),
+                                                                   direct.getStackTrace()[0].getClassName(),
+                                                                   "Should trim the stack trace to the same caller."));
+            }
         }
     }
 }
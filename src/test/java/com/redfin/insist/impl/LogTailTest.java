@@ -0,0 +1,123 @@
+/*
+ * Copyright: (c) 2016 Redfin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.redfin.insist.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+@DisplayName("A LogTail")
+final class LogTailTest {
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test constants, requirements, and helpers
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final Pattern STARTED = Pattern.compile("started in \\d+ms");
+
+    private static void append(Path file, String text) throws IOException {
+        Files.write(file,
+                    text.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+    }
+
+    private static String repeat(char c, int times) {
+        char[] chars = new char[times];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+    // Test cases
+    // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    @Test
+    @DisplayName("throws an exception for invalid arguments")
+    void testThrowsForInvalidArguments(@TempDir Path directory) {
+        Assertions.assertAll(() -> Assertions.assertThrows(IllegalArgumentException.class, () -> new LogTail(null, STARTED)),
+                             () -> Assertions.assertThrows(IllegalArgumentException.class, () -> new LogTail(directory, null)));
+    }
+
+    @Test
+    @DisplayName("matches only complete lines as they are appended")
+    void testMatchesCompleteLines(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("service.log");
+        try (LogTail tail = new LogTail(file, STARTED)) {
+            tail.refresh();
+            Assertions.assertEquals("does not exist", tail.describe(), "Should describe a missing file.");
+            append(file, "booting\r\nstarted in 12");
+            tail.refresh();
+            Assertions.assertFalse(tail.isSatisfied(), "Should not match a partially written line.");
+            Assertions.assertEquals("no matching line in 1 line(s)", tail.describe(), "Should count the complete lines.");
+            append(file, "3ms\r\nready\n");
+            tail.refresh();
+            Assertions.assertEquals("started in 123ms", tail.getMatch(), "Should match the completed line without its terminator.");
+        }
+    }
+
+    @Test
+    @DisplayName("matches a line spanning reads with a character split between them")
+    void testMatchesAcrossReads(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("service.log");
+        // Puts the two bytes of the 'é' on either side of the end of the first read
+        String line = repeat('x', 8191) + "é started in 5ms";
+        append(file, line + "\n");
+        try (LogTail tail = new LogTail(file, STARTED)) {
+            tail.refresh();
+            Assertions.assertEquals(line, tail.getMatch(), "Should decode and match the line spanning reads.");
+        }
+    }
+
+    @Test
+    @DisplayName("follows a rotated file from its start after finishing the old one")
+    void testFollowsRotation(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("service.log");
+        append(file, "booting\n");
+        try (LogTail tail = new LogTail(file, STARTED)) {
+            tail.refresh();
+            append(file, "still booting\n");
+            Files.move(file, directory.resolve("service.log.1"));
+            append(file, "started in 7ms\n");
+            tail.refresh();
+            Assertions.assertEquals("started in 7ms", tail.getMatch(), "Should match in the new file.");
+            Assertions.assertEquals("no matching line in 3 line(s)", tail.describe(), "Should have read the rest of the old file first.");
+        }
+    }
+
+    @Test
+    @DisplayName("follows a truncated file from its start")
+    void testFollowsTruncation(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("service.log");
+        append(file, "booting for a long while\n");
+        try (LogTail tail = new LogTail(file, STARTED)) {
+            tail.refresh();
+            Files.write(file, "started in 9ms\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            tail.refresh();
+            Assertions.assertEquals("started in 9ms", tail.getMatch(), "Should match after the file was truncated.");
+        }
+    }
+}